@@ -1,11 +1,16 @@
 package com.ignithon;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.web.client.RestTemplate;
 
 @SpringBootApplication
 @EnableJpaAuditing
@@ -16,8 +21,22 @@ public class FoodDonationApplication {
         SpringApplication.run(FoodDonationApplication.class, args);
     }
 
+    /**
+     * Shared client for Google Maps calls. Connections are pooled and kept alive by the
+     * client; responses are handled on a small dedicated pool instead of servlet threads.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public HttpClient httpClient(@Value("${app.maps.http.connect-timeout-ms:2000}") long connectTimeoutMs,
+                                 @Value("${app.maps.http.worker-threads:8}") int workerThreads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(Executors.newFixedThreadPool(workerThreads, runnable -> {
+                    Thread thread = new Thread(runnable, "maps-http-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }))
+                .build();
     }
-} 
\ No newline at end of file
+}
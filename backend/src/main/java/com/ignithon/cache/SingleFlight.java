@@ -0,0 +1,50 @@
+package com.ignithon.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key into one in-flight computation.
+ *
+ * The first caller for a key starts the call; everyone arriving before it completes gets
+ * the same future. The key is released on completion, so later calls start fresh (caching
+ * finished results is left to the caller). Shared results must be treated as read-only.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call) {
+        CompletableFuture<V> placeholder = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, placeholder);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return existing;
+        }
+
+        started.incrementAndGet();
+        try {
+            call.get().whenComplete((value, error) -> {
+                inFlight.remove(key, placeholder);
+                if (error != null) {
+                    placeholder.completeExceptionally(error);
+                } else {
+                    placeholder.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, placeholder);
+            placeholder.completeExceptionally(e);
+        }
+        return placeholder;
+    }
+
+    public int inFlightCount() { return inFlight.size(); }
+    public long getStarted() { return started.get(); }
+    public long getCoalesced() { return coalesced.get(); }
+}
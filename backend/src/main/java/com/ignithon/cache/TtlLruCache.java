@@ -0,0 +1,139 @@
+package com.ignithon.cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache with least-recently-used eviction and a per-entry time to live.
+ * Backed by an access-ordered LinkedHashMap; all operations lock the cache, which is
+ * fine for the small values and request rates it is used for.
+ */
+public class TtlLruCache<K, V> {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public TtlLruCache(int maxEntries, long ttlMillis) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > TtlLruCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Cached value, or null when absent or expired
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(key);
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+    }
+
+    /**
+     * Insert with an explicit expiry, e.g. when restoring a persisted snapshot
+     */
+    public synchronized void put(K key, V value, long expiresAtMillis) {
+        if (expiresAtMillis > System.currentTimeMillis()) {
+            entries.put(key, new Entry<>(value, expiresAtMillis));
+        }
+    }
+
+    public synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Drop expired entries; returns how many were removed
+     */
+    public synchronized int purgeExpired() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        Iterator<Entry<V>> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().expiresAt <= now) {
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Live entries from least to most recently used, so replaying them keeps LRU order
+     */
+    public synchronized List<Snapshot<K, V>> snapshot() {
+        long now = System.currentTimeMillis();
+        List<Snapshot<K, V>> result = new ArrayList<>(entries.size());
+        for (Map.Entry<K, Entry<V>> e : entries.entrySet()) {
+            if (e.getValue().expiresAt > now) {
+                result.add(new Snapshot<>(e.getKey(), e.getValue().value, e.getValue().expiresAt));
+            }
+        }
+        return result;
+    }
+
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public static final class Snapshot<K, V> {
+        private final K key;
+        private final V value;
+        private final long expiresAt;
+
+        Snapshot(K key, V value, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        public K getKey() { return key; }
+        public V getValue() { return value; }
+        public long getExpiresAt() { return expiresAt; }
+    }
+}
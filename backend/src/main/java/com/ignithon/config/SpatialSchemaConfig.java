@@ -0,0 +1,84 @@
+package com.ignithon.config;
+
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.ignithon.entity.Donation;
+
+/**
+ * Adds the PostGIS objects Hibernate cannot generate: a stored geography column
+ * derived from latitude/longitude and its GiST index. Also re-creates the donation status
+ * check from the current enum, which schema updates leave at the values it first had, and
+ * orders the volunteer rating index NULLS LAST like the leaderboard query.
+ * All statements are idempotent and only run against PostgreSQL (the H2 profile keeps
+ * plain columns).
+ */
+@Configuration
+public class SpatialSchemaConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpatialSchemaConfig.class);
+
+    private static final List<String> POSTGIS_DDL = List.of(
+        "CREATE EXTENSION IF NOT EXISTS postgis",
+        "ALTER TABLE users ADD COLUMN IF NOT EXISTS location geography(Point, 4326) " +
+            "GENERATED ALWAYS AS (CAST(ST_SetSRID(ST_MakePoint(longitude, latitude), 4326) AS geography)) STORED",
+        "CREATE INDEX IF NOT EXISTS idx_users_location ON users USING GIST (location)",
+        // ddl-auto=update never revisits the enum check it created, so new statuses would be rejected
+        "ALTER TABLE donations DROP CONSTRAINT IF EXISTS donations_status_check",
+        "ALTER TABLE donations ADD CONSTRAINT donations_status_check CHECK (status IN (" + statusValues() + "))",
+        // Hibernate cannot declare NULLS LAST; the rating leaderboard query needs it to scan the index
+        "DO $$ BEGIN " +
+            "IF EXISTS (SELECT 1 FROM pg_indexes WHERE indexname = 'idx_volunteers_rating' " +
+            "AND indexdef NOT LIKE '%NULLS LAST%') THEN DROP INDEX idx_volunteers_rating; END IF; END $$",
+        "CREATE INDEX IF NOT EXISTS idx_volunteers_rating ON volunteers (average_rating DESC NULLS LAST, id)"
+    );
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createSpatialSchema() {
+        if (!isPostgres()) {
+            logger.info("Skipping PostGIS schema setup: database is not PostgreSQL");
+            return;
+        }
+
+        for (String statement : POSTGIS_DDL) {
+            try {
+                jdbcTemplate.execute(statement);
+            } catch (Exception e) {
+                logger.warn("Failed to apply spatial schema statement: {}", statement, e);
+            }
+        }
+    }
+
+    private static String statusValues() {
+        return Arrays.stream(Donation.DonationStatus.values())
+                .map(status -> "'" + status.name() + "'")
+                .collect(Collectors.joining(", "));
+    }
+
+    private boolean isPostgres() {
+        try (Connection connection = dataSource.getConnection()) {
+            return "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        } catch (Exception e) {
+            logger.warn("Could not determine database type", e);
+            return false;
+        }
+    }
+}
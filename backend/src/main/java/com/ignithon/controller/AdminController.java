@@ -4,6 +4,9 @@ import com.ignithon.entity.Donor;
 import com.ignithon.entity.NGO;
 import com.ignithon.repository.DonorRepository;
 import com.ignithon.repository.NGORepository;
+import com.ignithon.service.DispatchService;
+import com.ignithon.service.DonationMatchingService;
+import com.ignithon.service.FleetRoutingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -24,6 +27,15 @@ public class AdminController {
     @Autowired
     private NGORepository ngoRepository;
 
+    @Autowired
+    private DonationMatchingService donationMatchingService;
+
+    @Autowired
+    private FleetRoutingService fleetRoutingService;
+
+    @Autowired
+    private DispatchService dispatchService;
+
     /**
      * Get admin dashboard statistics
      */
@@ -73,4 +85,46 @@ public class AdminController {
             return ResponseEntity.badRequest().body("Failed to get NGOs: " + e.getMessage());
         }
     }
+
+    /**
+     * Run a donation-to-NGO matching round immediately
+     */
+    @PostMapping("/matching/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> runDonationMatching() {
+        try {
+            Map<String, Object> result = donationMatchingService.matchPendingDonations();
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to run donation matching: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Plan pickup routes for all available delivery drivers
+     */
+    @PostMapping("/fleet/plan")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> planFleetRoutes() {
+        try {
+            Map<String, Object> result = fleetRoutingService.planPickupRoutes();
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to plan fleet routes: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Run a driver dispatch round immediately
+     */
+    @PostMapping("/dispatch/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> runDispatch() {
+        try {
+            Map<String, Object> result = dispatchService.dispatchAcceptedDonations();
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to run dispatch: " + e.getMessage());
+        }
+    }
 }
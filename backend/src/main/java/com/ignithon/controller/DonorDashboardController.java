@@ -17,10 +17,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.ignithon.dto.DonorSummary;
 import com.ignithon.entity.Donation;
 import com.ignithon.entity.Donor;
 import com.ignithon.service.DonationService;
 import com.ignithon.service.DonorService;
+import com.ignithon.service.DonorSummaryService;
 import com.ignithon.service.PredictionService;
 
 @RestController
@@ -37,6 +39,9 @@ public class DonorDashboardController {
     @Autowired
     private PredictionService predictionService;
 
+    @Autowired
+    private DonorSummaryService donorSummaryService;
+
     /**
      * Get donor's dashboard overview
      */
@@ -44,13 +49,14 @@ public class DonorDashboardController {
     public ResponseEntity<?> getDashboardOverview() {
         try {
             String email = SecurityContextHolder.getContext().getAuthentication().getName();
-            Donor donor = donorService.findByEmail(email);
+            DonorSummary summary = donorSummaryService.getSummary(email);
+            Donor donor = summary.getDonor();
             
             Map<String, Object> overview = new HashMap<>();
             overview.put("donor", donor);
-            overview.put("totalDonations", donationService.countByDonorId(donor.getId()));
-            overview.put("pendingDonations", donationService.countByDonorIdAndStatus(donor.getId(), "PENDING"));
-            overview.put("completedDonations", donationService.countByDonorIdAndStatus(donor.getId(), "DELIVERED"));
+            overview.put("totalDonations", summary.getTotalDonations());
+            overview.put("pendingDonations", summary.getPendingDonations());
+            overview.put("completedDonations", summary.getDeliveredDonations());
             overview.put("totalMealsDonated", donationService.calculateTotalMealsDonated(donor.getId()));
             overview.put("co2Saved", donationService.calculateCO2Saved(donor.getId()));
             overview.put("badges", donorService.getDonorBadges(donor.getId()));
@@ -86,15 +92,19 @@ public class DonorDashboardController {
     public ResponseEntity<?> getImpactMetrics() {
         try {
             String email = SecurityContextHolder.getContext().getAuthentication().getName();
-            Donor donor = donorService.findByEmail(email);
+            DonorSummary summary = donorSummaryService.getSummary(email);
+            Donor donor = summary.getDonor();
             
             Map<String, Object> impact = new HashMap<>();
             impact.put("totalMealsDonated", donationService.calculateTotalMealsDonated(donor.getId()));
             impact.put("co2Saved", donationService.calculateCO2Saved(donor.getId()));
-            impact.put("totalDonations", donationService.countByDonorId(donor.getId()));
-            impact.put("ngosHelped", donationService.countUniqueNGOsHelped(donor.getId()));
+            impact.put("totalDonations", summary.getTotalDonations());
+            impact.put("ngosHelped", summary.getNgosHelped());
             impact.put("badges", donorService.getDonorBadges(donor.getId()));
-            impact.put("rank", donorService.getDonorRank(donor.getId()));
+            Map<String, Object> rank = donorService.getDonorRank(donor.getId());
+            impact.put("rank", rank.get("rank"));
+            impact.put("percentile", rank.get("percentile"));
+            impact.put("rankedDonors", rank.get("totalDonors"));
             
             return ResponseEntity.ok(impact);
         } catch (Exception e) {
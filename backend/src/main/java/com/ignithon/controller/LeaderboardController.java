@@ -7,23 +7,43 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.ignithon.dto.ImpactTotals;
 import com.ignithon.dto.LeaderboardEntry;
+import com.ignithon.dto.VolunteerLeaderboardEntry;
+import com.ignithon.service.ImpactService;
 import com.ignithon.service.LeaderboardService;
+import com.ignithon.service.VolunteerLeaderboardService;
 
 @RestController
 @RequestMapping("/leaderboard")
 @CrossOrigin(origins = "*")
 public class LeaderboardController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private LeaderboardService leaderboardService;
 
+    @Autowired
+    private VolunteerLeaderboardService volunteerLeaderboardService;
+
+    @Autowired
+    private ImpactService impactService;
+
     @GetMapping("/monthly")
-    public ResponseEntity<List<LeaderboardEntry>> getMonthlyLeaderboard() {
+    public ResponseEntity<List<LeaderboardEntry>> getMonthlyLeaderboard(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        if (page < 0) {
+            return ResponseEntity.badRequest().build();
+        }
         try {
-            List<LeaderboardEntry> leaderboard = leaderboardService.getMonthlyLeaderboard();
+            int pageSize = pageSize(size);
+            List<LeaderboardEntry> leaderboard =
+                    leaderboardService.getMonthlyLeaderboard(offset(page, pageSize), pageSize);
             return ResponseEntity.ok(leaderboard);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -31,9 +51,16 @@ public class LeaderboardController {
     }
 
     @GetMapping("/yearly")
-    public ResponseEntity<List<LeaderboardEntry>> getYearlyLeaderboard() {
+    public ResponseEntity<List<LeaderboardEntry>> getYearlyLeaderboard(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        if (page < 0) {
+            return ResponseEntity.badRequest().build();
+        }
         try {
-            List<LeaderboardEntry> leaderboard = leaderboardService.getYearlyLeaderboard();
+            int pageSize = pageSize(size);
+            List<LeaderboardEntry> leaderboard =
+                    leaderboardService.getYearlyLeaderboard(offset(page, pageSize), pageSize);
             return ResponseEntity.ok(leaderboard);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -41,12 +68,58 @@ public class LeaderboardController {
     }
 
     @GetMapping("/all-time")
-    public ResponseEntity<List<LeaderboardEntry>> getAllTimeLeaderboard() {
+    public ResponseEntity<List<LeaderboardEntry>> getAllTimeLeaderboard(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        if (page < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            int pageSize = pageSize(size);
+            List<LeaderboardEntry> leaderboard =
+                    leaderboardService.getAllTimeLeaderboard(offset(page, pageSize), pageSize);
+            return ResponseEntity.ok(leaderboard);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Meals and CO2e from all donations delivered in a city
+     */
+    @GetMapping("/impact")
+    public ResponseEntity<ImpactTotals> getCityImpact(@RequestParam String city) {
         try {
-            List<LeaderboardEntry> leaderboard = leaderboardService.getAllTimeLeaderboard();
+            return ResponseEntity.ok(impactService.getCityImpact(city));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/volunteers")
+    public ResponseEntity<List<VolunteerLeaderboardEntry>> getVolunteerLeaderboard(
+            @RequestParam(defaultValue = "POINTS") VolunteerLeaderboardService.Metric sortBy,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        if (page < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            int pageSize = pageSize(size);
+            List<VolunteerLeaderboardEntry> leaderboard =
+                    volunteerLeaderboardService.getLeaderboard(sortBy, offset(page, pageSize), pageSize);
             return ResponseEntity.ok(leaderboard);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    private static int pageSize(int size) {
+        return Math.max(0, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    /** First row of a page, saturating instead of overflowing for huge page numbers */
+    private static int offset(int page, int pageSize) {
+        return (int) Math.min((long) page * pageSize, Integer.MAX_VALUE);
+    }
 }
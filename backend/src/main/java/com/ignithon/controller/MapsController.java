@@ -1,9 +1,14 @@
 package com.ignithon.controller;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,8 +17,12 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ignithon.service.BatchGeocodingService;
 import com.ignithon.service.MapsService;
+import com.ignithon.service.RoutePlanningService;
 
 @RestController
 @RequestMapping("/maps")
@@ -23,6 +32,22 @@ public class MapsController {
     @Autowired
     private MapsService mapsService;
 
+    @Autowired
+    private RoutePlanningService routePlanningService;
+
+    @Autowired
+    private BatchGeocodingService batchGeocodingService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.maps.geocode-batch.timeout-ms:600000}")
+    private long batchGeocodeTimeoutMs;
+
+    private static final String COMPACT_FORMAT = "compact";
+
+    private static final String NDJSON = "application/x-ndjson";
+
     /**
      * Root endpoint for Maps API
      */
@@ -33,6 +58,7 @@ public class MapsController {
             "endpoints", List.of(
                 "/api/maps/health - Health check",
                 "/api/maps/geocode - Geocode address",
+                "/api/maps/geocode/batch - Geocode many addresses (NDJSON stream)",
                 "/api/maps/geocode/reverse - Reverse geocode coordinates",
                 "/api/maps/places/nearby - Find nearby places",
                 "/api/maps/route/fastest - Get fastest route",
@@ -59,15 +85,29 @@ public class MapsController {
     }
 
     /**
-     * Get optimized route between multiple waypoints
+     * Get optimized route between multiple waypoints.
+     * format=compact returns totals, per-leg arrays and a simplified polyline; zoom or
+     * tolerance (meters) control how far the polyline is simplified.
      */
     @PostMapping("/route/optimized")
-    public ResponseEntity<?> getOptimizedRoute(@RequestBody List<Map<String, Object>> waypoints) {
+    public CompletableFuture<ResponseEntity<?>> getOptimizedRoute(
+            @RequestBody List<Map<String, Object>> waypoints,
+            @RequestParam(defaultValue = "full") String format,
+            @RequestParam(required = false) Integer zoom,
+            @RequestParam(required = false) Double tolerance) {
         try {
-            Map<String, Object> result = mapsService.getOptimizedRoute(waypoints);
-            return ResponseEntity.ok(result);
+            double latitude = waypoints.isEmpty() ? 0 : Double.parseDouble(String.valueOf(waypoints.get(0).get("lat")));
+            double toleranceMeters = mapsService.polylineTolerance(zoom, tolerance, latitude);
+            if (COMPACT_FORMAT.equals(format)) {
+                return mapsService.getCompactRoute(waypoints, true, toleranceMeters)
+                        .<ResponseEntity<?>>thenApply(ResponseEntity::ok);
+            }
+            return mapsService.getOptimizedRoute(waypoints)
+                    .thenApply(route -> zoom != null || tolerance != null
+                            ? mapsService.withSimplifiedPolyline(route, toleranceMeters) : route)
+                    .<ResponseEntity<?>>thenApply(ResponseEntity::ok);
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Failed to get optimized route: " + e.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "Failed to get optimized route: " + e.getMessage())));
         }
     }
 
@@ -75,17 +115,19 @@ public class MapsController {
      * Get fastest route between two points
      */
     @GetMapping("/route/fastest")
-    public ResponseEntity<?> getFastestRoute(
+    public CompletableFuture<ResponseEntity<?>> getFastestRoute(
             @RequestParam Double startLat,
             @RequestParam Double startLng,
             @RequestParam Double endLat,
             @RequestParam Double endLng,
-            @RequestParam(defaultValue = "driving") String mode) {
+            @RequestParam(defaultValue = "driving") String mode,
+            @RequestParam(defaultValue = "full") String format,
+            @RequestParam(required = false) Integer zoom,
+            @RequestParam(required = false) Double tolerance) {
         try {
-            Map<String, Object> result = mapsService.getFastestRoute(startLat, startLng, endLat, endLng, mode);
-            return ResponseEntity.ok(result);
+            return fastestRoute(startLat, startLng, endLat, endLng, mode, format, zoom, tolerance);
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Failed to get fastest route: " + e.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "Failed to get fastest route: " + e.getMessage())));
         }
     }
 
@@ -93,16 +135,16 @@ public class MapsController {
      * Get nearby places
      */
     @GetMapping("/places/nearby")
-    public ResponseEntity<?> getNearbyPlaces(
+    public CompletableFuture<ResponseEntity<?>> getNearbyPlaces(
             @RequestParam Double lat,
             @RequestParam Double lng,
             @RequestParam(defaultValue = "food") String type,
             @RequestParam(defaultValue = "5000") Integer radius) {
         try {
-            Map<String, Object> result = mapsService.getNearbyPlaces(lat, lng, type, radius);
-            return ResponseEntity.ok(result);
+            return mapsService.getNearbyPlaces(lat, lng, type, radius)
+                    .<ResponseEntity<?>>thenApply(ResponseEntity::ok);
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Failed to get nearby places: " + e.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "Failed to get nearby places: " + e.getMessage())));
         }
     }
 
@@ -110,12 +152,51 @@ public class MapsController {
      * Geocode an address to coordinates
      */
     @GetMapping("/geocode")
-    public ResponseEntity<?> geocodeAddress(@RequestParam String address) {
+    public CompletableFuture<ResponseEntity<?>> geocodeAddress(@RequestParam String address) {
         try {
-            Map<String, Object> result = mapsService.geocodeAddress(address);
-            return ResponseEntity.ok(result);
+            return mapsService.geocodeAddress(address)
+                    .<ResponseEntity<?>>thenApply(ResponseEntity::ok);
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Failed to geocode address: " + e.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "Failed to geocode address: " + e.getMessage())));
+        }
+    }
+
+    /**
+     * Geocode many addresses at once. Results stream back as NDJSON, one line per input
+     * address in completion order (each carries its "index"), followed by a summary line.
+     */
+    @PostMapping(value = "/geocode/batch", produces = NDJSON)
+    public ResponseEntity<ResponseBodyEmitter> geocodeBatch(@RequestBody Map<String, Object> request) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(batchGeocodeTimeoutMs);
+        try {
+            @SuppressWarnings("unchecked")
+            List<Object> addresses = (List<Object>) request.get("addresses");
+            if (addresses == null) {
+                throw new RuntimeException("addresses is required");
+            }
+            List<String> addressList = new ArrayList<>(addresses.size());
+            for (Object address : addresses) {
+                addressList.add(address == null ? null : address.toString());
+            }
+
+            batchGeocodingService.geocode(addressList, line -> sendLine(emitter, line))
+                    .whenComplete((summary, error) -> {
+                        if (error != null) {
+                            emitter.completeWithError(error);
+                            return;
+                        }
+                        try {
+                            sendLine(emitter, summary);
+                            emitter.complete();
+                        } catch (RuntimeException e) {
+                            emitter.completeWithError(e);
+                        }
+                    });
+            return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(emitter);
+        } catch (Exception e) {
+            sendLine(emitter, Map.of("error", "Failed to geocode batch: " + e.getMessage()));
+            emitter.complete();
+            return ResponseEntity.badRequest().contentType(MediaType.parseMediaType(NDJSON)).body(emitter);
         }
     }
 
@@ -123,14 +204,14 @@ public class MapsController {
      * Reverse geocode coordinates to address
      */
     @GetMapping("/geocode/reverse")
-    public ResponseEntity<?> reverseGeocode(
+    public CompletableFuture<ResponseEntity<?>> reverseGeocode(
             @RequestParam Double lat,
             @RequestParam Double lng) {
         try {
-            Map<String, Object> result = mapsService.reverseGeocode(lat, lng);
-            return ResponseEntity.ok(result);
+            return mapsService.reverseGeocode(lat, lng)
+                    .<ResponseEntity<?>>thenApply(ResponseEntity::ok);
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Failed to reverse geocode: " + e.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "Failed to reverse geocode: " + e.getMessage())));
         }
     }
 
@@ -138,7 +219,7 @@ public class MapsController {
      * Get distance matrix between multiple points
      */
     @PostMapping("/distance-matrix")
-    public ResponseEntity<?> getDistanceMatrix(
+    public CompletableFuture<ResponseEntity<?>> getDistanceMatrix(
             @RequestBody Map<String, Object> request) {
         try {
             @SuppressWarnings("unchecked")
@@ -147,10 +228,10 @@ public class MapsController {
             List<Map<String, Object>> destinations = (List<Map<String, Object>>) request.get("destinations");
             String mode = (String) request.getOrDefault("mode", "driving");
             
-            Map<String, Object> result = mapsService.getDistanceMatrix(origins, destinations, mode);
-            return ResponseEntity.ok(result);
+            return mapsService.getDistanceMatrix(origins, destinations, mode)
+                    .<ResponseEntity<?>>thenApply(ResponseEntity::ok);
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Failed to get distance matrix: " + e.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "Failed to get distance matrix: " + e.getMessage())));
         }
     }
 
@@ -158,19 +239,19 @@ public class MapsController {
      * Get route for volunteer pickup optimization
      */
     @PostMapping("/volunteer/optimize-pickup")
-    public ResponseEntity<?> optimizeVolunteerPickup(@RequestBody Map<String, Object> request) {
+    public CompletableFuture<ResponseEntity<?>> optimizeVolunteerPickup(@RequestBody Map<String, Object> request) {
         try {
             @SuppressWarnings("unchecked")
             List<Map<String, Object>> pickupPoints = (List<Map<String, Object>>) request.get("pickupPoints");
+            @SuppressWarnings("unchecked")
             Map<String, Object> volunteerLocation = (Map<String, Object>) request.get("volunteerLocation");
+            boolean includePolyline = Boolean.TRUE.equals(request.get("includePolyline"));
             
-            // Add volunteer location as starting point
-            pickupPoints.add(0, volunteerLocation);
-            
-            Map<String, Object> result = mapsService.getOptimizedRoute(pickupPoints);
-            return ResponseEntity.ok(result);
+            // Stop order is solved locally; Google is only asked for the polyline when requested
+            return routePlanningService.optimizePickupRoute(volunteerLocation, pickupPoints, includePolyline)
+                    .<ResponseEntity<?>>thenApply(ResponseEntity::ok);
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Failed to optimize pickup route: " + e.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "Failed to optimize pickup route: " + e.getMessage())));
         }
     }
 
@@ -178,17 +259,19 @@ public class MapsController {
      * Get route for NGO to donor
      */
     @GetMapping("/ngo-to-donor")
-    public ResponseEntity<?> getNGOToDonorRoute(
+    public CompletableFuture<ResponseEntity<?>> getNGOToDonorRoute(
             @RequestParam Double ngoLat,
             @RequestParam Double ngoLng,
             @RequestParam Double donorLat,
             @RequestParam Double donorLng,
-            @RequestParam(defaultValue = "driving") String mode) {
+            @RequestParam(defaultValue = "driving") String mode,
+            @RequestParam(defaultValue = "full") String format,
+            @RequestParam(required = false) Integer zoom,
+            @RequestParam(required = false) Double tolerance) {
         try {
-            Map<String, Object> result = mapsService.getFastestRoute(ngoLat, ngoLng, donorLat, donorLng, mode);
-            return ResponseEntity.ok(result);
+            return fastestRoute(ngoLat, ngoLng, donorLat, donorLng, mode, format, zoom, tolerance);
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Failed to get NGO to donor route: " + e.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "Failed to get NGO to donor route: " + e.getMessage())));
         }
     }
 
@@ -196,15 +279,15 @@ public class MapsController {
      * Get nearby NGOs for a donor
      */
     @GetMapping("/donor/nearby-ngos")
-    public ResponseEntity<?> getNearbyNGOsForDonor(
+    public CompletableFuture<ResponseEntity<?>> getNearbyNGOsForDonor(
             @RequestParam Double donorLat,
             @RequestParam Double donorLng,
             @RequestParam(defaultValue = "10000") Integer radius) {
         try {
-            Map<String, Object> result = mapsService.getNearbyPlaces(donorLat, donorLng, "food", radius);
-            return ResponseEntity.ok(result);
+            return mapsService.getNearbyPlaces(donorLat, donorLng, "food", radius)
+                    .<ResponseEntity<?>>thenApply(ResponseEntity::ok);
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Failed to get nearby NGOs: " + e.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "Failed to get nearby NGOs: " + e.getMessage())));
         }
     }
 
@@ -212,15 +295,15 @@ public class MapsController {
      * Get nearby donors for an NGO
      */
     @GetMapping("/ngo/nearby-donors")
-    public ResponseEntity<?> getNearbyDonorsForNGO(
+    public CompletableFuture<ResponseEntity<?>> getNearbyDonorsForNGO(
             @RequestParam Double ngoLat,
             @RequestParam Double ngoLng,
             @RequestParam(defaultValue = "10000") Integer radius) {
         try {
-            Map<String, Object> result = mapsService.getNearbyPlaces(ngoLat, ngoLng, "restaurant", radius);
-            return ResponseEntity.ok(result);
+            return mapsService.getNearbyPlaces(ngoLat, ngoLng, "restaurant", radius)
+                    .<ResponseEntity<?>>thenApply(ResponseEntity::ok);
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Failed to get nearby donors: " + e.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "Failed to get nearby donors: " + e.getMessage())));
         }
     }
 
@@ -240,4 +323,25 @@ public class MapsController {
             ));
         }
     }
+
+    private CompletableFuture<ResponseEntity<?>> fastestRoute(Double startLat, Double startLng, Double endLat, Double endLng,
+                                                           String mode, String format, Integer zoom, Double tolerance) {
+        double toleranceMeters = mapsService.polylineTolerance(zoom, tolerance, startLat);
+        if (COMPACT_FORMAT.equals(format)) {
+            return mapsService.getCompactFastestRoute(startLat, startLng, endLat, endLng, mode, toleranceMeters)
+                    .<ResponseEntity<?>>thenApply(ResponseEntity::ok);
+        }
+        return mapsService.getFastestRoute(startLat, startLng, endLat, endLng, mode)
+                .thenApply(route -> zoom != null || tolerance != null
+                        ? mapsService.withSimplifiedPolyline(route, toleranceMeters) : route)
+                .<ResponseEntity<?>>thenApply(ResponseEntity::ok);
+    }
+
+    private void sendLine(ResponseBodyEmitter emitter, Map<String, Object> line) {
+        try {
+            emitter.send(objectMapper.writeValueAsString(line) + "\n", MediaType.TEXT_PLAIN);
+        } catch (IOException e) {
+            throw new RuntimeException("Client disconnected: " + e.getMessage(), e);
+        }
+    }
 }
@@ -1,14 +1,20 @@
 package com.ignithon.controller;
 
 import com.ignithon.dto.NearbyNgoResponse;
+import com.ignithon.entity.Donation;
 import com.ignithon.entity.NGO;
+import com.ignithon.service.DonationService;
+import com.ignithon.service.ImpactService;
 import com.ignithon.service.NGOService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/ngo")
@@ -18,6 +24,12 @@ public class NGOController {
     @Autowired
     private NGOService ngoService;
 
+    @Autowired
+    private DonationService donationService;
+
+    @Autowired
+    private ImpactService impactService;
+
     /**
      * Find nearby NGOs for donors
      */
@@ -35,6 +47,67 @@ public class NGOController {
         }
     }
 
+    /**
+     * NGOs whose drive-time service area covers a donation location
+     */
+    @GetMapping("/serving")
+    public ResponseEntity<?> findNGOsServing(
+            @RequestParam Double latitude,
+            @RequestParam Double longitude) {
+        try {
+            List<NearbyNgoResponse> ngos = ngoService.findNGOsServing(latitude, longitude);
+            return ResponseEntity.ok(ngos);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to find NGOs serving location: " + e.getMessage());
+        }
+    }
+
+    /**
+     * An NGO's current service area as an encoded polyline ring
+     */
+    @GetMapping("/{id}/service-area")
+    public ResponseEntity<?> getServiceArea(@PathVariable Long id) {
+        try {
+            String polygon = ngoService.getServiceArea(id);
+            if (polygon == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(Map.of("ngoId", id, "polygon", polygon));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to get service area: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Meals and CO2e from the donations an NGO has received
+     */
+    @GetMapping("/{id}/impact")
+    public ResponseEntity<?> getImpact(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(impactService.getNgoImpact(id));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to get NGO impact: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Move a donation to a new status, e.g. DELIVERED once the food arrived
+     */
+    @PutMapping("/donations/{donationId}/status")
+    @PreAuthorize("hasAnyAuthority('NGO', 'ADMIN')")
+    public ResponseEntity<?> updateDonationStatus(@PathVariable Long donationId, @RequestParam String status) {
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            boolean admin = authentication.getAuthorities().stream()
+                    .anyMatch(authority -> "ADMIN".equals(authority.getAuthority()));
+            Donation donation = donationService.updateDonationStatus(donationId, status,
+                    admin ? null : authentication.getName());
+            return ResponseEntity.ok(Map.of("donationId", donation.getId(), "status", donation.getStatus()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to update donation status: " + e.getMessage());
+        }
+    }
+
     /**
      * Get all NGOs for admin dashboard
      */
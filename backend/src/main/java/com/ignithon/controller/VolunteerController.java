@@ -0,0 +1,104 @@
+package com.ignithon.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.ignithon.dto.NearbyVolunteerResponse;
+import com.ignithon.entity.Volunteer;
+import com.ignithon.service.VolunteerService;
+
+@RestController
+@RequestMapping("/volunteer")
+@CrossOrigin(origins = "*")
+public class VolunteerController {
+
+    @Autowired
+    private VolunteerService volunteerService;
+
+    /**
+     * Find the closest available volunteers for a pickup
+     */
+    @GetMapping("/nearby")
+    public ResponseEntity<?> findNearbyVolunteers(
+            @RequestParam Double latitude,
+            @RequestParam Double longitude,
+            @RequestParam(defaultValue = "10") Integer limit,
+            @RequestParam(defaultValue = "25.0") Double radiusKm,
+            @RequestParam(required = false) Volunteer.VolunteerType volunteerType) {
+        try {
+            List<NearbyVolunteerResponse> volunteers =
+                    volunteerService.findNearestAvailable(latitude, longitude, limit, radiusKm, volunteerType);
+            return ResponseEntity.ok(volunteers);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Failed to find nearby volunteers: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Update a volunteer's live location
+     */
+    @PutMapping("/{id}/location")
+    public ResponseEntity<?> updateLocation(@PathVariable Long id, @RequestBody Map<String, Double> location) {
+        try {
+            if (!canManage(id)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                        .body(Map.of("error", "Only the volunteer or an admin can update this location"));
+            }
+            Double latitude = location.get("latitude");
+            Double longitude = location.get("longitude");
+            if (latitude == null || longitude == null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "latitude and longitude are required"));
+            }
+            volunteerService.updateLocation(id, latitude, longitude);
+            return ResponseEntity.ok(Map.of("message", "Location updated"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Failed to update location: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Mark a volunteer as available or unavailable for pickups
+     */
+    @PutMapping("/{id}/availability")
+    public ResponseEntity<?> updateAvailability(@PathVariable Long id, @RequestBody Map<String, Boolean> request) {
+        try {
+            if (!canManage(id)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                        .body(Map.of("error", "Only the volunteer or an admin can update this availability"));
+            }
+            Boolean available = request.get("available");
+            if (available == null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "available is required"));
+            }
+            volunteerService.updateAvailability(id, available);
+            return ResponseEntity.ok(Map.of("message", "Availability updated"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Failed to update availability: " + e.getMessage()));
+        }
+    }
+
+    /** The signed-in user is this volunteer, or an admin */
+    private boolean canManage(Long volunteerId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return false;
+        }
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ADMIN".equals(authority.getAuthority()));
+        return admin || volunteerService.isVolunteer(volunteerId, authentication.getName());
+    }
+}
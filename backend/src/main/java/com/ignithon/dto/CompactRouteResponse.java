@@ -0,0 +1,57 @@
+package com.ignithon.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Route response for bandwidth-constrained clients: totals in meters and seconds, per-leg
+ * values as parallel arrays, and a simplified encoded polyline. Absent fields are omitted.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CompactRouteResponse {
+    private boolean success;
+    private String error;
+    private Boolean estimated;
+    private Long distanceMeters;
+    private Long durationSeconds;
+    private long[] legDistanceMeters;
+    private long[] legDurationSeconds;
+    private String polyline;
+    private Integer polylinePoints;
+
+    public CompactRouteResponse() {}
+
+    public static CompactRouteResponse error(String message) {
+        CompactRouteResponse response = new CompactRouteResponse();
+        response.setSuccess(false);
+        response.setError(message);
+        return response;
+    }
+
+    // Getters and Setters
+    public boolean isSuccess() { return success; }
+    public void setSuccess(boolean success) { this.success = success; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public Boolean getEstimated() { return estimated; }
+    public void setEstimated(Boolean estimated) { this.estimated = estimated; }
+
+    public Long getDistanceMeters() { return distanceMeters; }
+    public void setDistanceMeters(Long distanceMeters) { this.distanceMeters = distanceMeters; }
+
+    public Long getDurationSeconds() { return durationSeconds; }
+    public void setDurationSeconds(Long durationSeconds) { this.durationSeconds = durationSeconds; }
+
+    public long[] getLegDistanceMeters() { return legDistanceMeters; }
+    public void setLegDistanceMeters(long[] legDistanceMeters) { this.legDistanceMeters = legDistanceMeters; }
+
+    public long[] getLegDurationSeconds() { return legDurationSeconds; }
+    public void setLegDurationSeconds(long[] legDurationSeconds) { this.legDurationSeconds = legDurationSeconds; }
+
+    public String getPolyline() { return polyline; }
+    public void setPolyline(String polyline) { this.polyline = polyline; }
+
+    public Integer getPolylinePoints() { return polylinePoints; }
+    public void setPolylinePoints(Integer polylinePoints) { this.polylinePoints = polylinePoints; }
+}
@@ -0,0 +1,37 @@
+package com.ignithon.dto;
+
+import com.ignithon.entity.Donor;
+
+public class DonorSummary {
+    private Donor donor;
+    private long totalDonations;
+    private long pendingDonations;
+    private long deliveredDonations;
+    private long ngosHelped;
+
+    public DonorSummary() {}
+
+    public DonorSummary(Donor donor, long totalDonations, long pendingDonations, long deliveredDonations, long ngosHelped) {
+        this.donor = donor;
+        this.totalDonations = totalDonations;
+        this.pendingDonations = pendingDonations;
+        this.deliveredDonations = deliveredDonations;
+        this.ngosHelped = ngosHelped;
+    }
+
+    // Getters and Setters
+    public Donor getDonor() { return donor; }
+    public void setDonor(Donor donor) { this.donor = donor; }
+
+    public long getTotalDonations() { return totalDonations; }
+    public void setTotalDonations(long totalDonations) { this.totalDonations = totalDonations; }
+
+    public long getPendingDonations() { return pendingDonations; }
+    public void setPendingDonations(long pendingDonations) { this.pendingDonations = pendingDonations; }
+
+    public long getDeliveredDonations() { return deliveredDonations; }
+    public void setDeliveredDonations(long deliveredDonations) { this.deliveredDonations = deliveredDonations; }
+
+    public long getNgosHelped() { return ngosHelped; }
+    public void setNgosHelped(long ngosHelped) { this.ngosHelped = ngosHelped; }
+}
@@ -0,0 +1,28 @@
+package com.ignithon.dto;
+
+public class ImpactTotals {
+    public static final ImpactTotals ZERO = new ImpactTotals(0, 0, 0);
+
+    private final long meals;
+    private final long co2eGrams;
+    private final long deliveredDonations;
+
+    public ImpactTotals(long meals, long co2eGrams, long deliveredDonations) {
+        this.meals = meals;
+        this.co2eGrams = co2eGrams;
+        this.deliveredDonations = deliveredDonations;
+    }
+
+    public ImpactTotals plus(long meals, long co2eGrams, long deliveredDonations) {
+        return new ImpactTotals(this.meals + meals, this.co2eGrams + co2eGrams, this.deliveredDonations + deliveredDonations);
+    }
+
+    public long getMeals() { return meals; }
+
+    public long getCo2eGrams() { return co2eGrams; }
+
+    /** CO2-equivalent emissions avoided, in kg */
+    public double getCo2SavedKg() { return co2eGrams / 1000.0; }
+
+    public long getDeliveredDonations() { return deliveredDonations; }
+}
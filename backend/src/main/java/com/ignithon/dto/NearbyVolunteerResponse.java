@@ -0,0 +1,65 @@
+package com.ignithon.dto;
+
+import com.ignithon.entity.Volunteer;
+
+public class NearbyVolunteerResponse {
+    private Long id;
+    private String name;
+    private String phone;
+    private String city;
+    private Volunteer.VolunteerType volunteerType;
+    private Double latitude;
+    private Double longitude;
+    private Double distance; // in kilometers
+    private Integer maxPickupDistance;
+    private Double averageRating;
+
+    // Constructors
+    public NearbyVolunteerResponse() {}
+
+    public NearbyVolunteerResponse(Long id, String name, String phone, String city,
+                                   Volunteer.VolunteerType volunteerType, Double latitude, Double longitude,
+                                   Double distance, Integer maxPickupDistance, Double averageRating) {
+        this.id = id;
+        this.name = name;
+        this.phone = phone;
+        this.city = city;
+        this.volunteerType = volunteerType;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.distance = distance;
+        this.maxPickupDistance = maxPickupDistance;
+        this.averageRating = averageRating;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getPhone() { return phone; }
+    public void setPhone(String phone) { this.phone = phone; }
+
+    public String getCity() { return city; }
+    public void setCity(String city) { this.city = city; }
+
+    public Volunteer.VolunteerType getVolunteerType() { return volunteerType; }
+    public void setVolunteerType(Volunteer.VolunteerType volunteerType) { this.volunteerType = volunteerType; }
+
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+
+    public Double getDistance() { return distance; }
+    public void setDistance(Double distance) { this.distance = distance; }
+
+    public Integer getMaxPickupDistance() { return maxPickupDistance; }
+    public void setMaxPickupDistance(Integer maxPickupDistance) { this.maxPickupDistance = maxPickupDistance; }
+
+    public Double getAverageRating() { return averageRating; }
+    public void setAverageRating(Double averageRating) { this.averageRating = averageRating; }
+}
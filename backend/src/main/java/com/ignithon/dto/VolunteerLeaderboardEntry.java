@@ -0,0 +1,48 @@
+package com.ignithon.dto;
+
+import com.ignithon.entity.Volunteer;
+
+public class VolunteerLeaderboardEntry {
+    private int rank;
+    private Long volunteerId;
+    private String volunteerName;
+    private String city;
+    private Volunteer.VolunteerType volunteerType;
+    private String score;
+    private String rankIcon;
+
+    public VolunteerLeaderboardEntry() {}
+
+    public VolunteerLeaderboardEntry(int rank, Long volunteerId, String volunteerName, String city,
+                                     Volunteer.VolunteerType volunteerType, String score, String rankIcon) {
+        this.rank = rank;
+        this.volunteerId = volunteerId;
+        this.volunteerName = volunteerName;
+        this.city = city;
+        this.volunteerType = volunteerType;
+        this.score = score;
+        this.rankIcon = rankIcon;
+    }
+
+    // Getters and Setters
+    public int getRank() { return rank; }
+    public void setRank(int rank) { this.rank = rank; }
+
+    public Long getVolunteerId() { return volunteerId; }
+    public void setVolunteerId(Long volunteerId) { this.volunteerId = volunteerId; }
+
+    public String getVolunteerName() { return volunteerName; }
+    public void setVolunteerName(String volunteerName) { this.volunteerName = volunteerName; }
+
+    public String getCity() { return city; }
+    public void setCity(String city) { this.city = city; }
+
+    public Volunteer.VolunteerType getVolunteerType() { return volunteerType; }
+    public void setVolunteerType(Volunteer.VolunteerType volunteerType) { this.volunteerType = volunteerType; }
+
+    public String getScore() { return score; }
+    public void setScore(String score) { this.score = score; }
+
+    public String getRankIcon() { return rankIcon; }
+    public void setRankIcon(String rankIcon) { this.rankIcon = rankIcon; }
+}
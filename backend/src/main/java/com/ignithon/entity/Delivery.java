@@ -97,6 +97,24 @@ public class Delivery extends User {
     
     // Enum for vehicle types
     public enum VehicleType {
-        BIKE, CAR, VAN, TRUCK, AUTO_RICKSHAW
+        BIKE(15.0, 22.0),
+        CAR(120.0, 25.0),
+        VAN(600.0, 22.0),
+        TRUCK(2500.0, 18.0),
+        AUTO_RICKSHAW(150.0, 20.0);
+
+        private final double capacityKg;
+        private final double averageSpeedKmh;
+
+        VehicleType(double capacityKg, double averageSpeedKmh) {
+            this.capacityKg = capacityKg;
+            this.averageSpeedKmh = averageSpeedKmh;
+        }
+
+        /** Food load the vehicle can carry on one run */
+        public double getCapacityKg() { return capacityKg; }
+
+        /** Typical urban speed used for pickup time estimates */
+        public double getAverageSpeedKmh() { return averageSpeedKmh; }
     }
 }
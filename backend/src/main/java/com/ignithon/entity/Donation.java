@@ -28,6 +28,11 @@ public class Donation {
     @JoinColumn(name = "ngo_id")
     private NGO ngo;
     
+    // Driver dispatched to carry the donation to its NGO
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "delivery_driver_id")
+    private Delivery deliveryDriver;
+    
     @NotBlank(message = "Food details are required")
     @Column(columnDefinition = "TEXT", nullable = false)
     private String foodDetails;
@@ -54,6 +59,16 @@ public class Donation {
     @Column(nullable = false)
     private LocalDateTime pickupTime;
     
+    // When the donation reached the NGO; leaderboard windows bucket contributions by this
+    private LocalDateTime deliveredAt;
+    
+    // City key and NGO a delivered donation's impact was counted under, fixed at delivery so
+    // later profile changes cannot move it; an empty city means no city was counted
+    @Column(length = 100)
+    private String impactCity;
+    
+    private Long impactNgoId;
+    
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -85,6 +100,9 @@ public class Donation {
     public NGO getNgo() { return ngo; }
     public void setNgo(NGO ngo) { this.ngo = ngo; }
     
+    public Delivery getDeliveryDriver() { return deliveryDriver; }
+    public void setDeliveryDriver(Delivery deliveryDriver) { this.deliveryDriver = deliveryDriver; }
+    
     public String getFoodDetails() { return foodDetails; }
     public void setFoodDetails(String foodDetails) { this.foodDetails = foodDetails; }
     
@@ -106,6 +124,15 @@ public class Donation {
     public LocalDateTime getPickupTime() { return pickupTime; }
     public void setPickupTime(LocalDateTime pickupTime) { this.pickupTime = pickupTime; }
     
+    public LocalDateTime getDeliveredAt() { return deliveredAt; }
+    public void setDeliveredAt(LocalDateTime deliveredAt) { this.deliveredAt = deliveredAt; }
+    
+    public String getImpactCity() { return impactCity; }
+    public void setImpactCity(String impactCity) { this.impactCity = impactCity; }
+    
+    public Long getImpactNgoId() { return impactNgoId; }
+    public void setImpactNgoId(Long impactNgoId) { this.impactNgoId = impactNgoId; }
+    
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
@@ -114,7 +141,28 @@ public class Donation {
     
     // Enums
     public enum DonationStatus {
-        PENDING, ACCEPTED, REJECTED, PICKED_UP, EXPIRED, COMPLETED
+        PENDING, ACCEPTED, REJECTED, PICKED_UP, DELIVERED, EXPIRED, COMPLETED;
+        
+        /** Whether the food reached the NGO; these donations count towards impact and rankings */
+        public boolean isDelivered() {
+            return this == DELIVERED || this == COMPLETED;
+        }
+        
+        /** Whether a donation's NGO may move it from this status to next */
+        public boolean canMoveTo(DonationStatus next) {
+            switch (this) {
+                case PENDING:
+                    return next == ACCEPTED || next == REJECTED || next == EXPIRED;
+                case ACCEPTED:
+                    return next == PICKED_UP || next == REJECTED || next == EXPIRED;
+                case PICKED_UP:
+                    return next == DELIVERED;
+                case DELIVERED:
+                    return next == COMPLETED;
+                default:
+                    return false;
+            }
+        }
     }
     
     public enum FoodType {
@@ -0,0 +1,66 @@
+package com.ignithon.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Running impact totals for one donor, NGO or city, adjusted in the same transaction as
+ * every donation that enters or leaves a delivered status
+ */
+@Entity
+@Table(name = "impact_totals", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_impact_totals_scope_key", columnNames = {"scope", "scope_key"})
+})
+public class ImpactTotal {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Scope scope;
+    
+    // Donor or NGO id, or the normalized city name
+    @Column(name = "scope_key", nullable = false, length = 100)
+    private String scopeKey;
+    
+    @Column(nullable = false)
+    private Long meals = 0L;
+    
+    @Column(nullable = false)
+    private Long co2eGrams = 0L;
+    
+    @Column(nullable = false)
+    private Long deliveredDonations = 0L;
+    
+    // Constructors
+    public ImpactTotal() {}
+    
+    public ImpactTotal(Scope scope, String scopeKey) {
+        this.scope = scope;
+        this.scopeKey = scopeKey;
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Scope getScope() { return scope; }
+    public void setScope(Scope scope) { this.scope = scope; }
+    
+    public String getScopeKey() { return scopeKey; }
+    public void setScopeKey(String scopeKey) { this.scopeKey = scopeKey; }
+    
+    public Long getMeals() { return meals; }
+    public void setMeals(Long meals) { this.meals = meals; }
+    
+    public Long getCo2eGrams() { return co2eGrams; }
+    public void setCo2eGrams(Long co2eGrams) { this.co2eGrams = co2eGrams; }
+    
+    public Long getDeliveredDonations() { return deliveredDonations; }
+    public void setDeliveredDonations(Long deliveredDonations) { this.deliveredDonations = deliveredDonations; }
+    
+    public enum Scope {
+        DONOR, NGO, CITY
+    }
+}
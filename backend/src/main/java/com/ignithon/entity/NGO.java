@@ -26,6 +26,17 @@ public class NGO extends User {
     @Column(nullable = false)
     private int maxDonationQuantity = 100; // in kg
     
+    // Drive-time limit for the service area; null uses app.ngo.service-area.default-minutes
+    private Integer maxDriveMinutes;
+    
+    // Service area polygon as an encoded polyline ring, recomputed when the signature goes stale
+    @Column(columnDefinition = "TEXT")
+    private String serviceAreaPolygon;
+    
+    // Location, limits and method the stored polygon was computed from
+    @Column(length = 120)
+    private String serviceAreaSignature;
+    
     // Constructors
     public NGO() {
         super();
@@ -54,4 +65,13 @@ public class NGO extends User {
     
     public int getMaxDonationQuantity() { return maxDonationQuantity; }
     public void setMaxDonationQuantity(int maxDonationQuantity) { this.maxDonationQuantity = maxDonationQuantity; }
+    
+    public Integer getMaxDriveMinutes() { return maxDriveMinutes; }
+    public void setMaxDriveMinutes(Integer maxDriveMinutes) { this.maxDriveMinutes = maxDriveMinutes; }
+    
+    public String getServiceAreaPolygon() { return serviceAreaPolygon; }
+    public void setServiceAreaPolygon(String serviceAreaPolygon) { this.serviceAreaPolygon = serviceAreaPolygon; }
+    
+    public String getServiceAreaSignature() { return serviceAreaSignature; }
+    public void setServiceAreaSignature(String serviceAreaSignature) { this.serviceAreaSignature = serviceAreaSignature; }
 } 
\ No newline at end of file
@@ -4,7 +4,11 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 
 @Entity
-@Table(name = "volunteers")
+@Table(name = "volunteers", indexes = {
+    @Index(name = "idx_volunteers_points", columnList = "points DESC, id"),
+    @Index(name = "idx_volunteers_pickups", columnList = "totalPickups DESC, id"),
+    @Index(name = "idx_volunteers_rating", columnList = "averageRating DESC, id")
+})
 public class Volunteer extends User {
     
     @NotNull(message = "Volunteer type is required")
@@ -0,0 +1,49 @@
+package com.ignithon.geo;
+
+/**
+ * Lat/lng rectangle enclosing a circle, used to prefilter range queries on indexed
+ * latitude/longitude columns before refining by exact distance.
+ */
+public final class BoundingBox {
+
+    private final double minLatitude;
+    private final double maxLatitude;
+    private final double minLongitude;
+    private final double maxLongitude;
+
+    private BoundingBox(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude) {
+        this.minLatitude = minLatitude;
+        this.maxLatitude = maxLatitude;
+        this.minLongitude = minLongitude;
+        this.maxLongitude = maxLongitude;
+    }
+
+    /**
+     * Smallest box containing every point within radiusKm of the center.
+     * A box that would cross the antimeridian is widened to the full longitude range.
+     */
+    public static BoundingBox around(double latitude, double longitude, double radiusKm) {
+        double latSpan = radiusKm / GeoUtils.KM_PER_DEGREE_LAT;
+        double minLat = Math.max(-90.0, latitude - latSpan);
+        double maxLat = Math.min(90.0, latitude + latSpan);
+        double lngSpan = GeoUtils.longitudeSpanDegrees(Math.max(Math.abs(minLat), Math.abs(maxLat)), radiusKm);
+
+        double minLng = longitude - lngSpan;
+        double maxLng = longitude + lngSpan;
+        if (minLng < -180.0 || maxLng > 180.0) {
+            minLng = -180.0;
+            maxLng = 180.0;
+        }
+        return new BoundingBox(minLat, maxLat, minLng, maxLng);
+    }
+
+    public boolean contains(double latitude, double longitude) {
+        return latitude >= minLatitude && latitude <= maxLatitude
+                && longitude >= minLongitude && longitude <= maxLongitude;
+    }
+
+    public double getMinLatitude() { return minLatitude; }
+    public double getMaxLatitude() { return maxLatitude; }
+    public double getMinLongitude() { return minLongitude; }
+    public double getMaxLongitude() { return maxLongitude; }
+}
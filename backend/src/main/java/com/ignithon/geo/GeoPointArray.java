@@ -0,0 +1,61 @@
+package com.ignithon.geo;
+
+import java.util.Arrays;
+
+/**
+ * Growable struct-of-arrays list of lat/lng points (in degrees), the input format of
+ * {@link HaversineKernel}. Not thread-safe; build one per request or batch.
+ */
+public final class GeoPointArray {
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private int size;
+
+    public GeoPointArray() {
+        this(16);
+    }
+
+    public GeoPointArray(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        this.latitudes = new double[capacity];
+        this.longitudes = new double[capacity];
+    }
+
+    public void add(double latitude, double longitude) {
+        if (size == latitudes.length) {
+            int capacity = latitudes.length * 2;
+            latitudes = Arrays.copyOf(latitudes, capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+        }
+        latitudes[size] = latitude;
+        longitudes[size] = longitude;
+        size++;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double latitude(int index) {
+        return latitudes[index];
+    }
+
+    public double longitude(int index) {
+        return longitudes[index];
+    }
+
+    /** Backing array; only the first size() entries are valid */
+    double[] latitudes() {
+        return latitudes;
+    }
+
+    /** Backing array; only the first size() entries are valid */
+    double[] longitudes() {
+        return longitudes;
+    }
+}
@@ -0,0 +1,86 @@
+package com.ignithon.geo;
+
+/**
+ * Simple lat/lng polygon (a single ring, implicitly closed) with a cached bounding box.
+ * Containment uses even-odd ray casting in degree space, which is accurate for the
+ * city-scale areas it is used for; rings crossing the antimeridian are not supported.
+ */
+public final class GeoPolygon {
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double minLatitude;
+    private final double maxLatitude;
+    private final double minLongitude;
+    private final double maxLongitude;
+
+    public GeoPolygon(GeoPointArray ring) {
+        if (ring.size() < 3) {
+            throw new IllegalArgumentException("A polygon needs at least 3 vertices: " + ring.size());
+        }
+        int n = ring.size();
+        latitudes = new double[n];
+        longitudes = new double[n];
+        double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+        double minLng = Double.MAX_VALUE, maxLng = -Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            latitudes[i] = ring.latitude(i);
+            longitudes[i] = ring.longitude(i);
+            minLat = Math.min(minLat, latitudes[i]);
+            maxLat = Math.max(maxLat, latitudes[i]);
+            minLng = Math.min(minLng, longitudes[i]);
+            maxLng = Math.max(maxLng, longitudes[i]);
+        }
+        minLatitude = minLat;
+        maxLatitude = maxLat;
+        minLongitude = minLng;
+        maxLongitude = maxLng;
+    }
+
+    /**
+     * Regular polygon approximating the circle of radiusKm around a point
+     */
+    public static GeoPolygon circle(double latitude, double longitude, double radiusKm, int vertices) {
+        double latSpan = radiusKm / GeoUtils.KM_PER_DEGREE_LAT;
+        double lngSpan = GeoUtils.longitudeSpanDegrees(latitude, radiusKm);
+        GeoPointArray ring = new GeoPointArray(vertices);
+        for (int i = 0; i < vertices; i++) {
+            double angle = 2 * Math.PI * i / vertices;
+            ring.add(latitude + latSpan * Math.cos(angle), longitude + lngSpan * Math.sin(angle));
+        }
+        return new GeoPolygon(ring);
+    }
+
+    public boolean contains(double latitude, double longitude) {
+        if (latitude < minLatitude || latitude > maxLatitude
+                || longitude < minLongitude || longitude > maxLongitude) {
+            return false;
+        }
+        boolean inside = false;
+        int n = latitudes.length;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            if ((latitudes[i] > latitude) != (latitudes[j] > latitude)) {
+                double crossing = longitudes[i] + (latitude - latitudes[i])
+                        * (longitudes[j] - longitudes[i]) / (latitudes[j] - latitudes[i]);
+                if (longitude < crossing) {
+                    inside = !inside;
+                }
+            }
+        }
+        return inside;
+    }
+
+    public GeoPointArray toPoints() {
+        GeoPointArray points = new GeoPointArray(latitudes.length);
+        for (int i = 0; i < latitudes.length; i++) {
+            points.add(latitudes[i], longitudes[i]);
+        }
+        return points;
+    }
+
+    public int vertexCount() { return latitudes.length; }
+    public double getMinLatitude() { return minLatitude; }
+    public double getMaxLatitude() { return maxLatitude; }
+    public double getMinLongitude() { return minLongitude; }
+    public double getMaxLongitude() { return maxLongitude; }
+}
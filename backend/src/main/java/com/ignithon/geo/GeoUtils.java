@@ -0,0 +1,43 @@
+package com.ignithon.geo;
+
+/**
+ * Great-circle helpers shared by the spatial indexes and services.
+ */
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS_KM = 6371.0;
+
+    /**
+     * Length of one degree of latitude in kilometers on the same sphere as
+     * {@link #haversineKm}, so boxes built from it always contain the radius
+     */
+    public static final double KM_PER_DEGREE_LAT = Math.toRadians(EARTH_RADIUS_KM);
+
+    private GeoUtils() {}
+
+    /**
+     * Distance between two points using the Haversine formula.
+     * Returns distance in kilometers
+     */
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+        double sinLat = Math.sin(latDistance / 2);
+        double sinLon = Math.sin(lonDistance / 2);
+        double a = sinLat * sinLat
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLon * sinLon;
+        return 2 * EARTH_RADIUS_KM * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /**
+     * Longitude span in degrees covered by the given radius at the given latitude.
+     * Returns 360 when the radius wraps the whole parallel (near the poles).
+     */
+    public static double longitudeSpanDegrees(double latitude, double radiusKm) {
+        double cos = Math.cos(Math.toRadians(Math.min(90.0, Math.abs(latitude))));
+        if (cos < 1e-9) {
+            return 360.0;
+        }
+        return Math.min(360.0, radiusKm / (KM_PER_DEGREE_LAT * cos));
+    }
+}
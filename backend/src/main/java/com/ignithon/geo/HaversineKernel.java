@@ -0,0 +1,71 @@
+package com.ignithon.geo;
+
+/**
+ * Batch great-circle distances over primitive lat/lng arrays (struct-of-arrays).
+ * Uses the JDK Vector API when the jdk.incubator.vector module is present at runtime
+ * (start the JVM with --add-modules jdk.incubator.vector) and a scalar loop otherwise.
+ * Both paths compute the same Haversine formula as {@link GeoUtils#haversineKm}.
+ */
+public final class HaversineKernel {
+
+    private static final boolean VECTOR_ENABLED =
+            ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+            && !Boolean.getBoolean("app.geo.vector.disabled");
+
+    private HaversineKernel() {}
+
+    public static boolean isVectorized() {
+        return VECTOR_ENABLED;
+    }
+
+    /**
+     * Distance in kilometers from (latitude, longitude) to the first count points of
+     * latitudes/longitudes (in degrees), written to out[0..count)
+     */
+    public static void distancesKm(double latitude, double longitude,
+                                   double[] latitudes, double[] longitudes, int count, double[] out) {
+        if (count > latitudes.length || count > longitudes.length || count > out.length) {
+            throw new IllegalArgumentException("count exceeds array length: " + count);
+        }
+        if (VECTOR_ENABLED) {
+            // Only resolved when the module is present, so the scalar path never loads it
+            VectorHaversineKernel.distancesKm(latitude, longitude, latitudes, longitudes, count, out);
+        } else {
+            scalarDistancesKm(latitude, longitude, latitudes, longitudes, 0, count, out);
+        }
+    }
+
+    /**
+     * Distance in kilometers from one point to every point in the array
+     */
+    public static double[] distancesKm(double latitude, double longitude, GeoPointArray points) {
+        double[] out = new double[points.size()];
+        distancesKm(latitude, longitude, points.latitudes(), points.longitudes(), points.size(), out);
+        return out;
+    }
+
+    /**
+     * Full origins x destinations matrix in kilometers, one batch call per origin row
+     */
+    public static double[][] distanceMatrixKm(GeoPointArray origins, GeoPointArray destinations) {
+        double[][] matrix = new double[origins.size()][];
+        for (int i = 0; i < origins.size(); i++) {
+            matrix[i] = distancesKm(origins.latitude(i), origins.longitude(i), destinations);
+        }
+        return matrix;
+    }
+
+    static void scalarDistancesKm(double latitude, double longitude, double[] latitudes, double[] longitudes,
+                                  int from, int to, double[] out) {
+        double lat1 = Math.toRadians(latitude);
+        double lng1 = Math.toRadians(longitude);
+        double cosLat1 = Math.cos(lat1);
+        for (int i = from; i < to; i++) {
+            double lat2 = Math.toRadians(latitudes[i]);
+            double sinLat = Math.sin((lat2 - lat1) * 0.5);
+            double sinLng = Math.sin((Math.toRadians(longitudes[i]) - lng1) * 0.5);
+            double a = sinLat * sinLat + cosLat1 * Math.cos(lat2) * sinLng * sinLng;
+            out[i] = 2 * GeoUtils.EARTH_RADIUS_KM * Math.asin(Math.sqrt(Math.min(1.0, a)));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.ignithon.geo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory uniform grid of polygons, answering "which areas contain this point".
+ * Each polygon is registered in every cell its bounding box overlaps, so a point query
+ * reads a single cell and runs the exact containment test only on the polygons there.
+ * Like {@link SpatialGridIndex}, reads are lock-free and writes are serialized.
+ */
+public class PolygonGridIndex<T> {
+
+    private final double cellSizeDegrees;
+    private final int lngCells;
+
+    private final Map<Long, Map<Long, Entry<T>>> cells = new ConcurrentHashMap<>();
+    private final Map<Long, Entry<T>> entries = new ConcurrentHashMap<>();
+
+    public PolygonGridIndex(double cellSizeDegrees) {
+        if (cellSizeDegrees <= 0 || cellSizeDegrees > 180) {
+            throw new IllegalArgumentException("Cell size must be in (0, 180] degrees: " + cellSizeDegrees);
+        }
+        this.cellSizeDegrees = cellSizeDegrees;
+        this.lngCells = (int) Math.ceil(360.0 / cellSizeDegrees);
+    }
+
+    /**
+     * Insert a polygon or replace an existing one. The anchor (e.g. the owner's location)
+     * is what query results measure their distance from.
+     */
+    public synchronized void put(long id, GeoPolygon polygon, double anchorLatitude, double anchorLongitude, T value) {
+        remove(id);
+        Entry<T> entry = new Entry<>(id, polygon, anchorLatitude, anchorLongitude, value);
+        entries.put(id, entry);
+        for (long cellKey : cellKeys(polygon)) {
+            cells.computeIfAbsent(cellKey, k -> new ConcurrentHashMap<>()).put(id, entry);
+        }
+    }
+
+    /**
+     * Remove a polygon, if present
+     */
+    public synchronized void remove(long id) {
+        Entry<T> previous = entries.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (long cellKey : cellKeys(previous.polygon)) {
+            Map<Long, Entry<T>> cell = cells.get(cellKey);
+            if (cell != null) {
+                cell.remove(id);
+                if (cell.isEmpty()) {
+                    cells.remove(cellKey);
+                }
+            }
+        }
+    }
+
+    public GeoPolygon get(long id) {
+        Entry<T> entry = entries.get(id);
+        return entry != null ? entry.polygon : null;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Every polygon containing the point, closest anchor first. Anchor distances of the
+     * containing polygons are computed in one {@link HaversineKernel} batch.
+     */
+    public List<Match<T>> containing(double latitude, double longitude) {
+        List<Match<T>> result = new ArrayList<>();
+        Map<Long, Entry<T>> cell = cells.get(cellKey(latIndex(latitude), lngIndex(longitude)));
+        if (cell == null) {
+            return result;
+        }
+        List<Entry<T>> matched = new ArrayList<>();
+        GeoPointArray anchors = new GeoPointArray(cell.size());
+        for (Entry<T> entry : cell.values()) {
+            if (entry.polygon.contains(latitude, longitude)) {
+                matched.add(entry);
+                anchors.add(entry.anchorLatitude, entry.anchorLongitude);
+            }
+        }
+        double[] distancesKm = HaversineKernel.distancesKm(latitude, longitude, anchors);
+        for (int i = 0; i < distancesKm.length; i++) {
+            Entry<T> entry = matched.get(i);
+            result.add(new Match<>(entry.id, entry.value, distancesKm[i]));
+        }
+        result.sort(Comparator.comparingDouble(Match::getDistanceKm));
+        return result;
+    }
+
+    private List<Long> cellKeys(GeoPolygon polygon) {
+        List<Long> keys = new ArrayList<>();
+        int minLat = latIndex(polygon.getMinLatitude());
+        int maxLat = latIndex(polygon.getMaxLatitude());
+        int minLng = (int) Math.floor((polygon.getMinLongitude() + 180.0) / cellSizeDegrees);
+        int maxLng = (int) Math.floor((polygon.getMaxLongitude() + 180.0) / cellSizeDegrees);
+        for (int latIdx = minLat; latIdx <= maxLat; latIdx++) {
+            for (int lngIdx = minLng; lngIdx <= maxLng; lngIdx++) {
+                keys.add(cellKey(latIdx, Math.floorMod(lngIdx, lngCells)));
+            }
+        }
+        return keys;
+    }
+
+    private int latIndex(double latitude) {
+        return (int) Math.floor((Math.max(-90.0, Math.min(90.0, latitude)) + 90.0) / cellSizeDegrees);
+    }
+
+    private int lngIndex(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180.0) / cellSizeDegrees), lngCells);
+    }
+
+    private long cellKey(int latIdx, int lngIdx) {
+        return (long) latIdx * lngCells + lngIdx;
+    }
+
+    private static final class Entry<T> {
+        final long id;
+        final GeoPolygon polygon;
+        final double anchorLatitude;
+        final double anchorLongitude;
+        final T value;
+
+        Entry(long id, GeoPolygon polygon, double anchorLatitude, double anchorLongitude, T value) {
+            this.id = id;
+            this.polygon = polygon;
+            this.anchorLatitude = anchorLatitude;
+            this.anchorLongitude = anchorLongitude;
+            this.value = value;
+        }
+    }
+
+    /**
+     * A polygon containing the query point, with the distance from the point to its anchor
+     */
+    public static final class Match<T> {
+        private final long id;
+        private final T value;
+        private final double distanceKm;
+
+        Match(long id, T value, double distanceKm) {
+            this.id = id;
+            this.value = value;
+            this.distanceKm = distanceKm;
+        }
+
+        public long getId() { return id; }
+        public T getValue() { return value; }
+        public double getDistanceKm() { return distanceKm; }
+    }
+}
@@ -0,0 +1,185 @@
+package com.ignithon.geo;
+
+import java.util.Arrays;
+
+/**
+ * Google encoded-polyline codec plus Douglas–Peucker simplification.
+ *
+ * Simplification works in meters on a local equirectangular projection, which is accurate
+ * to well under a meter at route scale. A tolerance can be derived from a map zoom level
+ * so that removed points would be invisible at that zoom.
+ */
+public final class PolylineCodec {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_000.0;
+
+    /** Web Mercator ground resolution at the equator for zoom 0, meters per 256px-tile pixel */
+    private static final double METERS_PER_PIXEL_ZOOM_0 = 156_543.03392;
+
+    private PolylineCodec() {}
+
+    /**
+     * Decode an encoded polyline; throws IllegalArgumentException if it is truncated or
+     * contains characters outside the encoding
+     */
+    public static GeoPointArray decode(String encoded) {
+        GeoPointArray points = new GeoPointArray(encoded == null ? 0 : encoded.length() / 4);
+        if (encoded == null) {
+            return points;
+        }
+        int[] position = new int[1];
+        int lat = 0;
+        int lng = 0;
+        while (position[0] < encoded.length()) {
+            lat += decodeValue(encoded, position);
+            lng += decodeValue(encoded, position);
+            points.add(lat / 1e5, lng / 1e5);
+        }
+        return points;
+    }
+
+    public static String encode(GeoPointArray points) {
+        StringBuilder encoded = new StringBuilder(points.size() * 6);
+        long previousLat = 0;
+        long previousLng = 0;
+        for (int i = 0; i < points.size(); i++) {
+            long lat = Math.round(points.latitude(i) * 1e5);
+            long lng = Math.round(points.longitude(i) * 1e5);
+            encodeValue(lat - previousLat, encoded);
+            encodeValue(lng - previousLng, encoded);
+            previousLat = lat;
+            previousLng = lng;
+        }
+        return encoded.toString();
+    }
+
+    /**
+     * Douglas–Peucker: keep the endpoints and every point further than toleranceMeters from
+     * the simplified line. Returns the input unchanged when there is nothing to drop.
+     */
+    public static GeoPointArray simplify(GeoPointArray points, double toleranceMeters) {
+        int n = points.size();
+        if (n <= 2 || toleranceMeters <= 0) {
+            return points;
+        }
+
+        // Project to meters around the first point
+        double lat0 = points.latitude(0);
+        double lng0 = points.longitude(0);
+        double metersPerDegreeLat = Math.toRadians(1) * EARTH_RADIUS_METERS;
+        double metersPerDegreeLng = metersPerDegreeLat * Math.cos(Math.toRadians(lat0));
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = (points.longitude(i) - lng0) * metersPerDegreeLng;
+            y[i] = (points.latitude(i) - lat0) * metersPerDegreeLat;
+        }
+
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        double toleranceSquared = toleranceMeters * toleranceMeters;
+
+        // Explicit stack of [first, last] ranges; long routes would overflow recursion
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+
+            int farthest = -1;
+            double farthestDistance = toleranceSquared;
+            for (int i = first + 1; i < last; i++) {
+                double distance = segmentDistanceSquared(x[i], y[i], x[first], y[first], x[last], y[last]);
+                if (distance > farthestDistance) {
+                    farthestDistance = distance;
+                    farthest = i;
+                }
+            }
+            if (farthest < 0) {
+                continue;
+            }
+            keep[farthest] = true;
+            if (top + 4 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            if (farthest - first > 1) {
+                stack[top++] = first;
+                stack[top++] = farthest;
+            }
+            if (last - farthest > 1) {
+                stack[top++] = farthest;
+                stack[top++] = last;
+            }
+        }
+
+        GeoPointArray simplified = new GeoPointArray();
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) {
+                simplified.add(points.latitude(i), points.longitude(i));
+            }
+        }
+        return simplified;
+    }
+
+    /**
+     * Decode, simplify and re-encode in one pass
+     */
+    public static String simplify(String encoded, double toleranceMeters) {
+        if (encoded == null || toleranceMeters <= 0) {
+            return encoded;
+        }
+        return encode(simplify(decode(encoded), toleranceMeters));
+    }
+
+    /**
+     * Ground distance covered by one screen pixel at the given zoom and latitude, a tolerance
+     * at which simplification is not visible on the map
+     */
+    public static double toleranceForZoom(int zoom, double latitude) {
+        int clamped = Math.max(0, Math.min(22, zoom));
+        return METERS_PER_PIXEL_ZOOM_0 * Math.cos(Math.toRadians(latitude)) / (1L << clamped);
+    }
+
+    /** Read one zigzag varint starting at position[0], advancing it past the value */
+    private static int decodeValue(String encoded, int[] position) {
+        int result = 0;
+        int shift = 0;
+        int b;
+        do {
+            int index = position[0]++;
+            if (index >= encoded.length()) {
+                throw new IllegalArgumentException("Truncated polyline: value at index " + index + " is incomplete");
+            }
+            b = encoded.charAt(index) - 63;
+            if (b < 0 || b > 0x3f || shift > 30) {
+                throw new IllegalArgumentException("Invalid polyline character at index " + index);
+            }
+            result |= (b & 0x1f) << shift;
+            shift += 5;
+        } while (b >= 0x20);
+        return (result & 1) != 0 ? ~(result >> 1) : (result >> 1);
+    }
+
+    private static void encodeValue(long value, StringBuilder encoded) {
+        long shifted = value < 0 ? ~(value << 1) : (value << 1);
+        while (shifted >= 0x20) {
+            encoded.append((char) ((0x20 | (shifted & 0x1f)) + 63));
+            shifted >>= 5;
+        }
+        encoded.append((char) (shifted + 63));
+    }
+
+    private static double segmentDistanceSquared(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return ex * ex + ey * ey;
+    }
+}
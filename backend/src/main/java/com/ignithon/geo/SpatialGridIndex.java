@@ -0,0 +1,325 @@
+package com.ignithon.geo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory uniform grid over latitude/longitude.
+ * Points are bucketed into square cells of a fixed size in degrees so that a radius
+ * query only visits the cells overlapping the query circle instead of every point.
+ * Reads are lock-free; writes are serialized and cost O(1), so moving a point to a
+ * new cell is as cheap as inserting it.
+ */
+public class SpatialGridIndex<T> {
+
+    private final double cellSizeDegrees;
+    private final int latCells;
+    private final int lngCells;
+
+    private final Map<Long, Map<Long, Entry<T>>> cells = new ConcurrentHashMap<>();
+    private final Map<Long, Entry<T>> entries = new ConcurrentHashMap<>();
+
+    public SpatialGridIndex(double cellSizeDegrees) {
+        if (cellSizeDegrees <= 0 || cellSizeDegrees > 180) {
+            throw new IllegalArgumentException("Cell size must be in (0, 180] degrees: " + cellSizeDegrees);
+        }
+        this.cellSizeDegrees = cellSizeDegrees;
+        this.latCells = (int) Math.ceil(180.0 / cellSizeDegrees);
+        this.lngCells = (int) Math.ceil(360.0 / cellSizeDegrees);
+    }
+
+    /**
+     * Insert a point or move an existing one
+     */
+    public synchronized void put(long id, double latitude, double longitude, T value) {
+        long cellKey = cellKey(latIndex(latitude), lngIndex(longitude));
+        Entry<T> entry = new Entry<>(id, latitude, longitude, value, cellKey);
+
+        Entry<T> previous = entries.put(id, entry);
+        if (previous != null && previous.cellKey != cellKey) {
+            removeFromCell(previous);
+        }
+        cells.computeIfAbsent(cellKey, k -> new ConcurrentHashMap<>()).put(id, entry);
+    }
+
+    /**
+     * Remove a point, if present
+     */
+    public synchronized void remove(long id) {
+        Entry<T> previous = entries.remove(id);
+        if (previous != null) {
+            removeFromCell(previous);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        cells.clear();
+    }
+
+    public boolean contains(long id) {
+        return entries.containsKey(id);
+    }
+
+    public T get(long id) {
+        Entry<T> entry = entries.get(id);
+        return entry != null ? entry.value : null;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Find all points within the radius (in kilometers), closest first
+     */
+    public List<Neighbor<T>> withinRadius(double latitude, double longitude, double radiusKm) {
+        return withinRadius(latitude, longitude, radiusKm, (value, distanceKm) -> true);
+    }
+
+    /**
+     * Find all accepted points within the radius (in kilometers), closest first
+     */
+    public List<Neighbor<T>> withinRadius(double latitude, double longitude, double radiusKm, Filter<T> filter) {
+        List<Neighbor<T>> result = new ArrayList<>();
+        List<Entry<T>> candidates = candidates(latitude, longitude, radiusKm);
+        double[] distances = batchDistancesKm(latitude, longitude, candidates);
+        for (int i = 0; i < distances.length; i++) {
+            Entry<T> entry = candidates.get(i);
+            if (distances[i] <= radiusKm && filter.accept(entry.value, distances[i])) {
+                result.add(new Neighbor<>(entry, distances[i]));
+            }
+        }
+        result.sort(Comparator.comparingDouble(Neighbor::getDistanceKm));
+        return result;
+    }
+
+    /**
+     * Find the k closest accepted points within maxRadiusKm, closest first.
+     * Cells are visited in rings around the query cell and the search stops as soon as
+     * no unvisited cell can hold a point closer than the current k-th best.
+     */
+    public List<Neighbor<T>> nearest(double latitude, double longitude, int k, double maxRadiusKm, Filter<T> filter) {
+        List<Neighbor<T>> result = new ArrayList<>();
+        if (k <= 0 || maxRadiusKm < 0 || entries.isEmpty()) {
+            return result;
+        }
+
+        Comparator<Neighbor<T>> byDistance = Comparator.comparingDouble(Neighbor::getDistanceKm);
+        PriorityQueue<Neighbor<T>> best = new PriorityQueue<>(k + 1, byDistance.reversed());
+
+        int centerLat = latIndex(latitude);
+        int centerLng = lngIndex(longitude);
+        int maxRing = Math.max(latCells, lngCells / 2);
+        int total = entries.size();
+        int seen = 0;
+
+        for (int ring = 0; ring <= maxRing && seen < total; ring++) {
+            // Any point outside the rings visited so far is at least this far away
+            double ringBoundKm = ringLowerBoundKm(latitude, ring);
+            if (ringBoundKm > maxRadiusKm || (best.size() == k && ringBoundKm >= best.peek().getDistanceKm())) {
+                break;
+            }
+
+            List<Entry<T>> ringEntries = new ArrayList<>();
+            for (long cellKey : ringCells(centerLat, centerLng, ring)) {
+                Map<Long, Entry<T>> cell = cells.get(cellKey);
+                if (cell != null) {
+                    ringEntries.addAll(cell.values());
+                }
+            }
+            seen += ringEntries.size();
+
+            double[] distances = batchDistancesKm(latitude, longitude, ringEntries);
+            for (int i = 0; i < distances.length; i++) {
+                Entry<T> entry = ringEntries.get(i);
+                double distance = distances[i];
+                if (distance > maxRadiusKm || !filter.accept(entry.value, distance)) {
+                    continue;
+                }
+                if (best.size() < k) {
+                    best.add(new Neighbor<>(entry, distance));
+                } else if (distance < best.peek().getDistanceKm()) {
+                    best.poll();
+                    best.add(new Neighbor<>(entry, distance));
+                }
+            }
+        }
+
+        result.addAll(best);
+        result.sort(byDistance);
+        return result;
+    }
+
+    /**
+     * Collect every point stored in the cells overlapping the bounding box of the radius.
+     * Callers still need to refine by exact distance.
+     */
+    protected List<Entry<T>> candidates(double latitude, double longitude, double radiusKm) {
+        List<Entry<T>> result = new ArrayList<>();
+        if (radiusKm < 0 || entries.isEmpty()) {
+            return result;
+        }
+
+        double latSpan = radiusKm / GeoUtils.KM_PER_DEGREE_LAT;
+        double minLat = Math.max(-90.0, latitude - latSpan);
+        double maxLat = Math.min(90.0, latitude + latSpan);
+        double lngSpan = GeoUtils.longitudeSpanDegrees(Math.max(Math.abs(minLat), Math.abs(maxLat)), radiusKm);
+
+        int minLatIdx = latIndex(minLat);
+        int maxLatIdx = latIndex(maxLat);
+        int minLngIdx;
+        int lngCount;
+        if (lngSpan >= 180.0) {
+            minLngIdx = 0;
+            lngCount = lngCells;
+        } else {
+            minLngIdx = (int) Math.floor((longitude - lngSpan + 180.0) / cellSizeDegrees);
+            int maxLngIdx = (int) Math.floor((longitude + lngSpan + 180.0) / cellSizeDegrees);
+            lngCount = Math.min(lngCells, maxLngIdx - minLngIdx + 1);
+        }
+
+        for (int latIdx = minLatIdx; latIdx <= maxLatIdx; latIdx++) {
+            for (int i = 0; i < lngCount; i++) {
+                int lngIdx = Math.floorMod(minLngIdx + i, lngCells);
+                Map<Long, Entry<T>> cell = cells.get(cellKey(latIdx, lngIdx));
+                if (cell != null) {
+                    result.addAll(cell.values());
+                }
+            }
+        }
+        return result;
+    }
+
+    private double[] batchDistancesKm(double latitude, double longitude, List<Entry<T>> entries) {
+        GeoPointArray points = new GeoPointArray(entries.size());
+        for (Entry<T> entry : entries) {
+            points.add(entry.latitude, entry.longitude);
+        }
+        return HaversineKernel.distancesKm(latitude, longitude, points);
+    }
+
+    /**
+     * Keys of the cells at Chebyshev distance ring from the center cell
+     */
+    private List<Long> ringCells(int centerLat, int centerLng, int ring) {
+        List<Long> keys = new ArrayList<>();
+        if (ring == 0) {
+            keys.add(cellKey(centerLat, centerLng));
+            return keys;
+        }
+        // Once the ring is wider than the globe its columns wrap onto cells already visited
+        boolean columnsWrap = 2 * ring + 1 > lngCells;
+        for (int dLat = -ring; dLat <= ring; dLat++) {
+            int latIdx = centerLat + dLat;
+            if (latIdx < 0 || latIdx >= latCells) {
+                continue;
+            }
+            if (Math.abs(dLat) == ring) {
+                if (columnsWrap) {
+                    for (int lngIdx = 0; lngIdx < lngCells; lngIdx++) {
+                        keys.add(cellKey(latIdx, lngIdx));
+                    }
+                } else {
+                    for (int dLng = -ring; dLng <= ring; dLng++) {
+                        keys.add(cellKey(latIdx, Math.floorMod(centerLng + dLng, lngCells)));
+                    }
+                }
+            } else if (!columnsWrap) {
+                keys.add(cellKey(latIdx, Math.floorMod(centerLng - ring, lngCells)));
+                keys.add(cellKey(latIdx, Math.floorMod(centerLng + ring, lngCells)));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Lower bound on the distance from the query point to any cell outside the
+     * (2 * ring + 1) square block centered on its cell
+     */
+    private double ringLowerBoundKm(double latitude, int ring) {
+        if (ring == 0) {
+            return 0.0;
+        }
+        double degrees = (ring - 1) * cellSizeDegrees;
+        double farthestLat = Math.min(90.0, Math.abs(latitude) + ring * cellSizeDegrees);
+        double lngScale = Math.cos(Math.toRadians(farthestLat));
+        return degrees * GeoUtils.KM_PER_DEGREE_LAT * Math.min(1.0, lngScale);
+    }
+
+    private void removeFromCell(Entry<T> entry) {
+        Map<Long, Entry<T>> cell = cells.get(entry.cellKey);
+        if (cell != null) {
+            cell.remove(entry.id);
+            if (cell.isEmpty()) {
+                cells.remove(entry.cellKey);
+            }
+        }
+    }
+
+    private int latIndex(double latitude) {
+        int idx = (int) Math.floor((latitude + 90.0) / cellSizeDegrees);
+        return Math.max(0, Math.min(latCells - 1, idx));
+    }
+
+    private int lngIndex(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180.0) / cellSizeDegrees), lngCells);
+    }
+
+    private long cellKey(int latIdx, int lngIdx) {
+        return (long) latIdx * lngCells + lngIdx;
+    }
+
+    protected static final class Entry<T> {
+        final long id;
+        final double latitude;
+        final double longitude;
+        final T value;
+        final long cellKey;
+
+        Entry(long id, double latitude, double longitude, T value, long cellKey) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.value = value;
+            this.cellKey = cellKey;
+        }
+    }
+
+    /**
+     * Decides whether a point within the search radius qualifies as a result
+     */
+    @FunctionalInterface
+    public interface Filter<T> {
+        boolean accept(T value, double distanceKm);
+    }
+
+    /**
+     * A point returned by a query together with its distance from the query location
+     */
+    public static final class Neighbor<T> {
+        private final long id;
+        private final double latitude;
+        private final double longitude;
+        private final T value;
+        private final double distanceKm;
+
+        Neighbor(Entry<T> entry, double distanceKm) {
+            this.id = entry.id;
+            this.latitude = entry.latitude;
+            this.longitude = entry.longitude;
+            this.value = entry.value;
+            this.distanceKm = distanceKm;
+        }
+
+        public long getId() { return id; }
+        public double getLatitude() { return latitude; }
+        public double getLongitude() { return longitude; }
+        public T getValue() { return value; }
+        public double getDistanceKm() { return distanceKm; }
+    }
+}
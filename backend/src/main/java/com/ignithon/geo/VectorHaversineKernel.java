@@ -0,0 +1,46 @@
+package com.ignithon.geo;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API implementation of {@link HaversineKernel}. Must only be referenced after
+ * checking that the jdk.incubator.vector module is present.
+ */
+final class VectorHaversineKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final double DEG_TO_RAD = Math.PI / 180.0;
+
+    private VectorHaversineKernel() {}
+
+    static void distancesKm(double latitude, double longitude,
+                            double[] latitudes, double[] longitudes, int count, double[] out) {
+        double lat1 = Math.toRadians(latitude);
+        double lng1 = Math.toRadians(longitude);
+        double cosLat1 = Math.cos(lat1);
+        double diameter = 2 * GeoUtils.EARTH_RADIUS_KM;
+
+        int upper = SPECIES.loopBound(count);
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector lat2 = DoubleVector.fromArray(SPECIES, latitudes, i).mul(DEG_TO_RAD);
+            DoubleVector lng2 = DoubleVector.fromArray(SPECIES, longitudes, i).mul(DEG_TO_RAD);
+
+            DoubleVector sinLat = lat2.sub(lat1).mul(0.5).lanewise(VectorOperators.SIN);
+            DoubleVector sinLng = lng2.sub(lng1).mul(0.5).lanewise(VectorOperators.SIN);
+            DoubleVector cosLat2 = lat2.lanewise(VectorOperators.COS);
+
+            DoubleVector a = sinLat.mul(sinLat)
+                    .add(cosLat2.mul(cosLat1).mul(sinLng).mul(sinLng))
+                    .min(1.0);
+            a.lanewise(VectorOperators.SQRT)
+                    .lanewise(VectorOperators.ASIN)
+                    .mul(diameter)
+                    .intoArray(out, i);
+        }
+
+        HaversineKernel.scalarDistancesKm(latitude, longitude, latitudes, longitudes, i, count, out);
+    }
+}
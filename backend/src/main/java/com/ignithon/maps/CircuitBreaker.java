@@ -0,0 +1,117 @@
+package com.ignithon.maps;
+
+/**
+ * Consecutive-failure circuit breaker with a single half-open probe.
+ *
+ * CLOSED lets every call through and opens after failureThreshold failures in a row.
+ * OPEN rejects calls until openMillis have passed, then lets exactly one probe through
+ * (HALF_OPEN). The probe's outcome closes the circuit or re-opens it for another period.
+ *
+ * Every state change starts a new generation, and each admitted call carries the one it
+ * was admitted in. Outcomes from an earlier generation are ignored, so a slow call let in
+ * while CLOSED cannot close a circuit that has since opened without a half-open probe.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+    private long generation;
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Admit a call: returns its ticket, or -1 when the call may not proceed. Every ticket
+     * must be passed back to exactly one of onSuccess, onFailure or release.
+     */
+    public synchronized long admit() {
+        switch (state) {
+            case CLOSED:
+                return generation;
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt < openMillis) {
+                    return -1;
+                }
+                moveTo(State.HALF_OPEN);
+                probeInFlight = true;
+                return generation;
+            default:
+                // HALF_OPEN: only the single probe is allowed
+                if (probeInFlight) {
+                    return -1;
+                }
+                probeInFlight = true;
+                return generation;
+        }
+    }
+
+    /**
+     * Whether a call made now would be rejected, without admitting one
+     */
+    public synchronized boolean isRejecting() {
+        if (state == State.OPEN) {
+            return System.currentTimeMillis() - openedAt < openMillis;
+        }
+        return state == State.HALF_OPEN && probeInFlight;
+    }
+
+    public synchronized void onSuccess(long ticket) {
+        if (ticket != generation) {
+            return;
+        }
+        if (state != State.CLOSED) {
+            moveTo(State.CLOSED);
+        }
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    public synchronized void onFailure(long ticket) {
+        if (ticket != generation) {
+            return;
+        }
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            moveTo(State.OPEN);
+            openedAt = System.currentTimeMillis();
+        }
+        probeInFlight = false;
+    }
+
+    /**
+     * Give back a ticket whose call never reached the upstream
+     */
+    public synchronized void release(long ticket) {
+        if (ticket != generation) {
+            return;
+        }
+        probeInFlight = false;
+        if (state == State.HALF_OPEN) {
+            // Let the next caller probe instead of waiting another full open period
+            moveTo(State.OPEN);
+            openedAt = System.currentTimeMillis() - openMillis;
+        }
+    }
+
+    private void moveTo(State next) {
+        state = next;
+        generation++;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+}
@@ -0,0 +1,55 @@
+package com.ignithon.maps;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parts of a Directions API response we use: status, the first route's legs and its
+ * overview polyline. Steps and everything else are skipped while parsing.
+ */
+public class DirectionsResult {
+
+    String status;
+    String errorMessage;
+    final List<Leg> legs = new ArrayList<>();
+    String overviewPolyline;
+    boolean hasRoute;
+
+    public String getStatus() { return status; }
+    public String getErrorMessage() { return errorMessage; }
+    public List<Leg> getLegs() { return legs; }
+    public String getOverviewPolyline() { return overviewPolyline; }
+    public boolean hasRoute() { return hasRoute; }
+
+    public long getTotalDistanceMeters() {
+        long total = 0;
+        for (Leg leg : legs) {
+            total += leg.distanceMeters;
+        }
+        return total;
+    }
+
+    public long getTotalDurationSeconds() {
+        long total = 0;
+        for (Leg leg : legs) {
+            total += leg.durationSeconds;
+        }
+        return total;
+    }
+
+    public static class Leg {
+        String distanceText;
+        long distanceMeters;
+        String durationText;
+        long durationSeconds;
+        String startAddress;
+        String endAddress;
+
+        public String getDistanceText() { return distanceText; }
+        public long getDistanceMeters() { return distanceMeters; }
+        public String getDurationText() { return durationText; }
+        public long getDurationSeconds() { return durationSeconds; }
+        public String getStartAddress() { return startAddress; }
+        public String getEndAddress() { return endAddress; }
+    }
+}
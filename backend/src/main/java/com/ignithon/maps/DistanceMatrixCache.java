@@ -0,0 +1,127 @@
+package com.ignithon.maps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ignithon.cache.TtlLruCache;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Cell-level cache for distance-matrix results.
+ *
+ * Each origin/destination pair is cached on its own, keyed by travel mode and both
+ * coordinates snapped to the same ~11 m grid as the geocode cache. A request then only
+ * needs the cells that are missing, which planBatches() packs into as few Google calls
+ * as the per-request limits allow.
+ */
+@Component
+public class DistanceMatrixCache {
+
+    /** Google Distance Matrix limits per request */
+    static final int MAX_ORIGINS = 25;
+    static final int MAX_DESTINATIONS = 25;
+    static final int MAX_ELEMENTS = 100;
+
+    @Value("${app.maps.matrix-cache.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${app.maps.matrix-cache.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    private TtlLruCache<String, Map<String, Object>> cells;
+
+    @PostConstruct
+    public void init() {
+        cells = new TtlLruCache<>(maxEntries, ttlMinutes * 60_000L);
+    }
+
+    public Map<String, Object> get(String mode, double originLat, double originLng, double destLat, double destLng) {
+        Map<String, Object> cell = cells.get(cellKey(mode, originLat, originLng, destLat, destLng));
+        return cell == null ? null : new LinkedHashMap<>(cell);
+    }
+
+    public void put(String mode, double originLat, double originLng, double destLat, double destLng,
+                    Map<String, Object> cell) {
+        cells.put(cellKey(mode, originLat, originLng, destLat, destLng), new LinkedHashMap<>(cell));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("entries", cells.size());
+        stats.put("hits", cells.getHits());
+        stats.put("misses", cells.getMisses());
+        return stats;
+    }
+
+    static String cellKey(String mode, double originLat, double originLng, double destLat, double destLng) {
+        return mode + "|" + GeocodeCache.coordinateKey(originLat, originLng)
+                + "|" + GeocodeCache.coordinateKey(destLat, destLng);
+    }
+
+    /**
+     * Split the missing cells of a matrix into Google-sized requests that cover exactly those cells.
+     *
+     * Origins missing the same set of destinations are grouped, then each group is tiled with
+     * the widest destination chunk allowed and as many origins as fit in the element limit.
+     * The common cases, a new origin against known destinations or a new destination against
+     * known origins, each collapse into a handful of full-size requests.
+     */
+    public static List<Batch> planBatches(boolean[][] missing) {
+        Map<List<Integer>, List<Integer>> originsByDestinations = new LinkedHashMap<>();
+        for (int o = 0; o < missing.length; o++) {
+            List<Integer> destinations = new ArrayList<>();
+            for (int d = 0; d < missing[o].length; d++) {
+                if (missing[o][d]) {
+                    destinations.add(d);
+                }
+            }
+            if (!destinations.isEmpty()) {
+                originsByDestinations.computeIfAbsent(destinations, k -> new ArrayList<>()).add(o);
+            }
+        }
+
+        List<Batch> batches = new ArrayList<>();
+        for (Map.Entry<List<Integer>, List<Integer>> group : originsByDestinations.entrySet()) {
+            int[] destinations = toArray(group.getKey());
+            int[] origins = toArray(group.getValue());
+
+            for (int d = 0; d < destinations.length; d += MAX_DESTINATIONS) {
+                int[] destSlice = Arrays.copyOfRange(destinations, d, Math.min(destinations.length, d + MAX_DESTINATIONS));
+                int originChunk = Math.max(1, Math.min(MAX_ORIGINS, MAX_ELEMENTS / destSlice.length));
+                for (int o = 0; o < origins.length; o += originChunk) {
+                    int[] originSlice = Arrays.copyOfRange(origins, o, Math.min(origins.length, o + originChunk));
+                    batches.add(new Batch(originSlice, destSlice));
+                }
+            }
+        }
+        return batches;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * One Google request: indices into the caller's origin and destination lists
+     */
+    public static final class Batch {
+        private final int[] origins;
+        private final int[] destinations;
+
+        Batch(int[] origins, int[] destinations) {
+            this.origins = origins;
+            this.destinations = destinations;
+        }
+
+        public int[] getOrigins() { return origins; }
+        public int[] getDestinations() { return destinations; }
+    }
+}
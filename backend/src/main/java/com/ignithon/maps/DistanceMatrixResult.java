@@ -0,0 +1,72 @@
+package com.ignithon.maps;
+
+import java.util.Arrays;
+
+/**
+ * A Distance Matrix API response stored as flat, row-major element arrays.
+ * Addresses and traffic fields are skipped while parsing.
+ */
+public class DistanceMatrixResult {
+
+    String status;
+    String errorMessage;
+
+    private int rowCount;
+    private int[] rowStart = new int[8];
+    private int size;
+    private String[] elementStatus = new String[16];
+    private String[] distanceText = new String[16];
+    private String[] durationText = new String[16];
+    private long[] distanceMeters = new long[16];
+    private long[] durationSeconds = new long[16];
+
+    public String getStatus() { return status; }
+    public String getErrorMessage() { return errorMessage; }
+    public int getRowCount() { return rowCount; }
+
+    public int getColumnCount(int row) {
+        return (row + 1 < rowCount ? rowStart[row + 1] : size) - rowStart[row];
+    }
+
+    public String getElementStatus(int row, int col) { return elementStatus[index(row, col)]; }
+    public String getDistanceText(int row, int col) { return distanceText[index(row, col)]; }
+    public String getDurationText(int row, int col) { return durationText[index(row, col)]; }
+    public long getDistanceMeters(int row, int col) { return distanceMeters[index(row, col)]; }
+    public long getDurationSeconds(int row, int col) { return durationSeconds[index(row, col)]; }
+
+    public boolean isElementOk(int row, int col) {
+        return "OK".equals(getElementStatus(row, col));
+    }
+
+    private int index(int row, int col) {
+        return rowStart[row] + col;
+    }
+
+    void startRow() {
+        if (rowCount == rowStart.length) {
+            rowStart = Arrays.copyOf(rowStart, rowCount * 2);
+        }
+        rowStart[rowCount++] = size;
+    }
+
+    /** Append an element to the current row and return its index for the parser to fill */
+    int addElement() {
+        if (size == elementStatus.length) {
+            int capacity = size * 2;
+            elementStatus = Arrays.copyOf(elementStatus, capacity);
+            distanceText = Arrays.copyOf(distanceText, capacity);
+            durationText = Arrays.copyOf(durationText, capacity);
+            distanceMeters = Arrays.copyOf(distanceMeters, capacity);
+            durationSeconds = Arrays.copyOf(durationSeconds, capacity);
+        }
+        return size++;
+    }
+
+    void setElement(int index, String status, String distance, long meters, String duration, long seconds) {
+        elementStatus[index] = status;
+        distanceText[index] = distance;
+        distanceMeters[index] = meters;
+        durationText[index] = duration;
+        durationSeconds[index] = seconds;
+    }
+}
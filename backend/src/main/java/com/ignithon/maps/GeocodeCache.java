@@ -0,0 +1,197 @@
+package com.ignithon.maps;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ignithon.cache.TtlLruCache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Caches successful geocode and reverse-geocode results.
+ *
+ * Addresses are keyed by a normalized form (case, whitespace and punctuation folded).
+ * Coordinates are snapped to a 0.0001 degree grid (about 11 m of latitude), so nearby
+ * lookups for the same building share one entry. When app.maps.geocode-cache.file is set,
+ * the cache is loaded at startup and written back periodically and on shutdown.
+ */
+@Component
+public class GeocodeCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeocodeCache.class);
+
+    /** Grid cells per degree used to quantize reverse-geocode coordinates */
+    private static final double COORDINATE_STEPS_PER_DEGREE = 10_000.0;
+
+    private static final TypeReference<Map<String, Object>> RESULT_TYPE = new TypeReference<Map<String, Object>>() {};
+
+    @Value("${app.maps.geocode-cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${app.maps.geocode-cache.ttl-hours:168}")
+    private long ttlHours;
+
+    @Value("${app.maps.geocode-cache.file:}")
+    private String persistenceFile;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private TtlLruCache<String, Map<String, Object>> addresses;
+    private TtlLruCache<String, Map<String, Object>> coordinates;
+    private volatile boolean dirty;
+
+    @PostConstruct
+    public void init() {
+        long ttlMillis = ttlHours * 3_600_000L;
+        addresses = new TtlLruCache<>(maxEntries, ttlMillis);
+        coordinates = new TtlLruCache<>(maxEntries, ttlMillis);
+        load();
+    }
+
+    public Map<String, Object> getAddress(String address) {
+        return copyOf(addresses.get(addressKey(address)));
+    }
+
+    public void putAddress(String address, Map<String, Object> result) {
+        addresses.put(addressKey(address), copyOf(result));
+        dirty = true;
+    }
+
+    public Map<String, Object> getReverse(double lat, double lng) {
+        return copyOf(coordinates.get(coordinateKey(lat, lng)));
+    }
+
+    public void putReverse(double lat, double lng, Map<String, Object> result) {
+        coordinates.put(coordinateKey(lat, lng), copyOf(result));
+        dirty = true;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("addressEntries", addresses.size());
+        stats.put("addressHits", addresses.getHits());
+        stats.put("addressMisses", addresses.getMisses());
+        stats.put("reverseEntries", coordinates.size());
+        stats.put("reverseHits", coordinates.getHits());
+        stats.put("reverseMisses", coordinates.getMisses());
+        return stats;
+    }
+
+    public static String addressKey(String address) {
+        String normalized = address.toLowerCase(Locale.ROOT)
+                .replaceAll("[^\\p{L}\\p{N},]+", " ")
+                .replaceAll("\\s*,\\s*", ",")
+                .replaceAll(",+", ",")
+                .trim();
+        return normalized.replaceAll("^,|,$", "");
+    }
+
+    public static String coordinateKey(double lat, double lng) {
+        long latStep = Math.round(lat * COORDINATE_STEPS_PER_DEGREE);
+        long lngStep = Math.round(lng * COORDINATE_STEPS_PER_DEGREE);
+        return latStep + ":" + lngStep;
+    }
+
+    @Scheduled(fixedDelayString = "${app.maps.geocode-cache.flush-interval-ms:300000}")
+    public void scheduledFlush() {
+        if (dirty) {
+            save();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (dirty) {
+            save();
+        }
+    }
+
+    private void load() {
+        Path path = persistencePath();
+        if (path == null || !Files.exists(path)) {
+            return;
+        }
+        try {
+            JsonNode root = objectMapper.readTree(path.toFile());
+            int restored = restore(root.path("addresses"), addresses) + restore(root.path("coordinates"), coordinates);
+            logger.info("Loaded {} geocode cache entries from {}", restored, path);
+        } catch (Exception e) {
+            logger.warn("Failed to load geocode cache from {}", path, e);
+        }
+    }
+
+    private int restore(JsonNode entries, TtlLruCache<String, Map<String, Object>> cache) {
+        int count = 0;
+        for (JsonNode entry : entries) {
+            Map<String, Object> value = objectMapper.convertValue(entry.get("value"), RESULT_TYPE);
+            cache.put(entry.get("key").asText(), value, entry.get("expiresAt").asLong());
+            count++;
+        }
+        return count;
+    }
+
+    private synchronized void save() {
+        Path path = persistencePath();
+        if (path == null) {
+            return;
+        }
+        dirty = false;
+        try {
+            ObjectNode root = objectMapper.createObjectNode();
+            root.set("addresses", dump(addresses));
+            root.set("coordinates", dump(coordinates));
+
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            // Write to a sibling file and swap it in so a crash never leaves a truncated cache
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            objectMapper.writeValue(tmp.toFile(), root);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty = true;
+            logger.warn("Failed to persist geocode cache to {}", path, e);
+        }
+    }
+
+    private ArrayNode dump(TtlLruCache<String, Map<String, Object>> cache) {
+        ArrayNode array = objectMapper.createArrayNode();
+        for (TtlLruCache.Snapshot<String, Map<String, Object>> entry : cache.snapshot()) {
+            ObjectNode node = array.addObject();
+            node.put("key", entry.getKey());
+            node.put("expiresAt", entry.getExpiresAt());
+            node.set("value", objectMapper.valueToTree(entry.getValue()));
+        }
+        return array;
+    }
+
+    private Path persistencePath() {
+        return persistenceFile == null || persistenceFile.isBlank() ? null : Paths.get(persistenceFile);
+    }
+
+    private static Map<String, Object> copyOf(Map<String, Object> result) {
+        return result == null ? null : new LinkedHashMap<>(result);
+    }
+}
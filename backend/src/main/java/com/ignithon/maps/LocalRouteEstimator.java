@@ -0,0 +1,160 @@
+package com.ignithon.maps;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ignithon.geo.GeoPointArray;
+import com.ignithon.geo.GeoUtils;
+import com.ignithon.geo.HaversineKernel;
+
+/**
+ * Distance and ETA estimates computed without Google, used while the Maps circuit is open.
+ * Road distance is great-circle distance times a road factor; duration assumes an average
+ * speed per travel mode. Results carry "estimated": true so clients can tell them apart.
+ */
+@Component
+public class LocalRouteEstimator {
+
+    @Value("${app.maps.fallback.road-factor:1.3}")
+    private double roadFactor;
+
+    @Value("${app.maps.fallback.speed-kmh.driving:30}")
+    private double drivingSpeedKmh;
+
+    @Value("${app.maps.fallback.speed-kmh.bicycling:15}")
+    private double bicyclingSpeedKmh;
+
+    @Value("${app.maps.fallback.speed-kmh.transit:20}")
+    private double transitSpeedKmh;
+
+    @Value("${app.maps.fallback.speed-kmh.walking:5}")
+    private double walkingSpeedKmh;
+
+    /**
+     * Estimate shaped like MapsService's fastest-route response
+     */
+    public Map<String, Object> estimateRoute(double startLat, double startLng, double endLat, double endLng, String mode) {
+        double meters = roadMeters(GeoUtils.haversineKm(startLat, startLng, endLat, endLng));
+        long seconds = durationSeconds(meters, mode);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("estimated", true);
+        result.put("distance", formatDistance(meters));
+        result.put("duration", formatDuration(seconds));
+        result.put("distanceMeters", meters);
+        result.put("durationSeconds", seconds);
+        return result;
+    }
+
+    /**
+     * Estimate shaped like MapsService's multi-waypoint directions response
+     */
+    public Map<String, Object> estimateDirections(List<double[]> waypoints, String mode) {
+        List<Map<String, Object>> legs = new ArrayList<>();
+        double totalDistance = 0;
+        int totalDuration = 0;
+        for (int i = 1; i < waypoints.size(); i++) {
+            double[] from = waypoints.get(i - 1);
+            double[] to = waypoints.get(i);
+            double meters = roadMeters(GeoUtils.haversineKm(from[0], from[1], to[0], to[1]));
+            long seconds = durationSeconds(meters, mode);
+
+            Map<String, Object> leg = new HashMap<>();
+            leg.put("distance", formatDistance(meters));
+            leg.put("duration", formatDuration(seconds));
+            leg.put("distanceMeters", meters);
+            leg.put("durationSeconds", seconds);
+            legs.add(leg);
+            totalDistance += meters;
+            totalDuration += (int) seconds;
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("estimated", true);
+        result.put("legs", legs);
+        result.put("totalDistance", totalDistance);
+        result.put("totalDuration", totalDuration);
+        return result;
+    }
+
+    /**
+     * Estimated distance-matrix cells for origins x destinations, as [lat, lng] pairs
+     */
+    public List<List<Map<String, Object>>> estimateMatrix(List<double[]> origins, List<double[]> destinations, String mode) {
+        GeoPointArray originPoints = new GeoPointArray(origins.size());
+        for (double[] origin : origins) {
+            originPoints.add(origin[0], origin[1]);
+        }
+        GeoPointArray destinationPoints = new GeoPointArray(destinations.size());
+        for (double[] destination : destinations) {
+            destinationPoints.add(destination[0], destination[1]);
+        }
+        double[][] km = HaversineKernel.distanceMatrixKm(originPoints, destinationPoints);
+
+        List<List<Map<String, Object>>> matrix = new ArrayList<>(origins.size());
+        for (double[] row : km) {
+            List<Map<String, Object>> cells = new ArrayList<>(row.length);
+            for (double distanceKm : row) {
+                double meters = roadMeters(distanceKm);
+                Map<String, Object> cell = new LinkedHashMap<>();
+                cell.put("distance", formatDistance(meters));
+                cell.put("duration", formatDuration(durationSeconds(meters, mode)));
+                cell.put("estimated", true);
+                cells.add(cell);
+            }
+            matrix.add(cells);
+        }
+        return matrix;
+    }
+
+    /**
+     * Straight-line radius coverable within the given minutes, allowing for the road factor
+     */
+    public double reachableRadiusKm(double minutes, String mode) {
+        return speedKmh(mode) * minutes / 60.0 / roadFactor;
+    }
+
+    private double roadMeters(double greatCircleKm) {
+        return greatCircleKm * roadFactor * 1000.0;
+    }
+
+    private long durationSeconds(double meters, String mode) {
+        return Math.round(meters / 1000.0 / speedKmh(mode) * 3600.0);
+    }
+
+    private double speedKmh(String mode) {
+        if (mode == null) {
+            return drivingSpeedKmh;
+        }
+        switch (mode.toLowerCase(Locale.ROOT)) {
+            case "walking": return walkingSpeedKmh;
+            case "bicycling": return bicyclingSpeedKmh;
+            case "transit": return transitSpeedKmh;
+            default: return drivingSpeedKmh;
+        }
+    }
+
+    public static String formatDistance(double meters) {
+        return meters < 1000 ? Math.round(meters) + " m" : String.format(Locale.ROOT, "%.1f km", meters / 1000.0);
+    }
+
+    public static String formatDuration(long seconds) {
+        long minutes = Math.max(1, Math.round(seconds / 60.0));
+        if (minutes < 60) {
+            return minutes + (minutes == 1 ? " min" : " mins");
+        }
+        long hours = minutes / 60;
+        long rest = minutes % 60;
+        String text = hours + (hours == 1 ? " hour" : " hours");
+        return rest == 0 ? text : text + " " + rest + (rest == 1 ? " min" : " mins");
+    }
+}
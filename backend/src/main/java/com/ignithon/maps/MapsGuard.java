@@ -0,0 +1,187 @@
+package com.ignithon.maps;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Circuit breaker plus concurrency bulkhead for each Google Maps endpoint type.
+ *
+ * A call needs a bulkhead slot and the breaker's permission. When every slot is taken the
+ * call waits, without holding a thread, for a slot to free up; a freed slot goes to the
+ * longest waiter. Callers that get no permit, because the circuit is open or the wait
+ * ran out, should answer with a local estimate where one exists instead of queueing
+ * further behind a degraded upstream.
+ */
+@Component
+public class MapsGuard {
+
+    private static final Logger logger = LoggerFactory.getLogger(MapsGuard.class);
+
+    public enum Endpoint { DIRECTIONS, DISTANCE_MATRIX, GEOCODE, PLACES }
+
+    @Value("${app.maps.breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${app.maps.breaker.open-ms:30000}")
+    private long openMillis;
+
+    @Value("${app.maps.bulkhead.max-concurrent:20}")
+    private int maxConcurrent;
+
+    @Value("${app.maps.bulkhead.max-wait-ms:2000}")
+    private long maxWaitMillis;
+
+    private final Map<Endpoint, CircuitBreaker> breakers = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Bulkhead> bulkheads = new EnumMap<>(Endpoint.class);
+
+    @PostConstruct
+    public void init() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            breakers.put(endpoint, new CircuitBreaker(failureThreshold, openMillis));
+            bulkheads.put(endpoint, new Bulkhead(maxConcurrent));
+        }
+    }
+
+    /**
+     * A permit for one upstream call, completing once a bulkhead slot is free. Completes
+     * with null when the circuit is open or no slot freed up within the wait limit.
+     */
+    public CompletableFuture<Permit> acquire(Endpoint endpoint) {
+        CircuitBreaker breaker = breakers.get(endpoint);
+        if (breaker.isRejecting()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Permit> waiter = new CompletableFuture<>();
+        if (!bulkheads.get(endpoint).takeOrQueue(waiter)) {
+            return waiter.completeOnTimeout(null, maxWaitMillis, TimeUnit.MILLISECONDS);
+        }
+        long ticket = breaker.admit();
+        if (ticket < 0) {
+            freeSlot(endpoint);
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.completedFuture(new Permit(endpoint, ticket));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        for (Endpoint endpoint : Endpoint.values()) {
+            Map<String, Object> endpointStats = new HashMap<>();
+            endpointStats.put("circuit", breakers.get(endpoint).getState());
+            endpointStats.put("consecutiveFailures", breakers.get(endpoint).getConsecutiveFailures());
+            endpointStats.put("inFlight", bulkheads.get(endpoint).inFlight());
+            endpointStats.put("waiting", bulkheads.get(endpoint).waiting());
+            stats.put(endpoint.name(), endpointStats);
+        }
+        return stats;
+    }
+
+    /**
+     * Hand a freed slot to the longest waiter still waiting, or back to the bulkhead
+     */
+    private void freeSlot(Endpoint endpoint) {
+        CircuitBreaker breaker = breakers.get(endpoint);
+        Bulkhead bulkhead = bulkheads.get(endpoint);
+        CompletableFuture<Permit> waiter;
+        while ((waiter = bulkhead.nextWaiterOrRelease()) != null) {
+            if (waiter.isDone()) {
+                // Gave up waiting; the slot stays taken for the next one
+                continue;
+            }
+            long ticket = breaker.admit();
+            if (ticket < 0) {
+                waiter.complete(null);
+                continue;
+            }
+            if (waiter.complete(new Permit(endpoint, ticket))) {
+                return;
+            }
+            breaker.release(ticket);
+        }
+    }
+
+    /**
+     * Slot count and FIFO of callers waiting for one
+     */
+    private static final class Bulkhead {
+        private final int capacity;
+        private int available;
+        private final ArrayDeque<CompletableFuture<Permit>> waiters = new ArrayDeque<>();
+
+        Bulkhead(int capacity) {
+            this.capacity = capacity;
+            this.available = capacity;
+        }
+
+        /** Take a slot, or queue the waiter and return false */
+        synchronized boolean takeOrQueue(CompletableFuture<Permit> waiter) {
+            if (available > 0 && waiters.isEmpty()) {
+                available--;
+                return true;
+            }
+            waiters.add(waiter);
+            return false;
+        }
+
+        /** The next waiter, which the caller's slot now belongs to, or null once the slot is returned */
+        synchronized CompletableFuture<Permit> nextWaiterOrRelease() {
+            CompletableFuture<Permit> waiter = waiters.poll();
+            if (waiter == null) {
+                available++;
+            }
+            return waiter;
+        }
+
+        synchronized int inFlight() {
+            return capacity - available;
+        }
+
+        synchronized int waiting() {
+            return waiters.size();
+        }
+    }
+
+    /**
+     * Outcome of one guarded call; exactly one of success, failure or release must be called
+     */
+    public final class Permit {
+        private final Endpoint endpoint;
+        private final long ticket;
+
+        private Permit(Endpoint endpoint, long ticket) {
+            this.endpoint = endpoint;
+            this.ticket = ticket;
+        }
+
+        public void success() {
+            breakers.get(endpoint).onSuccess(ticket);
+            freeSlot(endpoint);
+        }
+
+        public void failure() {
+            CircuitBreaker breaker = breakers.get(endpoint);
+            CircuitBreaker.State before = breaker.getState();
+            breaker.onFailure(ticket);
+            if (before != CircuitBreaker.State.OPEN && breaker.getState() == CircuitBreaker.State.OPEN) {
+                logger.warn("Maps {} circuit opened after repeated failures", endpoint);
+            }
+            freeSlot(endpoint);
+        }
+
+        public void release() {
+            breakers.get(endpoint).release(ticket);
+            freeSlot(endpoint);
+        }
+    }
+}
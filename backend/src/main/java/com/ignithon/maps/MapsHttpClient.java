@@ -0,0 +1,165 @@
+package com.ignithon.maps;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Non-blocking GET client for the Google Maps web services.
+ * Every request carries a timeout, so a slow upstream fails the future instead of
+ * holding a thread.
+ *
+ * Bodies are parsed as they stream in. Reading the stream blocks until the body has
+ * arrived, so parsing runs on its own small pool and never on the HTTP client's threads,
+ * which deliver the bytes. A body that stalls is closed after its own timeout, failing the
+ * read, so it cannot hold one of those few threads indefinitely. The parse queue is
+ * bounded, so a burst fails fast instead of piling up, and a response whose request has
+ * already timed out is dropped unparsed.
+ */
+@Component
+public class MapsHttpClient {
+
+    /** Reads a response body from a streaming parser positioned before its first token */
+    @FunctionalInterface
+    public interface BodyParser<T> {
+        T parse(JsonParser parser) throws IOException;
+    }
+
+    @Value("${app.maps.http.request-timeout-ms:5000}")
+    private long requestTimeoutMs;
+
+    @Value("${app.maps.http.body-timeout-ms:5000}")
+    private long bodyTimeoutMs;
+
+    @Value("${app.maps.http.parse-threads:4}")
+    private int parseThreads;
+
+    @Value("${app.maps.http.parse-queue-size:100}")
+    private int parseQueueSize;
+
+    @Autowired
+    private HttpClient httpClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private ExecutorService parseExecutor;
+
+    private ScheduledExecutorService timeoutScheduler;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        parseExecutor = new ThreadPoolExecutor(parseThreads, parseThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(parseQueueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "maps-parse-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        timeoutScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "maps-body-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        parseExecutor.shutdownNow();
+        timeoutScheduler.shutdownNow();
+    }
+
+    /**
+     * Fetch a URL and parse the body straight from the response stream
+     */
+    public <T> CompletableFuture<T> get(String url, BodyParser<T> bodyParser) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(requestTimeoutMs))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        result.completeExceptionally(error);
+                        return;
+                    }
+                    try {
+                        parseExecutor.execute(() -> parse(response, bodyParser, result));
+                    } catch (RejectedExecutionException e) {
+                        closeQuietly(response.body());
+                        result.completeExceptionally(new RuntimeException("Maps API response parse queue is full", e));
+                    }
+                });
+        return result.orTimeout(requestTimeoutMs + bodyTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private <T> void parse(HttpResponse<InputStream> response, BodyParser<T> bodyParser, CompletableFuture<T> result) {
+        InputStream body = response.body();
+        // Timed out while queued: nobody is waiting for this body any more
+        if (result.isDone()) {
+            closeQuietly(body);
+            return;
+        }
+        AtomicBoolean expired = new AtomicBoolean();
+        // Closing the stream wakes a read blocked on it; interrupting the thread would not
+        ScheduledFuture<?> timeout = timeoutScheduler.schedule(() -> {
+            expired.set(true);
+            closeQuietly(body);
+        }, bodyTimeoutMs, TimeUnit.MILLISECONDS);
+        try (body) {
+            if (response.statusCode() / 100 != 2) {
+                throw new RuntimeException("Maps API returned HTTP " + response.statusCode());
+            }
+            try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+                result.complete(bodyParser.parse(parser));
+            }
+        } catch (IOException e) {
+            if (expired.get()) {
+                result.completeExceptionally(
+                        new RuntimeException("Maps API response body timed out after " + bodyTimeoutMs + " ms", e));
+            } else {
+                result.completeExceptionally(new RuntimeException("Invalid Maps API response: " + e.getMessage(), e));
+            }
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        } finally {
+            timeout.cancel(false);
+        }
+    }
+
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException e) {
+            // Already failed; the reader reports the timeout
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.ignithon.maps;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Streaming parsers for Directions and Distance Matrix responses.
+ *
+ * Fields are read token by token straight into the typed results; everything we do not
+ * use (route steps, bounds, addresses lists, warnings) is skipped without being
+ * materialized, so a long route or a large matrix costs little more than its useful data.
+ */
+public final class MapsResponseParser {
+
+    private MapsResponseParser() {}
+
+    public static DirectionsResult parseDirections(JsonParser parser) throws IOException {
+        DirectionsResult result = new DirectionsResult();
+        expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "status":
+                    result.status = parser.getText();
+                    break;
+                case "error_message":
+                    result.errorMessage = parser.getText();
+                    break;
+                case "routes":
+                    expect(parser, value, JsonToken.START_ARRAY);
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        if (!result.hasRoute) {
+                            parseRoute(parser, result);
+                            result.hasRoute = true;
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return result;
+    }
+
+    public static DistanceMatrixResult parseDistanceMatrix(JsonParser parser) throws IOException {
+        DistanceMatrixResult result = new DistanceMatrixResult();
+        expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "status":
+                    result.status = parser.getText();
+                    break;
+                case "error_message":
+                    result.errorMessage = parser.getText();
+                    break;
+                case "rows":
+                    expect(parser, value, JsonToken.START_ARRAY);
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        result.startRow();
+                        parseMatrixRow(parser, result);
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return result;
+    }
+
+    private static void parseRoute(JsonParser parser, DirectionsResult result) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("legs".equals(field)) {
+                expect(parser, value, JsonToken.START_ARRAY);
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    result.legs.add(parseLeg(parser));
+                }
+            } else if ("overview_polyline".equals(field)) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    parser.nextToken();
+                    if ("points".equals(name)) {
+                        result.overviewPolyline = parser.getText();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static DirectionsResult.Leg parseLeg(JsonParser parser) throws IOException {
+        DirectionsResult.Leg leg = new DirectionsResult.Leg();
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+        TextValue quantity = new TextValue();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "distance":
+                    readTextValue(parser, quantity);
+                    leg.distanceText = quantity.text;
+                    leg.distanceMeters = quantity.value;
+                    break;
+                case "duration":
+                    readTextValue(parser, quantity);
+                    leg.durationText = quantity.text;
+                    leg.durationSeconds = quantity.value;
+                    break;
+                case "start_address":
+                    leg.startAddress = parser.getText();
+                    break;
+                case "end_address":
+                    leg.endAddress = parser.getText();
+                    break;
+                default:
+                    parser.skipChildren(); // steps, locations, via_waypoint
+            }
+        }
+        return leg;
+    }
+
+    private static void parseMatrixRow(JsonParser parser, DistanceMatrixResult result) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+        TextValue distance = new TextValue();
+        TextValue duration = new TextValue();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (!"elements".equals(field)) {
+                parser.skipChildren();
+                continue;
+            }
+            expect(parser, value, JsonToken.START_ARRAY);
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                String status = null;
+                distance.clear();
+                duration.clear();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    parser.nextToken();
+                    switch (name) {
+                        case "status":
+                            status = parser.getText();
+                            break;
+                        case "distance":
+                            readTextValue(parser, distance);
+                            break;
+                        case "duration":
+                            readTextValue(parser, duration);
+                            break;
+                        default:
+                            parser.skipChildren(); // duration_in_traffic, fare
+                    }
+                }
+                int index = result.addElement();
+                result.setElement(index, status, distance.text, distance.value, duration.text, duration.value);
+            }
+        }
+    }
+
+    /** Reads a {"text": ..., "value": ...} object positioned at its START_OBJECT */
+    private static void readTextValue(JsonParser parser, TextValue target) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            if ("text".equals(name)) {
+                target.text = parser.getText();
+            } else if ("value".equals(name)) {
+                target.value = parser.getValueAsLong();
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + actual);
+        }
+    }
+
+    private static final class TextValue {
+        String text;
+        long value;
+
+        void clear() {
+            text = null;
+            value = 0;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.ignithon.maps;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evenly spaced rate limiter. Each caller reserves the next free slot and is told how long
+ * to wait for it, so callers schedule their work instead of blocking a thread.
+ */
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private long nextFreeNanos;
+
+    public RateLimiter(double permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.nextFreeNanos = System.nanoTime();
+    }
+
+    /**
+     * Reserve one permit; returns the delay in nanoseconds until it may be used (0 if now)
+     */
+    public synchronized long reserve() {
+        long now = System.nanoTime();
+        long start = Math.max(now, nextFreeNanos);
+        nextFreeNanos = start + intervalNanos;
+        return start - now;
+    }
+}
@@ -0,0 +1,136 @@
+package com.ignithon.matching;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Assigns donations to NGOs under per-NGO capacity, using regret-based greedy insertion.
+ *
+ * Each donation has a list of feasible NGOs sorted by cost (distance). Donations are
+ * assigned in order of regret: the extra cost paid if they lose their best NGO and must
+ * fall back to the second best. A donation with a single remaining option has infinite
+ * regret and is placed first. Ties go to the earliest deadline. Capacities only decrease,
+ * so a regret computed earlier is re-checked when popped and re-queued if it went stale.
+ *
+ * Works on plain arrays and indices so one instance can handle thousands of donations
+ * per round without boxing.
+ */
+public final class DonationMatcher {
+
+    public static final int UNASSIGNED = -1;
+
+    private final double[] quantities;
+    private final double[] deadlines;
+    private final int[][] candidateNgos;
+    private final double[][] candidateCosts;
+    private final double[] remainingCapacity;
+
+    /** Index of the first candidate of each donation that may still have capacity */
+    private final int[] firstOpen;
+
+    /**
+     * @param quantities      size of each donation
+     * @param deadlines       tie-breaker per donation, smaller is more urgent (e.g. expiry epoch seconds)
+     * @param candidateNgos   feasible NGO indices per donation, sorted by ascending cost
+     * @param candidateCosts  cost of each candidate, aligned with candidateNgos
+     * @param ngoCapacity     capacity still available at each NGO, same unit as quantities
+     */
+    public DonationMatcher(double[] quantities, double[] deadlines, int[][] candidateNgos,
+                           double[][] candidateCosts, double[] ngoCapacity) {
+        if (quantities.length != deadlines.length || quantities.length != candidateNgos.length
+                || quantities.length != candidateCosts.length) {
+            throw new IllegalArgumentException("Per-donation arrays must have the same length");
+        }
+        this.quantities = quantities;
+        this.deadlines = deadlines;
+        this.candidateNgos = candidateNgos;
+        this.candidateCosts = candidateCosts;
+        this.remainingCapacity = ngoCapacity.clone();
+        this.firstOpen = new int[quantities.length];
+    }
+
+    /**
+     * Returns the NGO index assigned to each donation, or UNASSIGNED
+     */
+    public int[] solve() {
+        int[] assignment = new int[quantities.length];
+        Arrays.fill(assignment, UNASSIGNED);
+
+        PriorityQueue<QueuedDonation> queue = new PriorityQueue<>(Math.max(1, quantities.length),
+                (a, b) -> {
+                    int byRegret = Double.compare(b.regret, a.regret);
+                    return byRegret != 0 ? byRegret : Double.compare(deadlines[a.donation], deadlines[b.donation]);
+                });
+
+        for (int d = 0; d < quantities.length; d++) {
+            double regret = regret(d);
+            if (!Double.isNaN(regret)) {
+                queue.add(new QueuedDonation(d, regret));
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            QueuedDonation next = queue.poll();
+            int d = next.donation;
+            if (assignment[d] != UNASSIGNED) {
+                continue;
+            }
+
+            double regret = regret(d);
+            if (Double.isNaN(regret)) {
+                continue; // every candidate ran out of capacity
+            }
+            if (Double.compare(regret, next.regret) != 0) {
+                queue.add(new QueuedDonation(d, regret));
+                continue;
+            }
+
+            int ngo = candidateNgos[d][firstOpen[d]];
+            assignment[d] = ngo;
+            remainingCapacity[ngo] -= quantities[d];
+        }
+
+        return assignment;
+    }
+
+    /**
+     * Capacity left at an NGO after solve()
+     */
+    public double remainingCapacity(int ngo) {
+        return remainingCapacity[ngo];
+    }
+
+    /**
+     * Second-best minus best feasible cost; +Infinity with one option, NaN with none
+     */
+    private double regret(int d) {
+        int[] ngos = candidateNgos[d];
+        double quantity = quantities[d];
+
+        int i = firstOpen[d];
+        while (i < ngos.length && remainingCapacity[ngos[i]] < quantity) {
+            i++;
+        }
+        firstOpen[d] = i;
+        if (i == ngos.length) {
+            return Double.NaN;
+        }
+
+        for (int j = i + 1; j < ngos.length; j++) {
+            if (remainingCapacity[ngos[j]] >= quantity) {
+                return candidateCosts[d][j] - candidateCosts[d][i];
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    private static final class QueuedDonation {
+        final int donation;
+        final double regret;
+
+        QueuedDonation(int donation, double regret) {
+            this.donation = donation;
+            this.regret = regret;
+        }
+    }
+}
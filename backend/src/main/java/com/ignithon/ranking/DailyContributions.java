@@ -0,0 +1,128 @@
+package com.ignithon.ranking;
+
+import java.util.Arrays;
+
+/**
+ * Per-day totals by id for the most recent N days, kept in a ring of primitive hash maps.
+ *
+ * Rolling windows use it to subtract a day's contributions when that day ages out: only
+ * the ids that contributed on the expiring day are visited, so moving a window forward
+ * costs time proportional to how many ids changed that day rather than to all ids.
+ * Not thread-safe: callers guard it together with the rankings it feeds.
+ */
+public final class DailyContributions {
+
+    private final int days;
+    private final long[] slotDay;
+    private final DayBucket[] buckets;
+
+    public DailyContributions(int days) {
+        if (days <= 0) {
+            throw new IllegalArgumentException("Days must be positive: " + days);
+        }
+        this.days = days;
+        this.slotDay = new long[days];
+        this.buckets = new DayBucket[days];
+        Arrays.fill(slotDay, Long.MIN_VALUE);
+    }
+
+    /**
+     * Add amount to an id's total for a day. A day more than N days older than one already
+     * stored shares its slot, so callers expire old days before writing new ones.
+     */
+    public void add(long epochDay, long id, long amount) {
+        int slot = slot(epochDay);
+        if (slotDay[slot] != epochDay || buckets[slot] == null) {
+            slotDay[slot] = epochDay;
+            buckets[slot] = new DayBucket();
+        }
+        buckets[slot].add(id, amount);
+    }
+
+    /**
+     * Visit every non-zero (id, total) recorded for a day
+     */
+    public void forEach(long epochDay, OrderStatisticTree.Visitor visitor) {
+        int slot = slot(epochDay);
+        if (slotDay[slot] == epochDay && buckets[slot] != null) {
+            buckets[slot].forEach(visitor);
+        }
+    }
+
+    /**
+     * Drop a day's totals, freeing its slot for a future day
+     */
+    public void clear(long epochDay) {
+        int slot = slot(epochDay);
+        if (slotDay[slot] == epochDay) {
+            slotDay[slot] = Long.MIN_VALUE;
+            buckets[slot] = null;
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(slotDay, Long.MIN_VALUE);
+        Arrays.fill(buckets, null);
+    }
+
+    private int slot(long epochDay) {
+        return (int) Math.floorMod(epochDay, (long) days);
+    }
+
+    /** Open-addressing long to long map for one day */
+    private static final class DayBucket {
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] ids = new long[16];
+        private long[] totals = new long[16];
+        private int size;
+
+        DayBucket() {
+            Arrays.fill(ids, EMPTY);
+        }
+
+        void add(long id, long amount) {
+            int mask = ids.length - 1;
+            int slot = hash(id) & mask;
+            while (ids[slot] != EMPTY) {
+                if (ids[slot] == id) {
+                    totals[slot] += amount;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            ids[slot] = id;
+            totals[slot] = amount;
+            if (++size * 2 > ids.length) {
+                grow();
+            }
+        }
+
+        void forEach(OrderStatisticTree.Visitor visitor) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] != EMPTY && totals[i] != 0) {
+                    visitor.accept(ids[i], totals[i]);
+                }
+            }
+        }
+
+        private void grow() {
+            long[] oldIds = ids;
+            long[] oldTotals = totals;
+            ids = new long[oldIds.length * 2];
+            totals = new long[oldIds.length * 2];
+            Arrays.fill(ids, EMPTY);
+            size = 0;
+            for (int i = 0; i < oldIds.length; i++) {
+                if (oldIds[i] != EMPTY) {
+                    add(oldIds[i], oldTotals[i]);
+                }
+            }
+        }
+
+        private static int hash(long id) {
+            long hash = id * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.ignithon.ranking;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ranking of ids by score, highest first, as a treap augmented with subtree sizes.
+ *
+ * Updates, rank lookups and positional access are O(log n) expected; reading k entries
+ * from any offset costs O(log n + k). Ties are ordered by ascending id so the order is
+ * total and stable. Not thread-safe: callers guard it (typically with a read-write lock).
+ */
+public final class OrderStatisticTree {
+
+    private Node root;
+    private final Map<Long, Node> nodes = new HashMap<>();
+
+    /**
+     * Set an id's score, inserting it if absent
+     */
+    public void put(long id, long score) {
+        Node existing = nodes.get(id);
+        if (existing != null) {
+            if (existing.score == score) {
+                return;
+            }
+            root = delete(root, existing.score, id);
+        }
+        Node node = new Node(id, score);
+        nodes.put(id, node);
+        root = insert(root, node);
+    }
+
+    /**
+     * Add delta to an id's score (absent ids start at zero); returns the new score
+     */
+    public long add(long id, long delta) {
+        long score = score(id) + delta;
+        put(id, score);
+        return score;
+    }
+
+    public boolean remove(long id) {
+        Node existing = nodes.remove(id);
+        if (existing == null) {
+            return false;
+        }
+        root = delete(root, existing.score, id);
+        return true;
+    }
+
+    public void clear() {
+        root = null;
+        nodes.clear();
+    }
+
+    public boolean contains(long id) {
+        return nodes.containsKey(id);
+    }
+
+    /** Score of an id, zero when absent */
+    public long score(long id) {
+        Node node = nodes.get(id);
+        return node != null ? node.score : 0L;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Competition rank (1-based) of an id: one more than the number of ids scoring
+     * strictly higher, so ties share a rank. Zero when the id is absent.
+     */
+    public int rank(long id) {
+        Node node = nodes.get(id);
+        return node != null ? countAbove(node.score) + 1 : 0;
+    }
+
+    /**
+     * Number of ids whose score is strictly greater than the given one
+     */
+    public int countAbove(long score) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.score > score) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Visit up to limit entries in ranking order, starting at the 0-based position offset
+     */
+    public void visit(int offset, int limit, Visitor visitor) {
+        if (offset < 0 || limit <= 0) {
+            return;
+        }
+        visit(root, offset, new int[] {limit}, visitor);
+    }
+
+    private static void visit(Node node, int skip, int[] remaining, Visitor visitor) {
+        if (node == null || remaining[0] == 0) {
+            return;
+        }
+        int leftSize = size(node.left);
+        if (skip > leftSize) {
+            visit(node.right, skip - leftSize - 1, remaining, visitor);
+            return;
+        }
+        if (skip < leftSize) {
+            visit(node.left, skip, remaining, visitor);
+            if (remaining[0] == 0) {
+                return;
+            }
+        }
+        visitor.accept(node.id, node.score);
+        remaining[0]--;
+        visit(node.right, 0, remaining, visitor);
+    }
+
+    private static int size(Node node) {
+        return node != null ? node.size : 0;
+    }
+
+    /** True when (score, id) ranks before the node's entry */
+    private static boolean before(long score, long id, Node node) {
+        return score > node.score || (score == node.score && id < node.id);
+    }
+
+    private static Node insert(Node node, Node inserted) {
+        if (node == null) {
+            return inserted;
+        }
+        if (inserted.priority > node.priority) {
+            Node[] parts = split(node, inserted.score, inserted.id);
+            inserted.left = parts[0];
+            inserted.right = parts[1];
+            inserted.update();
+            return inserted;
+        }
+        if (before(inserted.score, inserted.id, node)) {
+            node.left = insert(node.left, inserted);
+        } else {
+            node.right = insert(node.right, inserted);
+        }
+        node.update();
+        return node;
+    }
+
+    private static Node delete(Node node, long score, long id) {
+        if (node == null) {
+            return null;
+        }
+        if (node.id == id) {
+            return merge(node.left, node.right);
+        }
+        if (before(score, id, node)) {
+            node.left = delete(node.left, score, id);
+        } else {
+            node.right = delete(node.right, score, id);
+        }
+        node.update();
+        return node;
+    }
+
+    /** Split into entries ranking before (score, id) and the rest */
+    private static Node[] split(Node node, long score, long id) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (node.score > score || (node.score == score && node.id < id)) {
+            Node[] parts = split(node.right, score, id);
+            node.right = parts[0];
+            node.update();
+            parts[0] = node;
+            return parts;
+        }
+        Node[] parts = split(node.left, score, id);
+        node.left = parts[1];
+        node.update();
+        parts[1] = node;
+        return parts;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    /**
+     * Receives entries in ranking order
+     */
+    @FunctionalInterface
+    public interface Visitor {
+        void accept(long id, long score);
+    }
+
+    private static final class Node {
+        final long id;
+        final long score;
+        final int priority;
+        int size = 1;
+        Node left;
+        Node right;
+
+        Node(long id, long score) {
+            this.id = id;
+            this.score = score;
+            this.priority = ThreadLocalRandom.current().nextInt();
+        }
+
+        void update() {
+            size = 1 + OrderStatisticTree.size(left) + OrderStatisticTree.size(right);
+        }
+    }
+}
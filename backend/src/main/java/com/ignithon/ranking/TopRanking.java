@@ -0,0 +1,100 @@
+package com.ignithon.ranking;
+
+/**
+ * The top entries of a ranking too large to hold in memory, loaded from an index-ordered
+ * query and kept current by score updates.
+ *
+ * At most capacity entries are kept in an {@link OrderStatisticTree}. The floor bounds the
+ * score of every id not held, so the leading entries scoring above it are known to be the
+ * true top of the full ranking; pages inside that exact prefix are served from memory and
+ * anything past it has to go back to the source. Updates for ids scoring at or below the
+ * floor are ignored, which keeps each update O(log capacity) however large the source is.
+ * Not thread-safe: callers guard it with their own lock.
+ */
+public final class TopRanking {
+
+    private final int capacity;
+    private final OrderStatisticTree tree = new OrderStatisticTree();
+    /** No id outside the tree scores above this; nothing is known until the first load */
+    private long floor = Long.MAX_VALUE;
+
+    public TopRanking(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Replace the contents with the first rows of the source ranking, in ranking order.
+     * Pass complete when the source had no further rows.
+     */
+    public void load(long[] ids, long[] scores, int count, boolean complete) {
+        tree.clear();
+        for (int i = 0; i < count; i++) {
+            tree.put(ids[i], scores[i]);
+        }
+        floor = complete || count == 0 ? Long.MIN_VALUE : scores[count - 1];
+        trim();
+    }
+
+    /**
+     * Record an id's new score
+     */
+    public void update(long id, long score) {
+        if (tree.contains(id) || score > floor) {
+            tree.put(id, score);
+            trim();
+        }
+    }
+
+    /**
+     * Forget an id that left the source altogether
+     */
+    public void remove(long id) {
+        tree.remove(id);
+    }
+
+    /**
+     * Number of leading entries known to match the full ranking
+     */
+    public int exactSize() {
+        return tree.countAbove(floor);
+    }
+
+    /**
+     * Visit a page if it lies within the exact prefix; returns false, visiting nothing,
+     * when the page needs the source
+     */
+    public boolean visit(int offset, int limit, OrderStatisticTree.Visitor visitor) {
+        if (floor != Long.MIN_VALUE && offset + limit > exactSize()) {
+            return false;
+        }
+        tree.visit(offset, limit, visitor);
+        return true;
+    }
+
+    /**
+     * Competition rank of a score among the exact prefix: one more than the entries above it
+     */
+    public int rankOf(long score) {
+        return tree.countAbove(score) + 1;
+    }
+
+    // Evicting the lowest entry raises the floor to its score
+    private void trim() {
+        while (tree.size() > capacity) {
+            long[] last = new long[2];
+            tree.visit(tree.size() - 1, 1, (id, score) -> {
+                last[0] = id;
+                last[1] = score;
+            });
+            tree.remove(last[0]);
+            floor = Math.max(floor, last[1]);
+        }
+    }
+}
@@ -3,10 +3,13 @@ package com.ignithon.repository;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.ignithon.entity.Delivery;
 
@@ -19,16 +22,48 @@ public interface DeliveryRepository extends JpaRepository<Delivery, Long> {
     
     List<Delivery> findByIsAvailableTrue();
     
-    @Query("SELECT d FROM Delivery d WHERE d.isAvailable = true AND " +
-           "SQRT(POWER(d.latitude - :latitude, 2) + POWER(d.longitude - :longitude, 2)) <= :maxDistance")
-    List<Delivery> findAvailableDeliveriesNearLocation(
-        @Param("latitude") Double latitude, 
-        @Param("longitude") Double longitude, 
-        @Param("maxDistance") Double maxDistance
+    /**
+     * Available drivers inside a lat/lng bounding box, closest to the given point first by
+     * equirectangular distance (longitudeScale is cos^2 of its latitude), up to the page size.
+     * The range predicates are served by the (latitude, longitude) index on users; callers
+     * refine by exact distance.
+     */
+    @Query("SELECT d FROM Delivery d WHERE d.isAvailable = true " +
+           "AND d.latitude BETWEEN :minLatitude AND :maxLatitude " +
+           "AND d.longitude BETWEEN :minLongitude AND :maxLongitude " +
+           "ORDER BY (d.latitude - :latitude) * (d.latitude - :latitude) " +
+           "+ (d.longitude - :longitude) * (d.longitude - :longitude) * :longitudeScale, d.id")
+    List<Delivery> findAvailableWithinBoundingBox(
+        @Param("minLatitude") Double minLatitude,
+        @Param("maxLatitude") Double maxLatitude,
+        @Param("minLongitude") Double minLongitude,
+        @Param("maxLongitude") Double maxLongitude,
+        @Param("latitude") Double latitude,
+        @Param("longitude") Double longitude,
+        @Param("longitudeScale") Double longitudeScale,
+        Pageable pageable
     );
     
     List<Delivery> findByVehicleType(Delivery.VehicleType vehicleType);
     
     @Query("SELECT d FROM Delivery d WHERE d.averageRating >= :minRating ORDER BY d.averageRating DESC")
     List<Delivery> findByMinimumRating(@Param("minRating") Double minRating);
+    
+    /**
+     * Mark a driver busy if they are still available; returns 0 when someone else got them first
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE deliveries SET is_available = false WHERE id = :driverId AND is_available = true",
+           nativeQuery = true)
+    int claimIfAvailable(@Param("driverId") Long driverId);
+    
+    /**
+     * Make a dispatched driver available again, counting the run when it ended in a delivery
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE deliveries SET is_available = true, total_deliveries = total_deliveries + :delivered " +
+                   "WHERE id = :driverId", nativeQuery = true)
+    int release(@Param("driverId") Long driverId, @Param("delivered") int delivered);
 }
@@ -4,10 +4,14 @@ import com.ignithon.entity.Donation;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -28,15 +32,19 @@ public interface DonationRepository extends JpaRepository<Donation, Long> {
     @Query(value = "SELECT COUNT(DISTINCT d.ngo_id) FROM donations d WHERE d.donor_id = :donorId", nativeQuery = true)
     Long countUniqueNGOsByDonorId(@Param("donorId") Long donorId);
     
+    /**
+     * Pending donations whose donor is within maxDistanceMeters, closest first.
+     * Donations are located at their donor, so the GiST index on users.location serves the filter
+     */
     @Query(value = "SELECT d.*, " +
-                   "ST_Distance(ST_MakePoint(d.longitude, d.latitude), ST_MakePoint(:longitude, :latitude)) as distance " +
-                   "FROM donations d " +
+                   "ST_Distance(u.location, CAST(ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326) AS geography)) as distance " +
+                   "FROM donations d JOIN users u ON u.id = d.donor_id " +
                    "WHERE d.status = 'PENDING' " +
-                   "AND ST_Distance(ST_MakePoint(d.longitude, d.latitude), ST_MakePoint(:longitude, :latitude)) <= :maxDistance " +
-                   "ORDER BY distance", nativeQuery = true)
+                   "AND ST_DWithin(u.location, CAST(ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326) AS geography), :maxDistanceMeters) " +
+                   "ORDER BY u.location <-> CAST(ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326) AS geography)", nativeQuery = true)
     List<Donation> findNearbyDonations(@Param("latitude") Double latitude, 
                                        @Param("longitude") Double longitude, 
-                                       @Param("maxDistance") Double maxDistance);
+                                       @Param("maxDistanceMeters") Double maxDistanceMeters);
     
     @Query(value = "SELECT d.* FROM donations d " +
                    "WHERE d.status = :status " +
@@ -49,4 +57,121 @@ public interface DonationRepository extends JpaRepository<Donation, Long> {
                    "ORDER BY d.created_at DESC", nativeQuery = true)
     List<Donation> findByDonorIdAndStatusOrderByCreatedAtDesc(@Param("donorId") Long donorId, 
                                                               @Param("status") String status);
-} 
\ No newline at end of file
+    
+    /**
+     * Unexpired donations in a status that no NGO has been assigned to yet, with their donor (and location) loaded
+     */
+    @Query("SELECT d FROM Donation d JOIN FETCH d.donor " +
+           "WHERE d.status = :status AND d.ngo IS NULL AND d.expiryTime > :now")
+    List<Donation> findUnassignedByStatus(@Param("status") Donation.DonationStatus status,
+                                          @Param("now") LocalDateTime now);
+    
+    /**
+     * Unexpired donations in a status with no driver dispatched yet, with donor and NGO loaded
+     */
+    @Query("SELECT d FROM Donation d JOIN FETCH d.donor LEFT JOIN FETCH d.ngo " +
+           "WHERE d.status = :status AND d.deliveryDriver IS NULL AND d.expiryTime > :now")
+    List<Donation> findAwaitingDriver(@Param("status") Donation.DonationStatus status,
+                                      @Param("now") LocalDateTime now);
+    
+    /**
+     * [donorId, quantity, foodType, deliveredAt] for every donation in the given statuses.
+     * Donations delivered before deliveredAt was recorded fall back to their last update.
+     */
+    @Query("SELECT d.donor.id, d.quantity, d.foodType, COALESCE(d.deliveredAt, d.updatedAt) FROM Donation d " +
+           "WHERE d.status IN :statuses")
+    List<Object[]> findContributions(@Param("statuses") Collection<Donation.DonationStatus> statuses);
+    
+    /**
+     * [donorId, impactNgoId, impactCity, quantity, foodType] for every donation in the given statuses
+     */
+    @Query("SELECT d.donor.id, d.impactNgoId, d.impactCity, d.quantity, d.foodType FROM Donation d " +
+           "WHERE d.status IN :statuses")
+    List<Object[]> findImpactHistory(@Param("statuses") Collection<Donation.DonationStatus> statuses);
+    
+    /**
+     * Fix the city key and NGO a donation's impact is counted under
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE donations SET impact_city = :impactCity, impact_ngo_id = :impactNgoId WHERE id = :donationId",
+           nativeQuery = true)
+    int recordImpactScope(@Param("donationId") Long donationId,
+                          @Param("impactCity") String impactCity,
+                          @Param("impactNgoId") Long impactNgoId);
+    
+    /**
+     * Donor cities of donations in the given statuses delivered before impact scopes were recorded
+     */
+    @Query("SELECT DISTINCT d.donor.city FROM Donation d WHERE d.status IN :statuses AND d.impactCity IS NULL")
+    List<String> findUnrecordedImpactCities(@Param("statuses") Collection<Donation.DonationStatus> statuses);
+    
+    /**
+     * Record the impact scope of those donations whose donor lives in city ('' for none)
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE donations SET impact_city = :impactCity, impact_ngo_id = ngo_id " +
+                   "WHERE impact_city IS NULL AND status IN (:statuses) " +
+                   "AND donor_id IN (SELECT id FROM users WHERE COALESCE(city, '') = :city)", nativeQuery = true)
+    int recordImpactScopeByCity(@Param("statuses") Collection<String> statuses,
+                                @Param("city") String city,
+                                @Param("impactCity") String impactCity);
+    
+    
+    /**
+     * Total quantity per NGO still open in the given statuses, as [ngoId, sum] rows
+     */
+    @Query("SELECT d.ngo.id, SUM(d.quantity) FROM Donation d " +
+           "WHERE d.ngo IS NOT NULL AND d.status IN :statuses GROUP BY d.ngo.id")
+    List<Object[]> sumQuantityByNgo(@Param("statuses") Collection<Donation.DonationStatus> statuses);
+    
+    /**
+     * Assign an NGO only if the donation is still pending and unassigned
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE donations SET ngo_id = :ngoId, updated_at = NOW() " +
+                   "WHERE id = :donationId AND ngo_id IS NULL AND status = 'PENDING'", nativeQuery = true)
+    int assignNgoIfUnassigned(@Param("donationId") Long donationId, @Param("ngoId") Long ngoId);
+    
+    /**
+     * Move a donation to a new status only if it is still in the status it was read in.
+     * Clears the persistence context so no stale copy of the row is flushed over it.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query(value = "UPDATE donations SET status = :status, delivered_at = :deliveredAt, updated_at = NOW() " +
+                   "WHERE id = :donationId AND status = :previous", nativeQuery = true)
+    int updateStatusIfUnchanged(@Param("donationId") Long donationId,
+                                @Param("previous") String previous,
+                                @Param("status") String status,
+                                @Param("deliveredAt") LocalDateTime deliveredAt);
+    
+    /**
+     * Dispatch a driver to an accepted donation unless one was dispatched already
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE donations SET delivery_driver_id = :driverId, updated_at = NOW() " +
+                   "WHERE id = :donationId AND delivery_driver_id IS NULL AND status = 'ACCEPTED'", nativeQuery = true)
+    int assignDriverIfUnassigned(@Param("donationId") Long donationId, @Param("driverId") Long driverId);
+    
+    /**
+     * Ids of donations in a status whose expiry time has passed
+     */
+    @Query("SELECT d.id FROM Donation d WHERE d.status = :status AND d.expiryTime <= :now")
+    List<Long> findExpiredIds(@Param("status") Donation.DonationStatus status, @Param("now") LocalDateTime now);
+    
+    @Query(value = "SELECT delivery_driver_id FROM donations WHERE id = :donationId", nativeQuery = true)
+    Long findDriverId(@Param("donationId") Long donationId);
+    
+    /**
+     * Detach a donation's driver; returns 0 when another caller already did
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE donations SET delivery_driver_id = NULL, updated_at = NOW() " +
+                   "WHERE id = :donationId AND delivery_driver_id = :driverId", nativeQuery = true)
+    int clearDriver(@Param("donationId") Long donationId, @Param("driverId") Long driverId);
+}
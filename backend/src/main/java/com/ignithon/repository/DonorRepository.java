@@ -1,11 +1,13 @@
 package com.ignithon.repository;
 
+import com.ignithon.entity.Donation;
 import com.ignithon.entity.Donor;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -20,4 +22,24 @@ public interface DonorRepository extends JpaRepository<Donor, Long> {
     
     @Query("SELECT d FROM Donor d WHERE d.city = :city AND d.isActive = true")
     List<Donor> findActiveDonorsByCity(@Param("city") String city);
-} 
\ No newline at end of file
+    
+    /**
+     * [id, name, donorType] for every donor, without loading full entities
+     */
+    @Query("SELECT d.id, d.name, d.donorType FROM Donor d")
+    List<Object[]> findDisplayInfo();
+    
+    /**
+     * [donor, total, pending, delivered, distinct NGOs] for one donor, counted in a single
+     * grouped pass over their donations
+     */
+    @Query("SELECT dn, COUNT(d), " +
+           "COALESCE(SUM(CASE WHEN d.status = :pending THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN d.status IN :delivered THEN 1 ELSE 0 END), 0), " +
+           "COUNT(DISTINCT d.ngo.id) " +
+           "FROM Donor dn LEFT JOIN Donation d ON d.donor = dn " +
+           "WHERE dn.email = :email GROUP BY dn")
+    List<Object[]> findSummaryByEmail(@Param("email") String email,
+                                      @Param("pending") Donation.DonationStatus pending,
+                                      @Param("delivered") Collection<Donation.DonationStatus> delivered);
+}
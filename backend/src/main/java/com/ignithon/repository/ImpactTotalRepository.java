@@ -0,0 +1,27 @@
+package com.ignithon.repository;
+
+import com.ignithon.entity.ImpactTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface ImpactTotalRepository extends JpaRepository<ImpactTotal, Long> {
+    
+    /**
+     * Add to a scope's totals in place; returns 0 when the scope has no row yet
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE impact_totals SET meals = meals + :meals, co2e_grams = co2e_grams + :co2eGrams, " +
+                   "delivered_donations = delivered_donations + :donations " +
+                   "WHERE scope = :scope AND scope_key = :scopeKey", nativeQuery = true)
+    int increment(@Param("scope") String scope,
+                  @Param("scopeKey") String scopeKey,
+                  @Param("meals") long meals,
+                  @Param("co2eGrams") long co2eGrams,
+                  @Param("donations") long donations);
+}
@@ -2,9 +2,11 @@ package com.ignithon.repository;
 
 import com.ignithon.entity.NGO;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -15,23 +17,35 @@ public interface NGORepository extends JpaRepository<NGO, Long> {
     
     List<NGO> findByAcceptsDonationsTrue();
     
-    @Query(value = "SELECT *, " +
-                   "ST_Distance(ST_MakePoint(longitude, latitude), ST_MakePoint(:longitude, :latitude)) as distance " +
-                   "FROM ngos " +
-                   "WHERE accepts_donations = true " +
-                   "ORDER BY distance " +
+    @Query(value = "SELECT u.*, n.*, " +
+                   "ST_Distance(u.location, CAST(ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326) AS geography)) as distance " +
+                   "FROM ngos n JOIN users u ON u.id = n.id " +
+                   "WHERE n.accepts_donations = true " +
+                   "ORDER BY u.location <-> CAST(ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326) AS geography) " +
                    "LIMIT :limit", nativeQuery = true)
     List<NGO> findNearbyNGOs(@Param("latitude") Double latitude, 
                               @Param("longitude") Double longitude, 
                               @Param("limit") int limit);
     
-    @Query(value = "SELECT *, " +
-                   "ST_Distance(ST_MakePoint(longitude, latitude), ST_MakePoint(:longitude, :latitude)) as distance " +
-                   "FROM ngos " +
-                   "WHERE accepts_donations = true " +
-                   "AND ST_Distance(ST_MakePoint(longitude, latitude), ST_MakePoint(:longitude, :latitude)) <= :maxDistance " +
-                   "ORDER BY distance", nativeQuery = true)
+    /**
+     * NGOs within maxDistanceMeters, closest first. Served by the GiST index on users.location
+     */
+    @Query(value = "SELECT u.*, n.*, " +
+                   "ST_Distance(u.location, CAST(ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326) AS geography)) as distance " +
+                   "FROM ngos n JOIN users u ON u.id = n.id " +
+                   "WHERE n.accepts_donations = true " +
+                   "AND ST_DWithin(u.location, CAST(ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326) AS geography), :maxDistanceMeters) " +
+                   "ORDER BY u.location <-> CAST(ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326) AS geography)", nativeQuery = true)
     List<NGO> findNGOsWithinDistance(@Param("latitude") Double latitude, 
                                      @Param("longitude") Double longitude, 
-                                     @Param("maxDistance") Double maxDistance);
-} 
\ No newline at end of file
+                                     @Param("maxDistanceMeters") Double maxDistanceMeters);
+    
+    /**
+     * Store a recomputed service area without touching the rest of the row
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE ngos SET service_area_polygon = :polygon, service_area_signature = :signature " +
+                   "WHERE id = :id", nativeQuery = true)
+    int updateServiceArea(@Param("id") Long id, @Param("polygon") String polygon, @Param("signature") String signature);
+}
@@ -2,10 +2,13 @@ package com.ignithon.repository;
 
 import com.ignithon.entity.Volunteer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,6 +16,8 @@ import java.util.Optional;
 public interface VolunteerRepository extends JpaRepository<Volunteer, Long> {
     
     Optional<Volunteer> findByEmail(String email);
+
+    boolean existsByIdAndEmail(Long id, String email);
     
     List<Volunteer> findByCity(String city);
     
@@ -22,29 +27,73 @@ public interface VolunteerRepository extends JpaRepository<Volunteer, Long> {
     
     List<Volunteer> findByCityAndIsAvailableTrue(String city);
     
-    @Query(value = "SELECT v.*, " +
-                   "ST_Distance(ST_MakePoint(v.longitude, v.latitude), ST_MakePoint(:longitude, :latitude)) as distance " +
-                   "FROM volunteers v " +
+    @Query(value = "SELECT u.*, v.*, " +
+                   "ST_Distance(u.location, CAST(ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326) AS geography)) as distance " +
+                   "FROM volunteers v JOIN users u ON u.id = v.id " +
                    "WHERE v.is_available = true " +
-                   "ORDER BY distance " +
+                   "ORDER BY u.location <-> CAST(ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326) AS geography) " +
                    "LIMIT :limit", nativeQuery = true)
     List<Volunteer> findAvailableVolunteersNearby(@Param("latitude") Double latitude, 
                                                    @Param("longitude") Double longitude, 
                                                    @Param("limit") Integer limit);
     
-    @Query(value = "SELECT v.*, " +
-                   "ST_Distance(ST_MakePoint(v.longitude, v.latitude), ST_MakePoint(:longitude, :latitude)) as distance " +
-                   "FROM volunteers v " +
+    /**
+     * Available volunteers within maxDistanceMeters, closest first. Served by the GiST index on users.location
+     */
+    @Query(value = "SELECT u.*, v.*, " +
+                   "ST_Distance(u.location, CAST(ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326) AS geography)) as distance " +
+                   "FROM volunteers v JOIN users u ON u.id = v.id " +
                    "WHERE v.is_available = true " +
-                   "AND ST_Distance(ST_MakePoint(v.longitude, v.latitude), ST_MakePoint(:longitude, :latitude)) <= :maxDistance " +
-                   "ORDER BY distance", nativeQuery = true)
+                   "AND ST_DWithin(u.location, CAST(ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326) AS geography), :maxDistanceMeters) " +
+                   "ORDER BY u.location <-> CAST(ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326) AS geography)", nativeQuery = true)
     List<Volunteer> findAvailableVolunteersWithinDistance(@Param("latitude") Double latitude, 
                                                           @Param("longitude") Double longitude, 
-                                                          @Param("maxDistance") Double maxDistance);
+                                                          @Param("maxDistanceMeters") Double maxDistanceMeters);
+    
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE users SET latitude = :latitude, longitude = :longitude, updated_at = NOW() " +
+                   "WHERE id = :id AND id IN (SELECT id FROM volunteers)", nativeQuery = true)
+    int updateLocation(@Param("id") Long id, 
+                       @Param("latitude") Double latitude, 
+                       @Param("longitude") Double longitude);
+    
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE volunteers SET is_available = :available WHERE id = :id", nativeQuery = true)
+    int updateAvailability(@Param("id") Long id, @Param("available") boolean available);
+    
+    /**
+     * Page of [id, points], highest first. An index-only scan of idx_volunteers_points
+     */
+    @Query(value = "SELECT id, points FROM volunteers ORDER BY points DESC, id " +
+                   "LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Object[]> findTopByPoints(@Param("limit") int limit, @Param("offset") int offset);
+    
+    /**
+     * Page of [id, totalPickups], highest first. An index-only scan of idx_volunteers_pickups
+     */
+    @Query(value = "SELECT id, total_pickups FROM volunteers ORDER BY total_pickups DESC, id " +
+                   "LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Object[]> findTopByPickups(@Param("limit") int limit, @Param("offset") int offset);
+    
+    /**
+     * Page of [id, averageRating], highest first and unrated last. An index-only scan of
+     * idx_volunteers_rating, which is ordered NULLS LAST to match
+     */
+    @Query(value = "SELECT id, average_rating FROM volunteers ORDER BY average_rating DESC NULLS LAST, id " +
+                   "LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Object[]> findTopByRating(@Param("limit") int limit, @Param("offset") int offset);
+    
+    long countByPointsGreaterThan(Integer points);
     
-    List<Volunteer> findByOrderByPointsDesc();
+    long countByTotalPickupsGreaterThan(Integer totalPickups);
     
-    List<Volunteer> findByOrderByTotalPickupsDesc();
+    long countByAverageRatingGreaterThan(Double averageRating);
     
-    List<Volunteer> findByOrderByAverageRatingDesc();
+    /**
+     * Leaderboard display fields [id, name, city, volunteerType] for a page of ids
+     */
+    @Query("SELECT v.id, v.name, v.city, v.volunteerType FROM Volunteer v WHERE v.id IN :ids")
+    List<Object[]> findDisplayInfo(@Param("ids") Collection<Long> ids);
 } 
\ No newline at end of file
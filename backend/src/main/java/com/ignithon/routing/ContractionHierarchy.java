@@ -0,0 +1,838 @@
+package com.ignithon.routing;
+
+import java.util.Arrays;
+
+/**
+ * Contraction hierarchy over a {@link RoadGraph} for fast exact shortest-time queries.
+ *
+ * Preprocessing contracts nodes one at a time in order of importance (edge difference plus
+ * contracted-neighbour count, with lazy updates), adding shortcuts where no witness path
+ * exists. Queries are bidirectional Dijkstra searches that only go "up" the hierarchy, so
+ * they settle a few hundred nodes regardless of graph size. Many-to-many tables use the
+ * bucket method: one backward search per target, one forward search per source.
+ *
+ * Instances are immutable after {@link #build}; queries are thread-safe.
+ */
+public final class ContractionHierarchy {
+
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    /** Witness searches give up after settling this many nodes (a shortcut is then added) */
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+    private static final int SIMULATION_SETTLE_LIMIT = 100;
+
+    private final RoadGraph graph;
+    private final int[] rank;
+
+    // Upward edges v -> x with rank[x] > rank[v], grouped by v
+    private final int[] upFirst;
+    private final int[] upTarget;
+    private final int[] upWeight;
+    private final int[] upLength;
+    private final int[] upMiddle;
+
+    // Edges u -> v with rank[u] > rank[v], grouped by v and stored as v -> u for backward searches
+    private final int[] downFirst;
+    private final int[] downTarget;
+    private final int[] downWeight;
+    private final int[] downLength;
+    private final int[] downMiddle;
+
+    private final ThreadLocal<SearchState> forwardState;
+    private final ThreadLocal<SearchState> backwardState;
+
+    private ContractionHierarchy(RoadGraph graph, int[] rank, EdgeBuffer up, EdgeBuffer down) {
+        this.graph = graph;
+        this.rank = rank;
+        int n = graph.nodeCount();
+        int[][] upCsr = up.toCsr(n);
+        upFirst = upCsr[0];
+        upTarget = upCsr[1];
+        upWeight = upCsr[2];
+        upLength = upCsr[3];
+        upMiddle = upCsr[4];
+        int[][] downCsr = down.toCsr(n);
+        downFirst = downCsr[0];
+        downTarget = downCsr[1];
+        downWeight = downCsr[2];
+        downLength = downCsr[3];
+        downMiddle = downCsr[4];
+        forwardState = ThreadLocal.withInitial(() -> new SearchState(n));
+        backwardState = ThreadLocal.withInitial(() -> new SearchState(n));
+    }
+
+    public RoadGraph getGraph() {
+        return graph;
+    }
+
+    public int shortcutCount() {
+        int shortcuts = 0;
+        for (int middle : upMiddle) {
+            if (middle >= 0) shortcuts++;
+        }
+        for (int middle : downMiddle) {
+            if (middle >= 0) shortcuts++;
+        }
+        return shortcuts;
+    }
+
+    public static ContractionHierarchy build(RoadGraph graph) {
+        return new Builder(graph).build();
+    }
+
+    /** Result of a point-to-point query; path holds graph nodes from source to target */
+    public static final class Route {
+        private final int timeMs;
+        private final int lengthMeters;
+        private final int[] path;
+
+        Route(int timeMs, int lengthMeters, int[] path) {
+            this.timeMs = timeMs;
+            this.lengthMeters = lengthMeters;
+            this.path = path;
+        }
+
+        public int getTimeMs() { return timeMs; }
+        public int getLengthMeters() { return lengthMeters; }
+        public int[] getPath() { return path; }
+    }
+
+    /**
+     * Fastest route between two graph nodes, or null when the target is unreachable
+     */
+    public Route route(int source, int target, boolean withPath) {
+        if (source == target) {
+            return new Route(0, 0, new int[] {source});
+        }
+        SearchState forward = forwardState.get();
+        SearchState backward = backwardState.get();
+        forward.reset();
+        backward.reset();
+        forward.open(source, 0, 0, -1, -1);
+        backward.open(target, 0, 0, -1, -1);
+
+        int best = INFINITY;
+        int meeting = -1;
+        while (!forward.heap.isEmpty() || !backward.heap.isEmpty()) {
+            boolean forwardDone = forward.heap.isEmpty() || forward.heap.peekKey() >= best;
+            boolean backwardDone = backward.heap.isEmpty() || backward.heap.peekKey() >= best;
+            if (forwardDone && backwardDone) {
+                break;
+            }
+            boolean stepForward = !forwardDone && (backwardDone || forward.heap.peekKey() <= backward.heap.peekKey());
+            SearchState state = stepForward ? forward : backward;
+            SearchState other = stepForward ? backward : forward;
+            int v = state.settleNext();
+            if (v < 0) {
+                continue;
+            }
+            int dv = state.dist[v];
+            if (other.dist[v] != INFINITY && dv + other.dist[v] < best) {
+                best = dv + other.dist[v];
+                meeting = v;
+            }
+            if (stepForward) {
+                if (!stalled(state, v, downFirst, downTarget, downWeight)) {
+                    relax(state, v, upFirst, upTarget, upWeight, upLength);
+                }
+            } else if (!stalled(state, v, upFirst, upTarget, upWeight)) {
+                relax(state, v, downFirst, downTarget, downWeight, downLength);
+            }
+        }
+        if (meeting < 0) {
+            return null;
+        }
+        int length = forward.length[meeting] + backward.length[meeting];
+        return new Route(best, length, withPath ? unpackPath(forward, backward, meeting) : null);
+    }
+
+    /**
+     * Travel times (ms) and lengths (m) between every source and target node, as
+     * {times, lengths} indexed [source][target]; unreachable cells hold -1
+     */
+    public int[][][] table(int[] sources, int[] targets) {
+        SearchState search = backwardState.get();
+
+        // Backward search from every target, recording (node, target, dist, length) buckets
+        Buckets buckets = new Buckets();
+        for (int j = 0; j < targets.length; j++) {
+            search.reset();
+            search.open(targets[j], 0, 0, -1, -1);
+            int v;
+            while ((v = search.settleNext()) >= 0) {
+                if (stalled(search, v, upFirst, upTarget, upWeight)) {
+                    continue;
+                }
+                buckets.add(v, j, search.dist[v], search.length[v]);
+                relax(search, v, downFirst, downTarget, downWeight, downLength);
+            }
+        }
+        buckets.index(graph.nodeCount());
+
+        int[][] times = new int[sources.length][targets.length];
+        int[][] lengths = new int[sources.length][targets.length];
+        search = forwardState.get();
+        for (int i = 0; i < sources.length; i++) {
+            int[] bestTime = times[i];
+            int[] bestLength = lengths[i];
+            Arrays.fill(bestTime, INFINITY);
+            search.reset();
+            search.open(sources[i], 0, 0, -1, -1);
+            int v;
+            while ((v = search.settleNext()) >= 0) {
+                if (stalled(search, v, downFirst, downTarget, downWeight)) {
+                    continue;
+                }
+                int dv = search.dist[v];
+                for (int b = buckets.first[v]; b < buckets.first[v + 1]; b++) {
+                    int j = buckets.target[b];
+                    int total = dv + buckets.dist[b];
+                    if (total < bestTime[j]) {
+                        bestTime[j] = total;
+                        bestLength[j] = search.length[v] + buckets.length[b];
+                    }
+                }
+                relax(search, v, upFirst, upTarget, upWeight, upLength);
+            }
+            for (int j = 0; j < targets.length; j++) {
+                if (bestTime[j] == INFINITY) {
+                    bestTime[j] = -1;
+                    bestLength[j] = -1;
+                }
+            }
+        }
+        return new int[][][] {times, lengths};
+    }
+
+    /**
+     * Stall-on-demand: v's tentative distance is not optimal if a higher-ranked node already
+     * reached in this search has a cheaper edge into v, so v need not be expanded
+     */
+    private static boolean stalled(SearchState state, int v, int[] first, int[] target, int[] weight) {
+        int dv = state.dist[v];
+        for (int e = first[v]; e < first[v + 1]; e++) {
+            int du = state.dist[target[e]];
+            if (du != INFINITY && du + weight[e] < dv) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void relax(SearchState state, int v, int[] first, int[] target, int[] weight, int[] length) {
+        int dv = state.dist[v];
+        int lv = state.length[v];
+        for (int e = first[v]; e < first[v + 1]; e++) {
+            int w = target[e];
+            int dw = dv + weight[e];
+            if (dw < state.dist[w]) {
+                state.open(w, dw, lv + length[e], v, e);
+            }
+        }
+    }
+
+    private int[] unpackPath(SearchState forward, SearchState backward, int meeting) {
+        IntList path = new IntList();
+        // Source to meeting node, collected backwards along forward parents
+        IntList forwardEdges = new IntList();
+        for (int v = meeting; forward.parentEdge[v] >= 0; v = forward.parentNode[v]) {
+            forwardEdges.add(forward.parentEdge[v]);
+        }
+        int current = meeting;
+        for (int v = meeting; forward.parentNode[v] >= 0; v = forward.parentNode[v]) {
+            current = forward.parentNode[v];
+        }
+        path.add(current);
+        for (int i = forwardEdges.size - 1; i >= 0; i--) {
+            int e = forwardEdges.values[i];
+            unpackUpEdge(e, path);
+        }
+        // Meeting node to target along backward parents (edges stored reversed)
+        for (int v = meeting; backward.parentEdge[v] >= 0; v = backward.parentNode[v]) {
+            unpackDownEdge(backward.parentNode[v], backward.parentEdge[v], path);
+        }
+        return Arrays.copyOf(path.values, path.size);
+    }
+
+    /** Append the original nodes of up edge e (excluding its source) */
+    private void unpackUpEdge(int e, IntList path) {
+        int to = upTarget[e];
+        int middle = upMiddle[e];
+        if (middle < 0) {
+            path.add(to);
+            return;
+        }
+        int from = path.values[path.size - 1];
+        unpack(from, middle, path);
+        unpack(middle, to, path);
+    }
+
+    /** Down edge e stored at node v describes original edge target[e] -> v */
+    private void unpackDownEdge(int v, int e, IntList path) {
+        int middle = downMiddle[e];
+        if (middle < 0) {
+            path.add(v);
+            return;
+        }
+        unpack(downTarget[e], middle, path);
+        unpack(middle, v, path);
+    }
+
+    /** Append the original path from -> to (excluding from) for a CH edge between them */
+    private void unpack(int from, int to, IntList path) {
+        if (rank[from] < rank[to]) {
+            for (int e = upFirst[from]; e < upFirst[from + 1]; e++) {
+                if (upTarget[e] == to) {
+                    int middle = upMiddle[e];
+                    if (middle < 0) {
+                        path.add(to);
+                    } else {
+                        unpack(from, middle, path);
+                        unpack(middle, to, path);
+                    }
+                    return;
+                }
+            }
+        } else {
+            for (int e = downFirst[to]; e < downFirst[to + 1]; e++) {
+                if (downTarget[e] == from) {
+                    int middle = downMiddle[e];
+                    if (middle < 0) {
+                        path.add(to);
+                    } else {
+                        unpack(from, middle, path);
+                        unpack(middle, to, path);
+                    }
+                    return;
+                }
+            }
+        }
+        throw new IllegalStateException("Missing hierarchy edge " + from + " -> " + to);
+    }
+
+    /** Per-thread Dijkstra state; only touched entries are reset between queries */
+    private static final class SearchState {
+        final int[] dist;
+        final int[] length;
+        final int[] parentNode;
+        final int[] parentEdge;
+        final boolean[] settled;
+        final LongMinHeap heap = new LongMinHeap();
+        final IntList touched = new IntList();
+
+        SearchState(int n) {
+            dist = new int[n];
+            length = new int[n];
+            parentNode = new int[n];
+            parentEdge = new int[n];
+            settled = new boolean[n];
+            Arrays.fill(dist, INFINITY);
+            Arrays.fill(parentNode, -1);
+            Arrays.fill(parentEdge, -1);
+        }
+
+        void reset() {
+            for (int i = 0; i < touched.size; i++) {
+                int v = touched.values[i];
+                dist[v] = INFINITY;
+                parentNode[v] = -1;
+                parentEdge[v] = -1;
+                settled[v] = false;
+            }
+            touched.size = 0;
+            heap.clear();
+        }
+
+        void open(int v, int d, int len, int parent, int edge) {
+            if (dist[v] == INFINITY) {
+                touched.add(v);
+            }
+            dist[v] = d;
+            length[v] = len;
+            parentNode[v] = parent;
+            parentEdge[v] = edge;
+            heap.push(d, v);
+        }
+
+        /** Pop the next unsettled node, or -1 when the heap is exhausted */
+        int settleNext() {
+            while (!heap.isEmpty()) {
+                long entry = heap.pop();
+                int v = (int) entry;
+                int d = (int) (entry >>> 32);
+                if (!settled[v] && d == dist[v]) {
+                    settled[v] = true;
+                    return v;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /** Binary min-heap of (key, node) packed into longs; stale entries are skipped by callers */
+    static final class LongMinHeap {
+        private long[] entries = new long[64];
+        private int size;
+
+        void push(int key, int node) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            long entry = ((long) key << 32) | (node & 0xffffffffL);
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (entries[parent] <= entry) {
+                    break;
+                }
+                entries[i] = entries[parent];
+                i = parent;
+            }
+            entries[i] = entry;
+        }
+
+        long pop() {
+            long top = entries[0];
+            long last = entries[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && entries[child + 1] < entries[child]) {
+                    child++;
+                }
+                if (last <= entries[child]) {
+                    break;
+                }
+                entries[i] = entries[child];
+                i = child;
+            }
+            if (size > 0) {
+                entries[i] = last;
+            }
+            return top;
+        }
+
+        int peekKey() {
+            return (int) (entries[0] >>> 32);
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    static final class IntList {
+        int[] values = new int[16];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    /** Backward-search entries grouped by node for the many-to-many table */
+    private static final class Buckets {
+        int[] node = new int[256];
+        int[] target = new int[256];
+        int[] dist = new int[256];
+        int[] length = new int[256];
+        int size;
+        int[] first;
+
+        void add(int v, int j, int d, int len) {
+            if (size == node.length) {
+                int capacity = size * 2;
+                node = Arrays.copyOf(node, capacity);
+                target = Arrays.copyOf(target, capacity);
+                dist = Arrays.copyOf(dist, capacity);
+                length = Arrays.copyOf(length, capacity);
+            }
+            node[size] = v;
+            target[size] = j;
+            dist[size] = d;
+            length[size] = len;
+            size++;
+        }
+
+        /** Counting sort by node */
+        void index(int n) {
+            first = new int[n + 1];
+            for (int b = 0; b < size; b++) {
+                first[node[b] + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                first[v + 1] += first[v];
+            }
+            int[] fill = Arrays.copyOf(first, n);
+            int[] sortedTarget = new int[size];
+            int[] sortedDist = new int[size];
+            int[] sortedLength = new int[size];
+            for (int b = 0; b < size; b++) {
+                int slot = fill[node[b]]++;
+                sortedTarget[slot] = target[b];
+                sortedDist[slot] = dist[b];
+                sortedLength[slot] = length[b];
+            }
+            target = sortedTarget;
+            dist = sortedDist;
+            length = sortedLength;
+        }
+    }
+
+    /** Edges collected during contraction, converted to CSR once complete */
+    private static final class EdgeBuffer {
+        int[] from = new int[1024];
+        int[] to = new int[1024];
+        int[] weight = new int[1024];
+        int[] length = new int[1024];
+        int[] middle = new int[1024];
+        int size;
+
+        void add(int a, int b, int w, int len, int mid) {
+            if (size == from.length) {
+                int capacity = size * 2;
+                from = Arrays.copyOf(from, capacity);
+                to = Arrays.copyOf(to, capacity);
+                weight = Arrays.copyOf(weight, capacity);
+                length = Arrays.copyOf(length, capacity);
+                middle = Arrays.copyOf(middle, capacity);
+            }
+            from[size] = a;
+            to[size] = b;
+            weight[size] = w;
+            length[size] = len;
+            middle[size] = mid;
+            size++;
+        }
+
+        int[][] toCsr(int n) {
+            int[] first = new int[n + 1];
+            for (int e = 0; e < size; e++) {
+                first[from[e] + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                first[v + 1] += first[v];
+            }
+            int[] fill = Arrays.copyOf(first, n);
+            int[] csrTo = new int[size];
+            int[] csrWeight = new int[size];
+            int[] csrLength = new int[size];
+            int[] csrMiddle = new int[size];
+            for (int e = 0; e < size; e++) {
+                int slot = fill[from[e]]++;
+                csrTo[slot] = to[e];
+                csrWeight[slot] = weight[e];
+                csrLength[slot] = length[e];
+                csrMiddle[slot] = middle[e];
+            }
+            return new int[][] {first, csrTo, csrWeight, csrLength, csrMiddle};
+        }
+    }
+
+    /** Node contraction with a mutable adjacency of the remaining (uncontracted) graph */
+    private static final class Builder {
+        private final RoadGraph graph;
+        private final int n;
+        private final Adjacency out;
+        private final Adjacency in;
+        private final boolean[] contracted;
+        private final int[] deletedNeighbors;
+        /** One more than the highest level among contracted neighbours; keeps the hierarchy shallow */
+        private final int[] level;
+        private final int[] rank;
+
+        // Witness search state
+        private final int[] witnessDist;
+        private final boolean[] witnessTarget;
+        private final IntList witnessTouched = new IntList();
+        private final LongMinHeap witnessHeap = new LongMinHeap();
+
+        Builder(RoadGraph graph) {
+            this.graph = graph;
+            this.n = graph.nodeCount();
+            this.out = new Adjacency(n);
+            this.in = new Adjacency(n);
+            this.contracted = new boolean[n];
+            this.deletedNeighbors = new int[n];
+            this.level = new int[n];
+            this.rank = new int[n];
+            this.witnessDist = new int[n];
+            this.witnessTarget = new boolean[n];
+            Arrays.fill(witnessDist, INFINITY);
+            for (int v = 0; v < n; v++) {
+                for (int e = graph.firstEdge(v); e < graph.firstEdge(v + 1); e++) {
+                    addOrImprove(v, graph.edgeTarget(e), graph.edgeTimeMs(e), graph.edgeLengthMeters(e), -1);
+                }
+            }
+        }
+
+        ContractionHierarchy build() {
+            LongMinHeap queue = new LongMinHeap();
+            for (int v = 0; v < n; v++) {
+                queue.push(priorityKey(priority(v)), v);
+            }
+            EdgeBuffer up = new EdgeBuffer();
+            EdgeBuffer down = new EdgeBuffer();
+            int order = 0;
+            while (!queue.isEmpty()) {
+                int v = (int) queue.pop();
+                if (contracted[v]) {
+                    continue;
+                }
+                int key = priorityKey(priority(v));
+                if (!queue.isEmpty() && key > queue.peekKey()) {
+                    queue.push(key, v);
+                    continue;
+                }
+
+                // Remaining edges all lead to higher-ranked nodes: they become hierarchy edges
+                for (int i = 0; i < out.size[v]; i++) {
+                    int x = out.to[v][i];
+                    if (!contracted[x]) {
+                        up.add(v, x, out.weight[v][i], out.length[v][i], out.middle[v][i]);
+                    }
+                }
+                for (int i = 0; i < in.size[v]; i++) {
+                    int u = in.to[v][i];
+                    if (!contracted[u]) {
+                        down.add(v, u, in.weight[v][i], in.length[v][i], in.middle[v][i]);
+                    }
+                }
+
+                contract(v, false);
+                contracted[v] = true;
+                rank[v] = order++;
+
+                // Drop edges to v from its neighbours; their priorities are re-evaluated lazily on pop
+                for (int i = 0; i < out.size[v]; i++) {
+                    int x = out.to[v][i];
+                    if (!contracted[x]) {
+                        in.remove(x, v);
+                        deletedNeighbors[x]++;
+                        level[x] = Math.max(level[x], level[v] + 1);
+                    }
+                }
+                for (int i = 0; i < in.size[v]; i++) {
+                    int u = in.to[v][i];
+                    if (!contracted[u]) {
+                        out.remove(u, v);
+                        deletedNeighbors[u]++;
+                        level[u] = Math.max(level[u], level[v] + 1);
+                    }
+                }
+                out.release(v);
+                in.release(v);
+            }
+            return new ContractionHierarchy(graph, rank, up, down);
+        }
+
+        private static int priorityKey(int priority) {
+            // Shift into non-negative range for the packed heap key
+            return priority + (1 << 20);
+        }
+
+        private int priority(int v) {
+            int shortcuts = contract(v, true);
+            int degree = 0;
+            for (int i = 0; i < out.size[v]; i++) {
+                if (!contracted[out.to[v][i]]) degree++;
+            }
+            for (int i = 0; i < in.size[v]; i++) {
+                if (!contracted[in.to[v][i]]) degree++;
+            }
+            return 2 * (shortcuts - degree) + deletedNeighbors[v] + level[v];
+        }
+
+        /**
+         * Add (or count, when simulating) the shortcuts needed to remove v: one per in/out
+         * neighbour pair whose path through v has no shorter witness around it
+         */
+        private int contract(int v, boolean simulate) {
+            int shortcuts = 0;
+            int limit = simulate ? SIMULATION_SETTLE_LIMIT : WITNESS_SETTLE_LIMIT;
+            for (int i = 0; i < in.size[v]; i++) {
+                int u = in.to[v][i];
+                if (contracted[u]) {
+                    continue;
+                }
+                int inWeight = in.weight[v][i];
+                int maxVia = -1;
+                int targets = 0;
+                for (int k = 0; k < out.size[v]; k++) {
+                    int x = out.to[v][k];
+                    if (x != u && !contracted[x]) {
+                        maxVia = Math.max(maxVia, inWeight + out.weight[v][k]);
+                        if (!witnessTarget[x]) {
+                            witnessTarget[x] = true;
+                            targets++;
+                        }
+                    }
+                }
+                if (maxVia < 0) {
+                    continue;
+                }
+                witnessSearch(u, v, maxVia, limit, targets);
+                for (int k = 0; k < out.size[v]; k++) {
+                    witnessTarget[out.to[v][k]] = false;
+                }
+                for (int k = 0; k < out.size[v]; k++) {
+                    int x = out.to[v][k];
+                    if (x == u || contracted[x]) {
+                        continue;
+                    }
+                    int via = inWeight + out.weight[v][k];
+                    if (witnessDist[x] > via) {
+                        shortcuts++;
+                        if (!simulate) {
+                            addOrImprove(u, x, via, in.length[v][i] + out.length[v][k], v);
+                        }
+                    }
+                }
+                clearWitness();
+            }
+            return shortcuts;
+        }
+
+        /** Dijkstra from source avoiding excluded; stops once every target is settled */
+        private void witnessSearch(int source, int excluded, int maxWeight, int settleLimit, int targets) {
+            witnessDist[source] = 0;
+            witnessTouched.add(source);
+            witnessHeap.push(0, source);
+            int settledCount = 0;
+            while (!witnessHeap.isEmpty()) {
+                long entry = witnessHeap.pop();
+                int v = (int) entry;
+                int d = (int) (entry >>> 32);
+                if (d > witnessDist[v]) {
+                    continue;
+                }
+                if (d > maxWeight || ++settledCount > settleLimit) {
+                    break;
+                }
+                if (witnessTarget[v] && --targets == 0) {
+                    break;
+                }
+                for (int i = 0; i < out.size[v]; i++) {
+                    int w = out.to[v][i];
+                    if (w == excluded || contracted[w]) {
+                        continue;
+                    }
+                    int dw = d + out.weight[v][i];
+                    if (dw < witnessDist[w]) {
+                        if (witnessDist[w] == INFINITY) {
+                            witnessTouched.add(w);
+                        }
+                        witnessDist[w] = dw;
+                        witnessHeap.push(dw, w);
+                    }
+                }
+            }
+        }
+
+        private void clearWitness() {
+            for (int i = 0; i < witnessTouched.size; i++) {
+                witnessDist[witnessTouched.values[i]] = INFINITY;
+            }
+            witnessTouched.size = 0;
+            witnessHeap.clear();
+        }
+
+        /** Insert edge a -> b, or lower the weight of an existing one */
+        private void addOrImprove(int a, int b, int weight, int length, int middle) {
+            int existing = out.find(a, b);
+            if (existing >= 0) {
+                if (weight >= out.weight[a][existing]) {
+                    return;
+                }
+                out.set(a, existing, weight, length, middle);
+                in.set(b, in.find(b, a), weight, length, middle);
+                return;
+            }
+            out.add(a, b, weight, length, middle);
+            in.add(b, a, weight, length, middle);
+        }
+    }
+
+    /** Per-node growable edge lists used only while building */
+    private static final class Adjacency {
+        final int[][] to;
+        final int[][] weight;
+        final int[][] length;
+        final int[][] middle;
+        final int[] size;
+
+        Adjacency(int n) {
+            to = new int[n][];
+            weight = new int[n][];
+            length = new int[n][];
+            middle = new int[n][];
+            size = new int[n];
+        }
+
+        int find(int v, int target) {
+            for (int i = 0; i < size[v]; i++) {
+                if (to[v][i] == target) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void add(int v, int target, int w, int len, int mid) {
+            if (to[v] == null) {
+                to[v] = new int[4];
+                weight[v] = new int[4];
+                length[v] = new int[4];
+                middle[v] = new int[4];
+            } else if (size[v] == to[v].length) {
+                int capacity = size[v] * 2;
+                to[v] = Arrays.copyOf(to[v], capacity);
+                weight[v] = Arrays.copyOf(weight[v], capacity);
+                length[v] = Arrays.copyOf(length[v], capacity);
+                middle[v] = Arrays.copyOf(middle[v], capacity);
+            }
+            int i = size[v]++;
+            to[v][i] = target;
+            weight[v][i] = w;
+            length[v][i] = len;
+            middle[v][i] = mid;
+        }
+
+        void set(int v, int i, int w, int len, int mid) {
+            weight[v][i] = w;
+            length[v][i] = len;
+            middle[v][i] = mid;
+        }
+
+        /** Swap-remove the edge from v to target, if present */
+        void remove(int v, int target) {
+            int i = find(v, target);
+            if (i < 0) {
+                return;
+            }
+            int last = --size[v];
+            to[v][i] = to[v][last];
+            weight[v][i] = weight[v][last];
+            length[v][i] = length[v][last];
+            middle[v][i] = middle[v][last];
+        }
+
+        void release(int v) {
+            to[v] = null;
+            weight[v] = null;
+            length[v] = null;
+            middle[v] = null;
+            size[v] = 0;
+        }
+    }
+}
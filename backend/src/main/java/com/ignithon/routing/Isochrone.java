@@ -0,0 +1,105 @@
+package com.ignithon.routing;
+
+import java.util.Arrays;
+
+import com.ignithon.geo.GeoPointArray;
+import com.ignithon.geo.GeoUtils;
+
+/**
+ * Drive-time isochrones on a {@link RoadGraph}.
+ *
+ * A Dijkstra search from the source settles every node reachable within the time limit;
+ * edges that run out of time part-way contribute an interpolated end point. The reached
+ * points are bucketed by bearing around the source and the farthest point of each sector
+ * becomes a vertex, giving a star-shaped polygon that follows the road network's reach
+ * in each direction.
+ */
+public final class Isochrone {
+
+    /** Roads are lines; widen the area slightly so addresses set back from the road still fall inside */
+    private static final double ROAD_BUFFER_KM = 0.25;
+
+    private Isochrone() {}
+
+    /**
+     * Polygon ring (not closed) around everything reachable from source within maxTimeMs,
+     * with no vertex farther than maxKm from the source. Null when fewer than three
+     * directions are reachable.
+     */
+    public static GeoPointArray compute(RoadGraph graph, int source, int maxTimeMs, double maxKm, int sectors) {
+        double originLat = graph.latitude(source);
+        double originLng = graph.longitude(source);
+        double kmPerDegreeLng = GeoUtils.KM_PER_DEGREE_LAT * Math.cos(Math.toRadians(originLat));
+
+        double[] sectorKm = new double[sectors];
+        double[] sectorX = new double[sectors];
+        double[] sectorY = new double[sectors];
+        Arrays.fill(sectorKm, -1.0);
+
+        int[] time = new int[graph.nodeCount()];
+        Arrays.fill(time, Integer.MAX_VALUE);
+        time[source] = 0;
+        ContractionHierarchy.LongMinHeap queue = new ContractionHierarchy.LongMinHeap();
+        queue.push(0, source);
+
+        while (!queue.isEmpty()) {
+            long entry = queue.pop();
+            int u = (int) entry;
+            int t = (int) (entry >>> 32);
+            if (t > time[u]) {
+                continue;
+            }
+            double uLat = graph.latitude(u);
+            double uLng = graph.longitude(u);
+            include(sectorKm, sectorX, sectorY,
+                    (uLng - originLng) * kmPerDegreeLng, (uLat - originLat) * GeoUtils.KM_PER_DEGREE_LAT);
+
+            for (int e = graph.firstEdge(u); e < graph.firstEdge(u + 1); e++) {
+                int v = graph.edgeTarget(e);
+                int edgeTime = graph.edgeTimeMs(e);
+                long arrival = (long) t + edgeTime;
+                if (arrival <= maxTimeMs) {
+                    if (arrival < time[v]) {
+                        time[v] = (int) arrival;
+                        queue.push((int) arrival, v);
+                    }
+                } else if (edgeTime > 0) {
+                    // Time runs out part-way along this edge
+                    double fraction = (double) (maxTimeMs - t) / edgeTime;
+                    double lat = uLat + (graph.latitude(v) - uLat) * fraction;
+                    double lng = uLng + (graph.longitude(v) - uLng) * fraction;
+                    include(sectorKm, sectorX, sectorY,
+                            (lng - originLng) * kmPerDegreeLng, (lat - originLat) * GeoUtils.KM_PER_DEGREE_LAT);
+                }
+            }
+        }
+
+        GeoPointArray polygon = new GeoPointArray(sectors);
+        for (int s = 0; s < sectors; s++) {
+            if (sectorKm[s] < 0) {
+                continue;
+            }
+            double km = sectorKm[s];
+            double scale = km > 0 ? Math.min(maxKm, km + ROAD_BUFFER_KM) / km : 0.0;
+            polygon.add(originLat + sectorY[s] * scale / GeoUtils.KM_PER_DEGREE_LAT,
+                        originLng + sectorX[s] * scale / kmPerDegreeLng);
+        }
+        return polygon.size() >= 3 ? polygon : null;
+    }
+
+    /** Keep (x, y) km from the origin if it is the farthest point seen in its bearing sector */
+    private static void include(double[] sectorKm, double[] sectorX, double[] sectorY, double x, double y) {
+        int sectors = sectorKm.length;
+        double bearing = Math.atan2(x, y);
+        int sector = (int) ((bearing + Math.PI) / (2 * Math.PI) * sectors);
+        if (sector >= sectors) {
+            sector = sectors - 1;
+        }
+        double km = Math.sqrt(x * x + y * y);
+        if (km > sectorKm[sector]) {
+            sectorKm[sector] = km;
+            sectorX[sector] = x;
+            sectorY[sector] = y;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.ignithon.routing;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Streaming reader for OpenStreetMap PBF extracts (uncompressed or zlib blobs).
+ *
+ * Only what routing needs is decoded: node ids and coordinates (plain and dense nodes) and
+ * ways with their tags and node references. Relations and metadata are skipped.
+ */
+public final class OsmPbfReader {
+
+    private static final int MAX_HEADER_SIZE = 64 * 1024;
+    private static final int MAX_BLOB_SIZE = 32 * 1024 * 1024;
+
+    public interface Handler {
+        default void node(long id, double latitude, double longitude) {}
+
+        /** keys and values are parallel; refs are absolute node ids */
+        default void way(long id, long[] refs, String[] keys, String[] values) {}
+    }
+
+    private final boolean decodeNodes;
+    private final boolean decodeWays;
+
+    /**
+     * @param decodeNodes whether node blocks are decoded (skipping them makes a ways-only pass cheaper)
+     * @param decodeWays  whether way blocks are decoded
+     */
+    public OsmPbfReader(boolean decodeNodes, boolean decodeWays) {
+        this.decodeNodes = decodeNodes;
+        this.decodeWays = decodeWays;
+    }
+
+    public void read(InputStream input, Handler handler) throws IOException {
+        DataInputStream in = new DataInputStream(input);
+        Inflater inflater = new Inflater();
+        try {
+            while (true) {
+                int headerSize;
+                try {
+                    headerSize = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                if (headerSize <= 0 || headerSize > MAX_HEADER_SIZE) {
+                    throw new IOException("Invalid PBF blob header size " + headerSize);
+                }
+                byte[] header = new byte[headerSize];
+                in.readFully(header);
+
+                String type = null;
+                int dataSize = -1;
+                ProtoReader blobHeader = new ProtoReader(header, 0, header.length);
+                while (blobHeader.next()) {
+                    if (blobHeader.field() == 1) {
+                        type = blobHeader.readString();
+                    } else if (blobHeader.field() == 3) {
+                        dataSize = (int) blobHeader.readVarint();
+                    } else {
+                        blobHeader.skip();
+                    }
+                }
+                if (dataSize < 0 || dataSize > MAX_BLOB_SIZE) {
+                    throw new IOException("Invalid PBF blob size " + dataSize);
+                }
+                byte[] blob = new byte[dataSize];
+                in.readFully(blob);
+
+                if ("OSMData".equals(type)) {
+                    byte[] data = decompress(blob, inflater);
+                    readPrimitiveBlock(data, handler);
+                }
+                // OSMHeader and unknown blob types carry nothing we need
+            }
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] decompress(byte[] blob, Inflater inflater) throws IOException {
+        ProtoReader reader = new ProtoReader(blob, 0, blob.length);
+        byte[] raw = null;
+        byte[] zlib = null;
+        int rawSize = -1;
+        while (reader.next()) {
+            switch (reader.field()) {
+                case 1: raw = reader.readBytes(); break;
+                case 2: rawSize = (int) reader.readVarint(); break;
+                case 3: zlib = reader.readBytes(); break;
+                case 4: case 5: case 6: case 7:
+                    throw new IOException("Unsupported PBF compression (only raw and zlib blobs are supported)");
+                default: reader.skip();
+            }
+        }
+        if (raw != null) {
+            return raw;
+        }
+        if (zlib == null || rawSize < 0 || rawSize > MAX_BLOB_SIZE) {
+            throw new IOException("PBF blob has no data");
+        }
+        byte[] data = new byte[rawSize];
+        inflater.reset();
+        inflater.setInput(zlib);
+        try {
+            int filled = 0;
+            while (filled < rawSize) {
+                int n = inflater.inflate(data, filled, rawSize - filled);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                filled += n;
+            }
+            if (filled != rawSize) {
+                throw new IOException("PBF blob inflated to " + filled + " bytes, expected " + rawSize);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt zlib data in PBF blob", e);
+        }
+        return data;
+    }
+
+    private void readPrimitiveBlock(byte[] data, Handler handler) {
+        ProtoReader block = new ProtoReader(data, 0, data.length);
+        List<ProtoReader> groups = new ArrayList<>();
+        String[] strings = new String[0];
+        long granularity = 100;
+        long latOffset = 0;
+        long lonOffset = 0;
+
+        // Groups are kept aside so the string table and offsets are known before decoding them
+        while (block.next()) {
+            switch (block.field()) {
+                case 1: strings = readStringTable(block.readMessage()); break;
+                case 2: groups.add(block.readMessage()); break;
+                case 17: granularity = block.readVarint(); break;
+                case 19: latOffset = block.readVarint(); break;
+                case 20: lonOffset = block.readVarint(); break;
+                default: block.skip();
+            }
+        }
+
+        Coordinates coordinates = new Coordinates(granularity, latOffset, lonOffset);
+        for (ProtoReader group : groups) {
+            while (group.next()) {
+                switch (group.field()) {
+                    case 1:
+                        if (decodeNodes) {
+                            readNode(group.readMessage(), coordinates, handler);
+                        } else {
+                            group.skip();
+                        }
+                        break;
+                    case 2:
+                        if (decodeNodes) {
+                            readDenseNodes(group.readMessage(), coordinates, handler);
+                        } else {
+                            group.skip();
+                        }
+                        break;
+                    case 3:
+                        if (decodeWays) {
+                            readWay(group.readMessage(), strings, handler);
+                        } else {
+                            group.skip();
+                        }
+                        break;
+                    default:
+                        group.skip();
+                }
+            }
+        }
+    }
+
+    private static String[] readStringTable(ProtoReader table) {
+        List<String> strings = new ArrayList<>();
+        while (table.next()) {
+            if (table.field() == 1) {
+                strings.add(table.readString());
+            } else {
+                table.skip();
+            }
+        }
+        return strings.toArray(new String[0]);
+    }
+
+    private static void readNode(ProtoReader node, Coordinates coordinates, Handler handler) {
+        long id = 0;
+        long lat = 0;
+        long lon = 0;
+        while (node.next()) {
+            switch (node.field()) {
+                case 1: id = node.readSInt64(); break;
+                case 8: lat = node.readSInt64(); break;
+                case 9: lon = node.readSInt64(); break;
+                default: node.skip();
+            }
+        }
+        handler.node(id, coordinates.latitude(lat), coordinates.longitude(lon));
+    }
+
+    private static void readDenseNodes(ProtoReader dense, Coordinates coordinates, Handler handler) {
+        ProtoReader ids = null;
+        ProtoReader lats = null;
+        ProtoReader lons = null;
+        while (dense.next()) {
+            switch (dense.field()) {
+                case 1: ids = dense.readMessage(); break;
+                case 8: lats = dense.readMessage(); break;
+                case 9: lons = dense.readMessage(); break;
+                default: dense.skip();
+            }
+        }
+        if (ids == null || lats == null || lons == null) {
+            return;
+        }
+        long id = 0;
+        long lat = 0;
+        long lon = 0;
+        while (ids.hasRemaining()) {
+            id += ids.readSInt64();
+            lat += lats.readSInt64();
+            lon += lons.readSInt64();
+            handler.node(id, coordinates.latitude(lat), coordinates.longitude(lon));
+        }
+    }
+
+    private static void readWay(ProtoReader way, String[] strings, Handler handler) {
+        long id = 0;
+        List<String> keys = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        long[] refs = new long[0];
+        while (way.next()) {
+            switch (way.field()) {
+                case 1:
+                    id = way.readVarint();
+                    break;
+                case 2: {
+                    ProtoReader packed = way.readMessage();
+                    while (packed.hasRemaining()) {
+                        keys.add(strings[(int) packed.readVarint()]);
+                    }
+                    break;
+                }
+                case 3: {
+                    ProtoReader packed = way.readMessage();
+                    while (packed.hasRemaining()) {
+                        values.add(strings[(int) packed.readVarint()]);
+                    }
+                    break;
+                }
+                case 8: {
+                    ProtoReader packed = way.readMessage();
+                    long[] buffer = new long[16];
+                    int count = 0;
+                    long ref = 0;
+                    while (packed.hasRemaining()) {
+                        ref += packed.readSInt64();
+                        if (count == buffer.length) {
+                            buffer = Arrays.copyOf(buffer, count * 2);
+                        }
+                        buffer[count++] = ref;
+                    }
+                    refs = Arrays.copyOf(buffer, count);
+                    break;
+                }
+                default:
+                    way.skip();
+            }
+        }
+        handler.way(id, refs, keys.toArray(new String[0]), values.toArray(new String[0]));
+    }
+
+    private static final class Coordinates {
+        private final long granularity;
+        private final long latOffset;
+        private final long lonOffset;
+
+        Coordinates(long granularity, long latOffset, long lonOffset) {
+            this.granularity = granularity;
+            this.latOffset = latOffset;
+            this.lonOffset = lonOffset;
+        }
+
+        double latitude(long value) {
+            return 1e-9 * (latOffset + granularity * value);
+        }
+
+        double longitude(long value) {
+            return 1e-9 * (lonOffset + granularity * value);
+        }
+    }
+}
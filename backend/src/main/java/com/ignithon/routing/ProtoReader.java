@@ -0,0 +1,123 @@
+package com.ignithon.routing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Minimal protobuf wire-format reader over a byte range, enough to walk OSM PBF messages
+ * without generated classes. Length-delimited fields are exposed as sub-ranges of the
+ * same buffer, so nested messages are read without copying.
+ */
+final class ProtoReader {
+
+    static final int VARINT = 0;
+    static final int FIXED64 = 1;
+    static final int LENGTH_DELIMITED = 2;
+    static final int FIXED32 = 5;
+
+    private final byte[] buffer;
+    private int position;
+    private final int limit;
+
+    private int fieldNumber;
+    private int wireType;
+
+    ProtoReader(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    /** Advance to the next field; false at the end of the message */
+    boolean next() {
+        if (position >= limit) {
+            return false;
+        }
+        long tag = readVarint();
+        fieldNumber = (int) (tag >>> 3);
+        wireType = (int) (tag & 7);
+        return true;
+    }
+
+    int field() {
+        return fieldNumber;
+    }
+
+    int wireType() {
+        return wireType;
+    }
+
+    long readVarint() {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            if (position >= limit) {
+                throw new IllegalStateException("Truncated varint");
+            }
+            byte b = buffer[position++];
+            result |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+            if (shift > 63) {
+                throw new IllegalStateException("Malformed varint");
+            }
+        }
+    }
+
+    long readSInt64() {
+        long raw = readVarint();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    /** Reader over the current length-delimited field's bytes */
+    ProtoReader readMessage() {
+        int length = (int) readVarint();
+        if (length < 0 || position + length > limit) {
+            throw new IllegalStateException("Truncated field");
+        }
+        ProtoReader message = new ProtoReader(buffer, position, length);
+        position += length;
+        return message;
+    }
+
+    String readString() {
+        int length = (int) readVarint();
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    byte[] readBytes() {
+        int length = (int) readVarint();
+        byte[] value = Arrays.copyOfRange(buffer, position, position + length);
+        position += length;
+        return value;
+    }
+
+    boolean hasRemaining() {
+        return position < limit;
+    }
+
+    void skip() {
+        switch (wireType) {
+            case VARINT:
+                readVarint();
+                break;
+            case FIXED64:
+                position += 8;
+                break;
+            case LENGTH_DELIMITED: {
+                int length = (int) readVarint();
+                position += length;
+                break;
+            }
+            case FIXED32:
+                position += 4;
+                break;
+            default:
+                throw new IllegalStateException("Unsupported wire type " + wireType);
+        }
+    }
+}
@@ -0,0 +1,435 @@
+package com.ignithon.routing;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+
+import com.ignithon.geo.GeoUtils;
+
+/**
+ * Directed road network for car routing, stored as primitive adjacency arrays (CSR): the
+ * outgoing edges of node v are firstEdge[v] until firstEdge[v + 1]. Edge weights are
+ * travel times in milliseconds; lengths are in meters.
+ *
+ * Built from an OSM extract keeping only car-routable ways, then reduced to its largest
+ * strongly connected component so every pair of snapped nodes has a route.
+ */
+public final class RoadGraph {
+
+    /** Default speeds (km/h) per highway class when a way has no usable maxspeed */
+    private static final Map<String, Integer> HIGHWAY_SPEEDS = Map.ofEntries(
+            Map.entry("motorway", 90), Map.entry("motorway_link", 45),
+            Map.entry("trunk", 70), Map.entry("trunk_link", 40),
+            Map.entry("primary", 50), Map.entry("primary_link", 30),
+            Map.entry("secondary", 40), Map.entry("secondary_link", 30),
+            Map.entry("tertiary", 30), Map.entry("tertiary_link", 25),
+            Map.entry("unclassified", 25), Map.entry("residential", 20),
+            Map.entry("living_street", 8), Map.entry("service", 10), Map.entry("road", 20));
+
+    /** Snapping grid cell size in degrees, roughly 1 km */
+    private static final double CELL_DEGREES = 0.01;
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final int[] firstEdge;
+    private final int[] edgeTarget;
+    private final int[] edgeTimeMs;
+    private final int[] edgeLengthMeters;
+
+    // Nodes bucketed by grid cell for nearest-node snapping, also in CSR form
+    private final long[] cellKeys;
+    private final int[] cellStart;
+    private final int[] cellNodes;
+
+    RoadGraph(double[] latitudes, double[] longitudes, int[] firstEdge, int[] edgeTarget,
+              int[] edgeTimeMs, int[] edgeLengthMeters) {
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.firstEdge = firstEdge;
+        this.edgeTarget = edgeTarget;
+        this.edgeTimeMs = edgeTimeMs;
+        this.edgeLengthMeters = edgeLengthMeters;
+
+        int n = latitudes.length;
+        long[] nodeCells = new long[n];
+        Integer[] order = new Integer[n];
+        for (int v = 0; v < n; v++) {
+            nodeCells[v] = cellKey(cell(latitudes[v]), cell(longitudes[v]));
+            order[v] = v;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(nodeCells[a], nodeCells[b]));
+        cellNodes = new int[n];
+        long[] keys = new long[n];
+        int[] starts = new int[n + 1];
+        int cells = 0;
+        for (int i = 0; i < n; i++) {
+            cellNodes[i] = order[i];
+            if (i == 0 || nodeCells[order[i]] != nodeCells[order[i - 1]]) {
+                keys[cells] = nodeCells[order[i]];
+                starts[cells++] = i;
+            }
+        }
+        starts[cells] = n;
+        cellKeys = Arrays.copyOf(keys, cells);
+        cellStart = Arrays.copyOf(starts, cells + 1);
+    }
+
+    public int nodeCount() {
+        return latitudes.length;
+    }
+
+    public int edgeCount() {
+        return edgeTarget.length;
+    }
+
+    public double latitude(int node) {
+        return latitudes[node];
+    }
+
+    public double longitude(int node) {
+        return longitudes[node];
+    }
+
+    int firstEdge(int node) {
+        return firstEdge[node];
+    }
+
+    int edgeTarget(int edge) {
+        return edgeTarget[edge];
+    }
+
+    int edgeTimeMs(int edge) {
+        return edgeTimeMs[edge];
+    }
+
+    int edgeLengthMeters(int edge) {
+        return edgeLengthMeters[edge];
+    }
+
+    /**
+     * Closest node within maxMeters of the point, or -1
+     */
+    public int nearestNode(double latitude, double longitude, double maxMeters) {
+        int rings = (int) Math.ceil(maxMeters / 1000.0 / (CELL_DEGREES * 111.0 * Math.max(0.1, Math.cos(Math.toRadians(latitude))))) + 1;
+        int row = cell(latitude);
+        int col = cell(longitude);
+        int best = -1;
+        double bestKm = maxMeters / 1000.0;
+        for (int dr = -rings; dr <= rings; dr++) {
+            for (int dc = -rings; dc <= rings; dc++) {
+                int index = Arrays.binarySearch(cellKeys, cellKey(row + dr, col + dc));
+                if (index < 0) {
+                    continue;
+                }
+                for (int i = cellStart[index]; i < cellStart[index + 1]; i++) {
+                    int v = cellNodes[i];
+                    double km = GeoUtils.haversineKm(latitude, longitude, latitudes[v], longitudes[v]);
+                    if (km <= bestKm) {
+                        bestKm = km;
+                        best = v;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private static int cell(double degrees) {
+        return (int) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    private static long cellKey(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    /**
+     * Build the car network from an OSM PBF extract. The file is read twice: once for ways,
+     * once for the coordinates of the nodes they reference.
+     */
+    public static RoadGraph fromOsmPbf(Path file) throws IOException {
+        WayCollector ways = new WayCollector();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            new OsmPbfReader(false, true).read(in, ways);
+        }
+
+        int n = ways.nodeIds.size();
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        Arrays.fill(latitudes, Double.NaN);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            new OsmPbfReader(true, false).read(in, new OsmPbfReader.Handler() {
+                @Override
+                public void node(long id, double latitude, double longitude) {
+                    int index = ways.nodeIds.get(id);
+                    if (index >= 0) {
+                        latitudes[index] = latitude;
+                        longitudes[index] = longitude;
+                    }
+                }
+            });
+        }
+
+        EdgeList edges = new EdgeList();
+        for (int w = 0; w < ways.wayCount; w++) {
+            int speedKmh = ways.speeds[w];
+            int direction = ways.directions[w];
+            for (int i = ways.wayStart[w]; i + 1 < ways.wayStart[w + 1]; i++) {
+                int a = ways.refs[i];
+                int b = ways.refs[i + 1];
+                if (a == b || Double.isNaN(latitudes[a]) || Double.isNaN(latitudes[b])) {
+                    continue;
+                }
+                double meters = GeoUtils.haversineKm(latitudes[a], longitudes[a], latitudes[b], longitudes[b]) * 1000.0;
+                int length = (int) Math.max(1, Math.round(meters));
+                int timeMs = (int) Math.max(1, Math.round(meters / (speedKmh / 3.6) * 1000.0));
+                if (direction >= 0) {
+                    edges.add(a, b, timeMs, length);
+                }
+                if (direction <= 0) {
+                    edges.add(b, a, timeMs, length);
+                }
+            }
+        }
+        return largestComponent(n, latitudes, longitudes, edges);
+    }
+
+    /**
+     * Keep the largest strongly connected component (Kosaraju, iterative) and renumber its nodes
+     */
+    static RoadGraph largestComponent(int n, double[] latitudes, double[] longitudes, EdgeList edges) {
+        int[][] forward = edges.toCsr(n, false);
+        int[][] backward = edges.toCsr(n, true);
+
+        // Pass 1: finish order on the forward graph
+        int[] finishOrder = new int[n];
+        int finished = 0;
+        boolean[] visited = new boolean[n];
+        int[] stack = new int[n];
+        int[] cursor = new int[n];
+        for (int root = 0; root < n; root++) {
+            if (visited[root]) {
+                continue;
+            }
+            int top = 0;
+            stack[top++] = root;
+            visited[root] = true;
+            cursor[root] = forward[0][root];
+            while (top > 0) {
+                int v = stack[top - 1];
+                if (cursor[v] < forward[0][v + 1]) {
+                    int w = forward[2][forward[3][cursor[v]++]];
+                    if (!visited[w]) {
+                        visited[w] = true;
+                        cursor[w] = forward[0][w];
+                        stack[top++] = w;
+                    }
+                } else {
+                    top--;
+                    finishOrder[finished++] = v;
+                }
+            }
+        }
+
+        // Pass 2: components on the reversed graph in reverse finish order
+        int[] component = new int[n];
+        Arrays.fill(component, -1);
+        int components = 0;
+        int bestComponent = -1;
+        int bestSize = 0;
+        for (int i = n - 1; i >= 0; i--) {
+            int root = finishOrder[i];
+            if (component[root] >= 0) {
+                continue;
+            }
+            int size = 0;
+            int top = 0;
+            stack[top++] = root;
+            component[root] = components;
+            while (top > 0) {
+                int v = stack[--top];
+                size++;
+                for (int e = backward[0][v]; e < backward[0][v + 1]; e++) {
+                    int w = backward[1][backward[3][e]];
+                    if (component[w] < 0) {
+                        component[w] = components;
+                        stack[top++] = w;
+                    }
+                }
+            }
+            if (size > bestSize) {
+                bestSize = size;
+                bestComponent = components;
+            }
+            components++;
+        }
+
+        int[] newIndex = new int[n];
+        int kept = 0;
+        for (int v = 0; v < n; v++) {
+            newIndex[v] = component[v] == bestComponent ? kept++ : -1;
+        }
+        double[] keptLatitudes = new double[kept];
+        double[] keptLongitudes = new double[kept];
+        for (int v = 0; v < n; v++) {
+            if (newIndex[v] >= 0) {
+                keptLatitudes[newIndex[v]] = latitudes[v];
+                keptLongitudes[newIndex[v]] = longitudes[v];
+            }
+        }
+        EdgeList keptEdges = new EdgeList();
+        for (int e = 0; e < edges.size; e++) {
+            int from = newIndex[edges.from[e]];
+            int to = newIndex[edges.to[e]];
+            if (from >= 0 && to >= 0) {
+                keptEdges.add(from, to, edges.timeMs[e], edges.lengthMeters[e]);
+            }
+        }
+        int[][] csr = keptEdges.toCsr(kept, false);
+        int m = keptEdges.size;
+        int[] target = new int[m];
+        int[] time = new int[m];
+        int[] length = new int[m];
+        for (int i = 0; i < m; i++) {
+            int e = csr[3][i];
+            target[i] = keptEdges.to[e];
+            time[i] = keptEdges.timeMs[e];
+            length[i] = keptEdges.lengthMeters[e];
+        }
+        return new RoadGraph(keptLatitudes, keptLongitudes, csr[0], target, time, length);
+    }
+
+    /** Growable list of directed edges */
+    static final class EdgeList {
+        int[] from = new int[1024];
+        int[] to = new int[1024];
+        int[] timeMs = new int[1024];
+        int[] lengthMeters = new int[1024];
+        int size;
+
+        void add(int a, int b, int time, int length) {
+            if (size == from.length) {
+                int capacity = size * 2;
+                from = Arrays.copyOf(from, capacity);
+                to = Arrays.copyOf(to, capacity);
+                timeMs = Arrays.copyOf(timeMs, capacity);
+                lengthMeters = Arrays.copyOf(lengthMeters, capacity);
+            }
+            from[size] = a;
+            to[size] = b;
+            timeMs[size] = time;
+            lengthMeters[size] = length;
+            size++;
+        }
+
+        /**
+         * Counting sort by source (or by target when reversed). Returns {first[n + 1], from, to,
+         * order}, where order lists edge ids grouped by node.
+         */
+        int[][] toCsr(int n, boolean reversed) {
+            int[] keys = reversed ? to : from;
+            int[] first = new int[n + 1];
+            for (int e = 0; e < size; e++) {
+                first[keys[e] + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                first[v + 1] += first[v];
+            }
+            int[] fill = Arrays.copyOf(first, n);
+            int[] order = new int[size];
+            for (int e = 0; e < size; e++) {
+                order[fill[keys[e]]++] = e;
+            }
+            return new int[][] {first, from, to, order};
+        }
+    }
+
+    /** First pass: routable ways, their speed and direction, with node ids mapped to dense indices */
+    private static final class WayCollector implements OsmPbfReader.Handler {
+        final LongIntHashMap nodeIds = new LongIntHashMap(1 << 16);
+        int[] refs = new int[1 << 16];
+        int refCount;
+        int[] wayStart = new int[1025];
+        int[] speeds = new int[1024];
+        int[] directions = new int[1024];
+        int wayCount;
+
+        @Override
+        public void way(long id, long[] wayRefs, String[] keys, String[] values) {
+            String highway = null;
+            String oneway = null;
+            String junction = null;
+            String maxspeed = null;
+            String access = null;
+            String motorVehicle = null;
+            String area = null;
+            for (int i = 0; i < keys.length; i++) {
+                switch (keys[i]) {
+                    case "highway": highway = values[i]; break;
+                    case "oneway": oneway = values[i]; break;
+                    case "junction": junction = values[i]; break;
+                    case "maxspeed": maxspeed = values[i]; break;
+                    case "access": access = values[i]; break;
+                    case "motor_vehicle": motorVehicle = values[i]; break;
+                    case "area": area = values[i]; break;
+                    default: break;
+                }
+            }
+            Integer defaultSpeed = highway == null ? null : HIGHWAY_SPEEDS.get(highway);
+            if (defaultSpeed == null || wayRefs.length < 2 || "yes".equals(area)
+                    || "no".equals(access) || "private".equals(access)
+                    || "no".equals(motorVehicle) || "private".equals(motorVehicle)) {
+                return;
+            }
+
+            int direction = 0;
+            if ("yes".equals(oneway) || "true".equals(oneway) || "1".equals(oneway)) {
+                direction = 1;
+            } else if ("-1".equals(oneway) || "reverse".equals(oneway)) {
+                direction = -1;
+            } else if (!"no".equals(oneway) && ("roundabout".equals(junction) || "motorway".equals(highway))) {
+                direction = 1;
+            }
+
+            if (wayCount + 1 >= wayStart.length) {
+                wayStart = Arrays.copyOf(wayStart, wayStart.length * 2);
+                speeds = Arrays.copyOf(speeds, speeds.length * 2);
+                directions = Arrays.copyOf(directions, directions.length * 2);
+            }
+            if (refCount + wayRefs.length > refs.length) {
+                refs = Arrays.copyOf(refs, Math.max(refs.length * 2, refCount + wayRefs.length));
+            }
+            wayStart[wayCount] = refCount;
+            for (long ref : wayRefs) {
+                refs[refCount++] = nodeIds.getOrPut(ref, nodeIds.size());
+            }
+            speeds[wayCount] = parseMaxspeed(maxspeed, defaultSpeed);
+            directions[wayCount] = direction;
+            wayCount++;
+            wayStart[wayCount] = refCount;
+        }
+
+        private static int parseMaxspeed(String maxspeed, int defaultSpeed) {
+            if (maxspeed == null) {
+                return defaultSpeed;
+            }
+            String value = maxspeed.trim().toLowerCase(Locale.ROOT);
+            double factor = 1.0;
+            if (value.endsWith("mph")) {
+                factor = 1.609;
+                value = value.substring(0, value.length() - 3).trim();
+            }
+            try {
+                int speed = (int) Math.round(Double.parseDouble(value) * factor);
+                // Posted limits overstate urban speeds; never exceed the class default by much
+                return speed > 0 ? Math.min(speed, defaultSpeed + 20) : defaultSpeed;
+            } catch (NumberFormatException e) {
+                return defaultSpeed;
+            }
+        }
+    }
+}
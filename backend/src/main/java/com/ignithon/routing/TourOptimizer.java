@@ -0,0 +1,171 @@
+package com.ignithon.routing;
+
+/**
+ * Open-path travelling salesman heuristic over a distance matrix.
+ * The path starts at stop 0 (the vehicle's position) and may end at any stop.
+ *
+ * Construction is nearest neighbour; improvement alternates 2-opt segment reversals and
+ * Or-opt moves of 1-3 consecutive stops until neither finds a gain or the time budget
+ * runs out. For 20-50 stops this converges in well under a millisecond to a few.
+ */
+public final class TourOptimizer {
+
+    private static final double EPSILON = 1e-9;
+
+    private TourOptimizer() {}
+
+    /**
+     * Visit order of all stops, starting with stop 0
+     */
+    public static int[] optimizeOpenPath(double[][] distances, long timeBudgetNanos) {
+        int n = distances.length;
+        if (n <= 2) {
+            int[] trivial = new int[n];
+            for (int i = 0; i < n; i++) {
+                trivial[i] = i;
+            }
+            return trivial;
+        }
+
+        long deadline = System.nanoTime() + Math.max(0, timeBudgetNanos);
+        int[] tour = nearestNeighbour(distances);
+
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadline) {
+            improved = twoOpt(tour, distances, deadline);
+            improved |= orOpt(tour, distances, deadline);
+        }
+        return tour;
+    }
+
+    /**
+     * Total length of an open path
+     */
+    public static double pathLength(int[] tour, double[][] distances) {
+        double length = 0;
+        for (int i = 1; i < tour.length; i++) {
+            length += distances[tour[i - 1]][tour[i]];
+        }
+        return length;
+    }
+
+    private static int[] nearestNeighbour(double[][] distances) {
+        int n = distances.length;
+        int[] tour = new int[n];
+        boolean[] visited = new boolean[n];
+        visited[0] = true;
+
+        for (int pos = 1; pos < n; pos++) {
+            int current = tour[pos - 1];
+            int next = -1;
+            for (int candidate = 1; candidate < n; candidate++) {
+                if (!visited[candidate] && (next < 0 || distances[current][candidate] < distances[current][next])) {
+                    next = candidate;
+                }
+            }
+            tour[pos] = next;
+            visited[next] = true;
+        }
+        return tour;
+    }
+
+    /**
+     * First-improvement 2-opt: reverse tour[i..j] when it shortens the path
+     */
+    private static boolean twoOpt(int[] tour, double[][] d, long deadline) {
+        int n = tour.length;
+        boolean improved = false;
+        for (int i = 1; i < n - 1; i++) {
+            if (System.nanoTime() >= deadline) {
+                return improved;
+            }
+            for (int j = i + 1; j < n; j++) {
+                int before = tour[i - 1];
+                int first = tour[i];
+                int last = tour[j];
+                double delta = d[before][last] - d[before][first];
+                if (j + 1 < n) {
+                    int after = tour[j + 1];
+                    delta += d[first][after] - d[last][after];
+                }
+                if (delta < -EPSILON) {
+                    reverse(tour, i, j);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * Or-opt: move a run of 1-3 stops, optionally reversed, to a better position
+     */
+    private static boolean orOpt(int[] tour, double[][] d, long deadline) {
+        int n = tour.length;
+        boolean improved = false;
+        for (int length = 1; length <= 3; length++) {
+            for (int start = 1; start + length - 1 < n; start++) {
+                if (System.nanoTime() >= deadline) {
+                    return improved;
+                }
+                int end = start + length - 1;
+                int segFirst = tour[start];
+                int segLast = tour[end];
+                int prev = tour[start - 1];
+                int next = end + 1 < n ? tour[end + 1] : -1;
+
+                double removeGain = d[prev][segFirst] + (next >= 0 ? d[segLast][next] - d[prev][next] : 0);
+
+                for (int p = 0; p < n; p++) {
+                    if (p >= start - 1 && p <= end) {
+                        continue; // insertion point must lie outside the segment and not be its current slot
+                    }
+                    int left = tour[p];
+                    int right = p + 1 < n ? tour[p + 1] : -1;
+                    double base = right >= 0 ? d[left][right] : 0;
+
+                    double forward = d[left][segFirst] + (right >= 0 ? d[segLast][right] : 0) - base;
+                    double reversed = d[left][segLast] + (right >= 0 ? d[segFirst][right] : 0) - base;
+                    boolean reverse = reversed < forward;
+                    double insertCost = Math.min(forward, reversed);
+
+                    if (insertCost - removeGain < -EPSILON) {
+                        moveSegment(tour, start, end, p, reverse);
+                        improved = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * Move tour[start..end] so it follows the stop currently at position p
+     */
+    private static void moveSegment(int[] tour, int start, int end, int p, boolean reverse) {
+        int length = end - start + 1;
+        int[] segment = new int[length];
+        for (int k = 0; k < length; k++) {
+            segment[k] = reverse ? tour[end - k] : tour[start + k];
+        }
+
+        if (p < start) {
+            // Shift tour[p+1..start-1] right by length
+            System.arraycopy(tour, p + 1, tour, p + 1 + length, start - p - 1);
+            System.arraycopy(segment, 0, tour, p + 1, length);
+        } else {
+            // Shift tour[end+1..p] left by length
+            System.arraycopy(tour, end + 1, tour, start, p - end);
+            System.arraycopy(segment, 0, tour, p - length + 1, length);
+        }
+    }
+
+    private static void reverse(int[] tour, int i, int j) {
+        while (i < j) {
+            int tmp = tour[i];
+            tour[i++] = tour[j];
+            tour[j--] = tmp;
+        }
+    }
+}
@@ -0,0 +1,560 @@
+package com.ignithon.routing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Capacitated vehicle routing with time windows for a heterogeneous fleet.
+ *
+ * Every vehicle starts at its own node and drives an open route through its stops.
+ * A route is feasible when its total demand fits the vehicle, every stop lies within the
+ * vehicle's range of its start, and each stop is reached before its due time (arriving
+ * early means waiting until the stop is ready).
+ *
+ * Construction uses Clarke-Wright savings around the fleet centroid, limited to each stop's
+ * nearest neighbours, assigns the merged chains to vehicles, then inserts any leftovers at
+ * their cheapest feasible position.
+ * Improvement alternates relocate moves (within and across routes) and intra-route 2-opt
+ * until nothing improves or the time budget runs out. Serving more stops always beats
+ * driving fewer kilometres.
+ *
+ * Times are in minutes from the start of planning, distances in kilometres.
+ */
+public final class VehicleRoutingSolver {
+
+    private static final double EPSILON = 1e-9;
+
+    /** Savings are only computed towards this many nearest stops of each stop */
+    private static final int SAVINGS_NEIGHBORS = 25;
+
+    private final double[][] distances;
+    private final List<Vehicle> vehicles;
+    private final List<Stop> stops;
+
+    private final List<List<Integer>> routes = new ArrayList<>();
+    private final boolean[] served;
+
+    public VehicleRoutingSolver(double[][] distances, List<Vehicle> vehicles, List<Stop> stops) {
+        this.distances = distances;
+        this.vehicles = vehicles;
+        this.stops = stops;
+        this.served = new boolean[stops.size()];
+    }
+
+    /**
+     * Plan routes for all vehicles within the given time budget
+     */
+    public Solution solve(long timeBudgetNanos) {
+        long deadline = System.nanoTime() + Math.max(0, timeBudgetNanos);
+
+        routes.clear();
+        for (int v = 0; v < vehicles.size(); v++) {
+            routes.add(new ArrayList<>());
+        }
+        Arrays.fill(served, false);
+
+        if (!vehicles.isEmpty() && !stops.isEmpty()) {
+            assignChains(buildSavingsChains(deadline));
+            insertUnserved(deadline);
+
+            boolean improved = true;
+            while (improved && System.nanoTime() < deadline) {
+                improved = relocate(deadline);
+                for (int v = 0; v < routes.size(); v++) {
+                    improved |= twoOpt(v, deadline);
+                }
+                improved |= insertUnserved(deadline);
+            }
+        }
+
+        return buildSolution();
+    }
+
+    // ---- Construction ----
+
+    /**
+     * Clarke-Wright savings for open routes: linking i -> j saves the leg from the depot to j.
+     * The fleet centroid stands in for the depot; chains are checked against the largest and
+     * fastest vehicle here and against real vehicles during assignment. Only links to each
+     * stop's nearest neighbours are considered, so the savings list is O(n * k) rather than
+     * O(n^2); stops left as single-stop chains when the deadline passes are still inserted.
+     */
+    private List<List<Integer>> buildSavingsChains(long deadline) {
+        int n = stops.size();
+        double maxCapacity = 0;
+        double maxSpeed = 0;
+        for (Vehicle vehicle : vehicles) {
+            maxCapacity = Math.max(maxCapacity, vehicle.capacity);
+            maxSpeed = Math.max(maxSpeed, vehicle.speedKmh);
+        }
+
+        // Distance from the centroid is approximated by the mean distance from each vehicle start
+        double[] depotDistance = new double[n];
+        for (int i = 0; i < n; i++) {
+            double sum = 0;
+            for (Vehicle vehicle : vehicles) {
+                sum += distances[vehicle.node][stops.get(i).node];
+            }
+            depotDistance[i] = sum / vehicles.size();
+        }
+
+        // Savings of the links i -> j for j among i's nearest stops, as parallel arrays
+        int k = Math.min(SAVINGS_NEIGHBORS, n - 1);
+        int[] from = new int[n * k];
+        int[] to = new int[n * k];
+        long[] order = new long[n * k];
+        int count = 0;
+        int[] nearest = new int[k];
+        double[] nearestDistance = new double[k];
+        for (int i = 0; k > 0 && i < n && System.nanoTime() < deadline; i++) {
+            int found = nearestStops(i, nearest, nearestDistance);
+            for (int m = 0; m < found; m++) {
+                int j = nearest[m];
+                double saving = depotDistance[j] - nearestDistance[m];
+                if (saving > EPSILON) {
+                    from[count] = i;
+                    to[count] = j;
+                    // Positive float bits sort like the values; the low half keeps the pair
+                    order[count] = ((long) Float.floatToIntBits((float) saving) << 32) | count;
+                    count++;
+                }
+            }
+        }
+        Arrays.sort(order, 0, count);
+
+        List<List<Integer>> chains = new ArrayList<>();
+        double[] chainDemand = new double[n];
+        int[] chainOf = new int[n];
+        for (int i = 0; i < n; i++) {
+            List<Integer> chain = new ArrayList<>();
+            chain.add(i);
+            chains.add(chain);
+            chainDemand[i] = stops.get(i).demand;
+            chainOf[i] = i;
+        }
+
+        for (int s = count - 1; s >= 0; s--) {
+            if ((s & 255) == 0 && System.nanoTime() >= deadline) {
+                break;
+            }
+            int pair = (int) order[s];
+            int i = from[pair];
+            int j = to[pair];
+            int a = chainOf[i];
+            int b = chainOf[j];
+            if (a == b) {
+                continue;
+            }
+            List<Integer> left = chains.get(a);
+            List<Integer> right = chains.get(b);
+            if (left.get(left.size() - 1) != i || right.get(0) != j
+                    || chainDemand[a] + chainDemand[b] > maxCapacity + EPSILON) {
+                continue;
+            }
+
+            List<Integer> merged = new ArrayList<>(left.size() + right.size());
+            merged.addAll(left);
+            merged.addAll(right);
+            if (!chainTimingFeasible(merged, maxSpeed)) {
+                continue;
+            }
+
+            chains.set(a, merged);
+            chains.set(b, null);
+            chainDemand[a] += chainDemand[b];
+            for (int stop : right) {
+                chainOf[stop] = a;
+            }
+        }
+
+        List<List<Integer>> result = new ArrayList<>();
+        for (List<Integer> chain : chains) {
+            if (chain != null) {
+                result.add(chain);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The stops closest to stop i, nearest first, written to the arrays; returns how many
+     */
+    private int nearestStops(int i, int[] nearest, double[] nearestDistance) {
+        int k = nearest.length;
+        int found = 0;
+        int node = stops.get(i).node;
+        for (int j = 0; j < stops.size(); j++) {
+            if (j == i) {
+                continue;
+            }
+            double distance = distances[node][stops.get(j).node];
+            if (found == k && distance >= nearestDistance[k - 1]) {
+                continue;
+            }
+            // Insertion into the short sorted list, dropping the farthest when full
+            int pos = found < k ? found++ : k - 1;
+            while (pos > 0 && nearestDistance[pos - 1] > distance) {
+                nearest[pos] = nearest[pos - 1];
+                nearestDistance[pos] = nearestDistance[pos - 1];
+                pos--;
+            }
+            nearest[pos] = j;
+            nearestDistance[pos] = distance;
+        }
+        return found;
+    }
+
+    /**
+     * Timing check that ignores the drive to the first stop
+     */
+    private boolean chainTimingFeasible(List<Integer> chain, double speedKmh) {
+        Stop first = stops.get(chain.get(0));
+        double time = first.readyMinutes;
+        if (time > first.dueMinutes) {
+            return false;
+        }
+        time += first.serviceMinutes;
+        for (int k = 1; k < chain.size(); k++) {
+            Stop prev = stops.get(chain.get(k - 1));
+            Stop stop = stops.get(chain.get(k));
+            time = Math.max(time + travelMinutes(prev.node, stop.node, speedKmh), stop.readyMinutes);
+            if (time > stop.dueMinutes) {
+                return false;
+            }
+            time += stop.serviceMinutes;
+        }
+        return true;
+    }
+
+    /**
+     * Give the heaviest chains first pick of vehicles; a chain no free vehicle can run is
+     * left for cheapest insertion.
+     */
+    private void assignChains(List<List<Integer>> chains) {
+        chains.sort(Comparator.comparingDouble((List<Integer> chain) -> demand(chain)).reversed());
+        boolean[] used = new boolean[vehicles.size()];
+
+        for (List<Integer> chain : chains) {
+            int best = -1;
+            double bestCost = Double.MAX_VALUE;
+            for (int v = 0; v < vehicles.size(); v++) {
+                if (used[v] || !feasible(v, chain)) {
+                    continue;
+                }
+                // Prefer the closest vehicle, then the smallest one that fits
+                double cost = distances[vehicles.get(v).node][stops.get(chain.get(0)).node]
+                        + vehicles.get(v).capacity * 1e-6;
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    best = v;
+                }
+            }
+            if (best >= 0) {
+                used[best] = true;
+                routes.get(best).addAll(chain);
+                for (int stop : chain) {
+                    served[stop] = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Cheapest feasible insertion of unserved stops, most urgent first
+     */
+    private boolean insertUnserved(long deadline) {
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < stops.size(); i++) {
+            if (!served[i]) {
+                pending.add(i);
+            }
+        }
+        pending.sort(Comparator.comparingDouble(i -> stops.get(i).dueMinutes));
+
+        boolean inserted = false;
+        for (int stop : pending) {
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+            Insertion best = bestInsertion(stop, Double.MAX_VALUE);
+            if (best != null) {
+                routes.get(best.vehicle).add(best.position, stop);
+                served[stop] = true;
+                inserted = true;
+            }
+        }
+        return inserted;
+    }
+
+    // ---- Local search ----
+
+    /**
+     * Move single stops to the position, on any route, that shortens total distance most
+     */
+    private boolean relocate(long deadline) {
+        boolean improved = false;
+        for (int v = 0; v < routes.size(); v++) {
+            List<Integer> route = routes.get(v);
+            for (int pos = 0; pos < route.size(); pos++) {
+                if (System.nanoTime() >= deadline) {
+                    return improved;
+                }
+                int stop = route.get(pos);
+                double before = routeLength(v, route);
+                route.remove(pos);
+                double removalGain = before - routeLength(v, route);
+
+                Insertion best = bestInsertion(stop, removalGain - EPSILON);
+                if (best != null && !(best.vehicle == v && best.position == pos)) {
+                    routes.get(best.vehicle).add(best.position, stop);
+                    improved = true;
+                    pos--;
+                } else {
+                    route.add(pos, stop);
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * First-improvement 2-opt inside one route, keeping the route feasible
+     */
+    private boolean twoOpt(int v, long deadline) {
+        List<Integer> route = routes.get(v);
+        int startNode = vehicles.get(v).node;
+        boolean improved = false;
+
+        for (int i = 0; i < route.size() - 1; i++) {
+            if (System.nanoTime() >= deadline) {
+                return improved;
+            }
+            for (int j = i + 1; j < route.size(); j++) {
+                int before = i == 0 ? startNode : stops.get(route.get(i - 1)).node;
+                int first = stops.get(route.get(i)).node;
+                int last = stops.get(route.get(j)).node;
+                double delta = distances[before][last] - distances[before][first];
+                if (j + 1 < route.size()) {
+                    int after = stops.get(route.get(j + 1)).node;
+                    delta += distances[first][after] - distances[last][after];
+                }
+                if (delta < -EPSILON) {
+                    reverse(route, i, j);
+                    if (feasible(v, route)) {
+                        improved = true;
+                    } else {
+                        reverse(route, i, j);
+                    }
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * Best feasible position for a stop whose added distance is below maxCost, or null
+     */
+    private Insertion bestInsertion(int stop, double maxCost) {
+        Insertion best = null;
+        double bestCost = maxCost;
+        for (int v = 0; v < routes.size(); v++) {
+            Vehicle vehicle = vehicles.get(v);
+            List<Integer> route = routes.get(v);
+            if (distances[vehicle.node][stops.get(stop).node] > vehicle.rangeKm
+                    || demand(route) + stops.get(stop).demand > vehicle.capacity + EPSILON) {
+                continue;
+            }
+            int node = stops.get(stop).node;
+            for (int pos = 0; pos <= route.size(); pos++) {
+                int prev = pos == 0 ? vehicle.node : stops.get(route.get(pos - 1)).node;
+                double cost = distances[prev][node];
+                if (pos < route.size()) {
+                    int next = stops.get(route.get(pos)).node;
+                    cost += distances[node][next] - distances[prev][next];
+                }
+                if (cost >= bestCost) {
+                    continue;
+                }
+                route.add(pos, stop);
+                if (feasible(v, route)) {
+                    bestCost = cost;
+                    best = new Insertion(v, pos);
+                }
+                route.remove(pos);
+            }
+        }
+        return best;
+    }
+
+    // ---- Evaluation ----
+
+    private boolean feasible(int v, List<Integer> route) {
+        Vehicle vehicle = vehicles.get(v);
+        if (demand(route) > vehicle.capacity + EPSILON) {
+            return false;
+        }
+        double time = 0;
+        int at = vehicle.node;
+        for (int index : route) {
+            Stop stop = stops.get(index);
+            if (distances[vehicle.node][stop.node] > vehicle.rangeKm) {
+                return false;
+            }
+            time = Math.max(time + travelMinutes(at, stop.node, vehicle.speedKmh), stop.readyMinutes);
+            if (time > stop.dueMinutes) {
+                return false;
+            }
+            time += stop.serviceMinutes;
+            at = stop.node;
+        }
+        return true;
+    }
+
+    private double routeLength(int v, List<Integer> route) {
+        double length = 0;
+        int at = vehicles.get(v).node;
+        for (int index : route) {
+            int node = stops.get(index).node;
+            length += distances[at][node];
+            at = node;
+        }
+        return length;
+    }
+
+    private double demand(List<Integer> route) {
+        double total = 0;
+        for (int index : route) {
+            total += stops.get(index).demand;
+        }
+        return total;
+    }
+
+    private double travelMinutes(int from, int to, double speedKmh) {
+        return distances[from][to] / speedKmh * 60.0;
+    }
+
+    private Solution buildSolution() {
+        int[][] stopOrder = new int[routes.size()][];
+        double[][] arrivals = new double[routes.size()][];
+        double[] lengths = new double[routes.size()];
+        double[] loads = new double[routes.size()];
+
+        for (int v = 0; v < routes.size(); v++) {
+            List<Integer> route = routes.get(v);
+            Vehicle vehicle = vehicles.get(v);
+            stopOrder[v] = new int[route.size()];
+            arrivals[v] = new double[route.size()];
+
+            double time = 0;
+            int at = vehicle.node;
+            for (int k = 0; k < route.size(); k++) {
+                Stop stop = stops.get(route.get(k));
+                time = Math.max(time + travelMinutes(at, stop.node, vehicle.speedKmh), stop.readyMinutes);
+                stopOrder[v][k] = route.get(k);
+                arrivals[v][k] = time;
+                time += stop.serviceMinutes;
+                at = stop.node;
+            }
+            lengths[v] = routeLength(v, route);
+            loads[v] = demand(route);
+        }
+
+        List<Integer> unserved = new ArrayList<>();
+        for (int i = 0; i < served.length; i++) {
+            if (!served[i]) {
+                unserved.add(i);
+            }
+        }
+        return new Solution(stopOrder, arrivals, lengths, loads,
+                unserved.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private static void reverse(List<Integer> route, int i, int j) {
+        while (i < j) {
+            Integer tmp = route.get(i);
+            route.set(i++, route.get(j));
+            route.set(j--, tmp);
+        }
+    }
+
+    private static final class Insertion {
+        final int vehicle;
+        final int position;
+
+        Insertion(int vehicle, int position) {
+            this.vehicle = vehicle;
+            this.position = position;
+        }
+    }
+
+    /**
+     * A vehicle starting at a distance-matrix node
+     */
+    public static final class Vehicle {
+        final int node;
+        final double capacity;
+        final double speedKmh;
+        final double rangeKm;
+
+        public Vehicle(int node, double capacity, double speedKmh, double rangeKm) {
+            this.node = node;
+            this.capacity = capacity;
+            this.speedKmh = speedKmh;
+            this.rangeKm = rangeKm;
+        }
+    }
+
+    /**
+     * A pickup at a distance-matrix node that must be reached within [readyMinutes, dueMinutes]
+     */
+    public static final class Stop {
+        final int node;
+        final double demand;
+        final double readyMinutes;
+        final double dueMinutes;
+        final double serviceMinutes;
+
+        public Stop(int node, double demand, double readyMinutes, double dueMinutes, double serviceMinutes) {
+            this.node = node;
+            this.demand = demand;
+            this.readyMinutes = readyMinutes;
+            this.dueMinutes = dueMinutes;
+            this.serviceMinutes = serviceMinutes;
+        }
+    }
+
+    /**
+     * Planned routes indexed like the vehicle list; stops are indices into the stop list
+     */
+    public static final class Solution {
+        private final int[][] routes;
+        private final double[][] arrivalMinutes;
+        private final double[] routeLengthsKm;
+        private final double[] loads;
+        private final int[] unservedStops;
+
+        Solution(int[][] routes, double[][] arrivalMinutes, double[] routeLengthsKm, double[] loads, int[] unservedStops) {
+            this.routes = routes;
+            this.arrivalMinutes = arrivalMinutes;
+            this.routeLengthsKm = routeLengthsKm;
+            this.loads = loads;
+            this.unservedStops = unservedStops;
+        }
+
+        public int[] getRoute(int vehicle) { return routes[vehicle]; }
+        public double[] getArrivalMinutes(int vehicle) { return arrivalMinutes[vehicle]; }
+        public double getRouteLengthKm(int vehicle) { return routeLengthsKm[vehicle]; }
+        public double getLoad(int vehicle) { return loads[vehicle]; }
+        public int[] getUnservedStops() { return unservedStops; }
+
+        public double getTotalDistanceKm() {
+            double total = 0;
+            for (double length : routeLengthsKm) {
+                total += length;
+            }
+            return total;
+        }
+    }
+}
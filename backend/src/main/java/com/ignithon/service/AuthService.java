@@ -56,6 +56,18 @@ public class AuthService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private NGOService ngoService;
+
+    @Autowired
+    private VolunteerService volunteerService;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private VolunteerLeaderboardService volunteerLeaderboardService;
+
     private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
 
     public NGO registerNGO(NGORegistrationRequest request) {
@@ -77,6 +89,7 @@ public class AuthService {
         ngo.setDescription(request.getDescription());
 
         NGO savedNGO = ngoRepository.save(ngo);
+        ngoService.indexNGO(savedNGO);
         
         // Send welcome email
         try {
@@ -108,6 +121,7 @@ public class AuthService {
         donor.setDescription(request.getDescription());
 
         Donor savedDonor = donorRepository.save(donor);
+        leaderboardService.updateDonorInfo(savedDonor);
         
         // Send welcome email
         try {
@@ -141,6 +155,8 @@ public class AuthService {
         volunteer.setMaxPickupDistance(request.getMaxPickupDistance());
 
         Volunteer savedVolunteer = volunteerRepository.save(volunteer);
+        volunteerService.indexVolunteer(savedVolunteer);
+        volunteerLeaderboardService.recordVolunteer(savedVolunteer);
         
         // Send welcome email
         try {
@@ -217,7 +233,9 @@ public class AuthService {
                 ngo.setOrganizationType(request.getOrganizationType());
                 ngo.setDescription(request.getNgoDescription());
                 
-                savedUser = ngoRepository.save(ngo);
+                NGO savedNgo = ngoRepository.save(ngo);
+                ngoService.indexNGO(savedNgo);
+                savedUser = savedNgo;
                 break;
                 
             case DONOR:
@@ -232,7 +250,9 @@ public class AuthService {
                 donor.setDonorType(request.getDonorType());
                 donor.setDescription(request.getDonorDescription());
                 
-                savedUser = donorRepository.save(donor);
+                Donor savedDonor = donorRepository.save(donor);
+                leaderboardService.updateDonorInfo(savedDonor);
+                savedUser = savedDonor;
                 break;
                 
             case ADMIN:
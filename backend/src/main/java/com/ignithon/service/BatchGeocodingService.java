@@ -0,0 +1,275 @@
+package com.ignithon.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ignithon.maps.GeocodeCache;
+import com.ignithon.maps.RateLimiter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Geocodes large address lists for bulk onboarding.
+ *
+ * Addresses are deduplicated by their normalized cache key. Cached ones are answered at once;
+ * the rest are fanned out with at most max-concurrent lookups per batch, paced by a rate
+ * limit shared by all batches since they draw on the same API quota. Each input address
+ * produces one result as soon as its lookup completes.
+ */
+@Service
+public class BatchGeocodingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchGeocodingService.class);
+
+    @Value("${app.maps.geocode-batch.max-concurrent:10}")
+    private int maxConcurrent;
+
+    @Value("${app.maps.geocode-batch.requests-per-second:40}")
+    private double requestsPerSecond;
+
+    @Value("${app.maps.geocode-batch.max-addresses:10000}")
+    private int maxAddresses;
+
+    @Autowired
+    private MapsService mapsService;
+
+    @Autowired
+    private GeocodeCache geocodeCache;
+
+    private RateLimiter rateLimiter;
+    private ScheduledExecutorService scheduler;
+    /** Delivers result lines; one thread per job at most, only while it has lines to write */
+    private ExecutorService writer;
+
+    @PostConstruct
+    public void init() {
+        rateLimiter = new RateLimiter(requestsPerSecond);
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "geocode-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger writerCount = new AtomicInteger();
+        writer = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "geocode-batch-writer-" + writerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        writer.shutdownNow();
+    }
+
+    /**
+     * Geocode every address, passing one result per input index to onResult as it completes.
+     * onResult runs on a writer thread of its own, never concurrently, so it may block on a
+     * slow client. The returned future completes with a summary once all results were
+     * delivered; a batch whose consumer throws is cancelled and the future completes
+     * exceptionally.
+     */
+    public CompletableFuture<Map<String, Object>> geocode(List<String> addresses, Consumer<Map<String, Object>> onResult) {
+        if (addresses.size() > maxAddresses) {
+            throw new RuntimeException("At most " + maxAddresses + " addresses per batch");
+        }
+        Job job = new Job(addresses, onResult);
+        job.start();
+        return job.done;
+    }
+
+    private final class Job {
+        private final List<String> addresses;
+        private final Consumer<Map<String, Object>> onResult;
+        private final CompletableFuture<Map<String, Object>> done = new CompletableFuture<>();
+
+        /** Input indices per normalized address, in first-seen order */
+        private final Map<String, List<Integer>> indicesByKey = new LinkedHashMap<>();
+        private final List<String> pending = new ArrayList<>();
+        /** Result lines not yet handed to the consumer */
+        private final ArrayDeque<Map<String, Object>> lines = new ArrayDeque<>();
+        private final long startNanos = System.nanoTime();
+
+        private int next;
+        private int active;
+        private int remaining;
+        private int cached;
+        private int requested;
+        private int failed;
+        private boolean cancelled;
+        /** A writer thread is draining lines */
+        private boolean writing;
+
+        Job(List<String> addresses, Consumer<Map<String, Object>> onResult) {
+            this.addresses = addresses;
+            this.onResult = onResult;
+        }
+
+        void start() {
+            for (int i = 0; i < addresses.size(); i++) {
+                String address = addresses.get(i);
+                String key = address == null || address.isBlank() ? "" : GeocodeCache.addressKey(address);
+                indicesByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+            }
+            remaining = indicesByKey.size();
+            if (remaining == 0) {
+                done.complete(summary());
+                return;
+            }
+
+            for (Map.Entry<String, List<Integer>> entry : indicesByKey.entrySet()) {
+                String address = addresses.get(entry.getValue().get(0));
+                if (entry.getKey().isEmpty()) {
+                    complete(entry.getValue(), Map.of("success", false, "error", "Failed to geocode address: address is required"));
+                    continue;
+                }
+                Map<String, Object> result = geocodeCache.getAddress(address);
+                if (result != null) {
+                    synchronized (this) {
+                        cached++;
+                    }
+                    complete(entry.getValue(), result);
+                } else {
+                    pending.add(entry.getKey());
+                }
+            }
+            pump();
+        }
+
+        /** Start lookups while there are free slots; each start waits for its rate-limit slot */
+        private void pump() {
+            List<String> toStart = new ArrayList<>();
+            List<Long> delays = new ArrayList<>();
+            synchronized (this) {
+                while (!cancelled && active < maxConcurrent && next < pending.size()) {
+                    toStart.add(pending.get(next++));
+                    delays.add(rateLimiter.reserve());
+                    active++;
+                    requested++;
+                }
+            }
+            for (int i = 0; i < toStart.size(); i++) {
+                String key = toStart.get(i);
+                long delay = delays.get(i);
+                if (delay <= 0) {
+                    lookup(key);
+                } else {
+                    scheduler.schedule(() -> lookup(key), delay, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+
+        private void lookup(String key) {
+            List<Integer> indices = indicesByKey.get(key);
+            mapsService.geocodeAddress(addresses.get(indices.get(0)))
+                    .whenComplete((result, error) -> {
+                        synchronized (this) {
+                            active--;
+                        }
+                        if (error != null) {
+                            complete(indices, Map.of("success", false, "error", "Failed to geocode address: " + error.getMessage()));
+                        } else if (result.isEmpty()) {
+                            complete(indices, Map.of("success", false, "error", "Failed to geocode address: no results"));
+                        } else {
+                            complete(indices, result);
+                        }
+                        pump();
+                    });
+        }
+
+        /** Queue a result line for every input index sharing the address */
+        private void complete(List<Integer> indices, Map<String, Object> result) {
+            boolean startWriter;
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                if (!Boolean.TRUE.equals(result.get("success"))) {
+                    failed += indices.size();
+                }
+                for (int index : indices) {
+                    Map<String, Object> line = new LinkedHashMap<>();
+                    line.put("index", index);
+                    line.put("address", addresses.get(index));
+                    line.putAll(result);
+                    lines.add(line);
+                }
+                remaining--;
+                startWriter = !writing;
+                writing = true;
+            }
+            if (startWriter) {
+                writer.execute(this::drain);
+            }
+        }
+
+        /**
+         * Hand queued lines to the consumer outside the job's lock, on a writer thread, so a
+         * slow client never holds up the threads that complete lookups
+         */
+        private void drain() {
+            while (true) {
+                Map<String, Object> line;
+                boolean finished;
+                synchronized (this) {
+                    line = cancelled ? null : lines.poll();
+                    if (line == null) {
+                        writing = false;
+                        finished = !cancelled && remaining == 0;
+                    } else {
+                        finished = false;
+                    }
+                }
+                if (line == null) {
+                    if (finished) {
+                        done.complete(summary());
+                    }
+                    return;
+                }
+                try {
+                    onResult.accept(line);
+                } catch (RuntimeException e) {
+                    synchronized (this) {
+                        cancelled = true;
+                        lines.clear();
+                        writing = false;
+                    }
+                    logger.warn("Batch geocoding cancelled: {}", e.getMessage());
+                    done.completeExceptionally(e);
+                    return;
+                }
+            }
+        }
+
+        private synchronized Map<String, Object> summary() {
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("done", true);
+            summary.put("total", addresses.size());
+            summary.put("unique", indicesByKey.size());
+            summary.put("cached", cached);
+            summary.put("requested", requested);
+            summary.put("failed", failed);
+            summary.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            return summary;
+        }
+    }
+}
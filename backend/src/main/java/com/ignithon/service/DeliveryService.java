@@ -0,0 +1,111 @@
+package com.ignithon.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.ignithon.entity.Delivery;
+import com.ignithon.geo.BoundingBox;
+import com.ignithon.geo.GeoPointArray;
+import com.ignithon.geo.HaversineKernel;
+import com.ignithon.repository.DeliveryRepository;
+
+@Service
+public class DeliveryService {
+
+    /** Drivers fetched per requested result, closest first */
+    private static final int CANDIDATES_PER_RESULT = 4;
+
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+
+    /**
+     * Find the closest available drivers to a pickup point, closest first.
+     * Candidates come from a bounding-box query on the indexed latitude/longitude columns,
+     * nearest first and read a page of a few per requested driver at a time, then are
+     * refined by great-circle distance in meters. A driver is only returned when the
+     * pickup is within both the search radius and the driver's own maxDeliveryDistance.
+     */
+    public List<Delivery> findNearestAvailableDrivers(double latitude, double longitude,
+                                                      double radiusMeters, int limit) {
+        if (limit <= 0 || radiusMeters < 0) {
+            return new ArrayList<>();
+        }
+
+        BoundingBox box = BoundingBox.around(latitude, longitude, radiusMeters / 1000.0);
+        double cosLatitude = Math.cos(Math.toRadians(latitude));
+        // Extra candidates per page cover drivers dropped by their own range and the approximate order
+        int pageSize = (int) Math.min(Integer.MAX_VALUE, (long) limit * CANDIDATES_PER_RESULT);
+
+        // Max-heap on distance holding the best `limit` drivers seen so far
+        Comparator<DriverDistance> byDistance = Comparator.comparingDouble(dd -> dd.distanceMeters);
+        PriorityQueue<DriverDistance> best = new PriorityQueue<>(limit + 1, byDistance.reversed());
+
+        // Ranges are per driver, so keep reading pages until enough drivers qualify or the box runs out
+        for (int page = 0; best.size() < limit; page++) {
+            List<Delivery> candidates = deliveryRepository.findAvailableWithinBoundingBox(
+                    box.getMinLatitude(), box.getMaxLatitude(), box.getMinLongitude(), box.getMaxLongitude(),
+                    latitude, longitude, cosLatitude * cosLatitude, PageRequest.of(page, pageSize));
+            offerCandidates(candidates, latitude, longitude, radiusMeters, limit, best);
+            if (candidates.size() < pageSize) {
+                break;
+            }
+        }
+
+        List<DriverDistance> ordered = new ArrayList<>(best);
+        ordered.sort(byDistance);
+        List<Delivery> result = new ArrayList<>(ordered.size());
+        for (DriverDistance dd : ordered) {
+            result.add(dd.driver);
+        }
+        return result;
+    }
+
+    /**
+     * Add the candidates within the search radius and their own range to the heap of the best limit
+     */
+    private static void offerCandidates(List<Delivery> candidates, double latitude, double longitude,
+                                        double radiusMeters, int limit, PriorityQueue<DriverDistance> best) {
+        List<Delivery> located = new ArrayList<>(candidates.size());
+        GeoPointArray points = new GeoPointArray(candidates.size());
+        for (Delivery driver : candidates) {
+            if (driver.getLatitude() != null && driver.getLongitude() != null) {
+                located.add(driver);
+                points.add(driver.getLatitude(), driver.getLongitude());
+            }
+        }
+        double[] distancesKm = HaversineKernel.distancesKm(latitude, longitude, points);
+
+        for (int i = 0; i < distancesKm.length; i++) {
+            Delivery driver = located.get(i);
+            double distanceMeters = distancesKm[i] * 1000.0;
+            double driverRangeMeters = driver.getMaxDeliveryDistance() != null
+                    ? driver.getMaxDeliveryDistance() * 1000.0 : Double.MAX_VALUE;
+            if (distanceMeters > radiusMeters || distanceMeters > driverRangeMeters) {
+                continue;
+            }
+
+            if (best.size() < limit) {
+                best.add(new DriverDistance(driver, distanceMeters));
+            } else if (distanceMeters < best.peek().distanceMeters) {
+                best.poll();
+                best.add(new DriverDistance(driver, distanceMeters));
+            }
+        }
+    }
+
+    private static final class DriverDistance {
+        final Delivery driver;
+        final double distanceMeters;
+
+        DriverDistance(Delivery driver, double distanceMeters) {
+            this.driver = driver;
+            this.distanceMeters = distanceMeters;
+        }
+    }
+}
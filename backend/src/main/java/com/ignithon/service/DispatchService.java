@@ -0,0 +1,346 @@
+package com.ignithon.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ignithon.entity.Delivery;
+import com.ignithon.entity.Donation;
+import com.ignithon.entity.Donor;
+import com.ignithon.entity.NGO;
+import com.ignithon.geo.GeoUtils;
+import com.ignithon.geo.SpatialGridIndex;
+import com.ignithon.matching.DonationMatcher;
+import com.ignithon.repository.DeliveryRepository;
+import com.ignithon.repository.DonationRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Dispatches available Delivery drivers to accepted donations in short micro-rounds.
+ *
+ * Each round indexes the available drivers, and every accepted donation without a driver
+ * gets a short list of feasible drivers: nearest first, vehicle big enough for the load,
+ * pickup reachable before expiry, and pickup plus drop-off at the NGO within the driver's
+ * maxDeliveryDistance. Each pair is scored in minutes:
+ *
+ *   cost = pickup ETA + oversize penalty + range penalty - rating bonus
+ *
+ * so a slightly farther driver with a better-fitting vehicle or a higher rating can win.
+ * The candidate lists go through the same regret-based matcher as NGO matching, with one
+ * unit of capacity per driver. Every assignment is committed as a pair of conditional
+ * UPDATEs in one transaction (claim the driver, then the donation), so a driver is never
+ * double-booked even if a coordinator or another round touched either row meanwhile.
+ * The driver becomes available again once the donation is delivered, rejected or expires;
+ * accepted donations that pass their expiry time are expired by a periodic sweep.
+ */
+@Service
+public class DispatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DispatchService.class);
+
+    // ~11 km cells, matching the NGO and volunteer indexes
+    private static final double INDEX_CELL_SIZE_DEGREES = 0.1;
+
+    /** Rating assumed for drivers nobody has rated yet */
+    private static final double NEUTRAL_RATING = 3.0;
+
+    @Value("${app.dispatch.max-pickup-km:15}")
+    private double maxPickupKm;
+
+    @Value("${app.dispatch.candidates-per-donation:8}")
+    private int candidatesPerDonation;
+
+    @Value("${app.dispatch.road-factor:1.3}")
+    private double roadFactor;
+
+    @Value("${app.dispatch.rating-weight-minutes:4}")
+    private double ratingWeightMinutes;
+
+    @Value("${app.dispatch.oversize-weight-minutes:10}")
+    private double oversizeWeightMinutes;
+
+    @Value("${app.dispatch.range-weight-minutes:5}")
+    private double rangeWeightMinutes;
+
+    @Autowired
+    private DonationRepository donationRepository;
+
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.dispatch.interval-ms:3000}")
+    private long intervalMs;
+
+    /** Rounds run on their own thread so they never wait behind the shared scheduled jobs */
+    private ScheduledExecutorService roundScheduler;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startRounds() {
+        roundScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dispatch-rounds");
+            thread.setDaemon(true);
+            return thread;
+        });
+        roundScheduler.scheduleWithFixedDelay(this::scheduledDispatchRound, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (roundScheduler != null) {
+            roundScheduler.shutdownNow();
+        }
+    }
+
+    public void scheduledDispatchRound() {
+        try {
+            dispatchAcceptedDonations();
+        } catch (Exception e) {
+            logger.error("Dispatch round failed", e);
+        }
+    }
+
+    /**
+     * Run one dispatch round over every accepted donation still waiting for a driver
+     */
+    public synchronized Map<String, Object> dispatchAcceptedDonations() {
+        long started = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Donation> waiting = donationRepository.findAwaitingDriver(Donation.DonationStatus.ACCEPTED, now);
+        Map<String, Object> result = new HashMap<>();
+        result.put("waitingDonations", waiting.size());
+        if (waiting.isEmpty()) {
+            result.put("dispatched", 0);
+            return result;
+        }
+
+        SpatialGridIndex<Delivery> drivers = new SpatialGridIndex<>(INDEX_CELL_SIZE_DEGREES);
+        for (Delivery driver : deliveryRepository.findByIsAvailableTrue()) {
+            if (driver.getLatitude() != null && driver.getLongitude() != null && driver.getVehicleType() != null) {
+                drivers.put(driver.getId(), driver.getLatitude(), driver.getLongitude(), driver);
+            }
+        }
+        result.put("availableDrivers", drivers.size());
+        if (drivers.size() == 0) {
+            result.put("dispatched", 0);
+            return result;
+        }
+
+        // Build the candidate graph; driver indices are assigned on first sight
+        Map<Long, Integer> driverIndex = new HashMap<>();
+        List<Delivery> candidates = new ArrayList<>();
+
+        int n = waiting.size();
+        double[] units = new double[n];
+        double[] deadlines = new double[n];
+        int[][] candidateDrivers = new int[n][];
+        double[][] candidateCosts = new double[n][];
+
+        for (int d = 0; d < n; d++) {
+            Donation donation = waiting.get(d);
+            units[d] = 1.0;
+            deadlines[d] = donation.getExpiryTime().atZone(ZoneId.systemDefault()).toEpochSecond();
+            candidateDrivers[d] = new int[0];
+            candidateCosts[d] = new double[0];
+
+            Donor donor = donation.getDonor();
+            if (donor.getLatitude() == null || donor.getLongitude() == null) {
+                continue;
+            }
+            double quantity = donation.getQuantity() != null ? donation.getQuantity() : 0.0;
+            double dropKm = dropOffKm(donor, donation.getNgo());
+            double minutesLeft = Duration.between(now, donation.getExpiryTime()).toSeconds() / 60.0;
+
+            List<SpatialGridIndex.Neighbor<Delivery>> nearby = drivers.nearest(donor.getLatitude(), donor.getLongitude(),
+                    candidatesPerDonation, maxPickupKm,
+                    (driver, pickupKm) -> driver.getVehicleType().getCapacityKg() >= quantity
+                            && roadKm(pickupKm + dropKm) <= rangeKm(driver)
+                            && etaMinutes(driver, pickupKm) <= minutesLeft);
+
+            int count = nearby.size();
+            int[] indices = new int[count];
+            double[] costs = new double[count];
+            for (int c = 0; c < count; c++) {
+                SpatialGridIndex.Neighbor<Delivery> match = nearby.get(c);
+                Delivery driver = match.getValue();
+                Integer idx = driverIndex.get(driver.getId());
+                if (idx == null) {
+                    idx = candidates.size();
+                    driverIndex.put(driver.getId(), idx);
+                    candidates.add(driver);
+                }
+                indices[c] = idx;
+                costs[c] = cost(driver, match.getDistanceKm(), dropKm, quantity);
+            }
+            sortByCost(indices, costs);
+            candidateDrivers[d] = indices;
+            candidateCosts[d] = costs;
+        }
+
+        double[] capacity = new double[candidates.size()];
+        Arrays.fill(capacity, 1.0);
+        int[] assignment = new DonationMatcher(units, deadlines, candidateDrivers, candidateCosts, capacity).solve();
+
+        int dispatched = 0;
+        int conflicts = 0;
+        for (int d = 0; d < n; d++) {
+            if (assignment[d] == DonationMatcher.UNASSIGNED) {
+                continue;
+            }
+            Long donationId = waiting.get(d).getId();
+            Long driverId = candidates.get(assignment[d]).getId();
+            if (commit(donationId, driverId)) {
+                dispatched++;
+            } else {
+                conflicts++;
+            }
+        }
+
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        if (dispatched > 0 || conflicts > 0) {
+            logger.info("Dispatched {} of {} waiting donations ({} conflicts) in {} ms",
+                    dispatched, n, conflicts, elapsedMs);
+        }
+
+        result.put("dispatched", dispatched);
+        result.put("conflicts", conflicts);
+        result.put("durationMs", elapsedMs);
+        return result;
+    }
+
+    /**
+     * Expire accepted donations whose food is past its expiry time and free their drivers
+     */
+    @Scheduled(fixedDelayString = "${app.dispatch.expiry-interval-ms:60000}")
+    public void expireStaleDonations() {
+        int expired = 0;
+        for (Long donationId : donationRepository.findExpiredIds(Donation.DonationStatus.ACCEPTED, LocalDateTime.now())) {
+            try {
+                Boolean changed = transactionTemplate.execute(status -> {
+                    if (donationRepository.updateStatusIfUnchanged(donationId, Donation.DonationStatus.ACCEPTED.name(),
+                            Donation.DonationStatus.EXPIRED.name(), null) == 0) {
+                        return false;
+                    }
+                    releaseDriver(donationId, Donation.DonationStatus.EXPIRED);
+                    return true;
+                });
+                if (Boolean.TRUE.equals(changed)) {
+                    expired++;
+                }
+            } catch (Exception e) {
+                logger.error("Failed to expire donation {}", donationId, e);
+            }
+        }
+        if (expired > 0) {
+            logger.info("Expired {} accepted donations past their expiry time", expired);
+        }
+    }
+
+    /**
+     * Detach and free the driver of a donation that just reached a final status.
+     * Must run in the transaction that changed the status, after its UPDATE: the row is then
+     * locked, so no driver can be dispatched to it meanwhile, and clearing the driver makes
+     * the release happen once however many final statuses follow.
+     * A delivered donation also counts towards the driver's totalDeliveries.
+     */
+    public void releaseDriver(Long donationId, Donation.DonationStatus status) {
+        if (!isFinal(status)) {
+            return;
+        }
+        Long driverId = donationRepository.findDriverId(donationId);
+        if (driverId != null && donationRepository.clearDriver(donationId, driverId) > 0) {
+            deliveryRepository.release(driverId, status.isDelivered() ? 1 : 0);
+        }
+    }
+
+    private static boolean isFinal(Donation.DonationStatus status) {
+        return status != null && (status.isDelivered() || status == Donation.DonationStatus.REJECTED
+                || status == Donation.DonationStatus.EXPIRED);
+    }
+
+    /**
+     * Claim the driver and the donation together; either both updates apply or neither does
+     */
+    private boolean commit(Long donationId, Long driverId) {
+        Boolean committed = transactionTemplate.execute(status -> {
+            if (deliveryRepository.claimIfAvailable(driverId) == 0) {
+                return false;
+            }
+            if (donationRepository.assignDriverIfUnassigned(donationId, driverId) == 0) {
+                status.setRollbackOnly();
+                return false;
+            }
+            return true;
+        });
+        return Boolean.TRUE.equals(committed);
+    }
+
+    private double cost(Delivery driver, double pickupKm, double dropKm, double quantity) {
+        double capacityKg = driver.getVehicleType().getCapacityKg();
+        double oversize = 1.0 - Math.min(1.0, quantity / capacityKg);
+        double rangeUsed = roadKm(pickupKm + dropKm) / rangeKm(driver);
+        double rating = driver.getTotalRatings() != null && driver.getTotalRatings() > 0 && driver.getAverageRating() != null
+                ? driver.getAverageRating() : NEUTRAL_RATING;
+        return etaMinutes(driver, pickupKm)
+                + oversizeWeightMinutes * oversize
+                + rangeWeightMinutes * rangeUsed
+                - ratingWeightMinutes * (rating - NEUTRAL_RATING);
+    }
+
+    private double etaMinutes(Delivery driver, double pickupKm) {
+        return roadKm(pickupKm) / driver.getVehicleType().getAverageSpeedKmh() * 60.0;
+    }
+
+    private double roadKm(double greatCircleKm) {
+        return greatCircleKm * roadFactor;
+    }
+
+    private static double rangeKm(Delivery driver) {
+        return driver.getMaxDeliveryDistance() != null ? driver.getMaxDeliveryDistance() : Double.MAX_VALUE;
+    }
+
+    private static double dropOffKm(Donor donor, NGO ngo) {
+        if (ngo == null || ngo.getLatitude() == null || ngo.getLongitude() == null) {
+            return 0.0;
+        }
+        return GeoUtils.haversineKm(donor.getLatitude(), donor.getLongitude(), ngo.getLatitude(), ngo.getLongitude());
+    }
+
+    /** Insertion sort of a short candidate list by ascending cost, keeping indices aligned */
+    private static void sortByCost(int[] indices, double[] costs) {
+        for (int i = 1; i < costs.length; i++) {
+            double cost = costs[i];
+            int index = indices[i];
+            int j = i - 1;
+            while (j >= 0 && costs[j] > cost) {
+                costs[j + 1] = costs[j];
+                indices[j + 1] = indices[j];
+                j--;
+            }
+            costs[j + 1] = cost;
+            indices[j + 1] = index;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.ignithon.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ignithon.entity.Donation;
+import com.ignithon.entity.Donor;
+import com.ignithon.entity.NGO;
+import com.ignithon.geo.PolygonGridIndex;
+import com.ignithon.matching.DonationMatcher;
+import com.ignithon.repository.DonationRepository;
+
+/**
+ * Assigns pending, unassigned donations to accepting NGOs.
+ *
+ * A donation can go to an NGO when:
+ * - the donor is inside the NGO's drive-time service area (see NGOService),
+ * - the NGO can reach it before expiryTime at the configured average speed,
+ * - the NGO has capacity left: maxDonationQuantity minus the quantity of donations it
+ *   already holds that are still in progress.
+ *
+ * Rounds run on a fixed delay and only look at donations that are still unassigned, so
+ * each round is incremental. Assignments are written with a conditional UPDATE so a
+ * donation cancelled mid-round is never overwritten.
+ */
+@Service
+public class DonationMatchingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DonationMatchingService.class);
+
+    /** Statuses whose quantity still counts against an NGO's capacity */
+    private static final EnumSet<Donation.DonationStatus> OPEN_STATUSES =
+            EnumSet.of(Donation.DonationStatus.PENDING, Donation.DonationStatus.ACCEPTED,
+                       Donation.DonationStatus.PICKED_UP);
+
+    @Value("${app.matching.search-radius-km:100}")
+    private double searchRadiusKm;
+
+    @Value("${app.matching.average-speed-kmh:25}")
+    private double averageSpeedKmh;
+
+    @Autowired
+    private DonationRepository donationRepository;
+
+    @Autowired
+    private NGOService ngoService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DonorSummaryService donorSummaryService;
+
+    @Scheduled(fixedDelayString = "${app.matching.interval-ms:30000}")
+    public void scheduledMatchingRound() {
+        try {
+            matchPendingDonations();
+        } catch (Exception e) {
+            logger.error("Donation matching round failed", e);
+        }
+    }
+
+    /**
+     * Run one matching round over every unassigned pending donation
+     */
+    public synchronized Map<String, Object> matchPendingDonations() {
+        long started = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Donation> pending = donationRepository.findUnassignedByStatus(Donation.DonationStatus.PENDING, now);
+        Map<String, Object> result = new HashMap<>();
+        result.put("pendingDonations", pending.size());
+        if (pending.isEmpty()) {
+            result.put("assigned", 0);
+            return result;
+        }
+
+        Map<Long, Double> openLoad = new HashMap<>();
+        for (Object[] row : donationRepository.sumQuantityByNgo(OPEN_STATUSES)) {
+            openLoad.put((Long) row[0], ((Number) row[1]).doubleValue());
+        }
+
+        // Build the candidate graph; NGO indices are assigned on first sight
+        Map<Long, Integer> ngoIndex = new HashMap<>();
+        List<NGO> ngos = new ArrayList<>();
+        List<Double> capacities = new ArrayList<>();
+
+        int n = pending.size();
+        double[] quantities = new double[n];
+        double[] deadlines = new double[n];
+        int[][] candidateNgos = new int[n][];
+        double[][] candidateCosts = new double[n][];
+
+        for (int d = 0; d < n; d++) {
+            Donation donation = pending.get(d);
+            quantities[d] = donation.getQuantity() != null ? donation.getQuantity() : 0.0;
+            deadlines[d] = donation.getExpiryTime().atZone(ZoneId.systemDefault()).toEpochSecond();
+
+            double hoursLeft = Duration.between(now, donation.getExpiryTime()).toSeconds() / 3600.0;
+            double reachableKm = Math.min(searchRadiusKm, hoursLeft * averageSpeedKmh);
+
+            Donor donor = donation.getDonor();
+            List<PolygonGridIndex.Match<NGO>> nearby = donor.getLatitude() == null || donor.getLongitude() == null
+                    ? List.of()
+                    : ngoService.findCandidateNGOs(donor.getLatitude(), donor.getLongitude());
+
+            int[] ngosForDonation = new int[nearby.size()];
+            double[] costs = new double[nearby.size()];
+            int count = 0;
+            for (PolygonGridIndex.Match<NGO> match : nearby) {
+                NGO ngo = match.getValue();
+                if (match.getDistanceKm() > reachableKm) {
+                    continue;
+                }
+                Integer idx = ngoIndex.get(ngo.getId());
+                if (idx == null) {
+                    idx = ngos.size();
+                    ngoIndex.put(ngo.getId(), idx);
+                    ngos.add(ngo);
+                    capacities.add(Math.max(0.0, ngo.getMaxDonationQuantity() - openLoad.getOrDefault(ngo.getId(), 0.0)));
+                }
+                ngosForDonation[count] = idx;
+                costs[count] = match.getDistanceKm();
+                count++;
+            }
+            // Matches arrive sorted by distance, so the candidate list stays sorted by cost
+            candidateNgos[d] = Arrays.copyOf(ngosForDonation, count);
+            candidateCosts[d] = Arrays.copyOf(costs, count);
+        }
+
+        double[] capacityArray = new double[capacities.size()];
+        for (int i = 0; i < capacityArray.length; i++) {
+            capacityArray[i] = capacities.get(i);
+        }
+
+        int[] assignment = new DonationMatcher(quantities, deadlines, candidateNgos, candidateCosts, capacityArray).solve();
+
+        Integer assigned = transactionTemplate.execute(status -> {
+            int written = 0;
+            for (int d = 0; d < n; d++) {
+                if (assignment[d] != DonationMatcher.UNASSIGNED) {
+                    Long ngoId = ngos.get(assignment[d]).getId();
+                    written += donationRepository.assignNgoIfUnassigned(pending.get(d).getId(), ngoId);
+                }
+            }
+            return written;
+        });
+        for (int d = 0; d < n; d++) {
+            if (assignment[d] != DonationMatcher.UNASSIGNED) {
+                donorSummaryService.invalidate(pending.get(d).getDonor().getId());
+            }
+        }
+
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        logger.info("Matched {} of {} pending donations across {} NGOs in {} ms",
+                assigned, n, ngos.size(), elapsedMs);
+
+        result.put("assigned", assigned);
+        result.put("candidateNgos", ngos.size());
+        result.put("durationMs", elapsedMs);
+        return result;
+    }
+}
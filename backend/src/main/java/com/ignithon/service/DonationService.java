@@ -12,6 +12,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.ignithon.entity.Donation;
 import com.ignithon.repository.DonationRepository;
@@ -32,6 +33,21 @@ public class DonationService {
     @Autowired
     private NGORepository ngoRepository;
     
+    @Autowired
+    private DispatchService dispatchService;
+    
+    @Autowired
+    private LeaderboardService leaderboardService;
+    
+    @Autowired
+    private DonorSummaryService donorSummaryService;
+    
+    @Autowired
+    private ImpactService impactService;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
     public List<Donation> findByDonorId(Long donorId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
         Page<Donation> donationPage = donationRepository.findByDonorId(donorId, pageable);
@@ -46,16 +62,18 @@ public class DonationService {
         return donationRepository.countByDonorIdAndStatus(donorId, status);
     }
     
-    public Integer calculateTotalMealsDonated(Long donorId) {
-        // This would calculate based on food type and quantity
-        // For now, returning mock data
-        return 150; // 150 meals donated
+    /**
+     * Meals provided by the donor's delivered donations
+     */
+    public Long calculateTotalMealsDonated(Long donorId) {
+        return impactService.getDonorImpact(donorId).getMeals();
     }
     
+    /**
+     * CO2e avoided by the donor's delivered donations, in kg
+     */
     public Double calculateCO2Saved(Long donorId) {
-        // This would calculate CO2 saved based on food waste prevention
-        // For now, returning mock data
-        return 25.5; // 25.5 kg CO2 saved
+        return impactService.getDonorImpact(donorId).getCo2SavedKg();
     }
     
     public Long countUniqueNGOsHelped(Long donorId) {
@@ -79,7 +97,9 @@ public class DonationService {
         duplicatedDonation.setSpecialInstructions(originalDonation.getSpecialInstructions());
         duplicatedDonation.setStatus(Donation.DonationStatus.PENDING);
         
-        return donationRepository.save(duplicatedDonation);
+        Donation saved = donationRepository.save(duplicatedDonation);
+        donorSummaryService.invalidate(donorId);
+        return saved;
     }
     
     public void cancelDonation(Long donationId, Long donorId) {
@@ -96,6 +116,7 @@ public class DonationService {
         
         donation.setStatus(Donation.DonationStatus.REJECTED);
         donationRepository.save(donation);
+        donorSummaryService.invalidate(donorId);
     }
     
     public Map<String, Object> generateDonorReport(Long donorId, String reportType, String startDate, String endDate) {
@@ -115,24 +136,58 @@ public class DonationService {
         return report;
     }
     
-    public List<Donation> findNearbyDonations(Double latitude, Double longitude, Double maxDistance) {
-        return donationRepository.findNearbyDonations(latitude, longitude, maxDistance);
+    public List<Donation> findNearbyDonations(Double latitude, Double longitude, Double maxDistanceMeters) {
+        return donationRepository.findNearbyDonations(latitude, longitude, maxDistanceMeters);
     }
     
     public List<Donation> findDonationsByStatus(String status) {
         return donationRepository.findByStatus(status);
     }
     
-    public Donation updateDonationStatus(Long donationId, String newStatus) {
-        Donation donation = donationRepository.findById(donationId)
-                .orElseThrow(() -> new RuntimeException("Donation not found"));
-        
+    /**
+     * Move a donation to a new status. The change and its impact totals commit together,
+     * and the status is compared and set in one UPDATE so concurrent updates cannot count
+     * a delivery twice.
+     * An NGO, identified by ngoEmail, may only update its own donations along the allowed
+     * transitions; pass null for an admin, who may also correct a status.
+     */
+    public Donation updateDonationStatus(Long donationId, String newStatus, String ngoEmail) {
+        Donation.DonationStatus status;
         try {
-            Donation.DonationStatus status = Donation.DonationStatus.valueOf(newStatus.toUpperCase());
-            donation.setStatus(status);
-            return donationRepository.save(donation);
+            status = Donation.DonationStatus.valueOf(newStatus.toUpperCase());
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Invalid donation status: " + newStatus);
         }
+        
+        Donation.DonationStatus[] previous = new Donation.DonationStatus[1];
+        Donation saved = transactionTemplate.execute(tx -> {
+            Donation donation = donationRepository.findById(donationId)
+                    .orElseThrow(() -> new RuntimeException("Donation not found"));
+            previous[0] = donation.getStatus();
+            if (ngoEmail != null) {
+                if (donation.getNgo() == null || !ngoEmail.equals(donation.getNgo().getEmail())) {
+                    throw new RuntimeException("Unauthorized to update this donation");
+                }
+                if (previous[0] == null || !previous[0].canMoveTo(status)) {
+                    throw new RuntimeException("Cannot move a donation from " + previous[0] + " to " + status);
+                }
+            }
+            LocalDateTime deliveredAt = donation.getDeliveredAt();
+            if (status.isDelivered() && (previous[0] == null || !previous[0].isDelivered())) {
+                deliveredAt = LocalDateTime.now();
+            }
+            if (donationRepository.updateStatusIfUnchanged(donationId, previous[0].name(), status.name(), deliveredAt) == 0) {
+                throw new RuntimeException("Donation status was changed concurrently, please retry");
+            }
+            dispatchService.releaseDriver(donationId, status);
+            // Re-read rather than set the fields on the loaded copy, which was detached by the UPDATE
+            Donation updated = donationRepository.findById(donationId)
+                    .orElseThrow(() -> new RuntimeException("Donation not found"));
+            impactService.recordStatusChange(updated, previous[0]);
+            return updated;
+        });
+        leaderboardService.recordStatusChange(saved, previous[0]);
+        donorSummaryService.invalidate(saved.getDonor().getId());
+        return saved;
     }
 } 
\ No newline at end of file
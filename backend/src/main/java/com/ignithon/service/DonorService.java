@@ -24,6 +24,12 @@ public class DonorService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private LeaderboardService leaderboardService;
+    
+    @Autowired
+    private DonorSummaryService donorSummaryService;
+    
     public Donor findByEmail(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
@@ -63,7 +69,10 @@ public class DonorService {
             existingDonor.setDescription(donorUpdate.getDescription());
         }
         
-        return donorRepository.save(existingDonor);
+        Donor saved = donorRepository.save(existingDonor);
+        leaderboardService.updateDonorInfo(saved);
+        donorSummaryService.invalidate(donorId);
+        return saved;
     }
     
     public List<Donor> findByCity(String city) {
@@ -93,10 +102,11 @@ public class DonorService {
         return badges;
     }
     
-    public Integer getDonorRank(Long donorId) {
-        // This would calculate donor's rank based on total donations/impact
-        // For now, returning mock data
-        return 15; // Top 15 donor
+    /**
+     * Donor's all-time rank by meals donated, with percentile and the number of donors ranked
+     */
+    public Map<String, Object> getDonorRank(Long donorId) {
+        return leaderboardService.getDonorRank(donorId);
     }
     
     public Map<String, Object> getDonorStats(Long donorId) {
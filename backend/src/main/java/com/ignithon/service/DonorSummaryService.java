@@ -0,0 +1,87 @@
+package com.ignithon.service;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ignithon.cache.TtlLruCache;
+import com.ignithon.dto.DonorSummary;
+import com.ignithon.entity.Donation;
+import com.ignithon.entity.Donor;
+import com.ignithon.repository.DonorRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Donor dashboard counters, loaded together with the donor in one grouped query and
+ * cached per donor for a short time.
+ *
+ * Donation and profile writes evict the donor's entry, so a dashboard reload after the
+ * donor's own change is fresh. The TTL bounds staleness from writes this service does
+ * not hear about and from a load racing an eviction.
+ */
+@Service
+public class DonorSummaryService {
+
+    private static final EnumSet<Donation.DonationStatus> DELIVERED_STATUSES =
+            EnumSet.of(Donation.DonationStatus.DELIVERED, Donation.DonationStatus.COMPLETED);
+
+    @Value("${app.donor.summary-cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${app.donor.summary-cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    @Autowired
+    private DonorRepository donorRepository;
+
+    private TtlLruCache<String, DonorSummary> summaries;
+    /** Donor id to the email its summary is cached under, for eviction */
+    private TtlLruCache<Long, String> emails;
+
+    @PostConstruct
+    public void init() {
+        summaries = new TtlLruCache<>(maxEntries, ttlSeconds * 1000L);
+        emails = new TtlLruCache<>(maxEntries, ttlSeconds * 1000L);
+    }
+
+    /**
+     * Donor and donation counts for the donor with this email
+     */
+    public DonorSummary getSummary(String email) {
+        DonorSummary cached = summaries.get(email);
+        if (cached != null) {
+            return cached;
+        }
+        List<Object[]> rows = donorRepository.findSummaryByEmail(email, Donation.DonationStatus.PENDING, DELIVERED_STATUSES);
+        if (rows.isEmpty()) {
+            throw new RuntimeException("Donor not found with email: " + email);
+        }
+        Object[] row = rows.get(0);
+        Donor donor = (Donor) row[0];
+        DonorSummary summary = new DonorSummary(donor, count(row[1]), count(row[2]), count(row[3]), count(row[4]));
+        emails.put(donor.getId(), email);
+        summaries.put(email, summary);
+        return summary;
+    }
+
+    /**
+     * Drop a donor's cached summary after one of their donations or their profile changed
+     */
+    public void invalidate(Long donorId) {
+        if (donorId == null) {
+            return;
+        }
+        String email = emails.get(donorId);
+        if (email != null) {
+            summaries.remove(email);
+        }
+    }
+
+    private static long count(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+}
@@ -0,0 +1,193 @@
+package com.ignithon.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ignithon.entity.Delivery;
+import com.ignithon.entity.Donation;
+import com.ignithon.entity.Donor;
+import com.ignithon.geo.GeoPointArray;
+import com.ignithon.geo.HaversineKernel;
+import com.ignithon.repository.DeliveryRepository;
+import com.ignithon.repository.DonationRepository;
+import com.ignithon.routing.VehicleRoutingSolver;
+
+/**
+ * Plans multi-stop pickup runs for the whole available Delivery fleet, one city at a time.
+ *
+ * Each accepted donation becomes a stop with its quantity as demand and the window
+ * [pickupTime, expiryTime]. Each available driver becomes a vehicle starting at their
+ * current location, with capacity and speed from their VehicleType and range from
+ * maxDeliveryDistance.
+ */
+@Service
+public class FleetRoutingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FleetRoutingService.class);
+
+    @Value("${app.fleet.plan-time-budget-ms:2000}")
+    private long timeBudgetMs;
+
+    @Value("${app.fleet.service-minutes:5}")
+    private double serviceMinutes;
+
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+
+    @Autowired
+    private DonationRepository donationRepository;
+
+    /**
+     * Route every available driver through the accepted donations awaiting pickup that no
+     * driver has been dispatched to yet
+     */
+    public Map<String, Object> planPickupRoutes() {
+        long started = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<String, List<Delivery>> driversByCity = new HashMap<>();
+        int driverCount = 0;
+        for (Delivery driver : deliveryRepository.findByIsAvailableTrue()) {
+            if (driver.getLatitude() != null && driver.getLongitude() != null) {
+                driversByCity.computeIfAbsent(cityKey(driver.getCity()), city -> new ArrayList<>()).add(driver);
+                driverCount++;
+            }
+        }
+        Map<String, List<Donation>> donationsByCity = new LinkedHashMap<>();
+        int donationCount = 0;
+        for (Donation donation : donationRepository.findAwaitingDriver(Donation.DonationStatus.ACCEPTED, now)) {
+            Donor donor = donation.getDonor();
+            if (donor.getLatitude() != null && donor.getLongitude() != null) {
+                donationsByCity.computeIfAbsent(cityKey(donor.getCity()), city -> new ArrayList<>()).add(donation);
+                donationCount++;
+            }
+        }
+
+        // Drivers only serve their own city, so each city is a separate, much smaller problem;
+        // the time budget is shared out by number of stops
+        List<Map<String, Object>> routes = new ArrayList<>();
+        List<Long> unassigned = new ArrayList<>();
+        double totalDistanceKm = 0;
+        for (Map.Entry<String, List<Donation>> entry : donationsByCity.entrySet()) {
+            List<Donation> donations = entry.getValue();
+            List<Delivery> drivers = driversByCity.getOrDefault(entry.getKey(), new ArrayList<>());
+            long budgetNanos = timeBudgetMs * 1_000_000L * donations.size() / donationCount;
+            totalDistanceKm += planCity(now, drivers, donations, budgetNanos, routes, unassigned);
+        }
+
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        logger.info("Planned {} of {} pickups on {} routes for {} drivers in {} cities in {} ms",
+                donationCount - unassigned.size(), donationCount, routes.size(), driverCount,
+                donationsByCity.size(), elapsedMs);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("availableDrivers", driverCount);
+        result.put("donationsAwaitingPickup", donationCount);
+        result.put("cities", donationsByCity.size());
+        result.put("routes", routes);
+        result.put("unassignedDonationIds", unassigned);
+        result.put("totalDistanceKm", totalDistanceKm);
+        result.put("durationMs", elapsedMs);
+        return result;
+    }
+
+    /**
+     * Route one city's drivers through its donations, adding the routes and unserved donation
+     * ids to the lists; returns the total route length in km
+     */
+    private double planCity(LocalDateTime now, List<Delivery> drivers, List<Donation> donations, long budgetNanos,
+                            List<Map<String, Object>> routes, List<Long> unassigned) {
+        if (drivers.isEmpty()) {
+            for (Donation donation : donations) {
+                unassigned.add(donation.getId());
+            }
+            return 0.0;
+        }
+
+        // Matrix nodes: driver starts first, then one node per donation
+        GeoPointArray points = new GeoPointArray(drivers.size() + donations.size());
+        List<VehicleRoutingSolver.Vehicle> vehicles = new ArrayList<>(drivers.size());
+        for (Delivery driver : drivers) {
+            Delivery.VehicleType type = driver.getVehicleType();
+            double rangeKm = driver.getMaxDeliveryDistance() != null ? driver.getMaxDeliveryDistance() : Double.MAX_VALUE;
+            vehicles.add(new VehicleRoutingSolver.Vehicle(points.size(), type.getCapacityKg(),
+                    type.getAverageSpeedKmh(), rangeKm));
+            points.add(driver.getLatitude(), driver.getLongitude());
+        }
+
+        List<VehicleRoutingSolver.Stop> stops = new ArrayList<>(donations.size());
+        for (Donation donation : donations) {
+            double ready = donation.getPickupTime() != null ? minutesFrom(now, donation.getPickupTime()) : 0.0;
+            double due = minutesFrom(now, donation.getExpiryTime());
+            double quantity = donation.getQuantity() != null ? donation.getQuantity() : 0.0;
+            stops.add(new VehicleRoutingSolver.Stop(points.size(), quantity, Math.max(0.0, ready), due, serviceMinutes));
+            points.add(donation.getDonor().getLatitude(), donation.getDonor().getLongitude());
+        }
+
+        double[][] distances = HaversineKernel.distanceMatrixKm(points, points);
+        VehicleRoutingSolver.Solution solution =
+                new VehicleRoutingSolver(distances, vehicles, stops).solve(budgetNanos);
+
+        for (int v = 0; v < drivers.size(); v++) {
+            int[] route = solution.getRoute(v);
+            if (route.length == 0) {
+                continue;
+            }
+            Delivery driver = drivers.get(v);
+            double[] arrivals = solution.getArrivalMinutes(v);
+
+            List<Map<String, Object>> routeStops = new ArrayList<>();
+            for (int k = 0; k < route.length; k++) {
+                Donation donation = donations.get(route[k]);
+                Map<String, Object> stop = new LinkedHashMap<>();
+                stop.put("sequence", k + 1);
+                stop.put("donationId", donation.getId());
+                stop.put("donorName", donation.getDonor().getName());
+                stop.put("lat", donation.getDonor().getLatitude());
+                stop.put("lng", donation.getDonor().getLongitude());
+                stop.put("quantity", donation.getQuantity());
+                stop.put("estimatedArrival", now.plusSeconds(Math.round(arrivals[k] * 60)));
+                stop.put("pickupTime", donation.getPickupTime());
+                stop.put("expiryTime", donation.getExpiryTime());
+                routeStops.add(stop);
+            }
+
+            Map<String, Object> routeInfo = new HashMap<>();
+            routeInfo.put("driverId", driver.getId());
+            routeInfo.put("driverName", driver.getName());
+            routeInfo.put("city", driver.getCity());
+            routeInfo.put("vehicleType", driver.getVehicleType());
+            routeInfo.put("capacityKg", driver.getVehicleType().getCapacityKg());
+            routeInfo.put("loadKg", solution.getLoad(v));
+            routeInfo.put("distanceKm", solution.getRouteLengthKm(v));
+            routeInfo.put("stops", routeStops);
+            routes.add(routeInfo);
+        }
+
+        for (int index : solution.getUnservedStops()) {
+            unassigned.add(donations.get(index).getId());
+        }
+        return solution.getTotalDistanceKm();
+    }
+
+    /** Cities are matched case-insensitively */
+    private static String cityKey(String city) {
+        return city != null ? city.trim().toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static double minutesFrom(LocalDateTime now, LocalDateTime time) {
+        return Duration.between(now, time).toSeconds() / 60.0;
+    }
+}
@@ -0,0 +1,282 @@
+package com.ignithon.service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ignithon.dto.ImpactTotals;
+import com.ignithon.entity.Donation;
+import com.ignithon.entity.ImpactTotal;
+import com.ignithon.repository.DonationRepository;
+import com.ignithon.repository.ImpactTotalRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Meals served and CO2e avoided per donor, NGO and city.
+ *
+ * Each delivered donation is converted with its food type's factors, rounded once to whole
+ * meals and grams of CO2e. Totals live in impact_totals and are adjusted in the same
+ * transaction as the status change that delivers a donation (or takes it back), so they
+ * always equal the sum over delivered donations without ever re-reading them. The city and
+ * NGO a delivery counted under are stored on the donation, so taking it back debits the same
+ * totals even if the donor has moved since. A copy is held in memory and updated after each
+ * commit, making every read O(1).
+ */
+@Service
+public class ImpactService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImpactService.class);
+
+    private static final EnumSet<Donation.DonationStatus> DELIVERED_STATUSES =
+            EnumSet.of(Donation.DonationStatus.DELIVERED, Donation.DonationStatus.COMPLETED);
+
+    private static final Map<Donation.FoodType, Double> DEFAULT_MEALS_PER_KG = new EnumMap<>(Donation.FoodType.class);
+    private static final Map<Donation.FoodType, Double> DEFAULT_CO2E_PER_KG = new EnumMap<>(Donation.FoodType.class);
+
+    static {
+        // A meal is ~400 g of cooked food; raw produce and dairy go a little less far
+        defaults(Donation.FoodType.COOKED_MEAL, 2.5, 2.5);
+        defaults(Donation.FoodType.FRESH_FRUITS, 2.0, 0.9);
+        defaults(Donation.FoodType.VEGETABLES, 2.0, 0.7);
+        defaults(Donation.FoodType.BREAD_BAKERY, 3.0, 1.6);
+        defaults(Donation.FoodType.DAIRY_PRODUCTS, 2.0, 3.2);
+        defaults(Donation.FoodType.PACKAGED_FOOD, 2.5, 2.0);
+        defaults(Donation.FoodType.LEFTOVERS, 2.5, 2.5);
+        defaults(Donation.FoodType.OTHER, 2.5, 2.0);
+    }
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private DonationRepository donationRepository;
+
+    @Autowired
+    private ImpactTotalRepository impactTotalRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<Donation.FoodType, Double> mealsPerKg = new EnumMap<>(Donation.FoodType.class);
+    private final Map<Donation.FoodType, Double> co2ePerKg = new EnumMap<>(Donation.FoodType.class);
+
+    private final Map<String, ImpactTotals> totals = new ConcurrentHashMap<>();
+
+    /** Creates missing scope rows in their own transaction, outside the status change */
+    private TransactionTemplate newTransaction;
+
+    @PostConstruct
+    public void init() {
+        for (Donation.FoodType foodType : Donation.FoodType.values()) {
+            mealsPerKg.put(foodType, factor("app.impact.meals-per-kg.", foodType, DEFAULT_MEALS_PER_KG));
+            co2ePerKg.put(foodType, factor("app.impact.co2e-per-kg.", foodType, DEFAULT_CO2E_PER_KG));
+        }
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        recordMissingScopes();
+
+        List<ImpactTotal> rows = impactTotalRepository.findAll();
+        if (rows.isEmpty()) {
+            rows = backfill();
+        }
+        for (ImpactTotal row : rows) {
+            totals.put(key(row.getScope(), row.getScopeKey()),
+                    new ImpactTotals(row.getMeals(), row.getCo2eGrams(), row.getDeliveredDonations()));
+        }
+        logger.info("Loaded impact totals for {} donors, NGOs and cities", rows.size());
+    }
+
+    /**
+     * Meals a quantity of food provides, rounded to whole meals
+     */
+    public long meals(Donation.FoodType foodType, Double quantityKg) {
+        return quantityKg != null ? Math.round(quantityKg * mealsPerKg.get(orOther(foodType))) : 0L;
+    }
+
+    /**
+     * CO2e kept out of the atmosphere by not wasting a quantity of food, in grams
+     */
+    public long co2eGrams(Donation.FoodType foodType, Double quantityKg) {
+        return quantityKg != null ? Math.round(quantityKg * co2ePerKg.get(orOther(foodType)) * 1000.0) : 0L;
+    }
+
+    /**
+     * Apply a donation's status change to its donor, NGO and city totals.
+     * Must run inside the transaction that saves the change, with the donation row locked;
+     * the in-memory totals follow once it commits.
+     */
+    public void recordStatusChange(Donation donation, Donation.DonationStatus previous) {
+        boolean wasDelivered = previous != null && previous.isDelivered();
+        boolean isDelivered = donation.getStatus().isDelivered();
+        if (wasDelivered == isDelivered) {
+            return;
+        }
+        int sign = isDelivered ? 1 : -1;
+        long meals = sign * meals(donation.getFoodType(), donation.getQuantity());
+        long co2eGrams = sign * co2eGrams(donation.getFoodType(), donation.getQuantity());
+
+        // A delivery is counted under the donor's city and NGO as they are now; taking it back
+        // debits wherever it was counted
+        String city;
+        Long ngoId;
+        if (isDelivered) {
+            city = cityKey(donation.getDonor().getCity());
+            ngoId = donation.getNgo() != null ? donation.getNgo().getId() : null;
+            donationRepository.recordImpactScope(donation.getId(), city != null ? city : "", ngoId);
+        } else if (donation.getImpactCity() != null) {
+            city = cityKey(donation.getImpactCity());
+            ngoId = donation.getImpactNgoId();
+        } else {
+            logger.warn("Impact scope of donation {} was never recorded, debiting its current one", donation.getId());
+            city = cityKey(donation.getDonor().getCity());
+            ngoId = donation.getNgo() != null ? donation.getNgo().getId() : null;
+        }
+
+        List<String> keys = new ArrayList<>(3);
+        keys.add(increment(ImpactTotal.Scope.DONOR, String.valueOf(donation.getDonor().getId()), meals, co2eGrams, sign));
+        if (ngoId != null) {
+            keys.add(increment(ImpactTotal.Scope.NGO, String.valueOf(ngoId), meals, co2eGrams, sign));
+        }
+        if (city != null) {
+            keys.add(increment(ImpactTotal.Scope.CITY, city, meals, co2eGrams, sign));
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (String key : keys) {
+                    totals.merge(key, ImpactTotals.ZERO.plus(meals, co2eGrams, sign),
+                            (current, delta) -> current.plus(delta.getMeals(), delta.getCo2eGrams(), delta.getDeliveredDonations()));
+                }
+            }
+        });
+    }
+
+    public ImpactTotals getDonorImpact(Long donorId) {
+        return get(ImpactTotal.Scope.DONOR, String.valueOf(donorId));
+    }
+
+    public ImpactTotals getNgoImpact(Long ngoId) {
+        return get(ImpactTotal.Scope.NGO, String.valueOf(ngoId));
+    }
+
+    public ImpactTotals getCityImpact(String city) {
+        String key = cityKey(city);
+        return key != null ? get(ImpactTotal.Scope.CITY, key) : ImpactTotals.ZERO;
+    }
+
+    private ImpactTotals get(ImpactTotal.Scope scope, String scopeKey) {
+        return totals.getOrDefault(key(scope, scopeKey), ImpactTotals.ZERO);
+    }
+
+    // Creates the scope's row on its first delivery; a concurrent creator winning is fine
+    private String increment(ImpactTotal.Scope scope, String scopeKey, long meals, long co2eGrams, long donations) {
+        if (impactTotalRepository.increment(scope.name(), scopeKey, meals, co2eGrams, donations) == 0) {
+            try {
+                newTransaction.execute(status -> impactTotalRepository.save(new ImpactTotal(scope, scopeKey)));
+            } catch (DataIntegrityViolationException e) {
+                logger.debug("Impact totals row for {} {} was created concurrently", scope, scopeKey);
+            }
+            if (impactTotalRepository.increment(scope.name(), scopeKey, meals, co2eGrams, donations) == 0) {
+                throw new RuntimeException("Failed to record impact for " + scope + " " + scopeKey);
+            }
+        }
+        return key(scope, scopeKey);
+    }
+
+    /**
+     * Store the city and NGO on donations delivered before they were stored, as they are now
+     */
+    private void recordMissingScopes() {
+        List<String> statuses = new ArrayList<>();
+        for (Donation.DonationStatus status : DELIVERED_STATUSES) {
+            statuses.add(status.name());
+        }
+        int updated = 0;
+        for (String city : donationRepository.findUnrecordedImpactCities(DELIVERED_STATUSES)) {
+            String key = cityKey(city);
+            updated += donationRepository.recordImpactScopeByCity(statuses, city != null ? city : "", key != null ? key : "");
+        }
+        if (updated > 0) {
+            logger.info("Recorded the impact city and NGO of {} earlier deliveries", updated);
+        }
+    }
+
+    /**
+     * Seed the totals from donations delivered before they were tracked. Runs once, while
+     * impact_totals is still empty.
+     */
+    private List<ImpactTotal> backfill() {
+        Map<String, ImpactTotal> rows = new HashMap<>();
+        for (Object[] row : donationRepository.findImpactHistory(DELIVERED_STATUSES)) {
+            Donation.FoodType foodType = (Donation.FoodType) row[4];
+            long meals = meals(foodType, (Double) row[3]);
+            long co2eGrams = co2eGrams(foodType, (Double) row[3]);
+            add(rows, ImpactTotal.Scope.DONOR, String.valueOf(row[0]), meals, co2eGrams);
+            if (row[1] != null) {
+                add(rows, ImpactTotal.Scope.NGO, String.valueOf(row[1]), meals, co2eGrams);
+            }
+            String city = cityKey((String) row[2]);
+            if (city != null) {
+                add(rows, ImpactTotal.Scope.CITY, city, meals, co2eGrams);
+            }
+        }
+        if (rows.isEmpty()) {
+            return new ArrayList<>();
+        }
+        logger.info("Backfilling impact totals for {} donors, NGOs and cities", rows.size());
+        return impactTotalRepository.saveAll(rows.values());
+    }
+
+    private static void add(Map<String, ImpactTotal> rows, ImpactTotal.Scope scope, String scopeKey,
+                            long meals, long co2eGrams) {
+        ImpactTotal row = rows.computeIfAbsent(key(scope, scopeKey), k -> new ImpactTotal(scope, scopeKey));
+        row.setMeals(row.getMeals() + meals);
+        row.setCo2eGrams(row.getCo2eGrams() + co2eGrams);
+        row.setDeliveredDonations(row.getDeliveredDonations() + 1);
+    }
+
+    private double factor(String prefix, Donation.FoodType foodType, Map<Donation.FoodType, Double> defaults) {
+        return environment.getProperty(prefix + foodType.name(), Double.class, defaults.get(foodType));
+    }
+
+    private static Donation.FoodType orOther(Donation.FoodType foodType) {
+        return foodType != null ? foodType : Donation.FoodType.OTHER;
+    }
+
+    /** Cities are matched case-insensitively; blank cities are not tracked */
+    private static String cityKey(String city) {
+        if (city == null || city.isBlank()) {
+            return null;
+        }
+        String key = city.trim().toLowerCase(Locale.ROOT);
+        return key.length() > 100 ? key.substring(0, 100) : key;
+    }
+
+    private static String key(ImpactTotal.Scope scope, String scopeKey) {
+        return scope.name() + ':' + scopeKey;
+    }
+
+    private static void defaults(Donation.FoodType foodType, double mealsPerKg, double co2ePerKg) {
+        DEFAULT_MEALS_PER_KG.put(foodType, mealsPerKg);
+        DEFAULT_CO2E_PER_KG.put(foodType, co2ePerKg);
+    }
+}
@@ -1,48 +1,317 @@
 package com.ignithon.service;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import com.ignithon.dto.LeaderboardEntry;
+import com.ignithon.entity.Donation;
+import com.ignithon.entity.Donor;
+import com.ignithon.ranking.DailyContributions;
+import com.ignithon.ranking.OrderStatisticTree;
+import com.ignithon.repository.DonationRepository;
+import com.ignithon.repository.DonorRepository;
 
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Donor leaderboards by meals donated, kept in memory and updated incrementally.
+ *
+ * Each window (last 30 days, last 365 days, all time) is an OrderStatisticTree of donor id
+ * to meals, converted per food type exactly as {@link ImpactService} counts them. A donation
+ * is credited when it becomes delivered (DELIVERED or COMPLETED) and debited if it ever
+ * leaves that state, so the trees always match the donation table.
+ * They are rebuilt from the database once at startup; reads never touch the database and
+ * cost O(log n + k) for a page of k entries.
+ *
+ * The rolling windows are fed from per-day buckets. When the date advances, the day that
+ * fell out of each window is subtracted from its tree, so each midnight costs time
+ * proportional to the donors who contributed on the expiring days.
+ */
 @Service
 public class LeaderboardService {
 
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardService.class);
+
+    private static final EnumSet<Donation.DonationStatus> DELIVERED_STATUSES =
+            EnumSet.of(Donation.DonationStatus.DELIVERED, Donation.DonationStatus.COMPLETED);
+
+    private static final String[] RANK_ICONS = {"🥇", "🥈", "🥉"};
+
+    private static final int MONTH_DAYS = 30;
+    private static final int YEAR_DAYS = 365;
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @Value("${app.leaderboard.rupees-per-meal:10}")
+    private long rupeesPerMeal;
+
+    @Autowired
+    private DonationRepository donationRepository;
+
+    @Autowired
+    private DonorRepository donorRepository;
+
+    @Autowired
+    private ImpactService impactService;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final OrderStatisticTree monthly = new OrderStatisticTree();
+    private final OrderStatisticTree yearly = new OrderStatisticTree();
+    private final OrderStatisticTree allTime = new OrderStatisticTree();
+    private final DailyContributions days = new DailyContributions(YEAR_DAYS);
+    /** Epoch day the rolling windows currently end on */
+    private long today;
+
+    private final Map<Long, DonorInfo> donors = new ConcurrentHashMap<>();
+
+    /**
+     * Load every delivered donation into the rankings
+     */
+    @PostConstruct
+    public void rebuild() {
+        long started = System.nanoTime();
+        Map<Long, DonorInfo> info = new ConcurrentHashMap<>();
+        for (Object[] row : donorRepository.findDisplayInfo()) {
+            info.put((Long) row[0], new DonorInfo((String) row[1], formatCategory((String) row[2])));
+        }
+        List<Object[]> contributions = donationRepository.findContributions(DELIVERED_STATUSES);
+
+        lock.writeLock().lock();
+        try {
+            today = LocalDate.now().toEpochDay();
+            monthly.clear();
+            yearly.clear();
+            allTime.clear();
+            days.clear();
+            for (Object[] row : contributions) {
+                long meals = impactService.meals((Donation.FoodType) row[2], (Double) row[1]);
+                credit((Long) row[0], meals, ((LocalDateTime) row[3]).toLocalDate());
+            }
+            donors.clear();
+            donors.putAll(info);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Rebuilt leaderboards from {} delivered donations in {} ms",
+                contributions.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Apply a donation's status change to the rankings.
+     * Entering a delivered status credits its meals; leaving one debits them again.
+     */
+    public void recordStatusChange(Donation donation, Donation.DonationStatus previous) {
+        boolean wasDelivered = previous != null && previous.isDelivered();
+        boolean isDelivered = donation.getStatus().isDelivered();
+        if (wasDelivered == isDelivered || donation.getDeliveredAt() == null) {
+            return;
+        }
+        long donorId = donation.getDonor().getId();
+        long meals = impactService.meals(donation.getFoodType(), donation.getQuantity());
+        if (!donors.containsKey(donorId)) {
+            donorRepository.findById(donorId).ifPresent(donor -> donors.put(donorId, infoOf(donor)));
+        }
+
+        lock.writeLock().lock();
+        try {
+            advance(LocalDate.now().toEpochDay());
+            credit(donorId, isDelivered ? meals : -meals, donation.getDeliveredAt().toLocalDate());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Track a new or renamed donor, so they show up by name and count towards percentiles
+     */
+    public void updateDonorInfo(Donor donor) {
+        if (donor != null && donor.getId() != null) {
+            donors.put(donor.getId(), infoOf(donor));
+        }
+    }
+
+    /**
+     * All-time rank of a donor by meals donated, in O(log n).
+     * Donors with equal meals share a rank; donors with no deliveries tie for last place.
+     * The percentile is the share of donors with strictly fewer meals.
+     */
+    public Map<String, Object> getDonorRank(long donorId) {
+        long meals;
+        int above;
+        int tied;
+        int total;
+        lock.readLock().lock();
+        try {
+            meals = allTime.score(donorId);
+            above = allTime.countAbove(meals);
+            total = Math.max(donors.size(), allTime.size());
+            tied = meals > 0 ? allTime.countAbove(meals - 1) - above : total - allTime.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+        total = Math.max(total, above + 1);
+        tied = Math.max(tied, 1);
+
+        Map<String, Object> rank = new HashMap<>();
+        rank.put("rank", above + 1);
+        rank.put("percentile", Math.round(1000.0 * (total - above - tied) / total) / 10.0);
+        rank.put("totalDonors", total);
+        rank.put("mealsDonated", meals);
+        return rank;
+    }
+
     public List<LeaderboardEntry> getMonthlyLeaderboard() {
-        List<LeaderboardEntry> entries = new ArrayList<>();
-        
-        entries.add(new LeaderboardEntry("1", "Delhi University Hostel #5", "Student Hostel", "2,450 meals", "₹24,500", "🥇"));
-        entries.add(new LeaderboardEntry("2", "Spice Garden Restaurant", "Restaurant", "1,890 meals", "₹18,900", "🥈"));
-        entries.add(new LeaderboardEntry("3", "IIT Delhi Mess", "Educational Institution", "1,650 meals", "₹16,500", "🥉"));
-        entries.add(new LeaderboardEntry("4", "Radisson Blu Hotel", "Hotel", "1,420 meals", "₹14,200", "4"));
-        entries.add(new LeaderboardEntry("5", "Vivek Raj Sahay", "Individual Donor", "1,200 meals", "₹12,000", "5"));
-        
-        return entries;
+        return getMonthlyLeaderboard(0, 10);
     }
 
     public List<LeaderboardEntry> getYearlyLeaderboard() {
-        List<LeaderboardEntry> entries = new ArrayList<>();
-        
-        entries.add(new LeaderboardEntry("1", "IIT Delhi Mess", "Educational Institution", "18,750 meals", "₹187,500", "🥇"));
-        entries.add(new LeaderboardEntry("2", "Delhi University Hostel #5", "Student Hostel", "16,200 meals", "₹162,000", "🥈"));
-        entries.add(new LeaderboardEntry("3", "Spice Garden Restaurant", "Restaurant", "14,800 meals", "₹148,000", "🥉"));
-        entries.add(new LeaderboardEntry("4", "Radisson Blu Hotel", "Hotel", "12,600 meals", "₹126,000", "4"));
-        entries.add(new LeaderboardEntry("5", "Vivek Raj Sahay", "Individual Donor", "11,400 meals", "₹114,000", "5"));
-        
-        return entries;
+        return getYearlyLeaderboard(0, 10);
     }
 
     public List<LeaderboardEntry> getAllTimeLeaderboard() {
-        List<LeaderboardEntry> entries = new ArrayList<>();
-        
-        entries.add(new LeaderboardEntry("1", "IIT Delhi Mess", "Educational Institution", "156,800 meals", "₹1,568,000", "🥇"));
-        entries.add(new LeaderboardEntry("2", "Delhi University Hostel #5", "Student Hostel", "142,300 meals", "₹1,423,000", "🥈"));
-        entries.add(new LeaderboardEntry("3", "Spice Garden Restaurant", "Restaurant", "128,900 meals", "₹1,289,000", "🥉"));
-        entries.add(new LeaderboardEntry("4", "Radisson Blu Hotel", "Hotel", "115,600 meals", "₹1,156,000", "4"));
-        entries.add(new LeaderboardEntry("5", "Vivek Raj Sahay", "Individual Donor", "98,400 meals", "₹984,000", "5"));
-        
+        return getAllTimeLeaderboard(0, 10);
+    }
+
+    public List<LeaderboardEntry> getMonthlyLeaderboard(int offset, int limit) {
+        return page(monthly, offset, limit);
+    }
+
+    public List<LeaderboardEntry> getYearlyLeaderboard(int offset, int limit) {
+        return page(yearly, offset, limit);
+    }
+
+    public List<LeaderboardEntry> getAllTimeLeaderboard(int offset, int limit) {
+        return page(allTime, offset, limit);
+    }
+
+    private List<LeaderboardEntry> page(OrderStatisticTree window, int offset, int limit) {
+        int pageSize = Math.max(0, Math.min(limit, MAX_PAGE_SIZE));
+        List<LeaderboardEntry> entries = new ArrayList<>(pageSize);
+        if (offset < 0 || pageSize == 0) {
+            return entries;
+        }
+        rollIfNeeded();
+        lock.readLock().lock();
+        try {
+            // Ties share a rank; only the first entry of the page needs a lookup
+            long[] previous = {Long.MIN_VALUE, 0, offset};
+            window.visit(offset, pageSize, (donorId, meals) -> {
+                int position = (int) previous[2]++;
+                int rank = meals == previous[0] ? (int) previous[1]
+                        : position == offset ? window.countAbove(meals) + 1 : position + 1;
+                previous[0] = meals;
+                previous[1] = rank;
+                DonorInfo info = donors.getOrDefault(donorId, DonorInfo.UNKNOWN);
+                entries.add(new LeaderboardEntry(String.valueOf(rank), info.name, info.category,
+                        String.format(Locale.ENGLISH, "%,d meals", meals),
+                        String.format(Locale.ENGLISH, "₹%,d", meals * rupeesPerMeal),
+                        rank <= RANK_ICONS.length ? RANK_ICONS[rank - 1] : String.valueOf(rank)));
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
         return entries;
     }
+
+    /**
+     * Move the rolling windows to the current date; also runs just after midnight so the
+     * first read of the day does not pay for it
+     */
+    @Scheduled(cron = "${app.leaderboard.rollover-cron:5 0 0 * * *}")
+    public void rollIfNeeded() {
+        long current = LocalDate.now().toEpochDay();
+        lock.readLock().lock();
+        try {
+            if (current <= today) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            advance(current);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Callers hold the write lock
+    private void advance(long current) {
+        while (today < current) {
+            today++;
+            long leavingMonth = today - MONTH_DAYS;
+            days.forEach(leavingMonth, (donorId, meals) -> apply(monthly, donorId, -meals));
+            long leavingYear = today - YEAR_DAYS;
+            days.forEach(leavingYear, (donorId, meals) -> apply(yearly, donorId, -meals));
+            days.clear(leavingYear);
+        }
+    }
+
+    // Callers hold the write lock
+    private void credit(long donorId, long meals, LocalDate deliveredOn) {
+        long day = Math.min(deliveredOn.toEpochDay(), today);
+        apply(allTime, donorId, meals);
+        if (day > today - YEAR_DAYS) {
+            days.add(day, donorId, meals);
+            apply(yearly, donorId, meals);
+            if (day > today - MONTH_DAYS) {
+                apply(monthly, donorId, meals);
+            }
+        }
+    }
+
+    private static void apply(OrderStatisticTree window, long donorId, long meals) {
+        if (window.add(donorId, meals) <= 0) {
+            window.remove(donorId);
+        }
+    }
+
+    private static DonorInfo infoOf(Donor donor) {
+        return new DonorInfo(donor.getName(), formatCategory(donor.getDonorType()));
+    }
+
+    /** "STUDENT_HOSTEL" becomes "Student Hostel" */
+    private static String formatCategory(String donorType) {
+        if (donorType == null || donorType.isBlank()) {
+            return "Donor";
+        }
+        StringBuilder category = new StringBuilder();
+        for (String word : donorType.trim().toLowerCase(Locale.ROOT).split("[_\\s]+")) {
+            if (!word.isEmpty()) {
+                if (category.length() > 0) {
+                    category.append(' ');
+                }
+                category.append(Character.toUpperCase(word.charAt(0))).append(word.substring(1));
+            }
+        }
+        return category.toString();
+    }
+
+    private static final class DonorInfo {
+        static final DonorInfo UNKNOWN = new DonorInfo("Anonymous Donor", "Donor");
+
+        final String name;
+        final String category;
+
+        DonorInfo(String name, String category) {
+            this.name = name;
+            this.category = category;
+        }
+    }
 }
@@ -1,36 +1,87 @@
 package com.ignithon.service;
 
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ignithon.cache.SingleFlight;
+import com.ignithon.dto.CompactRouteResponse;
+import com.ignithon.geo.GeoPointArray;
+import com.ignithon.geo.PolylineCodec;
+import com.ignithon.maps.DirectionsResult;
+import com.ignithon.maps.DistanceMatrixCache;
+import com.ignithon.maps.DistanceMatrixResult;
+import com.ignithon.maps.GeocodeCache;
+import com.ignithon.maps.LocalRouteEstimator;
+import com.ignithon.maps.MapsGuard;
+import com.ignithon.maps.MapsHttpClient;
+import com.ignithon.maps.MapsResponseParser;
 
+/**
+ * Google Maps integration. Calls are non-blocking: every method returns a future that
+ * completes on the Maps HTTP client's pool, and failures complete it with an error
+ * response rather than exceptionally.
+ */
 @Service
 public class MapsService {
     
     private static final Logger logger = LoggerFactory.getLogger(MapsService.class);
     
+    /** Encoded "|" separator for multi-point parameters */
+    private static final String PIPE = "%7C";
+    
+    private static final Set<String> UPSTREAM_FAILURE_STATUSES =
+            Set.of("OVER_QUERY_LIMIT", "OVER_DAILY_LIMIT", "REQUEST_DENIED", "UNKNOWN_ERROR");
+    
     @Value("${app.maps.google.api-key:your-google-maps-api-key-here}")
     private String googleMapsApiKey;
     
     @Value("${app.maps.google.base-url:https://maps.googleapis.com/maps/api}")
     private String googleMapsBaseUrl;
     
+    @Value("${app.maps.distance-matrix.max-batches-in-flight:4}")
+    private int maxMatrixBatchesInFlight;
+    
+    @Value("${app.maps.polyline.default-tolerance-meters:5}")
+    private double defaultPolylineToleranceMeters;
+    
+    @Autowired
+    private MapsHttpClient mapsHttpClient;
+    
+    @Autowired
+    private GeocodeCache geocodeCache;
+    
+    @Autowired
+    private DistanceMatrixCache distanceMatrixCache;
+    
     @Autowired
-    private RestTemplate restTemplate;
+    private MapsGuard mapsGuard;
     
     @Autowired
-    private ObjectMapper objectMapper;
+    private LocalRouteEstimator localRouteEstimator;
+    
+    @Autowired
+    private OfflineRoutingService offlineRoutingService;
+    
+    /** Identical requests in flight at the same time share one upstream call */
+    private final SingleFlight<String, Map<String, Object>> inFlight = new SingleFlight<>();
     
     /**
      * Simple health check method
@@ -41,157 +92,476 @@ public class MapsService {
         response.put("service", "MapsService");
         response.put("timestamp", System.currentTimeMillis());
         response.put("apiKeyConfigured", googleMapsApiKey != null && !googleMapsApiKey.equals("your-google-maps-api-key-here"));
+        response.put("geocodeCache", geocodeCache.getStats());
+        response.put("distanceMatrixCache", distanceMatrixCache.getStats());
+        response.put("upstreamRequests", inFlight.getStarted());
+        response.put("coalescedRequests", inFlight.getCoalesced());
+        response.put("endpoints", mapsGuard.getStats());
+        response.put("offlineRouter", offlineRoutingService.getStats());
         return response;
     }
     
     /**
      * Get optimized route between multiple points
      */
-    public Map<String, Object> getOptimizedRoute(List<Map<String, Object>> waypoints) {
-        try {
-            String url = buildDirectionsUrl(waypoints);
-            String response = restTemplate.getForObject(url, String.class);
-            
-            JsonNode jsonResponse = objectMapper.readTree(response);
-            
-            if ("OK".equals(jsonResponse.get("status").asText())) {
-                return parseDirectionsResponse(jsonResponse);
-            } else {
-                logger.error("Google Maps API error: {}", jsonResponse.get("status").asText());
-                return createErrorResponse("Failed to get route: " + jsonResponse.get("status").asText());
+    public CompletableFuture<Map<String, Object>> getOptimizedRoute(List<Map<String, Object>> waypoints) {
+        return getRoute(waypoints, true);
+    }
+    
+    /**
+     * Get route through waypoints, letting Google reorder intermediate stops only when optimize is set
+     */
+    public CompletableFuture<Map<String, Object>> getRoute(List<Map<String, Object>> waypoints, boolean optimize) {
+        return call(MapsGuard.Endpoint.DIRECTIONS, () -> buildDirectionsUrl(waypoints, optimize), DIRECTIONS, this::parseDirectionsResponse,
+                "Failed to get route", "Error getting optimized route",
+                () -> localRouteEstimator.estimateDirections(toCoordinateList(waypoints), "driving"));
+    }
+    
+    /**
+     * Get fastest route between two points, in-process for driving when the offline router is loaded
+     */
+    public CompletableFuture<Map<String, Object>> getFastestRoute(Double startLat, Double startLng, 
+                                                                Double endLat, Double endLng, 
+                                                                String mode) {
+        if (offlineRoutingService.supports(mode) && startLat != null && startLng != null && endLat != null && endLng != null) {
+            Map<String, Object> offline = offlineRoutingService.route(startLat, startLng, endLat, endLng);
+            if (offline != null) {
+                return CompletableFuture.completedFuture(offline);
             }
-            
-        } catch (Exception e) {
-            logger.error("Error getting optimized route", e);
-            return createErrorResponse("Failed to get route: " + e.getMessage());
         }
+        return call(MapsGuard.Endpoint.DIRECTIONS, () -> buildSingleRouteUrl(startLat, startLng, endLat, endLng, mode), DIRECTIONS, this::parseSingleRouteResponse,
+                "Failed to get route", "Error getting fastest route",
+                () -> localRouteEstimator.estimateRoute(startLat, startLng, endLat, endLng, mode));
     }
     
     /**
-     * Get fastest route between two points
+     * Route through waypoints in the compact format, with the polyline simplified to the tolerance
      */
-    public Map<String, Object> getFastestRoute(Double startLat, Double startLng, 
-                                             Double endLat, Double endLng, 
-                                             String mode) {
-        try {
-            String url = buildSingleRouteUrl(startLat, startLng, endLat, endLng, mode);
-            String response = restTemplate.getForObject(url, String.class);
-            
-            JsonNode jsonResponse = objectMapper.readTree(response);
-            
-            if ("OK".equals(jsonResponse.get("status").asText())) {
-                return parseSingleRouteResponse(jsonResponse);
-            } else {
-                logger.error("Google Maps API error: {}", jsonResponse.get("status").asText());
-                return createErrorResponse("Failed to get route: " + jsonResponse.get("status").asText());
-            }
-            
-        } catch (Exception e) {
-            logger.error("Error getting fastest route", e);
-            return createErrorResponse("Failed to get route: " + e.getMessage());
+    public CompletableFuture<CompactRouteResponse> getCompactRoute(List<Map<String, Object>> waypoints, boolean optimize,
+                                                                 double toleranceMeters) {
+        return getRoute(waypoints, optimize).thenApply(route -> toCompactRoute(route, toleranceMeters));
+    }
+    
+    /**
+     * Fastest route between two points in the compact format
+     */
+    public CompletableFuture<CompactRouteResponse> getCompactFastestRoute(Double startLat, Double startLng,
+                                                                        Double endLat, Double endLng,
+                                                                        String mode, double toleranceMeters) {
+        return getFastestRoute(startLat, startLng, endLat, endLng, mode)
+                .thenApply(route -> toCompactRoute(route, toleranceMeters));
+    }
+    
+    /**
+     * Polyline tolerance in meters: an explicit tolerance wins, then one derived from the map
+     * zoom at the route's latitude, then the configured default
+     */
+    public double polylineTolerance(Integer zoom, Double toleranceMeters, double latitude) {
+        if (toleranceMeters != null) {
+            return Math.max(0, toleranceMeters);
+        }
+        if (zoom != null) {
+            return PolylineCodec.toleranceForZoom(zoom, latitude);
+        }
+        return defaultPolylineToleranceMeters;
+    }
+    
+    /**
+     * Copy of a route response with its polyline simplified. Route maps may be shared between
+     * coalesced callers, so they are never modified in place.
+     */
+    public Map<String, Object> withSimplifiedPolyline(Map<String, Object> route, double toleranceMeters) {
+        Object polyline = route.get("polyline");
+        if (!(polyline instanceof String)) {
+            return route;
         }
+        Map<String, Object> simplified = new HashMap<>(route);
+        simplified.put("polyline", PolylineCodec.simplify((String) polyline, toleranceMeters));
+        return simplified;
     }
     
     /**
      * Get nearby places (NGOs, donors, etc.)
      */
-    public Map<String, Object> getNearbyPlaces(Double lat, Double lng, String type, Integer radius) {
+    public CompletableFuture<Map<String, Object>> getNearbyPlaces(Double lat, Double lng, String type, Integer radius) {
+        return call(MapsGuard.Endpoint.PLACES, () -> buildNearbySearchUrl(lat, lng, type, radius), JSON, this::parseNearbyPlacesResponse,
+                "Failed to get nearby places", "Error getting nearby places", null);
+    }
+    
+    /**
+     * Get geocoding for address
+     */
+    public CompletableFuture<Map<String, Object>> geocodeAddress(String address) {
+        if (address == null || address.isBlank()) {
+            return CompletableFuture.completedFuture(createErrorResponse("Failed to geocode address: address is required"));
+        }
+        Map<String, Object> cached = geocodeCache.getAddress(address);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        
+        // The cache is filled inside the shared call, once per upstream request
+        return call(MapsGuard.Endpoint.GEOCODE, "geocode:" + GeocodeCache.addressKey(address), () -> buildGeocodingUrl(address), JSON,
+                jsonResponse -> {
+                    Map<String, Object> result = parseGeocodingResponse(jsonResponse);
+                    if (Boolean.TRUE.equals(result.get("success"))) {
+                        geocodeCache.putAddress(address, result);
+                    }
+                    return result;
+                },
+                "Failed to geocode address", "Error geocoding address", null);
+    }
+    
+    /**
+     * Get reverse geocoding for coordinates
+     */
+    public CompletableFuture<Map<String, Object>> reverseGeocode(Double lat, Double lng) {
+        if (lat == null || lng == null) {
+            return CompletableFuture.completedFuture(createErrorResponse("Failed to reverse geocode: lat and lng are required"));
+        }
+        Map<String, Object> cached = geocodeCache.getReverse(lat, lng);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        
+        return call(MapsGuard.Endpoint.GEOCODE, "reverse:" + GeocodeCache.coordinateKey(lat, lng), () -> buildReverseGeocodingUrl(lat, lng), JSON,
+                jsonResponse -> {
+                    Map<String, Object> result = parseReverseGeocodingResponse(jsonResponse);
+                    if (Boolean.TRUE.equals(result.get("success"))) {
+                        geocodeCache.putReverse(lat, lng, result);
+                    }
+                    return result;
+                },
+                "Failed to reverse geocode", "Error reverse geocoding", null);
+    }
+    
+    /**
+     * Calculate distance matrix between multiple points.
+     * Driving matrices are answered in-process when the offline router is loaded. Otherwise
+     * cells are cached individually; only the missing ones are requested from Google,
+     * a few batches at a time, each waiting its turn in the endpoint's bulkhead.
+     */
+    public CompletableFuture<Map<String, Object>> getDistanceMatrix(List<Map<String, Object>> origins, 
+                                                                  List<Map<String, Object>> destinations, 
+                                                                  String mode) {
         try {
-            String url = buildNearbySearchUrl(lat, lng, type, radius);
-            String response = restTemplate.getForObject(url, String.class);
+            int rows = origins.size();
+            int cols = destinations.size();
+            double[][] originCoords = toCoordinates(origins);
+            double[][] destCoords = toCoordinates(destinations);
             
-            JsonNode jsonResponse = objectMapper.readTree(response);
+            if (offlineRoutingService.supports(mode)) {
+                Map<String, Object> offline = offlineRoutingService.distanceMatrix(originCoords, destCoords);
+                if (offline != null) {
+                    return CompletableFuture.completedFuture(offline);
+                }
+            }
             
-            if ("OK".equals(jsonResponse.get("status").asText())) {
-                return parseNearbyPlacesResponse(jsonResponse);
-            } else {
-                logger.error("Google Maps API error: {}", jsonResponse.get("status").asText());
-                return createErrorResponse("Failed to get nearby places: " + jsonResponse.get("status").asText());
+            List<List<Map<String, Object>>> matrix = new ArrayList<>();
+            boolean[][] missing = new boolean[rows][cols];
+            int cachedCells = 0;
+            for (int o = 0; o < rows; o++) {
+                List<Map<String, Object>> rowData = new ArrayList<>();
+                for (int d = 0; d < cols; d++) {
+                    Map<String, Object> cell = distanceMatrixCache.get(mode,
+                            originCoords[o][0], originCoords[o][1], destCoords[d][0], destCoords[d][1]);
+                    if (cell == null) {
+                        missing[o][d] = true;
+                    } else {
+                        cachedCells++;
+                    }
+                    rowData.add(cell);
+                }
+                matrix.add(rowData);
+            }
+            
+            List<DistanceMatrixCache.Batch> batches = DistanceMatrixCache.planBatches(missing);
+            List<String> batchUrls = new ArrayList<>();
+            List<CompletableFuture<DistanceMatrixResult>> responses = new ArrayList<>();
+            for (DistanceMatrixCache.Batch batch : batches) {
+                List<Map<String, Object>> batchOrigins = new ArrayList<>();
+                for (int o : batch.getOrigins()) {
+                    batchOrigins.add(origins.get(o));
+                }
+                List<Map<String, Object>> batchDestinations = new ArrayList<>();
+                for (int d : batch.getDestinations()) {
+                    batchDestinations.add(destinations.get(d));
+                }
+                batchUrls.add(buildDistanceMatrixUrl(batchOrigins, batchDestinations, mode));
+                responses.add(new CompletableFuture<>());
+            }
+            // A few batches at a time, so a large matrix does not take over the whole bulkhead
+            AtomicInteger nextBatch = new AtomicInteger();
+            for (int i = 0; i < Math.min(maxMatrixBatchesInFlight, batches.size()); i++) {
+                startNextBatch(batchUrls, responses, nextBatch);
             }
             
+            int cachedCount = cachedCells;
+            return CompletableFuture.allOf(responses.toArray(new CompletableFuture<?>[0]))
+                    .thenApply(ignored -> {
+                        int estimatedCells = 0;
+                        for (int b = 0; b < batches.size(); b++) {
+                            DistanceMatrixCache.Batch batch = batches.get(b);
+                            DistanceMatrixResult response = responses.get(b).join();
+                            
+                            // Upstream unavailable: fill this batch with local estimates, which are never cached
+                            if (response == null || isUpstreamFailure(response.getStatus())) {
+                                List<double[]> batchOrigins = new ArrayList<>();
+                                for (int o : batch.getOrigins()) {
+                                    batchOrigins.add(originCoords[o]);
+                                }
+                                List<double[]> batchDestinations = new ArrayList<>();
+                                for (int d : batch.getDestinations()) {
+                                    batchDestinations.add(destCoords[d]);
+                                }
+                                List<List<Map<String, Object>>> estimates =
+                                        localRouteEstimator.estimateMatrix(batchOrigins, batchDestinations, mode);
+                                for (int i = 0; i < batch.getOrigins().length; i++) {
+                                    for (int j = 0; j < batch.getDestinations().length; j++) {
+                                        matrix.get(batch.getOrigins()[i]).set(batch.getDestinations()[j], estimates.get(i).get(j));
+                                        estimatedCells++;
+                                    }
+                                }
+                                continue;
+                            }
+                            
+                            if (!"OK".equals(response.getStatus())) {
+                                logger.error("Google Maps API error: {}", response.getStatus());
+                                return createErrorResponse("Failed to get distance matrix: " + response.getStatus());
+                            }
+                            
+                            for (int i = 0; i < batch.getOrigins().length; i++) {
+                                int o = batch.getOrigins()[i];
+                                for (int j = 0; j < batch.getDestinations().length; j++) {
+                                    int d = batch.getDestinations()[j];
+                                    Map<String, Object> cell = toMatrixCell(response, i, j);
+                                    matrix.get(o).set(d, cell);
+                                    // Per-element failures (NOT_FOUND, ZERO_RESULTS) are not cached
+                                    if (!cell.containsKey("status")) {
+                                        distanceMatrixCache.put(mode, originCoords[o][0], originCoords[o][1],
+                                                destCoords[d][0], destCoords[d][1], cell);
+                                    }
+                                }
+                            }
+                        }
+                        
+                        Map<String, Object> result = new HashMap<>();
+                        result.put("success", true);
+                        result.put("matrix", matrix);
+                        result.put("cachedCells", cachedCount);
+                        result.put("estimatedCells", estimatedCells);
+                        result.put("requests", batches.size());
+                        return result;
+                    })
+                    .exceptionally(e -> {
+                        logger.error("Error getting distance matrix", unwrap(e));
+                        return createErrorResponse("Failed to get distance matrix: " + describe(e));
+                    });
+            
         } catch (Exception e) {
-            logger.error("Error getting nearby places", e);
-            return createErrorResponse("Failed to get nearby places: " + e.getMessage());
+            logger.error("Error getting distance matrix", e);
+            return CompletableFuture.completedFuture(createErrorResponse("Failed to get distance matrix: " + e.getMessage()));
         }
     }
     
     /**
-     * Get geocoding for address
+     * Send the next unsent distance-matrix batch; each completion sends the one after it
      */
-    public Map<String, Object> geocodeAddress(String address) {
+    private void startNextBatch(List<String> urls, List<CompletableFuture<DistanceMatrixResult>> responses,
+                                AtomicInteger next) {
+        int b = next.getAndIncrement();
+        if (b >= urls.size()) {
+            return;
+        }
+        CompletableFuture<DistanceMatrixResult> response;
         try {
-            String url = buildGeocodingUrl(address);
-            String response = restTemplate.getForObject(url, String.class);
-            
-            JsonNode jsonResponse = objectMapper.readTree(response);
-            
-            if ("OK".equals(jsonResponse.get("status").asText())) {
-                return parseGeocodingResponse(jsonResponse);
+            response = guardedGet(MapsGuard.Endpoint.DISTANCE_MATRIX, urls.get(b), DISTANCE_MATRIX);
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        response.whenComplete((result, error) -> {
+            if (error != null) {
+                responses.get(b).completeExceptionally(error);
             } else {
-                logger.error("Google Maps API error: {}", jsonResponse.get("status").asText());
-                return createErrorResponse("Failed to geocode address: " + jsonResponse.get("status").asText());
+                responses.get(b).complete(result);
             }
-            
+            startNextBatch(urls, responses, next);
+        });
+    }
+    
+    /**
+     * Issue a Maps request, coalesced with identical in-flight requests by URL
+     */
+    private <T> CompletableFuture<Map<String, Object>> call(MapsGuard.Endpoint endpoint, UrlSupplier url,
+                                                            ResponseFormat<T> format,
+                                                            Function<T, Map<String, Object>> parser,
+                                                            String failureMessage, String logMessage,
+                                                            Supplier<Map<String, Object>> fallback) {
+        try {
+            String requestUrl = url.get();
+            return call(endpoint, requestUrl, () -> requestUrl, format, parser, failureMessage, logMessage, fallback);
         } catch (Exception e) {
-            logger.error("Error geocoding address", e);
-            return createErrorResponse("Failed to geocode address: " + e.getMessage());
+            logger.error(logMessage, e);
+            return CompletableFuture.completedFuture(createErrorResponse(failureMessage + ": " + e.getMessage()));
         }
     }
     
     /**
-     * Get reverse geocoding for coordinates
+     * Concurrent calls with the same normalized key share one upstream request and its parsed result
+     */
+    private <T> CompletableFuture<Map<String, Object>> call(MapsGuard.Endpoint endpoint, String key, UrlSupplier url,
+                                                            ResponseFormat<T> format,
+                                                            Function<T, Map<String, Object>> parser,
+                                                            String failureMessage, String logMessage,
+                                                            Supplier<Map<String, Object>> fallback) {
+        return inFlight.execute(key, () -> fetch(endpoint, url, format, parser, failureMessage, logMessage, fallback));
+    }
+    
+    /**
+     * Issue one guarded Maps request and parse it. When the upstream is unavailable (open
+     * circuit, full bulkhead, timeout or an upstream-side status) the fallback answers if there
+     * is one; everything else becomes an error response.
      */
-    public Map<String, Object> reverseGeocode(Double lat, Double lng) {
+    private <T> CompletableFuture<Map<String, Object>> fetch(MapsGuard.Endpoint endpoint, UrlSupplier url,
+                                                             ResponseFormat<T> format,
+                                                             Function<T, Map<String, Object>> parser,
+                                                             String failureMessage, String logMessage,
+                                                             Supplier<Map<String, Object>> fallback) {
+        String requestUrl;
         try {
-            String url = buildReverseGeocodingUrl(lat, lng);
-            String response = restTemplate.getForObject(url, String.class);
-            
-            JsonNode jsonResponse = objectMapper.readTree(response);
-            
-            if ("OK".equals(jsonResponse.get("status").asText())) {
-                return parseReverseGeocodingResponse(jsonResponse);
-            } else {
-                logger.error("Google Maps API error: {}", jsonResponse.get("status").asText());
-                return createErrorResponse("Failed to reverse geocode: " + jsonResponse.get("status").asText());
-            }
-            
+            requestUrl = url.get();
         } catch (Exception e) {
-            logger.error("Error reverse geocoding", e);
-            return createErrorResponse("Failed to reverse geocode: " + e.getMessage());
+            logger.error(logMessage, e);
+            return CompletableFuture.completedFuture(createErrorResponse(failureMessage + ": " + e.getMessage()));
         }
+        
+        return guardedGet(endpoint, requestUrl, format)
+                .thenApply(response -> {
+                    if (response == null) {
+                        return fallback != null ? fallback.get()
+                                : createErrorResponse(failureMessage + ": Maps API temporarily unavailable");
+                    }
+                    String status = format.status(response);
+                    if ("OK".equals(status)) {
+                        return parser.apply(response);
+                    }
+                    logger.error("Google Maps API error: {}", status);
+                    if (fallback != null && isUpstreamFailure(status)) {
+                        return fallback.get();
+                    }
+                    return createErrorResponse(failureMessage + ": " + status);
+                })
+                .exceptionally(e -> {
+                    logger.error(logMessage, unwrap(e));
+                    return createErrorResponse(failureMessage + ": " + describe(e));
+                });
     }
     
     /**
-     * Calculate distance matrix between multiple points
+     * GET through the endpoint's circuit breaker and bulkhead, waiting for a free slot.
+     * Completes with null, never exceptionally, when the circuit is open, the wait for a
+     * slot timed out or the call failed in transport.
      */
-    public Map<String, Object> getDistanceMatrix(List<Map<String, Object>> origins, 
-                                                List<Map<String, Object>> destinations, 
-                                                String mode) {
-        try {
-            String url = buildDistanceMatrixUrl(origins, destinations, mode);
-            String response = restTemplate.getForObject(url, String.class);
-            
-            JsonNode jsonResponse = objectMapper.readTree(response);
-            
-            if ("OK".equals(jsonResponse.get("status").asText())) {
-                return parseDistanceMatrixResponse(jsonResponse);
-            } else {
-                logger.error("Google Maps API error: {}", jsonResponse.get("status").asText());
-                return createErrorResponse("Failed to get distance matrix: " + jsonResponse.get("status").asText());
+    private <T> CompletableFuture<T> guardedGet(MapsGuard.Endpoint endpoint, String url, ResponseFormat<T> format) {
+        return mapsGuard.acquire(endpoint).thenCompose(permit -> {
+            if (permit == null) {
+                return CompletableFuture.completedFuture(null);
             }
-            
-        } catch (Exception e) {
-            logger.error("Error getting distance matrix", e);
-            return createErrorResponse("Failed to get distance matrix: " + e.getMessage());
+            try {
+                return mapsHttpClient.get(url, format.bodyParser)
+                        .handle((response, error) -> {
+                            if (error != null) {
+                                permit.failure();
+                                logger.warn("Maps {} request failed: {}", endpoint, describe(error));
+                                return null;
+                            }
+                            if (isUpstreamFailure(format.status(response))) {
+                                permit.failure();
+                            } else {
+                                permit.success();
+                            }
+                            return response;
+                        });
+            } catch (RuntimeException e) {
+                permit.release();
+                throw e;
+            }
+        });
+    }
+    
+    /**
+     * Statuses that say Google could not serve the request, as opposed to a bad request
+     */
+    private static boolean isUpstreamFailure(String status) {
+        return UPSTREAM_FAILURE_STATUSES.contains(status);
+    }
+    
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+    
+    private static String describe(Throwable e) {
+        Throwable cause = unwrap(e);
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+    
+    @FunctionalInterface
+    private interface UrlSupplier {
+        String get() throws Exception;
+    }
+    
+    /**
+     * How a response body is read and where its top-level status lives. Directions and
+     * distance matrix bodies are parsed as a stream into typed results; the rest as a tree.
+     */
+    private static final class ResponseFormat<T> {
+        final MapsHttpClient.BodyParser<T> bodyParser;
+        final Function<T, String> statusOf;
+        
+        ResponseFormat(MapsHttpClient.BodyParser<T> bodyParser, Function<T, String> statusOf) {
+            this.bodyParser = bodyParser;
+            this.statusOf = statusOf;
+        }
+        
+        String status(T response) {
+            String status = statusOf.apply(response);
+            return status != null ? status : "";
         }
     }
     
+    private static final ResponseFormat<JsonNode> JSON =
+            new ResponseFormat<>(parser -> parser.readValueAsTree(), json -> json == null ? null : json.path("status").asText());
+    
+    private static final ResponseFormat<DirectionsResult> DIRECTIONS =
+            new ResponseFormat<>(MapsResponseParser::parseDirections, DirectionsResult::getStatus);
+    
+    private static final ResponseFormat<DistanceMatrixResult> DISTANCE_MATRIX =
+            new ResponseFormat<>(MapsResponseParser::parseDistanceMatrix, DistanceMatrixResult::getStatus);
+    
+    private List<double[]> toCoordinateList(List<Map<String, Object>> points) {
+        return Arrays.asList(toCoordinates(points));
+    }
+    
+    private double[][] toCoordinates(List<Map<String, Object>> points) {
+        double[][] coords = new double[points.size()][2];
+        for (int i = 0; i < points.size(); i++) {
+            coords[i][0] = Double.parseDouble(String.valueOf(points.get(i).get("lat")));
+            coords[i][1] = Double.parseDouble(String.valueOf(points.get(i).get("lng")));
+        }
+        return coords;
+    }
+    
     // Private helper methods for building URLs
-    private String buildDirectionsUrl(List<Map<String, Object>> waypoints) {
+    
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+    
+    private String buildDirectionsUrl(List<Map<String, Object>> waypoints, boolean optimize) {
         StringBuilder url = new StringBuilder();
         url.append(googleMapsBaseUrl).append("/directions/json?");
         url.append("key=").append(googleMapsApiKey);
-        url.append("&optimize=true");
+        url.append("&optimize=").append(optimize);
         
         if (!waypoints.isEmpty()) {
             Map<String, Object> origin = waypoints.get(0);
@@ -205,7 +575,7 @@ public class MapsService {
                 for (int i = 1; i < waypoints.size() - 1; i++) {
                     Map<String, Object> waypoint = waypoints.get(i);
                     url.append(waypoint.get("lat")).append(",").append(waypoint.get("lng"));
-                    if (i < waypoints.size() - 2) url.append("|");
+                    if (i < waypoints.size() - 2) url.append(PIPE);
                 }
             }
         }
@@ -218,7 +588,7 @@ public class MapsService {
         return googleMapsBaseUrl + "/directions/json?" +
                "origin=" + startLat + "," + startLng +
                "&destination=" + endLat + "," + endLng +
-               "&mode=" + mode +
+               "&mode=" + encode(mode) +
                "&key=" + googleMapsApiKey;
     }
     
@@ -226,13 +596,13 @@ public class MapsService {
         return googleMapsBaseUrl + "/place/nearbysearch/json?" +
                "location=" + lat + "," + lng +
                "&radius=" + radius +
-               "&type=" + type +
+               "&type=" + encode(type) +
                "&key=" + googleMapsApiKey;
     }
     
     private String buildGeocodingUrl(String address) {
         return googleMapsBaseUrl + "/geocode/json?" +
-               "address=" + address.replace(" ", "+") +
+               "address=" + encode(address) +
                "&key=" + googleMapsApiKey;
     }
     
@@ -248,14 +618,14 @@ public class MapsService {
         StringBuilder url = new StringBuilder();
         url.append(googleMapsBaseUrl).append("/distancematrix/json?");
         url.append("key=").append(googleMapsApiKey);
-        url.append("&mode=").append(mode);
+        url.append("&mode=").append(encode(mode));
         
         // Add origins
         url.append("&origins=");
         for (int i = 0; i < origins.size(); i++) {
             Map<String, Object> origin = origins.get(i);
             url.append(origin.get("lat")).append(",").append(origin.get("lng"));
-            if (i < origins.size() - 1) url.append("|");
+            if (i < origins.size() - 1) url.append(PIPE);
         }
         
         // Add destinations
@@ -263,62 +633,53 @@ public class MapsService {
         for (int i = 0; i < destinations.size(); i++) {
             Map<String, Object> destination = destinations.get(i);
             url.append(destination.get("lat")).append(",").append(destination.get("lng"));
-            if (i < destinations.size() - 1) url.append("|");
+            if (i < destinations.size() - 1) url.append(PIPE);
         }
         
         return url.toString();
     }
     
     // Private helper methods for parsing responses
-    private Map<String, Object> parseDirectionsResponse(JsonNode response) {
+    private Map<String, Object> parseDirectionsResponse(DirectionsResult response) {
         Map<String, Object> result = new HashMap<>();
-        JsonNode routes = response.get("routes");
         
-        if (routes.size() > 0) {
-            JsonNode route = routes.get(0);
-            JsonNode legs = route.get("legs");
-            
+        if (response.hasRoute()) {
             List<Map<String, Object>> routeLegs = new ArrayList<>();
-            double totalDistance = 0;
-            int totalDuration = 0;
-            
-            for (JsonNode leg : legs) {
+            for (DirectionsResult.Leg leg : response.getLegs()) {
                 Map<String, Object> legInfo = new HashMap<>();
-                legInfo.put("distance", leg.get("distance").get("text").asText());
-                legInfo.put("duration", leg.get("duration").get("text").asText());
-                legInfo.put("startAddress", leg.get("start_address").asText());
-                legInfo.put("endAddress", leg.get("end_address").asText());
-                
-                totalDistance += leg.get("distance").get("value").asDouble();
-                totalDuration += leg.get("duration").get("value").asInt();
-                
+                legInfo.put("distance", leg.getDistanceText());
+                legInfo.put("duration", leg.getDurationText());
+                legInfo.put("startAddress", leg.getStartAddress());
+                legInfo.put("endAddress", leg.getEndAddress());
+                legInfo.put("distanceMeters", leg.getDistanceMeters());
+                legInfo.put("durationSeconds", leg.getDurationSeconds());
                 routeLegs.add(legInfo);
             }
             
             result.put("success", true);
             result.put("legs", routeLegs);
-            result.put("totalDistance", totalDistance);
-            result.put("totalDuration", totalDuration);
-            result.put("polyline", route.get("overview_polyline").get("points").asText());
+            result.put("totalDistance", (double) response.getTotalDistanceMeters());
+            result.put("totalDuration", (int) response.getTotalDurationSeconds());
+            result.put("polyline", response.getOverviewPolyline());
         }
         
         return result;
     }
     
-    private Map<String, Object> parseSingleRouteResponse(JsonNode response) {
+    private Map<String, Object> parseSingleRouteResponse(DirectionsResult response) {
         Map<String, Object> result = new HashMap<>();
-        JsonNode routes = response.get("routes");
         
-        if (routes.size() > 0) {
-            JsonNode route = routes.get(0);
-            JsonNode leg = route.get("legs").get(0);
+        if (response.hasRoute() && !response.getLegs().isEmpty()) {
+            DirectionsResult.Leg leg = response.getLegs().get(0);
             
             result.put("success", true);
-            result.put("distance", leg.get("distance").get("text").asText());
-            result.put("duration", leg.get("duration").get("text").asText());
-            result.put("startAddress", leg.get("start_address").asText());
-            result.put("endAddress", leg.get("end_address").asText());
-            result.put("polyline", route.get("overview_polyline").get("points").asText());
+            result.put("distance", leg.getDistanceText());
+            result.put("duration", leg.getDurationText());
+            result.put("startAddress", leg.getStartAddress());
+            result.put("endAddress", leg.getEndAddress());
+            result.put("distanceMeters", leg.getDistanceMeters());
+            result.put("durationSeconds", leg.getDurationSeconds());
+            result.put("polyline", response.getOverviewPolyline());
         }
         
         return result;
@@ -378,32 +739,63 @@ public class MapsService {
         return result;
     }
     
-    private Map<String, Object> parseDistanceMatrixResponse(JsonNode response) {
-        Map<String, Object> result = new HashMap<>();
-        JsonNode rows = response.get("rows");
+    private Map<String, Object> toMatrixCell(DistanceMatrixResult response, int row, int col) {
+        Map<String, Object> elementData = new HashMap<>();
+        if (response.isElementOk(row, col)) {
+            elementData.put("distance", response.getDistanceText(row, col));
+            elementData.put("duration", response.getDurationText(row, col));
+        } else {
+            elementData.put("status", response.getElementStatus(row, col));
+        }
+        return elementData;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private CompactRouteResponse toCompactRoute(Map<String, Object> route, double toleranceMeters) {
+        if (!Boolean.TRUE.equals(route.get("success"))) {
+            Object error = route.get("error");
+            return CompactRouteResponse.error(error != null ? error.toString() : "No route found");
+        }
         
-        List<List<Map<String, Object>>> matrix = new ArrayList<>();
-        for (JsonNode row : rows) {
-            List<Map<String, Object>> rowData = new ArrayList<>();
-            JsonNode elements = row.get("elements");
-            
-            for (JsonNode element : elements) {
-                Map<String, Object> elementData = new HashMap<>();
-                if ("OK".equals(element.get("status").asText())) {
-                    elementData.put("distance", element.get("distance").get("text").asText());
-                    elementData.put("duration", element.get("duration").get("text").asText());
-                } else {
-                    elementData.put("status", element.get("status").asText());
-                }
-                rowData.add(elementData);
-            }
-            matrix.add(rowData);
+        CompactRouteResponse compact = new CompactRouteResponse();
+        compact.setSuccess(true);
+        if (Boolean.TRUE.equals(route.get("estimated"))) {
+            compact.setEstimated(true);
         }
         
-        result.put("success", true);
-        result.put("matrix", matrix);
+        Object legs = route.get("legs");
+        if (legs instanceof List) {
+            List<Map<String, Object>> legList = (List<Map<String, Object>>) legs;
+            long[] legDistances = new long[legList.size()];
+            long[] legDurations = new long[legList.size()];
+            long totalDistance = 0;
+            long totalDuration = 0;
+            for (int i = 0; i < legList.size(); i++) {
+                legDistances[i] = asLong(legList.get(i).get("distanceMeters"));
+                legDurations[i] = asLong(legList.get(i).get("durationSeconds"));
+                totalDistance += legDistances[i];
+                totalDuration += legDurations[i];
+            }
+            compact.setLegDistanceMeters(legDistances);
+            compact.setLegDurationSeconds(legDurations);
+            compact.setDistanceMeters(totalDistance);
+            compact.setDurationSeconds(totalDuration);
+        } else {
+            compact.setDistanceMeters(asLong(route.get("distanceMeters")));
+            compact.setDurationSeconds(asLong(route.get("durationSeconds")));
+        }
         
-        return result;
+        Object polyline = route.get("polyline");
+        if (polyline instanceof String) {
+            GeoPointArray points = PolylineCodec.simplify(PolylineCodec.decode((String) polyline), toleranceMeters);
+            compact.setPolyline(PolylineCodec.encode(points));
+            compact.setPolylinePoints(points.size());
+        }
+        return compact;
+    }
+    
+    private static long asLong(Object value) {
+        return value instanceof Number ? Math.round(((Number) value).doubleValue()) : 0L;
     }
     
     private Map<String, Object> createErrorResponse(String message) {
@@ -2,64 +2,234 @@ package com.ignithon.service;
 
 import com.ignithon.dto.NearbyNgoResponse;
 import com.ignithon.entity.NGO;
+import com.ignithon.geo.GeoPointArray;
+import com.ignithon.geo.GeoPolygon;
+import com.ignithon.geo.PolygonGridIndex;
+import com.ignithon.geo.PolylineCodec;
+import com.ignithon.geo.SpatialGridIndex;
+import com.ignithon.maps.LocalRouteEstimator;
 import com.ignithon.repository.NGORepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 @Service
 public class NGOService {
 
+    private static final Logger logger = LoggerFactory.getLogger(NGOService.class);
+
+    // ~11 km cells: a 50 km search touches about a hundred cells
+    private static final double INDEX_CELL_SIZE_DEGREES = 0.1;
+
+    /** Vertices of the circle used when no road network is available */
+    private static final int CIRCLE_VERTICES = 32;
+
+    @Value("${app.ngo.service-area.default-minutes:30}")
+    private int defaultDriveMinutes;
+
     @Autowired
     private NGORepository ngoRepository;
 
+    @Autowired
+    private OfflineRoutingService offlineRoutingService;
+
+    @Autowired
+    private LocalRouteEstimator localRouteEstimator;
+
+    private volatile SpatialGridIndex<NGO> ngoIndex = new SpatialGridIndex<>(INDEX_CELL_SIZE_DEGREES);
+
+    private volatile PolygonGridIndex<NGO> serviceAreaIndex = new PolygonGridIndex<>(INDEX_CELL_SIZE_DEGREES);
+
+    /** Serializes index writes with the swap at the end of a rebuild */
+    private final Object indexLock = new Object();
+
+    /** Writes made while a rebuild reads the database, replayed onto the rebuilt indexes; null otherwise */
+    private List<BiConsumer<SpatialGridIndex<NGO>, PolygonGridIndex<NGO>>> rebuildWrites;
+
     /**
      * Find nearby NGOs within a specified radius (in kilometers)
      */
     public List<NearbyNgoResponse> findNearbyNGOs(Double donorLatitude, Double donorLongitude, Double radiusKm) {
-        List<NGO> allNGOs = ngoRepository.findByAcceptsDonationsTrue();
-        
-        return allNGOs.stream()
-                .map(ngo -> {
-                    double distance = calculateDistance(donorLatitude, donorLongitude, 
-                                                      ngo.getLatitude(), ngo.getLongitude());
-                    return new NearbyNgoResponse(
-                        ngo.getId(),
-                        ngo.getName(),
-                        ngo.getOrganizationType(),
-                        ngo.getDescription(),
-                        ngo.getCity(),
-                        ngo.getLatitude(),
-                        ngo.getLongitude(),
-                        distance,
-                        ngo.isAcceptsDonations(),
-                        ngo.getMaxDonationDistance(),
-                        ngo.getMaxDonationQuantity()
-                    );
-                })
-                .filter(ngo -> ngo.getDistance() <= radiusKm)
-                .sorted((a, b) -> Double.compare(a.getDistance(), b.getDistance()))
+        return ngoIndex.withinRadius(donorLatitude, donorLongitude, radiusKm).stream()
+                .map(match -> toNearbyResponse(match.getValue(), match.getDistanceKm()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Accepting NGOs whose drive-time service area contains the point, closest first
+     */
+    public List<NearbyNgoResponse> findNGOsServing(double latitude, double longitude) {
+        return serviceAreaIndex.containing(latitude, longitude).stream()
+                .map(match -> toNearbyResponse(match.getValue(), match.getDistanceKm()))
                 .collect(Collectors.toList());
     }
 
     /**
-     * Calculate distance between two points using Haversine formula
-     * Returns distance in kilometers
+     * Accepting NGOs that can reach the point, with their straight-line distance, closest first.
+     * Used by matching code that needs the NGO entity rather than the response DTO.
+     */
+    public List<PolygonGridIndex.Match<NGO>> findCandidateNGOs(double latitude, double longitude) {
+        return serviceAreaIndex.containing(latitude, longitude);
+    }
+
+    /**
+     * Encoded polyline ring of an NGO's current service area, or null if it is not indexed
+     */
+    public String getServiceArea(Long id) {
+        GeoPolygon polygon = serviceAreaIndex.get(id);
+        return polygon != null ? PolylineCodec.encode(polygon.toPoints()) : null;
+    }
+
+    /**
+     * Add, move or drop an NGO in the in-memory spatial index after it was saved
+     */
+    public void indexNGO(NGO ngo) {
+        if (ngo == null || ngo.getId() == null) {
+            return;
+        }
+        if (ngo.isAcceptsDonations() && ngo.getLatitude() != null && ngo.getLongitude() != null) {
+            GeoPolygon area = serviceArea(ngo);
+            write((points, areas) -> {
+                points.put(ngo.getId(), ngo.getLatitude(), ngo.getLongitude(), ngo);
+                areas.put(ngo.getId(), area, ngo.getLatitude(), ngo.getLongitude(), ngo);
+            });
+        } else {
+            write((points, areas) -> {
+                points.remove(ngo.getId());
+                areas.remove(ngo.getId());
+            });
+        }
+    }
+
+    /**
+     * Rebuild the spatial index from the database.
+     * Runs at startup and periodically to pick up changes made outside this service.
+     * Writes made while the database is read are replayed onto the new indexes before they
+     * are swapped in, so none of them is lost.
+     */
+    @Scheduled(fixedDelayString = "${app.ngo.index.rebuild-interval-ms:900000}")
+    public synchronized void rebuildIndex() {
+        synchronized (indexLock) {
+            rebuildWrites = new ArrayList<>();
+        }
+        try {
+            SpatialGridIndex<NGO> rebuilt = new SpatialGridIndex<>(INDEX_CELL_SIZE_DEGREES);
+            PolygonGridIndex<NGO> rebuiltAreas = new PolygonGridIndex<>(INDEX_CELL_SIZE_DEGREES);
+            for (NGO ngo : ngoRepository.findByAcceptsDonationsTrue()) {
+                if (ngo.getLatitude() != null && ngo.getLongitude() != null) {
+                    rebuilt.put(ngo.getId(), ngo.getLatitude(), ngo.getLongitude(), ngo);
+                    rebuiltAreas.put(ngo.getId(), serviceArea(ngo), ngo.getLatitude(), ngo.getLongitude(), ngo);
+                }
+            }
+            synchronized (indexLock) {
+                for (BiConsumer<SpatialGridIndex<NGO>, PolygonGridIndex<NGO>> write : rebuildWrites) {
+                    write.accept(rebuilt, rebuiltAreas);
+                }
+                ngoIndex = rebuilt;
+                serviceAreaIndex = rebuiltAreas;
+            }
+            logger.debug("Rebuilt NGO spatial index with {} NGOs", rebuilt.size());
+        } finally {
+            synchronized (indexLock) {
+                rebuildWrites = null;
+            }
+        }
+    }
+
+    // Applies a write to the live indexes and, during a rebuild, records it for the new ones
+    private void write(BiConsumer<SpatialGridIndex<NGO>, PolygonGridIndex<NGO>> write) {
+        synchronized (indexLock) {
+            write.accept(ngoIndex, serviceAreaIndex);
+            if (rebuildWrites != null) {
+                rebuildWrites.add(write);
+            }
+        }
+    }
+
+    /**
+     * Re-index once the offline router has loaded, replacing the radius areas served meanwhile
+     */
+    @EventListener(OfflineRoutingService.RouterReadyEvent.class)
+    public void onRouterReady() {
+        logger.info("Offline router ready; recomputing NGO service areas");
+        rebuildIndex();
+    }
+
+    /**
+     * The NGO's stored service area, recomputed and saved only when its location, limits or
+     * the available routing method changed since it was stored.
+     * With the offline router this is a drive-time isochrone clipped to maxDonationDistance;
+     * without it, a circle of the radius drivable in that time at the estimator's speed.
+     * While a configured router is still loading, a stored isochrone for the same location
+     * and limits is kept; failing that a circle is served but not saved.
      */
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        final int R = 6371; // Radius of the earth in kilometers
-
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        double distance = R * c; // convert to kilometers
-
-        return distance;
+    private GeoPolygon serviceArea(NGO ngo) {
+        int minutes = ngo.getMaxDriveMinutes() != null ? ngo.getMaxDriveMinutes() : defaultDriveMinutes;
+        boolean road = offlineRoutingService.supports("driving");
+        boolean loading = !road && offlineRoutingService.isLoading();
+        String signature = String.format(Locale.ROOT, "%s|%.6f,%.6f|%d|%d", road || loading ? "road" : "radius",
+                ngo.getLatitude(), ngo.getLongitude(), minutes, ngo.getMaxDonationDistance());
+
+        if (signature.equals(ngo.getServiceAreaSignature()) && ngo.getServiceAreaPolygon() != null) {
+            try {
+                GeoPointArray stored = PolylineCodec.decode(ngo.getServiceAreaPolygon());
+                if (stored.size() >= 3) {
+                    return new GeoPolygon(stored);
+                }
+            } catch (IllegalArgumentException e) {
+                logger.warn("Stored service area of NGO {} is corrupt, recomputing: {}", ngo.getId(), e.getMessage());
+            }
+        }
+
+        GeoPointArray ring = road
+                ? offlineRoutingService.serviceArea(ngo.getLatitude(), ngo.getLongitude(), minutes, ngo.getMaxDonationDistance())
+                : null;
+        GeoPolygon polygon;
+        if (ring != null) {
+            polygon = new GeoPolygon(ring);
+        } else {
+            double radiusKm = Math.min(ngo.getMaxDonationDistance(),
+                    localRouteEstimator.reachableRadiusKm(minutes, "driving"));
+            polygon = GeoPolygon.circle(ngo.getLatitude(), ngo.getLongitude(), radiusKm, CIRCLE_VERTICES);
+        }
+        if (loading) {
+            // Stand-in until the router is ready; the re-index then stores the isochrone
+            return polygon;
+        }
+
+        String encoded = PolylineCodec.encode(polygon.toPoints());
+        ngo.setServiceAreaPolygon(encoded);
+        ngo.setServiceAreaSignature(signature);
+        ngoRepository.updateServiceArea(ngo.getId(), encoded, signature);
+        logger.debug("Recomputed service area for NGO {} ({} vertices, {})", ngo.getId(), polygon.vertexCount(),
+                ring != null ? "road isochrone" : "radius");
+        return polygon;
+    }
+
+    private NearbyNgoResponse toNearbyResponse(NGO ngo, double distance) {
+        return new NearbyNgoResponse(
+            ngo.getId(),
+            ngo.getName(),
+            ngo.getOrganizationType(),
+            ngo.getDescription(),
+            ngo.getCity(),
+            ngo.getLatitude(),
+            ngo.getLongitude(),
+            distance,
+            ngo.isAcceptsDonations(),
+            ngo.getMaxDonationDistance(),
+            ngo.getMaxDonationQuantity()
+        );
     }
 
     /**
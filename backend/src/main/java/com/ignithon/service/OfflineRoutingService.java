@@ -0,0 +1,234 @@
+package com.ignithon.service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import com.ignithon.geo.GeoPointArray;
+import com.ignithon.geo.PolylineCodec;
+import com.ignithon.maps.LocalRouteEstimator;
+import com.ignithon.routing.ContractionHierarchy;
+import com.ignithon.routing.Isochrone;
+import com.ignithon.routing.RoadGraph;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-process car routing on a local OpenStreetMap extract.
+ *
+ * When app.routing.osm.file points at a .osm.pbf extract, the road graph is loaded and its
+ * contraction hierarchy built in the background at startup; until then (or when no file is
+ * configured) every method returns null and callers use Google as before. A
+ * {@link RouterReadyEvent} is published once it is ready. Points are snapped to the
+ * nearest road node within max-snap-meters.
+ */
+@Service
+public class OfflineRoutingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OfflineRoutingService.class);
+
+    /** Bearing sectors per isochrone, i.e. its maximum vertex count */
+    private static final int ISOCHRONE_SECTORS = 64;
+
+    @Value("${app.routing.osm.file:}")
+    private String osmFile;
+
+    @Value("${app.routing.osm.max-snap-meters:500}")
+    private double maxSnapMeters;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private volatile ContractionHierarchy hierarchy;
+
+    /** An extract is configured and still being loaded */
+    private volatile boolean loading;
+
+    /**
+     * Published once the router is ready, so results computed without it can be redone
+     */
+    public static final class RouterReadyEvent {
+    }
+
+    @PostConstruct
+    public void init() {
+        if (osmFile == null || osmFile.isBlank()) {
+            return;
+        }
+        Path path = Paths.get(osmFile);
+        if (!Files.isReadable(path)) {
+            logger.warn("OSM extract {} is not readable; offline routing disabled", path);
+            return;
+        }
+        loading = true;
+        Thread loader = new Thread(() -> load(path), "osm-router-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void load(Path path) {
+        try {
+            long started = System.nanoTime();
+            RoadGraph graph = RoadGraph.fromOsmPbf(path);
+            long loaded = System.nanoTime();
+            ContractionHierarchy built = ContractionHierarchy.build(graph);
+            long finished = System.nanoTime();
+            logger.info("Offline router ready: {} nodes, {} edges, {} shortcuts (load {} ms, contraction {} ms)",
+                    graph.nodeCount(), graph.edgeCount(), built.shortcutCount(),
+                    (loaded - started) / 1_000_000, (finished - loaded) / 1_000_000);
+            hierarchy = built;
+            eventPublisher.publishEvent(new RouterReadyEvent());
+        } catch (Exception e) {
+            logger.error("Failed to build offline router from {}", path, e);
+        } finally {
+            loading = false;
+        }
+    }
+
+    public boolean isReady() {
+        return hierarchy != null;
+    }
+
+    /**
+     * Whether an extract is configured but the router is not ready yet
+     */
+    public boolean isLoading() {
+        return loading;
+    }
+
+    /**
+     * Whether the offline router can serve a travel mode (it models cars only)
+     */
+    public boolean supports(String mode) {
+        return isReady() && (mode == null || "driving".equalsIgnoreCase(mode));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        ContractionHierarchy ch = hierarchy;
+        stats.put("ready", ch != null);
+        if (ch != null) {
+            stats.put("nodes", ch.getGraph().nodeCount());
+            stats.put("edges", ch.getGraph().edgeCount());
+        }
+        return stats;
+    }
+
+    /**
+     * Fastest car route shaped like MapsService's fastest-route response, or null when the
+     * router is not ready or either point is off the road network
+     */
+    public Map<String, Object> route(double startLat, double startLng, double endLat, double endLng) {
+        ContractionHierarchy ch = hierarchy;
+        if (ch == null) {
+            return null;
+        }
+        RoadGraph graph = ch.getGraph();
+        int source = graph.nearestNode(startLat, startLng, maxSnapMeters);
+        int target = graph.nearestNode(endLat, endLng, maxSnapMeters);
+        if (source < 0 || target < 0) {
+            return null;
+        }
+        ContractionHierarchy.Route route = ch.route(source, target, true);
+        if (route == null) {
+            return null;
+        }
+
+        GeoPointArray points = new GeoPointArray(route.getPath().length);
+        for (int node : route.getPath()) {
+            points.add(graph.latitude(node), graph.longitude(node));
+        }
+        long seconds = Math.round(route.getTimeMs() / 1000.0);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("source", "offline");
+        result.put("distance", LocalRouteEstimator.formatDistance(route.getLengthMeters()));
+        result.put("duration", LocalRouteEstimator.formatDuration(seconds));
+        result.put("distanceMeters", route.getLengthMeters());
+        result.put("durationSeconds", seconds);
+        result.put("polyline", PolylineCodec.encode(points));
+        return result;
+    }
+
+    /**
+     * Distance-matrix response for [lat, lng] origins and destinations, or null when the
+     * router is not ready or any point is off the road network
+     */
+    public Map<String, Object> distanceMatrix(double[][] origins, double[][] destinations) {
+        ContractionHierarchy ch = hierarchy;
+        if (ch == null) {
+            return null;
+        }
+        int[] sources = snap(ch.getGraph(), origins);
+        int[] targets = snap(ch.getGraph(), destinations);
+        if (sources == null || targets == null) {
+            return null;
+        }
+
+        int[][][] table = ch.table(sources, targets);
+        int[][] times = table[0];
+        int[][] lengths = table[1];
+        List<List<Map<String, Object>>> matrix = new ArrayList<>(sources.length);
+        for (int i = 0; i < sources.length; i++) {
+            List<Map<String, Object>> row = new ArrayList<>(targets.length);
+            for (int j = 0; j < targets.length; j++) {
+                Map<String, Object> cell = new LinkedHashMap<>();
+                if (times[i][j] < 0) {
+                    cell.put("status", "ZERO_RESULTS");
+                } else {
+                    cell.put("distance", LocalRouteEstimator.formatDistance(lengths[i][j]));
+                    cell.put("duration", LocalRouteEstimator.formatDuration(Math.round(times[i][j] / 1000.0)));
+                }
+                row.add(cell);
+            }
+            matrix.add(row);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("source", "offline");
+        result.put("matrix", matrix);
+        return result;
+    }
+
+    /**
+     * Drive-time service area around a point as a polygon ring, or null when the router is
+     * not ready or the point is off the road network
+     */
+    public GeoPointArray serviceArea(double latitude, double longitude, int minutes, double maxKm) {
+        ContractionHierarchy ch = hierarchy;
+        if (ch == null) {
+            return null;
+        }
+        RoadGraph graph = ch.getGraph();
+        int source = graph.nearestNode(latitude, longitude, maxSnapMeters);
+        if (source < 0) {
+            return null;
+        }
+        return Isochrone.compute(graph, source, minutes * 60_000, maxKm, ISOCHRONE_SECTORS);
+    }
+
+    private int[] snap(RoadGraph graph, double[][] points) {
+        int[] nodes = new int[points.length];
+        for (int i = 0; i < points.length; i++) {
+            nodes[i] = graph.nearestNode(points[i][0], points[i][1], maxSnapMeters);
+            if (nodes[i] < 0) {
+                return null;
+            }
+        }
+        return nodes;
+    }
+}
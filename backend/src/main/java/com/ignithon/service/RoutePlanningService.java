@@ -0,0 +1,102 @@
+package com.ignithon.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ignithon.geo.GeoPointArray;
+import com.ignithon.geo.HaversineKernel;
+import com.ignithon.routing.TourOptimizer;
+
+/**
+ * Plans multi-stop routes in-process instead of asking Google to optimize waypoint order.
+ * Google is only called, optionally, for the road polyline of the final order.
+ */
+@Service
+public class RoutePlanningService {
+
+    @Value("${app.routing.time-budget-ms:50}")
+    private long timeBudgetMs;
+
+    @Autowired
+    private MapsService mapsService;
+
+    /**
+     * Order pickup points for a volunteer starting at volunteerLocation.
+     * Points are maps with "lat" and "lng" entries, as accepted by the Maps endpoints.
+     */
+    public CompletableFuture<Map<String, Object>> optimizePickupRoute(Map<String, Object> volunteerLocation,
+                                                                      List<Map<String, Object>> pickupPoints,
+                                                                      boolean includePolyline) {
+        long started = System.nanoTime();
+
+        List<Map<String, Object>> stops = new ArrayList<>();
+        stops.add(volunteerLocation);
+        stops.addAll(pickupPoints);
+
+        GeoPointArray points = new GeoPointArray(stops.size());
+        for (Map<String, Object> stop : stops) {
+            points.add(coordinate(stop, "lat"), coordinate(stop, "lng"));
+        }
+        double[][] distances = HaversineKernel.distanceMatrixKm(points, points);
+        int[] order = TourOptimizer.optimizeOpenPath(distances, timeBudgetMs * 1_000_000L);
+
+        List<Map<String, Object>> orderedStops = new ArrayList<>();
+        List<Map<String, Object>> legs = new ArrayList<>();
+        for (int pos = 0; pos < order.length; pos++) {
+            Map<String, Object> stop = new LinkedHashMap<>(stops.get(order[pos]));
+            stop.put("sequence", pos);
+            // Index into the request's pickupPoints; the start location has none
+            if (order[pos] > 0) {
+                stop.put("pickupIndex", order[pos] - 1);
+            }
+            orderedStops.add(stop);
+
+            if (pos > 0) {
+                Map<String, Object> leg = new HashMap<>();
+                leg.put("from", pos - 1);
+                leg.put("to", pos);
+                leg.put("distanceKm", distances[order[pos - 1]][order[pos]]);
+                legs.add(leg);
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("solver", "local");
+        result.put("orderedStops", orderedStops);
+        result.put("legs", legs);
+        result.put("totalDistanceKm", TourOptimizer.pathLength(order, distances));
+        result.put("computeTimeMs", (System.nanoTime() - started) / 1_000_000.0);
+
+        if (!includePolyline || orderedStops.size() < 2) {
+            return CompletableFuture.completedFuture(result);
+        }
+
+        return mapsService.getRoute(orderedStops, false).thenApply(route -> {
+            if (Boolean.TRUE.equals(route.get("success"))) {
+                result.put("polyline", route.get("polyline"));
+                result.put("roadDistance", route.get("totalDistance"));
+                result.put("roadDuration", route.get("totalDuration"));
+            } else {
+                result.put("polylineError", route.get("error"));
+            }
+            return result;
+        });
+    }
+
+    private static double coordinate(Map<String, Object> point, String key) {
+        Object value = point != null ? point.get(key) : null;
+        if (value == null) {
+            throw new IllegalArgumentException("Point is missing '" + key + "'");
+        }
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble(value.toString());
+    }
+}
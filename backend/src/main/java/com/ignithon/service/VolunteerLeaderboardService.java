@@ -0,0 +1,253 @@
+package com.ignithon.service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.ignithon.dto.VolunteerLeaderboardEntry;
+import com.ignithon.entity.Volunteer;
+import com.ignithon.ranking.TopRanking;
+import com.ignithon.repository.VolunteerRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Volunteer leaderboards by points, pickups and average rating.
+ *
+ * Only the top of each ranking is held in memory, as a {@link TopRanking} loaded from an
+ * index-only scan of (metric DESC, id) and updated as volunteers' numbers change. Pages
+ * within it never touch the volunteers table beyond one primary-key lookup of display
+ * fields per entry, so the first pages cost the same at a million volunteers as at a
+ * thousand. Deeper pages are read straight from the same index.
+ */
+@Service
+public class VolunteerLeaderboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VolunteerLeaderboardService.class);
+
+    private static final String[] RANK_ICONS = {"🥇", "🥈", "🥉"};
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    public enum Metric {
+        POINTS, PICKUPS, RATING
+    }
+
+    @Value("${app.volunteer.leaderboard.cache-size:1000}")
+    private int cacheSize;
+
+    @Autowired
+    private VolunteerRepository volunteerRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Metric, TopRanking> rankings = new EnumMap<>(Metric.class);
+    /** Exact prefix length of each ranking right after its last load */
+    private final Map<Metric, Integer> loadedExactSizes = new EnumMap<>(Metric.class);
+
+    @PostConstruct
+    public void init() {
+        for (Metric metric : Metric.values()) {
+            rankings.put(metric, new TopRanking(cacheSize));
+            loadedExactSizes.put(metric, 0);
+        }
+    }
+
+    /**
+     * Reload the top of every ranking from the database.
+     * Runs at startup and periodically to pick up changes made outside this service.
+     */
+    @Scheduled(fixedDelayString = "${app.volunteer.leaderboard.refresh-interval-ms:300000}")
+    public void refresh() {
+        long started = System.nanoTime();
+        for (Metric metric : Metric.values()) {
+            reload(metric);
+        }
+        logger.debug("Refreshed volunteer leaderboards in {} ms", (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Apply a saved volunteer's current points, pickups and rating to the rankings
+     */
+    public void recordVolunteer(Volunteer volunteer) {
+        if (volunteer == null || volunteer.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            rankings.get(Metric.POINTS).update(volunteer.getId(), valueOf(volunteer.getPoints()));
+            rankings.get(Metric.PICKUPS).update(volunteer.getId(), valueOf(volunteer.getTotalPickups()));
+            rankings.get(Metric.RATING).update(volunteer.getId(), ratingScore(volunteer.getAverageRating()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<VolunteerLeaderboardEntry> getLeaderboard(Metric metric, int offset, int limit) {
+        int pageSize = Math.max(0, Math.min(limit, MAX_PAGE_SIZE));
+        if (offset < 0 || pageSize == 0) {
+            return new ArrayList<>();
+        }
+        TopRanking ranking = rankings.get(metric);
+
+        // A page past the exact prefix is only worth a reload when updates have shrunk the
+        // prefix since the last load; otherwise ties at the floor would reload on every miss
+        List<long[]> rows = cachedPage(ranking, offset, pageSize);
+        if (rows == null && offset + pageSize <= ranking.capacity() && isStale(metric)) {
+            reload(metric);
+            rows = cachedPage(ranking, offset, pageSize);
+        }
+        if (rows == null) {
+            rows = storedPage(metric, offset, pageSize);
+        }
+        return toEntries(metric, rows);
+    }
+
+    /** [id, score, rank] rows of a page held in memory, or null when it is not */
+    private List<long[]> cachedPage(TopRanking ranking, int offset, int limit) {
+        List<long[]> rows = new ArrayList<>(limit);
+        lock.readLock().lock();
+        try {
+            boolean served = ranking.visit(offset, limit, (id, score) -> {
+                int position = offset + rows.size();
+                long[] previous = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+                long rank = previous != null && previous[1] == score ? previous[2]
+                        : previous == null ? ranking.rankOf(score) : position + 1;
+                rows.add(new long[] {id, score, rank});
+            });
+            return served ? rows : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** [id, score, rank] rows of a page read from the database */
+    private List<long[]> storedPage(Metric metric, int offset, int limit) {
+        List<long[]> rows = new ArrayList<>(limit);
+        for (Object[] row : query(metric, limit, offset)) {
+            long id = ((Number) row[0]).longValue();
+            long score = score(metric, row[1]);
+            long[] previous = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+            long rank = previous != null && previous[1] == score ? previous[2]
+                    : previous == null ? countAbove(metric, score) + 1 : offset + rows.size() + 1;
+            rows.add(new long[] {id, score, rank});
+        }
+        return rows;
+    }
+
+    private boolean isStale(Metric metric) {
+        lock.readLock().lock();
+        try {
+            return rankings.get(metric).exactSize() < loadedExactSizes.get(metric);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void reload(Metric metric) {
+        TopRanking ranking = rankings.get(metric);
+        List<Object[]> rows = query(metric, ranking.capacity(), 0);
+        long[] ids = new long[rows.size()];
+        long[] scores = new long[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            ids[i] = ((Number) rows.get(i)[0]).longValue();
+            scores[i] = score(metric, rows.get(i)[1]);
+        }
+        lock.writeLock().lock();
+        try {
+            ranking.load(ids, scores, rows.size(), rows.size() < ranking.capacity());
+            loadedExactSizes.put(metric, ranking.exactSize());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<Object[]> query(Metric metric, int limit, int offset) {
+        switch (metric) {
+            case PICKUPS:
+                return volunteerRepository.findTopByPickups(limit, offset);
+            case RATING:
+                return volunteerRepository.findTopByRating(limit, offset);
+            default:
+                return volunteerRepository.findTopByPoints(limit, offset);
+        }
+    }
+
+    private long countAbove(Metric metric, long score) {
+        switch (metric) {
+            case PICKUPS:
+                return volunteerRepository.countByTotalPickupsGreaterThan((int) score);
+            case RATING:
+                return volunteerRepository.countByAverageRatingGreaterThan(Double.longBitsToDouble(score));
+            default:
+                return volunteerRepository.countByPointsGreaterThan((int) score);
+        }
+    }
+
+    private List<VolunteerLeaderboardEntry> toEntries(Metric metric, List<long[]> rows) {
+        List<VolunteerLeaderboardEntry> entries = new ArrayList<>(rows.size());
+        if (rows.isEmpty()) {
+            return entries;
+        }
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (long[] row : rows) {
+            ids.add(row[0]);
+        }
+        Map<Long, Object[]> info = new HashMap<>();
+        for (Object[] row : volunteerRepository.findDisplayInfo(ids)) {
+            info.put((Long) row[0], row);
+        }
+
+        for (long[] row : rows) {
+            Object[] volunteer = info.get(row[0]);
+            if (volunteer == null) {
+                continue;
+            }
+            int rank = (int) row[2];
+            entries.add(new VolunteerLeaderboardEntry(rank, row[0], (String) volunteer[1], (String) volunteer[2],
+                    (Volunteer.VolunteerType) volunteer[3], format(metric, row[1]),
+                    rank <= RANK_ICONS.length ? RANK_ICONS[rank - 1] : String.valueOf(rank)));
+        }
+        return entries;
+    }
+
+    private static String format(Metric metric, long score) {
+        switch (metric) {
+            case PICKUPS:
+                return String.format(Locale.ENGLISH, "%,d pickups", score);
+            case RATING:
+                return String.format(Locale.ENGLISH, "%.1f rating", Double.longBitsToDouble(score));
+            default:
+                return String.format(Locale.ENGLISH, "%,d points", score);
+        }
+    }
+
+    private static long score(Metric metric, Object value) {
+        if (metric == Metric.RATING) {
+            return ratingScore(value != null ? ((Number) value).doubleValue() : null);
+        }
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    private static long valueOf(Integer value) {
+        return value != null ? value : 0L;
+    }
+
+    /**
+     * Ratings are ranked by their raw bits: for non-negative doubles the bit patterns sort
+     * exactly like the values, so the in-memory order matches the database's
+     */
+    private static long ratingScore(Double rating) {
+        return rating != null && rating > 0 ? Double.doubleToLongBits(rating) : 0L;
+    }
+}
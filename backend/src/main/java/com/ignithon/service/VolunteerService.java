@@ -0,0 +1,173 @@
+package com.ignithon.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.ignithon.dto.NearbyVolunteerResponse;
+import com.ignithon.entity.Volunteer;
+import com.ignithon.geo.SpatialGridIndex;
+import com.ignithon.repository.VolunteerRepository;
+
+@Service
+public class VolunteerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VolunteerService.class);
+
+    // ~5.5 km cells, about half the default maxPickupDistance
+    private static final double INDEX_CELL_SIZE_DEGREES = 0.05;
+
+    @Autowired
+    private VolunteerRepository volunteerRepository;
+
+    /** Available volunteers only; positions move on every location ping */
+    private volatile SpatialGridIndex<Volunteer> availableIndex = new SpatialGridIndex<>(INDEX_CELL_SIZE_DEGREES);
+
+    /** Serializes index writes with the swap at the end of a rebuild */
+    private final Object indexLock = new Object();
+
+    /** Writes made while a rebuild reads the database, replayed onto the rebuilt index; null otherwise */
+    private List<Consumer<SpatialGridIndex<Volunteer>>> rebuildWrites;
+
+    /**
+     * Find the closest available volunteers for a pickup.
+     * Only volunteers whose maxPickupDistance reaches the pickup are returned.
+     */
+    public List<NearbyVolunteerResponse> findNearestAvailable(double latitude, double longitude, int limit,
+                                                              double radiusKm, Volunteer.VolunteerType volunteerType) {
+        return availableIndex.nearest(latitude, longitude, limit, radiusKm, pickupFilter(volunteerType)).stream()
+                .map(this::toNearbyResponse)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Find every available volunteer within radiusKm who is willing to travel to the pickup
+     */
+    public List<NearbyVolunteerResponse> findAvailableWithinRadius(double latitude, double longitude,
+                                                                   double radiusKm, Volunteer.VolunteerType volunteerType) {
+        return availableIndex.withinRadius(latitude, longitude, radiusKm, pickupFilter(volunteerType)).stream()
+                .map(this::toNearbyResponse)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Whether the user with this email is the volunteer with this id
+     */
+    public boolean isVolunteer(Long volunteerId, String email) {
+        return email != null && volunteerRepository.existsByIdAndEmail(volunteerId, email);
+    }
+
+    /**
+     * Record a volunteer's live position. Moves the index entry in O(1)
+     */
+    public void updateLocation(Long volunteerId, Double latitude, Double longitude) {
+        if (volunteerRepository.updateLocation(volunteerId, latitude, longitude) == 0) {
+            throw new RuntimeException("Volunteer not found with id: " + volunteerId);
+        }
+        write(index -> {
+            Volunteer indexed = index.get(volunteerId);
+            if (indexed != null) {
+                index.put(volunteerId, latitude, longitude, indexed);
+            }
+        });
+    }
+
+    /**
+     * Toggle whether a volunteer can take pickups
+     */
+    public void updateAvailability(Long volunteerId, boolean available) {
+        if (volunteerRepository.updateAvailability(volunteerId, available) == 0) {
+            throw new RuntimeException("Volunteer not found with id: " + volunteerId);
+        }
+        if (available) {
+            volunteerRepository.findById(volunteerId).ifPresent(this::indexVolunteer);
+        } else {
+            write(index -> index.remove(volunteerId));
+        }
+    }
+
+    /**
+     * Add, move or drop a volunteer in the availability index after it was saved
+     */
+    public void indexVolunteer(Volunteer volunteer) {
+        if (volunteer == null || volunteer.getId() == null) {
+            return;
+        }
+        if (volunteer.isAvailable() && volunteer.getLatitude() != null && volunteer.getLongitude() != null) {
+            write(index -> index.put(volunteer.getId(), volunteer.getLatitude(), volunteer.getLongitude(), volunteer));
+        } else {
+            write(index -> index.remove(volunteer.getId()));
+        }
+    }
+
+    /**
+     * Rebuild the availability index from the database.
+     * Runs at startup and periodically to pick up changes made outside this service.
+     * Writes made while the database is read are replayed onto the new index before it is
+     * swapped in, so none of them is lost.
+     */
+    @Scheduled(fixedDelayString = "${app.volunteer.index.rebuild-interval-ms:900000}")
+    public synchronized void rebuildIndex() {
+        synchronized (indexLock) {
+            rebuildWrites = new ArrayList<>();
+        }
+        try {
+            SpatialGridIndex<Volunteer> rebuilt = new SpatialGridIndex<>(INDEX_CELL_SIZE_DEGREES);
+            for (Volunteer volunteer : volunteerRepository.findByIsAvailableTrue()) {
+                if (volunteer.getLatitude() != null && volunteer.getLongitude() != null) {
+                    rebuilt.put(volunteer.getId(), volunteer.getLatitude(), volunteer.getLongitude(), volunteer);
+                }
+            }
+            synchronized (indexLock) {
+                for (Consumer<SpatialGridIndex<Volunteer>> write : rebuildWrites) {
+                    write.accept(rebuilt);
+                }
+                availableIndex = rebuilt;
+            }
+            logger.debug("Rebuilt volunteer availability index with {} volunteers", rebuilt.size());
+        } finally {
+            synchronized (indexLock) {
+                rebuildWrites = null;
+            }
+        }
+    }
+
+    // Applies a write to the live index and, during a rebuild, records it for the new one
+    private void write(Consumer<SpatialGridIndex<Volunteer>> write) {
+        synchronized (indexLock) {
+            write.accept(availableIndex);
+            if (rebuildWrites != null) {
+                rebuildWrites.add(write);
+            }
+        }
+    }
+
+    private SpatialGridIndex.Filter<Volunteer> pickupFilter(Volunteer.VolunteerType volunteerType) {
+        return (volunteer, distanceKm) ->
+                (volunteerType == null || volunteer.getVolunteerType() == volunteerType)
+                && (volunteer.getMaxPickupDistance() == null || distanceKm <= volunteer.getMaxPickupDistance());
+    }
+
+    private NearbyVolunteerResponse toNearbyResponse(SpatialGridIndex.Neighbor<Volunteer> match) {
+        Volunteer volunteer = match.getValue();
+        return new NearbyVolunteerResponse(
+            volunteer.getId(),
+            volunteer.getName(),
+            volunteer.getPhone(),
+            volunteer.getCity(),
+            volunteer.getVolunteerType(),
+            match.getLatitude(),
+            match.getLongitude(),
+            match.getDistanceKm(),
+            volunteer.getMaxPickupDistance(),
+            volunteer.getAverageRating()
+        );
+    }
+}
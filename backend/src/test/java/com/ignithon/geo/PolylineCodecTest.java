@@ -0,0 +1,129 @@
+package com.ignithon.geo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class PolylineCodecTest {
+
+    /** The example from Google's encoded polyline format documentation */
+    private static final String GOOGLE_EXAMPLE = "_p~iF~ps|U_ulLnnqC_mqNvxq`@";
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * 6_371_000.0;
+
+    @Test
+    void decodesAndEncodesTheDocumentedExample() {
+        GeoPointArray points = PolylineCodec.decode(GOOGLE_EXAMPLE);
+
+        assertEquals(3, points.size());
+        double[][] expected = {{38.5, -120.2}, {40.7, -120.95}, {43.252, -126.453}};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i][0], points.latitude(i), 1e-9);
+            assertEquals(expected[i][1], points.longitude(i), 1e-9);
+        }
+        assertEquals(GOOGLE_EXAMPLE, PolylineCodec.encode(points));
+        assertEquals(0, PolylineCodec.decode("").size());
+    }
+
+    @Test
+    void roundTripsRandomRoutesAtFivePlaces() {
+        Random random = new Random(3);
+        GeoPointArray points = new GeoPointArray();
+        double lat = 18.52;
+        double lng = 73.85;
+        for (int i = 0; i < 500; i++) {
+            lat += (random.nextDouble() - 0.5) * 0.01;
+            lng += (random.nextDouble() - 0.5) * 0.01;
+            points.add(Math.round(lat * 1e5) / 1e5, Math.round(lng * 1e5) / 1e5);
+        }
+        GeoPointArray decoded = PolylineCodec.decode(PolylineCodec.encode(points));
+        assertEquals(points.size(), decoded.size());
+        for (int i = 0; i < points.size(); i++) {
+            assertEquals(points.latitude(i), decoded.latitude(i), 1e-9);
+            assertEquals(points.longitude(i), decoded.longitude(i), 1e-9);
+        }
+    }
+
+    @Test
+    void rejectsTruncatedInput() {
+        // Cut inside the last longitude's continuation characters
+        assertThrows(IllegalArgumentException.class,
+                () -> PolylineCodec.decode(GOOGLE_EXAMPLE.substring(0, GOOGLE_EXAMPLE.length() - 2)));
+        // A latitude without its longitude
+        assertThrows(IllegalArgumentException.class, () -> PolylineCodec.decode("_p~iF"));
+    }
+
+    @Test
+    void rejectsCharactersAndValuesOutsideTheEncoding() {
+        // Below '?' and above '~'
+        assertThrows(IllegalArgumentException.class, () -> PolylineCodec.decode("_p~iF ps|U"));
+        assertThrows(IllegalArgumentException.class, () -> PolylineCodec.decode("_p~iF\u007fps|U"));
+        // Continuation bits past 32 bits of value
+        assertThrows(IllegalArgumentException.class, () -> PolylineCodec.decode("~~~~~~~~?"));
+    }
+
+    @Test
+    void simplificationStaysWithinTolerance() {
+        Random random = new Random(5);
+        GeoPointArray points = new GeoPointArray();
+        for (int i = 0; i < 2000; i++) {
+            // A gently curving road with a few meters of jitter
+            double t = i / 2000.0;
+            points.add(18.50 + 0.05 * t + 0.002 * Math.sin(t * 20) + (random.nextDouble() - 0.5) * 2e-5,
+                    73.80 + 0.08 * t + (random.nextDouble() - 0.5) * 2e-5);
+        }
+        double tolerance = 10.0;
+        GeoPointArray simplified = PolylineCodec.simplify(points, tolerance);
+
+        assertTrue(simplified.size() < points.size() / 4, "kept " + simplified.size());
+        assertEquals(points.latitude(0), simplified.latitude(0));
+        assertEquals(points.longitude(points.size() - 1), simplified.longitude(simplified.size() - 1));
+
+        // Walk the original points alongside the kept ones: each dropped point lies within
+        // tolerance of the kept segment that replaced it
+        int segment = 0;
+        for (int i = 0; i < points.size(); i++) {
+            if (segment + 1 < simplified.size() && points.latitude(i) == simplified.latitude(segment + 1)
+                    && points.longitude(i) == simplified.longitude(segment + 1)) {
+                segment++;
+                continue;
+            }
+            int end = Math.min(segment + 1, simplified.size() - 1);
+            double meters = segmentDistanceMeters(points, i, simplified, segment, end);
+            assertTrue(meters <= tolerance + 1e-6, "point " + i + " is " + meters + " m off the simplified line");
+        }
+    }
+
+    @Test
+    void simplificationKeepsShortLinesAndDropsCollinearPoints() {
+        GeoPointArray two = new GeoPointArray();
+        two.add(18.5, 73.8);
+        two.add(18.6, 73.9);
+        assertSame(two, PolylineCodec.simplify(two, 50));
+
+        GeoPointArray straight = new GeoPointArray();
+        for (int i = 0; i <= 10; i++) {
+            straight.add(18.5 + i * 0.001, 73.8);
+        }
+        GeoPointArray simplified = PolylineCodec.simplify(straight, 1);
+        assertEquals(2, simplified.size());
+        assertEquals(PolylineCodec.encode(simplified), PolylineCodec.simplify(PolylineCodec.encode(straight), 1));
+    }
+
+    /** Distance from a point to a segment in a local equirectangular projection, in meters */
+    private static double segmentDistanceMeters(GeoPointArray points, int i, GeoPointArray line, int a, int b) {
+        double cos = Math.cos(Math.toRadians(line.latitude(a)));
+        double px = (points.longitude(i) - line.longitude(a)) * cos * METERS_PER_DEGREE;
+        double py = (points.latitude(i) - line.latitude(a)) * METERS_PER_DEGREE;
+        double bx = (line.longitude(b) - line.longitude(a)) * cos * METERS_PER_DEGREE;
+        double by = (line.latitude(b) - line.latitude(a)) * METERS_PER_DEGREE;
+        double lengthSquared = bx * bx + by * by;
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, (px * bx + py * by) / lengthSquared));
+        return Math.hypot(px - t * bx, py - t * by);
+    }
+}
@@ -0,0 +1,113 @@
+package com.ignithon.ranking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class OrderStatisticTreeTest {
+
+    /** Highest score first, ties by ascending id */
+    private static final Comparator<long[]> RANKING_ORDER =
+            Comparator.<long[]>comparingLong(entry -> -entry[1]).thenComparingLong(entry -> entry[0]);
+
+    @Test
+    void ranksTiesTogetherAndOrdersThemById() {
+        OrderStatisticTree tree = new OrderStatisticTree();
+        tree.put(7, 50);
+        tree.put(3, 80);
+        tree.put(5, 50);
+        tree.put(9, 10);
+
+        assertEquals(1, tree.rank(3));
+        assertEquals(2, tree.rank(5));
+        assertEquals(2, tree.rank(7));
+        assertEquals(4, tree.rank(9));
+        assertEquals(0, tree.rank(42));
+        assertEquals(1, tree.countAbove(50));
+        assertEquals(List.of(3L, 5L, 7L, 9L), page(tree, 0, 10));
+        assertEquals(List.of(7L), page(tree, 2, 1));
+        assertEquals(List.of(), page(tree, 4, 3));
+
+        assertEquals(90, tree.add(9, 80));
+        assertEquals(1, tree.rank(9));
+        assertTrue(tree.remove(3));
+        assertFalse(tree.remove(3));
+        assertEquals(0, tree.score(3));
+        assertEquals(List.of(9L, 5L, 7L), page(tree, 0, 10));
+    }
+
+    @Test
+    void randomUpdatesMatchASortedList() {
+        Random random = new Random(7);
+        OrderStatisticTree tree = new OrderStatisticTree();
+        Map<Long, Long> scores = new HashMap<>();
+
+        for (int step = 0; step < 5000; step++) {
+            long id = random.nextInt(300);
+            int operation = random.nextInt(10);
+            if (operation < 5) {
+                long score = random.nextInt(50);
+                tree.put(id, score);
+                scores.put(id, score);
+            } else if (operation < 8) {
+                long delta = random.nextInt(21) - 10;
+                long expected = scores.getOrDefault(id, 0L) + delta;
+                assertEquals(expected, tree.add(id, delta));
+                scores.put(id, expected);
+            } else {
+                assertEquals(scores.remove(id) != null, tree.remove(id));
+            }
+
+            if (step % 100 == 0) {
+                assertMatches(tree, scores, random);
+            }
+        }
+        assertMatches(tree, scores, random);
+
+        tree.clear();
+        assertEquals(0, tree.size());
+        assertEquals(List.of(), page(tree, 0, 10));
+    }
+
+    private static void assertMatches(OrderStatisticTree tree, Map<Long, Long> scores, Random random) {
+        List<long[]> sorted = new ArrayList<>();
+        scores.forEach((id, score) -> sorted.add(new long[] {id, score}));
+        sorted.sort(RANKING_ORDER);
+        List<Long> expectedOrder = new ArrayList<>();
+        for (long[] entry : sorted) {
+            expectedOrder.add(entry[0]);
+        }
+
+        assertEquals(sorted.size(), tree.size());
+        assertEquals(expectedOrder, page(tree, 0, sorted.size() + 1));
+        for (int i = 0; i < 20; i++) {
+            int offset = random.nextInt(sorted.size() + 2);
+            int limit = 1 + random.nextInt(25);
+            List<Long> expected = expectedOrder.subList(Math.min(offset, expectedOrder.size()),
+                    Math.min(offset + limit, expectedOrder.size()));
+            assertEquals(expected, page(tree, offset, limit), "page " + offset + "+" + limit);
+        }
+        for (long[] entry : sorted) {
+            long above = sorted.stream().filter(other -> other[1] > entry[1]).count();
+            assertEquals(above + 1, tree.rank(entry[0]));
+            assertEquals(above, tree.countAbove(entry[1]));
+            assertEquals(entry[1], tree.score(entry[0]));
+            assertTrue(tree.contains(entry[0]));
+        }
+    }
+
+    private static List<Long> page(OrderStatisticTree tree, int offset, int limit) {
+        List<Long> ids = new ArrayList<>();
+        tree.visit(offset, limit, (id, score) -> ids.add(id));
+        return ids;
+    }
+}
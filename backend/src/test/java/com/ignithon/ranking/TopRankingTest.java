@@ -0,0 +1,127 @@
+package com.ignithon.ranking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TopRankingTest {
+
+    @Test
+    void servesOnlyTheExactPrefixOfAPartialLoad() {
+        TopRanking ranking = new TopRanking(3);
+        ranking.load(new long[] {1, 2, 3}, new long[] {100, 90, 80}, 3, false);
+
+        // Id 3 ties the floor, so an unloaded id could share its score
+        assertEquals(2, ranking.exactSize());
+        assertEquals(List.of(1L, 2L), page(ranking, 0, 2));
+        assertFalse(ranking.visit(0, 3, (id, score) -> { }));
+
+        ranking.update(5, 95);
+        assertEquals(List.of(1L, 5L, 2L), page(ranking, 0, 3));
+        assertEquals(2, ranking.rankOf(95));
+
+        // At or below the floor: unknown relative to the unloaded ids, so not held
+        ranking.update(4, 80);
+        assertEquals(3, ranking.exactSize());
+        assertFalse(ranking.visit(2, 2, (id, score) -> { }));
+    }
+
+    @Test
+    void servesEveryPageOfACompleteLoad() {
+        TopRanking ranking = new TopRanking(10);
+        ranking.load(new long[] {4, 8}, new long[] {5, 5}, 2, true);
+        assertEquals(2, ranking.exactSize());
+        assertEquals(List.of(4L, 8L), page(ranking, 0, 10));
+        assertEquals(List.of(), page(ranking, 5, 10));
+
+        ranking.update(1, 0);
+        assertEquals(List.of(4L, 8L, 1L), page(ranking, 0, 10));
+        assertEquals(3, ranking.rankOf(0));
+        assertThrows(IllegalArgumentException.class, () -> new TopRanking(0));
+    }
+
+    @Test
+    void randomUpdatesMatchTheFullRanking() {
+        Random random = new Random(11);
+        Map<Long, Long> source = new HashMap<>();
+        for (long id = 0; id < 100; id++) {
+            source.put(id, (long) random.nextInt(30));
+        }
+        TopRanking ranking = new TopRanking(20);
+        load(ranking, source);
+
+        int served = 0;
+        for (int step = 0; step < 3000; step++) {
+            long id = random.nextInt(120);
+            if (random.nextInt(10) == 0) {
+                source.remove(id);
+                ranking.remove(id);
+            } else {
+                long score = Math.max(0, source.getOrDefault(id, 0L) + random.nextInt(11) - 4);
+                source.put(id, score);
+                ranking.update(id, score);
+            }
+            if (step % 200 == 0) {
+                load(ranking, source);
+            }
+
+            List<long[]> full = sorted(source);
+            int exact = ranking.exactSize();
+            assertTrue(exact <= full.size());
+            int offset = random.nextInt(25);
+            int limit = 1 + random.nextInt(10);
+            List<Long> page = new ArrayList<>();
+            if (ranking.visit(offset, limit, (entryId, score) -> page.add(entryId))) {
+                served++;
+                assertTrue(offset + limit <= exact);
+                List<Long> expected = new ArrayList<>();
+                for (int i = offset; i < offset + limit && i < full.size(); i++) {
+                    expected.add(full.get(i)[0]);
+                }
+                assertEquals(expected, page, "page " + offset + "+" + limit + " at step " + step);
+            }
+            for (int i = 0; i < exact; i++) {
+                long score = full.get(i)[1];
+                long above = full.stream().filter(entry -> entry[1] > score).count();
+                assertEquals(above + 1, ranking.rankOf(score));
+            }
+        }
+        assertTrue(served > 0);
+    }
+
+    /** Load the leading rows the way the leaderboard service does */
+    private static void load(TopRanking ranking, Map<Long, Long> source) {
+        List<long[]> full = sorted(source);
+        int count = Math.min(full.size(), ranking.capacity());
+        long[] ids = new long[count];
+        long[] scores = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = full.get(i)[0];
+            scores[i] = full.get(i)[1];
+        }
+        ranking.load(ids, scores, count, count < ranking.capacity());
+    }
+
+    private static List<long[]> sorted(Map<Long, Long> source) {
+        List<long[]> entries = new ArrayList<>();
+        source.forEach((id, score) -> entries.add(new long[] {id, score}));
+        entries.sort(Comparator.<long[]>comparingLong(entry -> -entry[1]).thenComparingLong(entry -> entry[0]));
+        return entries;
+    }
+
+    private static List<Long> page(TopRanking ranking, int offset, int limit) {
+        List<Long> ids = new ArrayList<>();
+        assertTrue(ranking.visit(offset, limit, (id, score) -> ids.add(id)));
+        return ids;
+    }
+}
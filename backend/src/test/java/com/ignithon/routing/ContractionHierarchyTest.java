@@ -0,0 +1,153 @@
+package com.ignithon.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ContractionHierarchyTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void gridRoutesMatchDijkstra() throws IOException {
+        RoadGraph graph = RoadGraph.fromOsmPbf(OsmPbfFixture.grid().write(dir.resolve("grid.osm.pbf")));
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+        assertAllPairsMatch(hierarchy);
+
+        // Going west along the one-way row has to leave it
+        int west = RoadGraphTest.gridNode(graph, 0, 0);
+        int east = RoadGraphTest.gridNode(graph, 0, OsmPbfFixture.GRID_SIZE - 1);
+        assertTrue(hierarchy.route(east, west, false).getTimeMs() > hierarchy.route(west, east, false).getTimeMs());
+    }
+
+    @Test
+    void randomNetworkRoutesAndTablesMatchDijkstra() {
+        Random random = new Random(42);
+        int n = 400;
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        for (int v = 0; v < n; v++) {
+            latitudes[v] = 18.4 + random.nextDouble() * 0.2;
+            longitudes[v] = 73.7 + random.nextDouble() * 0.2;
+        }
+        RoadGraph.EdgeList edges = new RoadGraph.EdgeList();
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < n * 3; i++) {
+            int a = random.nextInt(n);
+            int b = Math.floorMod(a + 1 + random.nextInt(20), n);
+            if (!seen.add((long) a * n + b)) {
+                continue;
+            }
+            int time = 1 + random.nextInt(60_000);
+            edges.add(a, b, time, 1 + time / 10);
+            if (random.nextInt(3) > 0 && seen.add((long) b * n + a)) {
+                edges.add(b, a, 1 + random.nextInt(60_000), 1 + time / 10);
+            }
+        }
+        RoadGraph graph = RoadGraph.largestComponent(n, latitudes, longitudes, edges);
+        assertTrue(graph.nodeCount() > n / 2);
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+        assertTrue(hierarchy.shortcutCount() > 0);
+
+        for (int i = 0; i < 200; i++) {
+            int source = random.nextInt(graph.nodeCount());
+            int target = random.nextInt(graph.nodeCount());
+            ContractionHierarchy.Route route = hierarchy.route(source, target, true);
+            assertNotNull(route);
+            assertEquals(dijkstra(graph, source)[target], route.getTimeMs());
+            assertPathCosts(graph, route, source, target);
+        }
+
+        int[] sources = random.ints(15, 0, graph.nodeCount()).toArray();
+        int[] targets = random.ints(15, 0, graph.nodeCount()).toArray();
+        int[][][] table = hierarchy.table(sources, targets);
+        for (int i = 0; i < sources.length; i++) {
+            int[] times = dijkstra(graph, sources[i]);
+            for (int j = 0; j < targets.length; j++) {
+                assertEquals(times[targets[j]], table[0][i][j], "table " + sources[i] + " -> " + targets[j]);
+                assertEquals(hierarchy.route(sources[i], targets[j], false).getLengthMeters(), table[1][i][j]);
+            }
+        }
+    }
+
+    private static void assertAllPairsMatch(ContractionHierarchy hierarchy) {
+        RoadGraph graph = hierarchy.getGraph();
+        int[] all = new int[graph.nodeCount()];
+        Arrays.setAll(all, v -> v);
+        int[][][] table = hierarchy.table(all, all);
+        for (int source = 0; source < graph.nodeCount(); source++) {
+            int[] times = dijkstra(graph, source);
+            for (int target = 0; target < graph.nodeCount(); target++) {
+                ContractionHierarchy.Route route = hierarchy.route(source, target, true);
+                assertNotNull(route);
+                assertEquals(times[target], route.getTimeMs(), "route " + source + " -> " + target);
+                assertEquals(times[target], table[0][source][target], "table " + source + " -> " + target);
+                assertPathCosts(graph, route, source, target);
+            }
+        }
+    }
+
+    /** The unpacked path runs over real edges from source to target and adds up to the route */
+    private static void assertPathCosts(RoadGraph graph, ContractionHierarchy.Route route, int source, int target) {
+        int[] path = route.getPath();
+        assertEquals(source, path[0]);
+        assertEquals(target, path[path.length - 1]);
+        long time = 0;
+        long length = 0;
+        for (int i = 0; i + 1 < path.length; i++) {
+            int best = -1;
+            for (int e = graph.firstEdge(path[i]); e < graph.firstEdge(path[i] + 1); e++) {
+                if (graph.edgeTarget(e) == path[i + 1] && (best < 0 || graph.edgeTimeMs(e) < graph.edgeTimeMs(best))) {
+                    best = e;
+                }
+            }
+            assertTrue(best >= 0, "no edge " + path[i] + " -> " + path[i + 1]);
+            time += graph.edgeTimeMs(best);
+            length += graph.edgeLengthMeters(best);
+        }
+        assertEquals(route.getTimeMs(), time);
+        assertEquals(route.getLengthMeters(), length);
+    }
+
+    /** Plain Dijkstra over the original edges; unreachable nodes get -1 */
+    private static int[] dijkstra(RoadGraph graph, int source) {
+        int[] dist = new int[graph.nodeCount()];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        dist[source] = 0;
+        PriorityQueue<int[]> queue = new PriorityQueue<>((a, b) -> Integer.compare(a[1], b[1]));
+        queue.add(new int[] {source, 0});
+        while (!queue.isEmpty()) {
+            int[] entry = queue.poll();
+            int v = entry[0];
+            if (entry[1] > dist[v]) {
+                continue;
+            }
+            for (int e = graph.firstEdge(v); e < graph.firstEdge(v + 1); e++) {
+                int w = graph.edgeTarget(e);
+                int candidate = dist[v] + graph.edgeTimeMs(e);
+                if (candidate < dist[w]) {
+                    dist[w] = candidate;
+                    queue.add(new int[] {w, candidate});
+                }
+            }
+        }
+        for (int v = 0; v < dist.length; v++) {
+            if (dist[v] == Integer.MAX_VALUE) {
+                dist[v] = -1;
+            }
+        }
+        return dist;
+    }
+}
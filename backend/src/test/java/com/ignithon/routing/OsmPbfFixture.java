@@ -0,0 +1,220 @@
+package com.ignithon.routing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Writes small OSM PBF extracts for tests: an OSMHeader blob, one raw blob of dense nodes
+ * and one zlib blob of ways, so both blob encodings are read.
+ */
+final class OsmPbfFixture {
+
+    static final int GRID_SIZE = 6;
+    static final double GRID_LATITUDE = 18.50;
+    static final double GRID_LONGITUDE = 73.80;
+    static final double GRID_STEP = 0.002;
+
+    private final List<Long> nodeIds = new ArrayList<>();
+    private final List<double[]> coordinates = new ArrayList<>();
+    private final List<Object[]> ways = new ArrayList<>();
+
+    /**
+     * A 6 x 6 street grid about 220 m apart. Row 0 is a one-way primary road heading east,
+     * column 5 is signed 50 km/h; a detached road and a footway must not reach the graph.
+     */
+    static OsmPbfFixture grid() {
+        OsmPbfFixture fixture = new OsmPbfFixture();
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int col = 0; col < GRID_SIZE; col++) {
+                fixture.node(gridNodeId(row, col), GRID_LATITUDE + row * GRID_STEP, GRID_LONGITUDE + col * GRID_STEP);
+            }
+        }
+        fixture.node(2000, 18.60, 73.90).node(2001, 18.601, 73.90).node(3000, 18.49, 73.80);
+
+        for (int row = 0; row < GRID_SIZE; row++) {
+            long[] refs = new long[GRID_SIZE];
+            for (int col = 0; col < GRID_SIZE; col++) {
+                refs[col] = gridNodeId(row, col);
+            }
+            if (row == 0) {
+                fixture.way(1 + row, refs, "highway", "primary", "oneway", "yes");
+            } else {
+                fixture.way(1 + row, refs, "highway", "residential");
+            }
+        }
+        for (int col = 0; col < GRID_SIZE; col++) {
+            long[] refs = new long[GRID_SIZE];
+            for (int row = 0; row < GRID_SIZE; row++) {
+                refs[row] = gridNodeId(row, col);
+            }
+            if (col == GRID_SIZE - 1) {
+                fixture.way(11 + col, refs, "highway", "residential", "maxspeed", "50");
+            } else {
+                fixture.way(11 + col, refs, "highway", "residential");
+            }
+        }
+        fixture.way(20, new long[] {2000, 2001}, "highway", "residential");
+        fixture.way(21, new long[] {gridNodeId(0, 0), 3000}, "highway", "footway");
+        return fixture;
+    }
+
+    static long gridNodeId(int row, int col) {
+        return 1000 + row * GRID_SIZE + col;
+    }
+
+    OsmPbfFixture node(long id, double latitude, double longitude) {
+        nodeIds.add(id);
+        coordinates.add(new double[] {latitude, longitude});
+        return this;
+    }
+
+    /** tags alternate key, value */
+    OsmPbfFixture way(long id, long[] refs, String... tags) {
+        ways.add(new Object[] {id, refs, tags});
+        return this;
+    }
+
+    Path write(Path file) throws IOException {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        strings.put("", 0);
+        for (Object[] way : ways) {
+            for (String tag : (String[]) way[2]) {
+                strings.putIfAbsent(tag, strings.size());
+            }
+        }
+        ByteArrayOutputStream table = new ByteArrayOutputStream();
+        for (String value : strings.keySet()) {
+            bytes(table, 1, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        // Default granularity (100 nanodegrees) and zero offsets
+        ByteArrayOutputStream ids = new ByteArrayOutputStream();
+        ByteArrayOutputStream lats = new ByteArrayOutputStream();
+        ByteArrayOutputStream lons = new ByteArrayOutputStream();
+        long lastId = 0;
+        long lastLat = 0;
+        long lastLon = 0;
+        for (int i = 0; i < nodeIds.size(); i++) {
+            long id = nodeIds.get(i);
+            long lat = Math.round(coordinates.get(i)[0] * 1e7);
+            long lon = Math.round(coordinates.get(i)[1] * 1e7);
+            varint(ids, zigzag(id - lastId));
+            varint(lats, zigzag(lat - lastLat));
+            varint(lons, zigzag(lon - lastLon));
+            lastId = id;
+            lastLat = lat;
+            lastLon = lon;
+        }
+        ByteArrayOutputStream dense = new ByteArrayOutputStream();
+        bytes(dense, 1, ids.toByteArray());
+        bytes(dense, 8, lats.toByteArray());
+        bytes(dense, 9, lons.toByteArray());
+        ByteArrayOutputStream nodeGroup = new ByteArrayOutputStream();
+        bytes(nodeGroup, 2, dense.toByteArray());
+
+        ByteArrayOutputStream wayGroup = new ByteArrayOutputStream();
+        for (Object[] way : ways) {
+            String[] tags = (String[]) way[2];
+            ByteArrayOutputStream keys = new ByteArrayOutputStream();
+            ByteArrayOutputStream values = new ByteArrayOutputStream();
+            for (int i = 0; i + 1 < tags.length; i += 2) {
+                varint(keys, strings.get(tags[i]));
+                varint(values, strings.get(tags[i + 1]));
+            }
+            ByteArrayOutputStream refs = new ByteArrayOutputStream();
+            long last = 0;
+            for (long ref : (long[]) way[1]) {
+                varint(refs, zigzag(ref - last));
+                last = ref;
+            }
+            ByteArrayOutputStream message = new ByteArrayOutputStream();
+            tag(message, 1, 0);
+            varint(message, (Long) way[0]);
+            bytes(message, 2, keys.toByteArray());
+            bytes(message, 3, values.toByteArray());
+            bytes(message, 8, refs.toByteArray());
+            bytes(wayGroup, 3, message.toByteArray());
+        }
+
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            ByteArrayOutputStream headerBlob = new ByteArrayOutputStream();
+            bytes(headerBlob, 1, new byte[0]);
+            blob(out, "OSMHeader", headerBlob.toByteArray());
+            blob(out, "OSMData", rawBlob(block(table, nodeGroup)));
+            blob(out, "OSMData", zlibBlob(block(table, wayGroup)));
+        }
+        return file;
+    }
+
+    private static byte[] block(ByteArrayOutputStream table, ByteArrayOutputStream group) throws IOException {
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        bytes(block, 1, table.toByteArray());
+        bytes(block, 2, group.toByteArray());
+        return block.toByteArray();
+    }
+
+    private static byte[] rawBlob(byte[] data) throws IOException {
+        ByteArrayOutputStream blob = new ByteArrayOutputStream();
+        bytes(blob, 1, data);
+        return blob.toByteArray();
+    }
+
+    private static byte[] zlibBlob(byte[] data) throws IOException {
+        Deflater deflater = new Deflater();
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        while (!deflater.finished()) {
+            compressed.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        ByteArrayOutputStream blob = new ByteArrayOutputStream();
+        tag(blob, 2, 0);
+        varint(blob, data.length);
+        bytes(blob, 3, compressed.toByteArray());
+        return blob.toByteArray();
+    }
+
+    private static void blob(DataOutputStream out, String type, byte[] blob) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        bytes(header, 1, type.getBytes(StandardCharsets.UTF_8));
+        tag(header, 3, 0);
+        varint(header, blob.length);
+        out.writeInt(header.size());
+        out.write(header.toByteArray());
+        out.write(blob);
+    }
+
+    private static void bytes(OutputStream out, int field, byte[] value) throws IOException {
+        tag(out, field, 2);
+        varint(out, value.length);
+        out.write(value);
+    }
+
+    private static void tag(OutputStream out, int field, int wireType) throws IOException {
+        varint(out, ((long) field << 3) | wireType);
+    }
+
+    private static void varint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
@@ -0,0 +1,117 @@
+package com.ignithon.routing;
+
+import static com.ignithon.routing.OsmPbfFixture.GRID_LATITUDE;
+import static com.ignithon.routing.OsmPbfFixture.GRID_LONGITUDE;
+import static com.ignithon.routing.OsmPbfFixture.GRID_SIZE;
+import static com.ignithon.routing.OsmPbfFixture.GRID_STEP;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RoadGraphTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readerDecodesDenseNodesAndZlibWays() throws IOException {
+        Path file = OsmPbfFixture.grid().write(dir.resolve("grid.osm.pbf"));
+        Map<Long, double[]> nodes = new HashMap<>();
+        Map<Long, long[]> refs = new HashMap<>();
+        Map<Long, String[]> tags = new HashMap<>();
+        try (InputStream in = Files.newInputStream(file)) {
+            new OsmPbfReader(true, true).read(in, new OsmPbfReader.Handler() {
+                @Override
+                public void node(long id, double latitude, double longitude) {
+                    nodes.put(id, new double[] {latitude, longitude});
+                }
+
+                @Override
+                public void way(long id, long[] wayRefs, String[] keys, String[] values) {
+                    refs.put(id, wayRefs);
+                    tags.put(id, new String[] {keys[0], values[0]});
+                }
+            });
+        }
+
+        assertEquals(GRID_SIZE * GRID_SIZE + 3, nodes.size());
+        double[] corner = nodes.get(OsmPbfFixture.gridNodeId(GRID_SIZE - 1, GRID_SIZE - 1));
+        assertEquals(GRID_LATITUDE + (GRID_SIZE - 1) * GRID_STEP, corner[0], 1e-7);
+        assertEquals(GRID_LONGITUDE + (GRID_SIZE - 1) * GRID_STEP, corner[1], 1e-7);
+
+        assertEquals(2 * GRID_SIZE + 2, refs.size());
+        assertArrayEquals(new long[] {1000, 1006, 1012, 1018, 1024, 1030}, refs.get(11L));
+        assertArrayEquals(new String[] {"highway", "primary"}, tags.get(1L));
+        assertArrayEquals(new String[] {"highway", "footway"}, tags.get(21L));
+    }
+
+    @Test
+    void readerSkipsElementsItWasNotAskedFor() throws IOException {
+        Path file = OsmPbfFixture.grid().write(dir.resolve("grid.osm.pbf"));
+        int[] counts = new int[2];
+        try (InputStream in = Files.newInputStream(file)) {
+            new OsmPbfReader(false, true).read(in, new OsmPbfReader.Handler() {
+                @Override
+                public void node(long id, double latitude, double longitude) {
+                    counts[0]++;
+                }
+
+                @Override
+                public void way(long id, long[] wayRefs, String[] keys, String[] values) {
+                    counts[1]++;
+                }
+            });
+        }
+        assertEquals(0, counts[0]);
+        assertEquals(2 * GRID_SIZE + 2, counts[1]);
+    }
+
+    @Test
+    void graphKeepsTheConnectedCarNetwork() throws IOException {
+        RoadGraph graph = RoadGraph.fromOsmPbf(OsmPbfFixture.grid().write(dir.resolve("grid.osm.pbf")));
+
+        // Footway and detached road dropped; the one-way row has edges in one direction only
+        assertEquals(GRID_SIZE * GRID_SIZE, graph.nodeCount());
+        int segments = 2 * GRID_SIZE * (GRID_SIZE - 1);
+        assertEquals(2 * segments - (GRID_SIZE - 1), graph.edgeCount());
+        assertEquals(-1, graph.nearestNode(18.60, 73.90, 500));
+        assertEquals(-1, graph.nearestNode(18.49, 73.80, 500));
+
+        int west = gridNode(graph, 0, 0);
+        int east = gridNode(graph, 0, 1);
+        assertTrue(edgeTime(graph, west, east) > 0);
+        assertEquals(-1, edgeTime(graph, east, west));
+
+        // Residential at 20 km/h, the signed column capped at 20 km/h over the class default
+        int residential = edgeTime(graph, gridNode(graph, 1, 4), gridNode(graph, 2, 4));
+        int signed = edgeTime(graph, gridNode(graph, 1, 5), gridNode(graph, 2, 5));
+        assertEquals(2.0, (double) residential / signed, 0.01);
+        assertEquals(GRID_STEP * 111_195 / (20 / 3.6) * 1000, residential, 1000);
+    }
+
+    static int gridNode(RoadGraph graph, int row, int col) {
+        int node = graph.nearestNode(GRID_LATITUDE + row * GRID_STEP, GRID_LONGITUDE + col * GRID_STEP, 10);
+        assertTrue(node >= 0, "no node at grid " + row + "," + col);
+        return node;
+    }
+
+    /** Time of the edge from a to b, or -1 when there is none */
+    static int edgeTime(RoadGraph graph, int a, int b) {
+        for (int e = graph.firstEdge(a); e < graph.firstEdge(a + 1); e++) {
+            if (graph.edgeTarget(e) == b) {
+                return graph.edgeTimeMs(e);
+            }
+        }
+        return -1;
+    }
+}
@@ -97,9 +97,10 @@ CREATE TABLE IF NOT EXISTS predictions (
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
--- Create spatial indexes for location-based queries
-CREATE INDEX IF NOT EXISTS idx_ngos_location ON ngos USING GIST (ST_MakePoint(longitude, latitude));
-CREATE INDEX IF NOT EXISTS idx_donors_location ON donors USING GIST (ST_MakePoint(longitude, latitude));
+-- Stored geography columns and spatial indexes for location-based queries (distances in meters)
+ALTER TABLE users ADD COLUMN IF NOT EXISTS location geography(Point, 4326)
+    GENERATED ALWAYS AS (CAST(ST_SetSRID(ST_MakePoint(longitude, latitude), 4326) AS geography)) STORED;
+CREATE INDEX IF NOT EXISTS idx_users_location ON users USING GIST (location);
 
 -- Create indexes for common queries
 CREATE INDEX IF NOT EXISTS idx_users_email ON users(email);
@@ -1,8 +1,9 @@
 -- Enable PostGIS extension
 CREATE EXTENSION IF NOT EXISTS postgis;
 
+-- Stored geography column for spatial queries (distances in meters)
+ALTER TABLE users ADD COLUMN IF NOT EXISTS location geography(Point, 4326)
+    GENERATED ALWAYS AS (CAST(ST_SetSRID(ST_MakePoint(longitude, latitude), 4326) AS geography)) STORED;
+
 -- Create indexes for spatial queries
-CREATE INDEX IF NOT EXISTS idx_users_location ON users USING GIST (ST_MakePoint(longitude, latitude));
-CREATE INDEX IF NOT EXISTS idx_ngos_location ON ngos USING GIST (ST_MakePoint(longitude, latitude));
-CREATE INDEX IF NOT EXISTS idx_donors_location ON donors USING GIST (ST_MakePoint(longitude, latitude));
-CREATE INDEX IF NOT EXISTS idx_volunteers_location ON volunteers USING GIST (ST_MakePoint(longitude, latitude));
+CREATE INDEX IF NOT EXISTS idx_users_location ON users USING GIST (location);